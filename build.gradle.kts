@@ -27,6 +27,7 @@ dependencies {
     implementation("org.projectlombok:lombok:1.18.36")
     implementation("org.web3j:crypto:4.12.3")
     implementation("com.dylibso.chicory:wasm:0.0.12")
+    implementation("com.dylibso.chicory:runtime:0.0.12")
 
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.11.4")
     testImplementation("org.mockito:mockito-core:5.15.2")
@@ -76,10 +77,23 @@ dependencies {
 }
 
 tasks.getByName<Test>("test") {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
     jvmArgs("-Dnet.bytebuddy.experimental=true")
 }
 
+tasks.register<Test>("benchmark") {
+    description = "Runs the benchmarks."
+    group = "verification"
+    testClassesDirs = sourceSets["test"].output.classesDirs
+    classpath = sourceSets["test"].runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging.showStandardStreams = true
+}
+
 tasks.getByName<Jar>("jar") {
     enabled = false //To remove the build/libs/Fruzhin-ver-plain.jar
 }
\ No newline at end of file
@@ -10,6 +10,8 @@ import com.limechain.network.protocol.blockannounce.NodeRole;
 import com.limechain.prometheus.PrometheusServer;
 import com.limechain.rpc.server.AppBean;
 import com.limechain.rpc.server.RpcApp;
+import com.limechain.runtime.RuntimeProfiler;
+import com.limechain.storage.trie.StatePruner;
 import lombok.extern.java.Log;
 import sun.misc.Signal;
 
@@ -26,7 +28,8 @@ public class Main {
 
         HostConfig hostConfig = AppBean.getBean(HostConfig.class);
 
-        PrometheusServer prometheusServer = new PrometheusServer(hostConfig.getPrometheusPort());
+        PrometheusServer prometheusServer = new PrometheusServer(hostConfig.getPrometheusPort(),
+                AppBean.getBean(RuntimeProfiler.class), AppBean.getBean(StatePruner.class));
         try {
             prometheusServer.start();
         } catch (IOException e) {
@@ -4,7 +4,9 @@ import com.limechain.chain.Chain;
 import com.limechain.exception.misc.CliArgsParseException;
 import com.limechain.network.protocol.blockannounce.NodeRole;
 import com.limechain.rpc.config.RpcMethods;
+import com.limechain.runtime.engine.WasmEngineType;
 import com.limechain.storage.DBInitializer;
+import com.limechain.storage.trie.PruningMode;
 import com.limechain.sync.SyncMode;
 import lombok.Getter;
 import lombok.extern.java.Log;
@@ -36,6 +38,10 @@ public class Cli {
     private static final String NO_LEGACY_PROTOCOLS = "no-legacy-protocols";
     private static final String SYNC_MODE = "sync-mode";
     private static final String PROMETHEUS_PORT = "prometheus-port";
+    private static final String WASM_ENGINE = "wasm-engine";
+    private static final String RUNTIME_PROFILER = "runtime-profiler";
+    private static final String STATE_PRUNING = "state-pruning";
+    private static final String FLAT_STATE = "flat-state";
     // The cli arguments below are added so that Zombienet tests can run.
     // The reason is that Zombienet passes Substrate's cli arguments to every client.
     // This leads to Fruzhin to fail parsing the arguments and it can't start.
@@ -97,6 +103,55 @@ public class Cli {
         }
     }
 
+    /**
+     * Parses the wasm engine used for executing the runtime from command line arguments.
+     * <p>
+     * Defaults to "wasmer" if not specified. Throws an exception for invalid values.
+     *
+     * @param cmd Command line arguments.
+     * @return The selected wasm engine.
+     * @throws CliArgsParseException for invalid wasm engine values.
+     */
+    @NotNull
+    private static WasmEngineType parseWasmEngine(CommandLine cmd) {
+        try {
+            return WasmEngineType.valueOf(cmd.getOptionValue(WASM_ENGINE, "wasmer").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new CliArgsParseException("Invalid wasm engine provided, valid values - WASMER or CHICORY", e);
+        }
+    }
+
+    /**
+     * Parses the state pruning mode from command line arguments.
+     * <p>
+     * Defaults to "archive" if not specified. Throws an exception for invalid values, including 0, which would
+     * otherwise silently keep all states.
+     *
+     * @param cmd Command line arguments.
+     * @return The selected pruning mode.
+     * @throws CliArgsParseException for invalid pruning modes.
+     */
+    @NotNull
+    private static PruningMode parseStatePruning(CommandLine cmd) {
+        String value = cmd.getOptionValue(STATE_PRUNING, "archive");
+        if (value.equalsIgnoreCase("archive")) {
+            return PruningMode.ARCHIVE;
+        }
+
+        int retainedStates;
+        try {
+            retainedStates = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new CliArgsParseException(
+                    "Invalid state pruning provided, valid values - archive or a number of finalized states", e);
+        }
+        if (retainedStates <= 0) {
+            throw new CliArgsParseException("Invalid state pruning provided, the number of finalized states to keep "
+                    + "must be positive, use archive to keep all of them");
+        }
+        return new PruningMode(retainedStates);
+    }
+
     /**
      * Parses node launch arguments.
      *
@@ -122,8 +177,12 @@ public class Cli {
             RpcMethods rpcMethods = parseRpcMethods(cmd, isPublic);
             boolean unsafeEnabled = rpcMethods == RpcMethods.UNSAFE;
             int prometheusPort = Integer.parseInt(cmd.getOptionValue(PROMETHEUS_PORT, "9090"));
+            WasmEngineType wasmEngine = parseWasmEngine(cmd);
+            boolean runtimeProfiler = cmd.hasOption(RUNTIME_PROFILER);
+            PruningMode statePruning = parseStatePruning(cmd);
+            boolean flatState = cmd.hasOption(FLAT_STATE);
             return new CliArguments(network, dbPath, dbRecreate, nodeKey, nodeMode, noLegacyProtocols, syncMode,
-                    unsafeEnabled, prometheusPort);
+                    unsafeEnabled, prometheusPort, wasmEngine, runtimeProfiler, statePruning, flatState);
         } catch (ParseException e) {
             formatter.printHelp("Specify the network name - " + String.join(", ", validChains), options);
             throw new CliArgsParseException("Failed to parse cli arguments", e);
@@ -159,6 +218,14 @@ public class Cli {
                 - safe:   Allow only a safe subset of RPC methods
                 - unsafe: Expose every RPC method (even potentially unsafe ones)""");
         Option prometheusPort = new Option(null, PROMETHEUS_PORT, true, "Prometheus port");
+        Option wasmEngine = new Option(null, WASM_ENGINE, true,
+                "\nWasm engine executing the runtime (wasmer/chicory) - wasmer by default");
+        Option runtimeProfiler = new Option(null, RUNTIME_PROFILER, false,
+                "\nProfile host functions and runtime calls, exported as Prometheus metrics");
+        Option statePruning = new Option(null, STATE_PRUNING, true,
+                "\nStates to keep (archive/positive number of most recent finalized blocks) - archive by default");
+        Option flatState = new Option(null, FLAT_STATE, false,
+                "\nKeep a flat copy of the latest persisted state for faster storage reads");
 
         Option chain = new Option(null, CHAIN, true, "");
         Option name = new Option(null, NAME, true, "");
@@ -179,6 +246,10 @@ public class Cli {
         syncMode.setRequired(false);
         publicRpc.setRequired(false);
         rpcMethods.setRequired(false);
+        wasmEngine.setRequired(false);
+        runtimeProfiler.setRequired(false);
+        statePruning.setRequired(false);
+        flatState.setRequired(false);
 
         chain.setRequired(false);
         name.setRequired(false);
@@ -201,6 +272,10 @@ public class Cli {
         result.addOption(publicRpc);
         result.addOption(rpcMethods);
         result.addOption(prometheusPort);
+        result.addOption(wasmEngine);
+        result.addOption(runtimeProfiler);
+        result.addOption(statePruning);
+        result.addOption(flatState);
 
         result.addOption(chain);
         result.addOption(name);
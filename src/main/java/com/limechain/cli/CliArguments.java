@@ -1,5 +1,7 @@
 package com.limechain.cli;
 
+import com.limechain.runtime.engine.WasmEngineType;
+import com.limechain.storage.trie.PruningMode;
 import com.limechain.sync.SyncMode;
 
 /**
@@ -12,7 +14,13 @@ import com.limechain.sync.SyncMode;
  * @param noLegacyProtocols flag for disabling legacy protocols
  * @param syncMode          the sync mode
  * @param unsafeRpcEnabled  whether to enable unsafe RPC methods
+ * @param wasmEngine        the engine executing the runtime
+ * @param runtimeProfiler   whether to profile host functions and runtime calls
+ * @param statePruning      how many states of finalized blocks to keep
+ * @param flatState         whether to keep a flat copy of the latest persisted state
  */
 public record CliArguments(String network, String dbPath, boolean dbRecreate, String nodeKey, String nodeRole,
-                           boolean noLegacyProtocols, SyncMode syncMode, boolean unsafeRpcEnabled, int prometheusPort) {
+                           boolean noLegacyProtocols, SyncMode syncMode, boolean unsafeRpcEnabled, int prometheusPort,
+                           WasmEngineType wasmEngine, boolean runtimeProfiler, PruningMode statePruning,
+                           boolean flatState) {
 }
@@ -1,6 +1,10 @@
 package com.limechain.exception.misc;
 
 public class CliArgsParseException extends RuntimeException {
+    public CliArgsParseException(String message) {
+        super(message);
+    }
+
     public CliArgsParseException(String message, Throwable cause) {
         super(message, cause);
     }
@@ -25,6 +25,7 @@ import com.limechain.utils.scale.ScaleUtils;
 import io.emeraldpay.polkaj.types.Hash256;
 import io.emeraldpay.polkaj.types.Hash512;
 import jakarta.annotation.Nullable;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.java.Log;
@@ -33,8 +34,6 @@ import org.javatuples.Pair;
 import java.math.BigInteger;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -111,6 +110,10 @@ public class GrandpaRound {
      */
     private boolean isCompletable;
 
+    /**
+     * Votes are added through {@link #addPreVote}, {@link #addPreCommit} and the equivocation counterparts, or
+     * replaced through the setters, so that the vote graphs stay up to date.
+     */
     private Map<Hash256, SignedVote> preVotes = new ConcurrentHashMap<>();
     private Map<Hash256, SignedVote> preCommits = new ConcurrentHashMap<>();
     private Vote primaryVote;
@@ -118,6 +121,13 @@ public class GrandpaRound {
     private Map<Hash256, List<SignedVote>> pvEquivocations = new ConcurrentHashMap<>();
     private Map<Hash256, List<SignedVote>> pcEquivocations = new ConcurrentHashMap<>();
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private VoteGraph preVoteGraph;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private VoteGraph preCommitGraph;
+
     private final List<CommitMessage> commitMessagesArchive = new ArrayList<>();
 
     private final StateManager stateManager = Objects.requireNonNull(AppBean.getBean(StateManager.class));
@@ -135,6 +145,8 @@ public class GrandpaRound {
         this.threshold = threshold;
         this.isPrimaryVoter = isPrimaryVoter;
         this.lastFinalizedBlock = lastFinalizedBlock;
+        this.preVoteGraph = buildVoteGraph(preVotes, pvEquivocations);
+        this.preCommitGraph = buildVoteGraph(preCommits, pcEquivocations);
     }
 
     public void switchStage() {
@@ -323,6 +335,50 @@ public class GrandpaRound {
         return preCommitChoice;
     }
 
+    public void addPreVote(SignedVote signedVote) {
+        preVotes.put(signedVote.getAuthorityPublicKey(), signedVote);
+        preVoteGraph.addVote(signedVote.getAuthorityPublicKey(), signedVote.getVote(),
+                getAuthorityWeight(signedVote.getAuthorityPublicKey()));
+    }
+
+    public void addPreCommit(SignedVote signedVote) {
+        preCommits.put(signedVote.getAuthorityPublicKey(), signedVote);
+        preCommitGraph.addVote(signedVote.getAuthorityPublicKey(), signedVote.getVote(),
+                getAuthorityWeight(signedVote.getAuthorityPublicKey()));
+    }
+
+    public void addPvEquivocation(SignedVote signedVote) {
+        pvEquivocations.computeIfAbsent(signedVote.getAuthorityPublicKey(), _ -> new ArrayList<>()).add(signedVote);
+        preVoteGraph.addEquivocator(signedVote.getAuthorityPublicKey(),
+                getAuthorityWeight(signedVote.getAuthorityPublicKey()));
+    }
+
+    public void addPcEquivocation(SignedVote signedVote) {
+        pcEquivocations.computeIfAbsent(signedVote.getAuthorityPublicKey(), _ -> new ArrayList<>()).add(signedVote);
+        preCommitGraph.addEquivocator(signedVote.getAuthorityPublicKey(),
+                getAuthorityWeight(signedVote.getAuthorityPublicKey()));
+    }
+
+    public void setPreVotes(Map<Hash256, SignedVote> preVotes) {
+        this.preVotes = preVotes;
+        this.preVoteGraph = buildVoteGraph(preVotes, pvEquivocations);
+    }
+
+    public void setPreCommits(Map<Hash256, SignedVote> preCommits) {
+        this.preCommits = preCommits;
+        this.preCommitGraph = buildVoteGraph(preCommits, pcEquivocations);
+    }
+
+    public void setPvEquivocations(Map<Hash256, List<SignedVote>> pvEquivocations) {
+        this.pvEquivocations = pvEquivocations;
+        this.preVoteGraph = buildVoteGraph(preVotes, pvEquivocations);
+    }
+
+    public void setPcEquivocations(Map<Hash256, List<SignedVote>> pcEquivocations) {
+        this.pcEquivocations = pcEquivocations;
+        this.preCommitGraph = buildVoteGraph(preCommits, pcEquivocations);
+    }
+
     public long getPvEquivocationsCount() {
         return this.pvEquivocations.values().stream()
                 .mapToLong(List::size)
@@ -363,7 +419,7 @@ public class GrandpaRound {
     }
 
     private boolean updateGrandpaGhost() {
-        BigInteger preVotesWeight = getVoteWeight(preVotes.values());
+        BigInteger preVotesWeight = preVoteGraph.getTotalWeight();
 
         if (preVotesWeight.compareTo(threshold) < 0) {
             log.fine("updateGrandpaGhost: pre vote weight is lower than threshold");
@@ -372,9 +428,12 @@ public class GrandpaRound {
 
         BlockHeader newGrandpaGhost;
         try {
+            // Pre vote weights only grow unless there are equivocators, so the new GHOST descends from the previous
+            // one and the search starts from it. The vote graph starts from the base once there are equivocators.
             newGrandpaGhost = findGrandpaGhost(weight -> weight.compareTo(threshold) >= 0,
                     SubRound.PRE_VOTE,
-                    getPrevBestFinalCandidate());
+                    getPrevBestFinalCandidate(),
+                    grandpaGhost == null ? null : grandpaGhost.getHash());
         } catch (RuntimeException e) {
             log.warning("updateGrandpaGhost: error when updating grandpa ghost: " + e.getMessage());
             return false;
@@ -396,7 +455,7 @@ public class GrandpaRound {
 
     private boolean updateEstimate() {
 
-        BigInteger pvWeight = getVoteWeight(preVotes.values());
+        BigInteger pvWeight = preVoteGraph.getTotalWeight();
         if (pvWeight.compareTo(threshold) < 0) {
             log.fine("updateEstimate: pre vote weight is lower than threshold");
             return false;
@@ -408,7 +467,7 @@ public class GrandpaRound {
         }
         final BlockHeader pvGhost = grandpaGhost;
 
-        BigInteger pcWeight = getVoteWeight(preCommits.values());
+        BigInteger pcWeight = preCommitGraph.getTotalWeight();
         if (pcWeight.compareTo(threshold) >= 0) {
             finalizedBlock = findBestFinalCandidate(weight -> weight.compareTo(threshold) >= 0,
                     SubRound.PRE_COMMIT,
@@ -444,7 +503,7 @@ public class GrandpaRound {
     private void checkPotentialGhost(Function<BigInteger, Boolean> condition, BlockHeader estimate) {
 
         try {
-            BlockHeader pcGhost = findGrandpaGhost(condition, SubRound.PRE_COMMIT, estimate);
+            BlockHeader pcGhost = findGrandpaGhost(condition, SubRound.PRE_COMMIT, estimate, estimate.getHash());
 
             if (pcGhost.getHash().equals(estimate.getHash())) {
                 isCompletable = true;
@@ -460,61 +519,31 @@ public class GrandpaRound {
 
     /**
      * Finds and returns the best final candidate block for the current round.
-     * The best final candidate is determined by analyzing blocks with more than 2/3 pre-commit votes,
-     * and selecting the block with the highest block number. If no such block exists, the pre-voted
-     * block is returned as the best candidate.
+     * The best final candidate is the highest block among the border block and its ancestors whose pre-commit
+     * weight, including the votes for its descendants, satisfies the condition.
      *
      * @param condition   a boolean expression that serves the purpose of a customizable threshold.
      * @param round       the subround that we check votes against a condition for.
      * @param borderBlock the anchor block from which we start traversing backwards.
      * @return the best final candidate block
+     * @throws EstimateExecutionException if no block matches the condition.
      */
     private BlockHeader findBestFinalCandidate(Function<BigInteger, Boolean> condition,
                                                SubRound round,
                                                BlockHeader borderBlock) {
-        BlockState blockState = stateManager.getBlockState();
-
         if (roundNumber.equals(BigInteger.ZERO)) {
             return grandpaGhost;
         }
 
-        Map<Hash256, BigInteger> possibleSelectedBlocks = getPossibleSelectedBlocks(
-                condition,
-                round
-        );
-
-        if (possibleSelectedBlocks.isEmpty()) {
+        Vote candidate = getVoteGraph(round).findAncestor(borderBlock.getHash(), condition);
+        if (candidate == null) {
             throw new EstimateExecutionException("Estimate not found.");
         }
 
-        var bestFinalCandidate = lastFinalizedBlock;
-
-        for (Map.Entry<Hash256, BigInteger> block : possibleSelectedBlocks.entrySet()) {
-
-            Hash256 blockHash = block.getKey();
-
-            boolean isDescendant = blockState.isDescendantOf(blockHash, borderBlock.getHash());
-
-            if (!isDescendant) {
-
-                Hash256 lowestCommonAncestor;
-                try {
-                    lowestCommonAncestor = blockState.lowestCommonAncestor(blockHash, borderBlock.getHash());
-                } catch (IllegalArgumentException e) {
-                    log.warning("Error finding the lowest common ancestor: " + e.getMessage());
-                    continue;
-                }
-
-                blockHash = lowestCommonAncestor;
-            }
-
-            BlockHeader header = BlockHeader.fromHash(blockHash);
-            if (header.getBlockNumber().compareTo(bestFinalCandidate.getBlockNumber()) > 0) {
-                bestFinalCandidate = header;
-            }
+        if (candidate.getBlockNumber().compareTo(lastFinalizedBlock.getBlockNumber()) <= 0) {
+            return lastFinalizedBlock;
         }
-
-        return bestFinalCandidate;
+        return stateManager.getBlockState().getHeader(candidate.getBlockHash());
     }
 
     private Function<BigInteger, Boolean> getPotentialCondition() {
@@ -522,11 +551,11 @@ public class GrandpaRound {
         GrandpaSetState grandpaSetState = stateManager.getGrandpaSetState();
 
         BigInteger totalAuthWeight = grandpaSetState.getAuthoritiesTotalWeight();
-        BigInteger totalPcWeight = getVoteWeight(preCommits.values());
+        BigInteger totalPcWeight = preCommitGraph.getTotalWeight();
 
         // Calculate how many more pre commit equivocations we are allowed to receive.
         BigInteger totalAllowedEqs = totalAuthWeight.subtract(threshold);
-        BigInteger currentEqs = BigInteger.valueOf(getPcEquivocationsCount());
+        BigInteger currentEqs = preCommitGraph.getEquivocatorWeight();
         BigInteger remainingAllowedEqs = totalAllowedEqs.subtract(currentEqs);
 
         // Calculate how many more pre commits we can expect.
@@ -546,244 +575,69 @@ public class GrandpaRound {
     }
 
     /**
-     * Finds and returns the block with the most votes in the GRANDPA pre-vote stage.
-     * If there are multiple blocks with the same number of votes, selects the block with the highest number.
-     * If no block meets the criteria, throws an exception indicating no valid GHOST candidate.
+     * Finds and returns the highest block whose weight, including the votes for its descendants, satisfies the
+     * condition. If no block higher than the current best one matches, the current best one is returned.
      *
      * @param condition   a boolean expression that serves the purpose of a customizable threshold.
      * @param subround    the subround that we check votes against a condition for.
-     * @param currentBest the anchor block from which we start traversing forward.
-     * @return GRANDPA GHOST block as a vote.
+     * @param currentBest the block returned if no higher block matches the condition.
+     * @param from        the block from which we start traversing forward, usually the previous result.
+     * @return GRANDPA GHOST block.
      * @throws GhostExecutionException if no blocks match the condition.
      **/
     private BlockHeader findGrandpaGhost(Function<BigInteger, Boolean> condition,
                                          SubRound subround,
-                                         BlockHeader currentBest) {
+                                         BlockHeader currentBest,
+                                         @Nullable Hash256 from) {
 
         if (roundNumber.equals(BigInteger.ZERO)) {
             return lastFinalizedBlock;
         }
 
-        Map<Hash256, BigInteger> blocks = getPossibleSelectedBlocks(condition, subround);
-
-        if (blocks.isEmpty() || threshold.equals(BigInteger.ZERO)) {
+        if (threshold.equals(BigInteger.ZERO)) {
             throw new GhostExecutionException("GHOST not found");
         }
 
-        return selectBlockWithMostVotes(blocks, currentBest);
-    }
-
-    /**
-     * Selects the block with the most votes from the provided map of blocks.
-     * If multiple blocks have the same number of votes, it returns the one with the highest block number.
-     * Starts with the last finalized block as the initial candidate.
-     *
-     * @param blocks map of block that exceed the required threshold
-     * @param start  the anchor block from which we start traversing forward.
-     * @return the block with the most votes from the provided map
-     */
-    private BlockHeader selectBlockWithMostVotes(Map<Hash256, BigInteger> blocks, BlockHeader start) {
-
-        BlockHeader highest = start;
-
-        for (Map.Entry<Hash256, BigInteger> entry : blocks.entrySet()) {
-            Hash256 currentHash = entry.getKey();
-            BigInteger number = entry.getValue();
-
-            if (number.compareTo(highest.getBlockNumber()) > 0) {
-                highest = BlockHeader.fromHash(currentHash);
-            }
-        }
-
-        return highest;
-    }
-
-    /**
-     * Returns blocks with total votes over the threshold in a map of block hash to block number.
-     * If no blocks meet the threshold directly, recursively searches their ancestors for blocks with enough votes.
-     * Ancestors are included if their combined votes (including votes for their descendants) exceed the threshold.
-     *
-     * @param condition a boolean expression that serves the purpose of a customizable threshold.
-     * @param subround  stage of the GRANDPA process, such as {@link SubRound#PRE_VOTE},
-     *                  {@link SubRound#PRE_COMMIT} or {@link SubRound#PRIMARY_PROPOSAL}.
-     * @return blocks that exceed the required vote threshold
-     */
-    private Map<Hash256, BigInteger> getPossibleSelectedBlocks(Function<BigInteger, Boolean> condition,
-                                                               SubRound subround) {
-
-        //TODO We can reverse order this by block num.
-        HashMap<Vote, Long> votes = getDirectVotes(subround);
-
-        var blocks = new HashMap<Hash256, BigInteger>();
-
-        for (Vote vote : votes.keySet()) {
-            long totalVotes = getTotalVotesForBlock(vote.getBlockHash(), subround);
-
-            if (condition.apply(BigInteger.valueOf(totalVotes))) {
-                blocks.put(vote.getBlockHash(), vote.getBlockNumber());
-            }
-        }
-
-        if (!blocks.isEmpty()) {
-            return blocks;
+        Vote ghost = getVoteGraph(subround).findGhost(from, condition);
+        if (ghost == null) {
+            throw new GhostExecutionException("GHOST not found");
         }
 
-        // List of all unique votes. (probably one per voted block)
-        List<Vote> allVotes = getVotes(subround);
-        for (Vote vote : votes.keySet()) {
-            blocks = new HashMap<>(
-                    getPossibleSelectedAncestors(allVotes,
-                            vote.getBlockHash(),
-                            blocks,
-                            subround,
-                            condition
-                    )
-            );
+        if (ghost.getBlockNumber().compareTo(currentBest.getBlockNumber()) <= 0) {
+            return currentBest;
         }
-
-        return blocks;
+        return stateManager.getBlockState().getHeader(ghost.getBlockHash());
     }
 
-    /**
-     * Recursively searches for ancestors with more than 2/3 votes.
-     *
-     * @param votes            List of all unique votes. (probably one per voted block)
-     * @param currentBlockHash hash of a block that has a vote in this round.
-     * @param selected         currently selected block hashes that exceed the required vote threshold (FOR SOME REASON THIS IS REASSIGNED IN METHOD)
-     * @param subround         stage of the GRANDPA process, such as PREVOTE, PRECOMMIT or PRIMARY_PROPOSAL.
-     * @param condition        a boolean expression that serves the purpose of a customizable threshold.
-     * @return map of block hash to block number for ancestors meeting the threshold condition.
-     */
-    private Map<Hash256, BigInteger> getPossibleSelectedAncestors(List<Vote> votes,
-                                                                  Hash256 currentBlockHash,
-                                                                  Map<Hash256, BigInteger> selected,
-                                                                  SubRound subround,
-                                                                  Function<BigInteger, Boolean> condition) {
-
-        BlockState blockState = stateManager.getBlockState();
-        for (Vote vote : votes) {
-            if (vote.getBlockHash().equals(currentBlockHash)) {
-                continue;
-            }
-
-            Hash256 ancestorBlockHash;
-            try {
-                ancestorBlockHash = blockState.lowestCommonAncestor(vote.getBlockHash(), currentBlockHash);
-            } catch (IllegalArgumentException | BlockStorageGenericException e) {
-                log.warning("Error finding the lowest common ancestor: " + e.getMessage());
-                continue;
-            }
-
-            // Happens when currentBlock is ancestor of the block in the vote
-            if (ancestorBlockHash.equals(currentBlockHash)) {
-                return selected;
-            }
-
-            long totalVotes = getTotalVotesForBlock(ancestorBlockHash, subround);
-
-            if (condition.apply(BigInteger.valueOf(totalVotes))) {
-
-                BlockHeader header = blockState.getHeader(ancestorBlockHash);
-                selected.put(ancestorBlockHash, header.getBlockNumber());
-
-            } else {
-                // Recursively process ancestors
-                selected = getPossibleSelectedAncestors(votes,
-                        ancestorBlockHash,
-                        selected,
-                        subround,
-                        condition
-                );
-            }
-        }
-
-        return selected;
-    }
-
-    /**
-     * Calculates the total votes for a block, including observed votes and equivocations,
-     * in the specified subround.
-     *
-     * @param blockHash hash of the block
-     * @param subround  stage of the GRANDPA process, such as PREVOTE, PRECOMMIT or PRIMARY_PROPOSAL.
-     * @return total votes for a specific block
-     */
-    private long getTotalVotesForBlock(Hash256 blockHash, SubRound subround) {
-        long votesForBlock = getObservedVotesForBlock(blockHash, subround);
-
-        if (votesForBlock == 0L) {
-            return 0L;
-        }
-
-        //TODO check if we have to retrieve only weight of equivocator (1) or actual number of eq votes.
-        long equivocationCount = switch (subround) {
-            case SubRound.PRE_VOTE -> getPvEquivocationsCount();
-            case SubRound.PRE_COMMIT -> getPcEquivocationsCount();
-            default -> 0;
+    private VoteGraph getVoteGraph(SubRound subround) {
+        return switch (subround) {
+            case SubRound.PRE_VOTE -> preVoteGraph;
+            case SubRound.PRE_COMMIT -> preCommitGraph;
+            default -> throw new GrandpaGenericException("No votes are tracked for subround: " + subround);
         };
-
-        return votesForBlock + equivocationCount;
-    }
-
-    /**
-     * Calculates the total observed votes for a block, including direct votes and votes from
-     * its descendants, in the specified subround.
-     *
-     * @param blockHash hash of the block
-     * @param subround  stage of the GRANDPA process, such as PREVOTE, PRECOMMIT or PRIMARY_PROPOSAL.
-     * @return total observed votes
-     */
-    private long getObservedVotesForBlock(Hash256 blockHash, SubRound subround) {
-        //TODO we can use BlockState.getAllDescendants() and limit to only
-        // descendants instead of checking on each iteration.
-        HashMap<Vote, Long> votes = getDirectVotes(subround);
-        long votesForBlock = 0L;
-
-        for (Map.Entry<Vote, Long> entry : votes.entrySet()) {
-            Vote vote = entry.getKey();
-            Long count = entry.getValue();
-
-            if (stateManager.getBlockState().isDescendantOf(blockHash, vote.getBlockHash())) {
-                votesForBlock += count;
-            }
-        }
-
-        return votesForBlock;
     }
 
-    private List<Vote> getVotes(SubRound subround) {
-        HashMap<Vote, Long> votes = getDirectVotes(subround);
-        return new ArrayList<>(votes.keySet());
+    private VoteGraph buildVoteGraph(Map<Hash256, SignedVote> votes, Map<Hash256, List<SignedVote>> equivocations) {
+        VoteGraph voteGraph = new VoteGraph(lastFinalizedBlock.getHash(), lastFinalizedBlock.getBlockNumber(),
+                this::findHeader);
+        equivocations.keySet().forEach(authority -> voteGraph.addEquivocator(authority, getAuthorityWeight(authority)));
+        votes.values().forEach(vote -> voteGraph.addVote(vote.getAuthorityPublicKey(), vote.getVote(),
+                getAuthorityWeight(vote.getAuthorityPublicKey())));
+        return voteGraph;
     }
 
-    /**
-     * Aggregates direct (explicit) votes for a given subround into a map of Vote to their count
-     *
-     * @param subround stage of the GRANDPA process, such as PREVOTE, PRECOMMIT or PRIMARY_PROPOSAL.
-     * @return map of direct votes
-     */
-    private HashMap<Vote, Long> getDirectVotes(SubRound subround) {
-        var voteCounts = new HashMap<Vote, Long>();
-
-        Map<Hash256, SignedVote> votes = switch (subround) {
-            case SubRound.PRE_VOTE -> getPreVotes();
-            case SubRound.PRE_COMMIT -> getPreCommits();
-            default -> new HashMap<>();
-        };
-
-        votes.values().forEach(vote -> voteCounts.merge(vote.getVote(), 1L, Long::sum));
-
-        return voteCounts;
+    @Nullable
+    private BlockHeader findHeader(Hash256 blockHash) {
+        try {
+            return stateManager.getBlockState().getHeader(blockHash);
+        } catch (BlockStorageGenericException e) {
+            return null;
+        }
     }
 
-    private BigInteger getVoteWeight(Collection<SignedVote> votes) {
-        BigInteger voteWeight = BigInteger.ZERO;
-
-        for (SignedVote vote : votes) {
-            Optional<BigInteger> authorityWeight = stateManager.getGrandpaSetState()
-                    .getAuthorityWeight(vote.getAuthorityPublicKey());
-            voteWeight = voteWeight.add(authorityWeight.orElse(BigInteger.ZERO));
-        }
-        return voteWeight;
+    private BigInteger getAuthorityWeight(Hash256 authorityPublicKey) {
+        return stateManager.getGrandpaSetState()
+                .getAuthorityWeight(authorityPublicKey)
+                .orElse(BigInteger.ZERO);
     }
 }
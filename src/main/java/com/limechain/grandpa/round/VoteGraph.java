@@ -0,0 +1,283 @@
+package com.limechain.grandpa.round;
+
+import com.limechain.grandpa.vote.Vote;
+import com.limechain.network.protocol.warp.dto.BlockHeader;
+import io.emeraldpay.polkaj.types.Hash256;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Tree of the blocks voted for in a GRANDPA subround, rooted at the last finalized block of the round.
+ * <p>
+ * Every node holds the weight of the votes for its block and all of its descendants. A vote adds its weight to the
+ * voted block and its ancestors once, when it arrives, so GHOST and estimate queries only walk the path from a
+ * starting block instead of recounting all votes. The weight of equivocators is tracked separately and counted for
+ * every block with votes. Votes for blocks which are not known yet are kept aside and placed once their headers can
+ * be found.
+ * <p>
+ * Thread safe.
+ */
+class VoteGraph {
+
+    private final Node base;
+    private final Map<Hash256, Node> nodes = new HashMap<>();
+    private final Function<Hash256, BlockHeader> headerLookup;
+
+    private final Map<Hash256, CastVote> votes = new HashMap<>();
+    private final Map<Hash256, CastVote> pendingVotes = new LinkedHashMap<>();
+    private final Set<Hash256> equivocators = new HashSet<>();
+
+    private BigInteger totalWeight = BigInteger.ZERO;
+    private BigInteger equivocatorWeight = BigInteger.ZERO;
+
+    /**
+     * @param baseHash     hash of the block all counted votes descend from
+     * @param baseNumber   number of the base block
+     * @param headerLookup returns the header of a block, or null if the block is unknown
+     */
+    VoteGraph(Hash256 baseHash, BigInteger baseNumber, Function<Hash256, BlockHeader> headerLookup) {
+        this.base = new Node(baseHash, baseNumber, null);
+        this.headerLookup = headerLookup;
+        nodes.put(baseHash, base);
+    }
+
+    /**
+     * Adds the vote of an authority. A second vote for a different block marks the authority as an equivocator.
+     *
+     * @param authority public key of the voter
+     * @param vote      the voted block
+     * @param weight    weight of the voter
+     */
+    synchronized void addVote(Hash256 authority, Vote vote, BigInteger weight) {
+        if (equivocators.contains(authority)) {
+            return;
+        }
+
+        CastVote existing = votes.get(authority);
+        if (existing != null) {
+            if (!existing.vote.getBlockHash().equals(vote.getBlockHash())) {
+                addEquivocator(authority, weight);
+            }
+            return;
+        }
+
+        CastVote castVote = new CastVote(vote, weight);
+        votes.put(authority, castVote);
+        totalWeight = totalWeight.add(weight);
+        if (!place(castVote)) {
+            pendingVotes.put(authority, castVote);
+        }
+    }
+
+    /**
+     * Marks an authority as an equivocator. Its vote, if any, stops counting for the voted block, and its weight is
+     * counted for every block with votes instead.
+     *
+     * @param authority public key of the equivocator
+     * @param weight    weight of the equivocator
+     */
+    synchronized void addEquivocator(Hash256 authority, BigInteger weight) {
+        if (!equivocators.add(authority)) {
+            return;
+        }
+
+        CastVote existing = votes.remove(authority);
+        if (existing == null) {
+            totalWeight = totalWeight.add(weight);
+        } else {
+            pendingVotes.remove(authority);
+            if (existing.node != null) {
+                addWeight(existing.node, existing.weight.negate());
+            }
+            totalWeight = totalWeight.subtract(existing.weight).add(weight);
+        }
+        equivocatorWeight = equivocatorWeight.add(weight);
+    }
+
+    /**
+     * @return the weight of all voters, including equivocators and votes for unknown blocks
+     */
+    synchronized BigInteger getTotalWeight() {
+        return totalWeight;
+    }
+
+    synchronized BigInteger getEquivocatorWeight() {
+        return equivocatorWeight;
+    }
+
+    /**
+     * @return the weight of the votes for the block and its descendants plus the equivocator weight, or zero if there
+     * are no such votes
+     */
+    synchronized BigInteger getWeight(Hash256 blockHash) {
+        placePendingVotes();
+        Node node = nodes.get(blockHash);
+        return node == null ? BigInteger.ZERO : weightOf(node);
+    }
+
+    /**
+     * Finds the highest block satisfying the condition, walking down from the starting block. The starting block
+     * should be the previous result for the same condition, which the new result descends from as long as the weights
+     * only grew since.
+     * <p>
+     * That no longer holds once there are equivocators: their vote is taken away from the voted block and their weight
+     * is counted for every branch with votes, so a sibling branch may outweigh the previous result while it still
+     * satisfies the condition. The walk then starts from the base.
+     *
+     * @param from      block to start from, the base is used if it is unknown, doesn't satisfy the condition or
+     *                  there are equivocators
+     * @param condition a condition on the weight of a block, which also holds for its ancestors if it holds for it
+     * @return the highest block satisfying the condition, or null if even the base doesn't
+     */
+    synchronized Vote findGhost(Hash256 from, Function<BigInteger, Boolean> condition) {
+        placePendingVotes();
+
+        Node node = from == null || !equivocators.isEmpty() ? null : nodes.get(from);
+        if (node == null || !condition.apply(weightOf(node))) {
+            node = base;
+        }
+        if (!condition.apply(weightOf(node))) {
+            return null;
+        }
+
+        while (true) {
+            Node next = null;
+            BigInteger nextWeight = BigInteger.ZERO;
+            for (Node child : node.children) {
+                BigInteger childWeight = weightOf(child);
+                if (condition.apply(childWeight) && (next == null || childWeight.compareTo(nextWeight) > 0)) {
+                    next = child;
+                    nextWeight = childWeight;
+                }
+            }
+            if (next == null) {
+                return node.toVote();
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Finds the highest block satisfying the condition among the starting block and its ancestors.
+     *
+     * @param from      block to start from, doesn't have to have votes
+     * @param condition a condition on the weight of a block
+     * @return the highest block satisfying the condition, or null if the starting block is unknown, doesn't
+     * descend from the base or none of its ancestors satisfies the condition
+     */
+    synchronized Vote findAncestor(Hash256 from, Function<BigInteger, Boolean> condition) {
+        placePendingVotes();
+
+        Node node;
+        Hash256 current = from;
+        while ((node = nodes.get(current)) == null) {
+            BlockHeader header = headerLookup.apply(current);
+            if (header == null || header.getBlockNumber().compareTo(base.number) <= 0) {
+                return null;
+            }
+            current = header.getParentHash();
+        }
+
+        for (; node != null; node = node.parent) {
+            if (condition.apply(weightOf(node))) {
+                return node.toVote();
+            }
+        }
+        return null;
+    }
+
+    private BigInteger weightOf(Node node) {
+        return node.weight.signum() > 0 ? node.weight.add(equivocatorWeight) : BigInteger.ZERO;
+    }
+
+    private void placePendingVotes() {
+        Iterator<CastVote> iterator = pendingVotes.values().iterator();
+        while (iterator.hasNext()) {
+            if (place(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Adds the nodes between the voted block and the graph, then adds the vote weight to the voted block and its
+     * ancestors.
+     *
+     * @return false if the voted block or one of its ancestors is unknown, so placing should be retried later
+     */
+    private boolean place(CastVote castVote) {
+        Deque<Node> path = new ArrayDeque<>();
+        Hash256 current = castVote.vote.getBlockHash();
+        Node parent;
+        while ((parent = nodes.get(current)) == null) {
+            BlockHeader header = headerLookup.apply(current);
+            if (header == null) {
+                return false;
+            }
+            if (header.getBlockNumber().compareTo(base.number) <= 0) {
+                // Not a descendant of the base, the vote doesn't count for any block
+                return true;
+            }
+            path.push(new Node(current, header.getBlockNumber(), null));
+            current = header.getParentHash();
+        }
+
+        while (!path.isEmpty()) {
+            Node node = path.pop();
+            node.parent = parent;
+            parent.children.add(node);
+            nodes.put(node.hash, node);
+            parent = node;
+        }
+
+        castVote.node = parent;
+        addWeight(parent, castVote.weight);
+        return true;
+    }
+
+    private static void addWeight(Node node, BigInteger weight) {
+        for (Node current = node; current != null; current = current.parent) {
+            current.weight = current.weight.add(weight);
+        }
+    }
+
+    private static class Node {
+        private final Hash256 hash;
+        private final BigInteger number;
+        private final List<Node> children = new ArrayList<>();
+        private Node parent;
+        private BigInteger weight = BigInteger.ZERO;
+
+        private Node(Hash256 hash, BigInteger number, Node parent) {
+            this.hash = hash;
+            this.number = number;
+            this.parent = parent;
+        }
+
+        private Vote toVote() {
+            return new Vote(hash, number);
+        }
+    }
+
+    private static class CastVote {
+        private final Vote vote;
+        private final BigInteger weight;
+        private Node node;
+
+        private CastVote(Vote vote, BigInteger weight) {
+            this.vote = vote;
+            this.weight = weight;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.limechain.chain.ChainService;
 import com.limechain.cli.CliArguments;
 import com.limechain.config.HostConfig;
 import com.limechain.constants.GenesisBlockHash;
+import com.limechain.network.dto.PeerInfo;
 import com.limechain.network.kad.KademliaService;
 import com.limechain.network.protocol.blockannounce.BlockAnnounceService;
 import com.limechain.network.protocol.blockannounce.NodeRole;
@@ -36,6 +37,7 @@ import org.peergos.protocol.IdentifyBuilder;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.Collections;
 import java.util.List;
@@ -246,6 +248,29 @@ public class NetworkService implements NodeService {
                 .skip(RANDOM.nextInt(connectionManager.getPeerIds().size())).findAny().orElse(null);
     }
 
+    /**
+     * Gets the connected peers that announced a best block of at least the given number, or whose best block isn't
+     * known yet. Falls back to the currently selected peer if there are none.
+     *
+     * @param blockNumber the number of the block the peers should have
+     * @return peers to request the block from
+     */
+    public List<PeerId> getPeersWithBlock(BigInteger blockNumber) {
+        List<PeerId> peers = List.copyOf(connectionManager.getPeerIds()).stream()
+                .filter(peerId -> {
+                    PeerInfo peerInfo = connectionManager.getPeerInfo(peerId);
+                    return peerInfo == null
+                            || peerInfo.getBestBlock() == null
+                            || peerInfo.getBestBlock().compareTo(blockNumber) >= 0;
+                })
+                .toList();
+
+        if (peers.isEmpty() && currentSelectedPeer != null) {
+            return List.of(currentSelectedPeer);
+        }
+        return peers;
+    }
+
     public String getPeerId() {
         return this.host.getPeerId().toString();
     }
@@ -16,6 +16,7 @@ import com.limechain.utils.async.AsyncExecutor;
 import com.limechain.utils.scale.ScaleUtils;
 import io.emeraldpay.polkaj.scale.ScaleCodecReader;
 import io.emeraldpay.polkaj.types.Hash256;
+import io.libp2p.core.PeerId;
 import lombok.extern.java.Log;
 import org.springframework.stereotype.Component;
 
@@ -79,6 +80,24 @@ public class PeerRequester {
                 });
     }
 
+    /**
+     * Requests blocks from a specific peer, without retrying on another peer if the request fails.
+     *
+     * @param peerId      The peer to request the blocks from.
+     * @param field       fields to request.
+     * @param startNumber The block number to start fetching from.
+     * @param amount      The number of blocks to fetch.
+     * @return A future completed with the received blocks or exceptionally if the request failed.
+     */
+    public CompletableFuture<List<Block>> requestBlocksFromPeer(PeerId peerId,
+                                                                BlockRequestField field,
+                                                                int startNumber,
+                                                                int amount) {
+        return asyncExecutor.executeAsync(() -> remoteBlockRequest(peerId, field, startNumber, null, amount).stream()
+                .map(PeerRequester::protobufDecodeBlock)
+                .toList());
+    }
+
     /**
      * @param field       fields to request.
      * @param startNumber The block number to start fetching from.
@@ -91,20 +110,7 @@ public class PeerRequester {
                                                       Hash256 startHash,
                                                       int amount) {
         try {
-            BlockRequestDto request = new BlockRequestDto(
-                    field.getValue(),
-                    startHash,
-                    startNumber,
-                    SyncMessage.Direction.Ascending,
-                    amount
-            );
-
-            SyncMessage.BlockResponse response = network.getSyncService().getProtocol().remoteBlockRequest(
-                    network.getHost(),
-                    network.getCurrentSelectedPeer(),
-                    request);
-
-            return response.getBlocksList();
+            return remoteBlockRequest(network.getCurrentSelectedPeer(), field, startNumber, startHash, amount);
         } catch (Exception ex) {
             log.fine("Error while fetching blocks, trying to fetch again");
             if (!this.network.updateCurrentSelectedPeerWithNextBootnode()) {
@@ -114,6 +120,27 @@ public class PeerRequester {
         }
     }
 
+    private List<SyncMessage.BlockData> remoteBlockRequest(PeerId peerId,
+                                                           BlockRequestField field,
+                                                           Integer startNumber,
+                                                           Hash256 startHash,
+                                                           int amount) {
+        BlockRequestDto request = new BlockRequestDto(
+                field.getValue(),
+                startHash,
+                startNumber,
+                SyncMessage.Direction.Ascending,
+                amount
+        );
+
+        SyncMessage.BlockResponse response = network.getSyncService().getProtocol().remoteBlockRequest(
+                network.getHost(),
+                peerId,
+                request);
+
+        return response.getBlocksList();
+    }
+
     private static Block protobufDecodeBlock(SyncMessage.BlockData blockData) {
         // Decode the block header
         var encodedHeader = blockData.getHeader().toByteArray();
@@ -107,11 +107,11 @@ public class GrandpaMessageHandler {
         }
 
         switch (subround) {
-            case PRE_VOTE -> round.getPreVotes().put(signedMessage.getAuthorityPublicKey(), signedVote);
-            case PRE_COMMIT -> round.getPreCommits().put(signedMessage.getAuthorityPublicKey(), signedVote);
+            case PRE_VOTE -> round.addPreVote(signedVote);
+            case PRE_COMMIT -> round.addPreCommit(signedVote);
             case PRIMARY_PROPOSAL -> {
                 round.setPrimaryVote(signedVote.getVote());
-                round.getPreVotes().put(signedMessage.getAuthorityPublicKey(), signedVote);
+                round.addPreVote(signedVote);
             }
             default -> throw new GrandpaGenericException("Unknown subround: " + subround);
         }
@@ -141,9 +141,6 @@ public class GrandpaMessageHandler {
         Map<Hash256, SignedVote> votes = PRE_COMMIT.equals(subRound)
                 ? round.getPreCommits()
                 : round.getPreVotes();
-        Map<Hash256, List<SignedVote>> equivocations = PRE_COMMIT.equals(subRound)
-                ? round.getPcEquivocations()
-                : round.getPvEquivocations();
 
         Hash256 authorityPublicKey = signedVote.getAuthorityPublicKey();
 
@@ -162,7 +159,11 @@ public class GrandpaMessageHandler {
 
             BlockState blockState = stateManager.getBlockState();
             Runtime runtime = blockState.getRuntime(blockState.getHighestFinalizedHash());
-            equivocations.computeIfAbsent(authorityPublicKey, _ -> new ArrayList<>()).add(signedVote);
+            if (PRE_COMMIT.equals(subRound)) {
+                round.addPcEquivocation(signedVote);
+            } else {
+                round.addPvEquivocation(signedVote);
+            }
             GrandpaEquivocation grandpaEquivocation =
                     GrandpaEquivocation.builder().
                             setId(voteMessageSetId).
@@ -1,6 +1,10 @@
 package com.limechain.prometheus;
 
+import com.limechain.runtime.RuntimeProfiler;
+import com.limechain.storage.trie.StatePruner;
+import io.prometheus.metrics.core.metrics.CounterWithCallback;
 import io.prometheus.metrics.core.metrics.Gauge;
+import io.prometheus.metrics.core.metrics.GaugeWithCallback;
 import io.prometheus.metrics.exporter.httpserver.HTTPServer;
 import io.prometheus.metrics.instrumentation.jvm.JvmMetrics;
 import io.prometheus.metrics.model.snapshots.Unit;
@@ -11,12 +15,20 @@ import java.util.logging.Level;
 
 @Log
 public class PrometheusServer {
+    private static final String FUNCTION_LABEL = "function";
+    private static final String API_LABEL = "api";
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
     private final int port;
+    private final RuntimeProfiler runtimeProfiler;
+    private final StatePruner statePruner;
     private HTTPServer server;
     private Gauge startTimeGauge;
 
-    public PrometheusServer(int port) {
+    public PrometheusServer(int port, RuntimeProfiler runtimeProfiler, StatePruner statePruner) {
         this.port = port;
+        this.runtimeProfiler = runtimeProfiler;
+        this.statePruner = statePruner;
     }
 
     public HTTPServer start() throws IOException {
@@ -50,5 +62,82 @@ public class PrometheusServer {
                 .help("Number of seconds between the UNIX epoch and the moment the process started.")
                 .unit(Unit.SECONDS)
                 .register();
+
+        GaugeWithCallback.builder()
+                .name("fruzhin_database_disk_usage_bytes")
+                .help("Estimated space taken by the database on disk.")
+                .unit(Unit.BYTES)
+                .callback(callback -> callback.call(statePruner.diskUsage()))
+                .register();
+
+        if (runtimeProfiler.isEnabled()) {
+            registerRuntimeProfilerMetrics();
+        }
+        if (!statePruner.getMode().isArchive()) {
+            registerStatePruningMetrics();
+        }
+    }
+
+    private void registerStatePruningMetrics() {
+        GaugeWithCallback.builder()
+                .name("fruzhin_state_pruning_pending_states")
+                .help("Number of states waiting to be deleted by state pruning.")
+                .callback(callback -> callback.call(statePruner.pendingStates()))
+                .register();
+        GaugeWithCallback.builder()
+                .name("fruzhin_state_pruning_lag_blocks")
+                .help("Number of blocks by which the deletion of finalized states outside the window is behind.")
+                .callback(callback -> callback.call(statePruner.lag()))
+                .register();
+    }
+
+    private void registerRuntimeProfilerMetrics() {
+        CounterWithCallback.builder()
+                .name("fruzhin_host_function_calls")
+                .help("Number of host function calls made by the runtime.")
+                .labelNames(FUNCTION_LABEL)
+                .callback(callback -> runtimeProfiler.hostFunctionTotals().forEach((endpoint, totals) ->
+                        callback.call(totals.calls(), endpoint.getFunctionName())))
+                .register();
+        CounterWithCallback.builder()
+                .name("fruzhin_host_function_seconds")
+                .help("Time spent executing host functions.")
+                .unit(Unit.SECONDS)
+                .labelNames(FUNCTION_LABEL)
+                .callback(callback -> runtimeProfiler.hostFunctionTotals().forEach((endpoint, totals) ->
+                        callback.call(totals.nanos() / NANOS_PER_SECOND, endpoint.getFunctionName())))
+                .register();
+        CounterWithCallback.builder()
+                .name("fruzhin_host_function_read_bytes")
+                .help("Bytes read from the runtime memory by host functions.")
+                .unit(Unit.BYTES)
+                .labelNames(FUNCTION_LABEL)
+                .callback(callback -> runtimeProfiler.hostFunctionTotals().forEach((endpoint, totals) ->
+                        callback.call(totals.bytesRead(), endpoint.getFunctionName())))
+                .register();
+        CounterWithCallback.builder()
+                .name("fruzhin_host_function_written_bytes")
+                .help("Bytes written to the runtime memory by host functions.")
+                .unit(Unit.BYTES)
+                .labelNames(FUNCTION_LABEL)
+                .callback(callback -> runtimeProfiler.hostFunctionTotals().forEach((endpoint, totals) ->
+                        callback.call(totals.bytesWritten(), endpoint.getFunctionName())))
+                .register();
+
+        CounterWithCallback.builder()
+                .name("fruzhin_runtime_api_calls")
+                .help("Number of runtime API calls.")
+                .labelNames(API_LABEL)
+                .callback(callback -> runtimeProfiler.runtimeCallTotals().forEach((function, totals) ->
+                        callback.call(totals.calls(), function)))
+                .register();
+        CounterWithCallback.builder()
+                .name("fruzhin_runtime_api_call_seconds")
+                .help("Time spent executing runtime API calls, including their host function calls.")
+                .unit(Unit.SECONDS)
+                .labelNames(API_LABEL)
+                .callback(callback -> runtimeProfiler.runtimeCallTotals().forEach((function, totals) ->
+                        callback.call(totals.nanos() / NANOS_PER_SECOND, function)))
+                .register();
     }
 }
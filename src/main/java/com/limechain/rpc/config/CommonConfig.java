@@ -13,13 +13,19 @@ import com.limechain.network.NetworkService;
 import com.limechain.network.PeerMessageCoordinator;
 import com.limechain.network.PeerRequester;
 import com.limechain.rpc.server.UnsafeInterceptor;
+import com.limechain.runtime.PrecompiledModuleStore;
 import com.limechain.runtime.RuntimeBuilder;
+import com.limechain.runtime.RuntimeFactory;
+import com.limechain.runtime.RuntimeProfiler;
+import com.limechain.runtime.engine.WasmEngine;
 import com.limechain.state.StateManager;
 import com.limechain.storage.DBInitializer;
 import com.limechain.storage.KVRepository;
 import com.limechain.storage.block.BlockHandler;
 import com.limechain.storage.block.state.BlockState;
 import com.limechain.storage.crypto.KeyStore;
+import com.limechain.storage.trie.StatePruner;
+import com.limechain.storage.trie.TrieNodeFormatMigration;
 import com.limechain.storage.trie.TrieStorage;
 import com.limechain.sync.SyncService;
 import com.limechain.sync.fullsync.FullSyncMachine;
@@ -30,9 +36,12 @@ import com.limechain.transaction.TransactionState;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring configuration class used to instantiate beans.
@@ -67,8 +76,41 @@ public class CommonConfig {
     }
 
     @Bean
-    public TrieStorage trieStorage(KVRepository<String, Object> repository) {
-        return new TrieStorage(repository);
+    public Optional<PrecompiledModuleStore> precompiledModuleStore(HostConfig hostConfig) {
+        if (!PrecompiledModuleStore.isSupported()) {
+            return Optional.empty();
+        }
+
+        PrecompiledModuleStore store = new PrecompiledModuleStore(
+                Path.of(hostConfig.getRocksDbPath(), PrecompiledModuleStore.FOLDER_NAME));
+        RuntimeFactory.setPrecompiledModuleStore(store);
+        return Optional.of(store);
+    }
+
+    @Bean
+    public WasmEngine wasmEngine(CliArguments cliArgs) {
+        WasmEngine engine = cliArgs.wasmEngine().create();
+        RuntimeFactory.setEngine(engine);
+        return engine;
+    }
+
+    @Bean
+    public RuntimeProfiler runtimeProfiler(CliArguments cliArgs) {
+        RuntimeProfiler profiler = new RuntimeProfiler(cliArgs.runtimeProfiler());
+        RuntimeFactory.setProfiler(profiler.isEnabled() ? profiler : null);
+        return profiler;
+    }
+
+    @Bean
+    public TrieStorage trieStorage(KVRepository<String, Object> repository, CliArguments cliArgs) {
+        new TrieNodeFormatMigration(repository).migrate();
+        return new TrieStorage(repository, cliArgs.statePruning(), cliArgs.flatState());
+    }
+
+    @Bean
+    public StatePruner statePruner(KVRepository<String, Object> repository, TrieStorage trieStorage,
+                                   CliArguments cliArgs) {
+        return new StatePruner(repository, trieStorage, cliArgs.statePruning());
     }
 
     @Bean
@@ -140,7 +182,9 @@ public class CommonConfig {
         return new FullSyncMachine(network, stateManager, requester, coordinator, blockHandler, hostConfig);
     }
 
+    // Building the genesis trie instantiates the genesis runtime, so the runtime factory must be configured by then
     @Bean
+    @DependsOn({"wasmEngine", "runtimeProfiler", "precompiledModuleStore"})
     public GenesisBlockHash genesisBlockHash(ChainService chainService) {
         return new GenesisBlockHash(chainService);
     }
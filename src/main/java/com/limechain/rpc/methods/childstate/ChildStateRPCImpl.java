@@ -60,8 +60,7 @@ public class ChildStateRPCImpl {
 
         byte[] childStorageMerkle = getChildStorageMerkle(childKeyHex, blockHashHex);
 
-        return trieStorage.getByKeyFromMerkle(childStorageMerkle, Nibbles.fromHexString(keyHex))
-                .map(NodeData::getValue)
+        return trieStorage.getStorageValue(childStorageMerkle, Nibbles.fromHexString(keyHex))
                 .map(StringUtils::toHexWithPrefix)
                 .orElse(null);
     }
@@ -103,8 +102,7 @@ public class ChildStateRPCImpl {
         byte[] childStorageMerkle = getChildStorageMerkle(childKeyHex, blockHashHex);
 
         return trieStorage
-                .getByKeyFromMerkle(childStorageMerkle, Nibbles.fromHexString(keyHex))
-                .map(NodeData::getValue)
+                .getStorageValue(childStorageMerkle, Nibbles.fromHexString(keyHex))
                 .map(Array::getLength)
                 .map(String::valueOf)
                 .orElse(null);
@@ -124,8 +122,7 @@ public class ChildStateRPCImpl {
     private byte[] getChildMerkle(Hash256 blockHash, Nibbles childKey) {
         Hash256 mainTrieMerkle = blockState.getBlockStateRoot(blockHash);
         return trieStorage
-                .getByKeyFromMerkle(mainTrieMerkle.getBytes(), Nibbles.fromBytes(":child_storage:default:".getBytes(StandardCharsets.US_ASCII)).addAll(childKey))
-                .map(NodeData::getValue)
+                .getStorageValue(mainTrieMerkle.getBytes(), Nibbles.fromBytes(":child_storage:default:".getBytes(StandardCharsets.US_ASCII)).addAll(childKey))
                 .orElse(null);
     }
 }
@@ -1,7 +1,9 @@
 package com.limechain.rpc.methods.state;
 
 import com.limechain.rpc.methods.state.dto.StorageChangeSet;
+import com.limechain.runtime.ReadOnlyRuntimeCaller;
 import com.limechain.runtime.Runtime;
+import com.limechain.runtime.RuntimeEndpoint;
 import com.limechain.storage.block.state.BlockState;
 import com.limechain.storage.trie.TrieStorage;
 import com.limechain.trie.dto.node.StorageNode;
@@ -27,6 +29,7 @@ public class StateRPCImpl {
 
     private final TrieStorage trieStorage;
     private final BlockState blockState;
+    private final ReadOnlyRuntimeCaller readOnlyRuntimeCaller;
 
     /**
      * Placeholder for future API implementation. Currently throws {@link UnsupportedOperationException}.
@@ -116,8 +119,7 @@ public class StateRPCImpl {
         final Hash256 blockHash = getHash256FromHex(blockHashHex);
         byte[] blockStateRoot = blockState.getBlockStateRoot(blockHash).getBytes();
 
-        return trieStorage.getByKeyFromMerkle(blockStateRoot, Nibbles.fromHexString(keyHex))
-                .map(NodeData::getValue)
+        return trieStorage.getStorageValue(blockStateRoot, Nibbles.fromHexString(keyHex))
                 .map(StringUtils::toHexWithPrefix)
                 .orElse(null);
     }
@@ -159,8 +161,7 @@ public class StateRPCImpl {
         byte[] blockStateRoot = blockState.getBlockStateRoot(blockHash).getBytes();
 
         return trieStorage
-                .getByKeyFromMerkle(blockStateRoot, Nibbles.fromHexString(keyHex))
-                .map(NodeData::getValue)
+                .getStorageValue(blockStateRoot, Nibbles.fromHexString(keyHex))
                 .map(Array::getLength)
                 .map(String::valueOf)
                 .orElse(null);
@@ -179,8 +180,8 @@ public class StateRPCImpl {
 
         final Hash256 blockHash = getHash256FromHex(blockHashHex);
 
-        final Runtime runtime = blockState.getRuntime(blockHash);
-        byte[] metadataBytes = runtime.getMetadata();
+        byte[] metadataBytes = readOnlyRuntimeCaller.call(RuntimeEndpoint.METADATA_METADATA, blockHash,
+                Runtime::getMetadata);
 
         return StringUtils.toHexWithPrefix(metadataBytes);
     }
@@ -229,8 +230,7 @@ public class StateRPCImpl {
             for (String keyHex : keysHex) {
 
                 byte[] blockStateRoot = blockState.getBlockStateRoot(blockHash).getBytes();
-                final Optional<String> currentValueOpt = trieStorage.getByKeyFromMerkle(blockStateRoot, Nibbles.fromHexString(keyHex))
-                        .map(NodeData::getValue)
+                final Optional<String> currentValueOpt = trieStorage.getStorageValue(blockStateRoot, Nibbles.fromHexString(keyHex))
                         .map(StringUtils::toHexWithPrefix);
 
                 final String currentValue = currentValueOpt.orElse(null);
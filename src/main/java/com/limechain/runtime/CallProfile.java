@@ -0,0 +1,106 @@
+package com.limechain.runtime;
+
+import com.limechain.runtime.hostapi.Endpoint;
+import com.limechain.runtime.hostapi.HostFunction;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The host function calls made by a single runtime instance during its current runtime call.
+ * <p>
+ * It travels with the instance's {@link Context}, so it's only ever filled by the thread executing the instance and
+ * needs no synchronization. Once a runtime call completes it's merged into the {@link RuntimeProfiler} and cleared,
+ * a failed runtime call only clears it.
+ */
+public class CallProfile {
+    private static final Endpoint[] ENDPOINTS = Endpoint.values();
+
+    private final RuntimeProfiler profiler;
+
+    final long[] calls = new long[ENDPOINTS.length];
+    final long[] nanos = new long[ENDPOINTS.length];
+    final long[] bytesRead = new long[ENDPOINTS.length];
+    final long[] bytesWritten = new long[ENDPOINTS.length];
+
+    CallProfile(RuntimeProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Wraps host functions so each of their invocations is recorded in this profile.
+     *
+     * @param hostFunctions the host functions to import into the instance
+     * @param sharedMemory  the shared memory of the instance, the host functions read their inputs through
+     * @return the profiled host functions
+     */
+    List<HostFunction> instrument(List<HostFunction> hostFunctions, SharedMemory sharedMemory) {
+        return hostFunctions.stream()
+                .map(hostFunction -> instrument(hostFunction, sharedMemory))
+                .toList();
+    }
+
+    private HostFunction instrument(HostFunction hostFunction, SharedMemory sharedMemory) {
+        int index = hostFunction.endpoint().ordinal();
+        HostFunction.Implementation implementation = hostFunction.implementation();
+
+        return new HostFunction(hostFunction.endpoint(), argv -> {
+            long bytesReadBefore = sharedMemory.getBytesRead();
+            long bytesWrittenBefore = sharedMemory.getBytesWritten();
+            long start = System.nanoTime();
+            try {
+                return implementation.invoke(argv);
+            } finally {
+                nanos[index] += System.nanoTime() - start;
+                calls[index]++;
+                bytesRead[index] += sharedMemory.getBytesRead() - bytesReadBefore;
+                bytesWritten[index] += sharedMemory.getBytesWritten() - bytesWrittenBefore;
+            }
+        });
+    }
+
+    /**
+     * Merges the host function calls into the profiler together with the runtime call they were made in,
+     * and clears them for the next call.
+     */
+    void complete(RuntimeEndpoint function, long nanos, int parameterSize, int resultSize) {
+        profiler.record(function, nanos, parameterSize, resultSize, this);
+        clear();
+    }
+
+    /**
+     * @param limit the maximum number of host functions to include
+     * @return the host functions which took the most time, with their call counts and times
+     */
+    String summary(int limit) {
+        return IntStream.range(0, ENDPOINTS.length)
+                .filter(index -> calls[index] > 0)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer index) -> nanos[index]).reversed())
+                .limit(limit)
+                .map(index -> String.format("%s=%dx/%.1fms",
+                        ENDPOINTS[index].getFunctionName(), calls[index], nanos[index] / 1_000_000.0))
+                .collect(Collectors.joining(", "));
+    }
+
+    long totalNanos() {
+        long total = 0;
+        for (long endpointNanos : nanos) {
+            total += endpointNanos;
+        }
+        return total;
+    }
+
+    /**
+     * Discards the host function calls, e.g. the ones of a failed runtime call.
+     */
+    void clear() {
+        Arrays.fill(calls, 0);
+        Arrays.fill(nanos, 0);
+        Arrays.fill(bytesRead, 0);
+        Arrays.fill(bytesWritten, 0);
+    }
+}
@@ -0,0 +1,259 @@
+package com.limechain.runtime;
+
+import com.limechain.runtime.engine.MemoryDescriptor;
+import com.limechain.runtime.engine.WasmModule;
+import com.limechain.runtime.version.RuntimeVersion;
+import com.limechain.utils.HashUtils;
+import io.emeraldpay.polkaj.types.Hash256;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.java.Log;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+
+/**
+ * A bounded, thread-safe cache of compiled wasm modules, keyed by the blake2b hash of the runtime code blob.
+ * Building a runtime for an already seen code blob only pays for the instantiation of the module,
+ * skipping the decompression and compilation of the wasm binary. Upcoming code blobs can be compiled
+ * in the background ahead of their first use.
+ *
+ * @implNote The cache holds a reference to each cached {@link WasmModule}, and so does every lease handed out by
+ * {@link #getOrCompile}. A module is closed once its last reference is released, so evicting a module that's still
+ * being instantiated or serialized only closes it when that's done. Instances that have already been created from
+ * an evicted module keep their own reference to the compiled artifact, so they stay usable.
+ */
+@Log
+class CompiledModuleCache {
+    static final int DEFAULT_MAX_ENTRIES = 8;
+
+    private final int maxEntries;
+    private final LinkedHashMap<Hash256, CompiledModule> modules;
+    // Compilations in progress, so that each code blob is compiled only once at a time
+    private final Map<Hash256, CompletableFuture<CompiledModule>> compilations = new HashMap<>();
+
+    CompiledModuleCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    CompiledModuleCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        // Access ordered, so that iteration starts from the least recently used module
+        this.modules = new LinkedHashMap<>(maxEntries, 0.75f, true);
+    }
+
+    /**
+     * Returns a lease of the compiled module for the given code blob, compiling and caching it if it's not yet
+     * present. If the code blob is already being compiled, e.g. in the background, waits for that compilation
+     * instead.
+     *
+     * @param code     the runtime code blob, as stored under the `:code` storage key
+     * @param compiler compiles the code blob, given its hash, into a {@link CompiledModule}
+     * @return the cached compiled module for the given code blob, which the caller must {@link CompiledModule#release()}
+     * once it's done using the module
+     */
+    CompiledModule getOrCompile(byte[] code, BiFunction<Hash256, byte[], CompiledModule> compiler) {
+        Hash256 codeHash = new Hash256(HashUtils.hashWithBlake2b(code));
+
+        while (true) {
+            CompletableFuture<CompiledModule> compilation;
+            boolean compileHere = false;
+            synchronized (this) {
+                CompiledModule cached = modules.get(codeHash);
+                // A cached module still holds the reference of the cache, so it can always be leased
+                if (cached != null && cached.retain()) {
+                    return cached;
+                }
+
+                compilation = compilations.get(codeHash);
+                if (compilation == null) {
+                    compilation = new CompletableFuture<>();
+                    compilations.put(codeHash, compilation);
+                    compileHere = true;
+                }
+            }
+
+            if (compileHere) {
+                compile(codeHash, code, compiler, compilation);
+            } else {
+                log.log(Level.FINE, "Waiting for the ongoing compilation of runtime module with code hash: " + codeHash);
+            }
+
+            CompiledModule compiled = join(compilation);
+            if (compiled.retain()) {
+                return compiled;
+            }
+            // Evicted and closed by other compilations before it could be leased, so look it up again
+            log.log(Level.FINE, "Compiled runtime module got evicted before use, code hash: " + codeHash);
+        }
+    }
+
+    private static CompiledModule join(CompletableFuture<CompiledModule> compilation) {
+        try {
+            return compilation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts compiling the given code blob on the executor, unless it's already cached or being compiled.
+     * A later {@link #getOrCompile} of the same code blob picks up the result, or waits for it if still compiling.
+     *
+     * @param code     the runtime code blob, as stored under the `:code` storage key
+     * @param compiler compiles the code blob, given its hash, into a {@link CompiledModule}
+     * @param executor the executor to compile on
+     */
+    void compileInBackground(byte[] code, BiFunction<Hash256, byte[], CompiledModule> compiler, Executor executor) {
+        Hash256 codeHash = new Hash256(HashUtils.hashWithBlake2b(code));
+
+        CompletableFuture<CompiledModule> compilation = new CompletableFuture<>();
+        synchronized (this) {
+            if (modules.containsKey(codeHash) || compilations.containsKey(codeHash)) {
+                return;
+            }
+            compilations.put(codeHash, compilation);
+        }
+
+        log.log(Level.INFO, "Precompiling upcoming runtime module with code hash: " + codeHash);
+        executor.execute(() -> compile(codeHash, code, compiler, compilation));
+    }
+
+    private void compile(Hash256 codeHash,
+                         byte[] code,
+                         BiFunction<Hash256, byte[], CompiledModule> compiler,
+                         CompletableFuture<CompiledModule> compilation) {
+        log.log(Level.FINE, "Compiling runtime module with code hash: " + codeHash);
+        CompiledModule compiled;
+        try {
+            compiled = compiler.apply(codeHash, code);
+        } catch (RuntimeException | Error e) {
+            // Not cached, so a later lookup retries the compilation
+            synchronized (this) {
+                compilations.remove(codeHash);
+            }
+            compilation.completeExceptionally(e);
+            return;
+        }
+
+        synchronized (this) {
+            modules.put(codeHash, compiled);
+            compilations.remove(codeHash);
+            evictExcessEntries();
+        }
+        compilation.complete(compiled);
+    }
+
+    /**
+     * @param codeHash the blake2b hash of the runtime code blob
+     * @return the cached compiled module, or null if not present. It isn't leased, so it's only fit for lookups.
+     */
+    @Nullable
+    synchronized CompiledModule get(Hash256 codeHash) {
+        return modules.get(codeHash);
+    }
+
+    /**
+     * @return the number of currently cached modules
+     */
+    synchronized int size() {
+        return modules.size();
+    }
+
+    /**
+     * Removes all cached modules, closing the ones which aren't leased right now. Leased ones are closed once
+     * their last lease is released.
+     */
+    synchronized void clear() {
+        modules.values().forEach(CompiledModule::release);
+        modules.clear();
+    }
+
+    private void evictExcessEntries() {
+        var iterator = modules.entrySet().iterator();
+        while (modules.size() > maxEntries && iterator.hasNext()) {
+            Map.Entry<Hash256, CompiledModule> eldest = iterator.next();
+            log.log(Level.FINE, "Evicting compiled runtime module with code hash: " + eldest.getKey());
+            eldest.getValue().release();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * A compiled wasm module together with the data extracted from its binary, needed for each instantiation.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    static class CompiledModule {
+        private final WasmModule module;
+        private final MemoryDescriptor memoryDescriptor;
+
+        /**
+         * Parsed from the wasm custom sections at compile time if present, otherwise set once after
+         * the first instantiation calls `Core_version`.
+         */
+        @Nullable
+        @Setter(AccessLevel.PACKAGE)
+        private volatile RuntimeVersion runtimeVersion;
+
+        /**
+         * Captured from the first instance of the module, before any calls.
+         */
+        @Nullable
+        @Setter(AccessLevel.PACKAGE)
+        private volatile MemorySnapshot memorySnapshot;
+
+        /**
+         * The reference held by the cache plus one per lease. The module gets closed when it drops to zero.
+         */
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        CompiledModule(WasmModule module, MemoryDescriptor memoryDescriptor, @Nullable RuntimeVersion runtimeVersion) {
+            this(module, memoryDescriptor);
+            this.runtimeVersion = runtimeVersion;
+        }
+
+        /**
+         * Takes a lease of the module, unless it has already been closed.
+         *
+         * @return whether the module has been leased
+         */
+        boolean retain() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * Releases a lease of the module, or the reference of the cache on eviction, closing the module if it was
+         * the last one.
+         */
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                module.close();
+            }
+        }
+    }
+}
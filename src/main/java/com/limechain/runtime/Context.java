@@ -9,6 +9,7 @@ import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Holds <strong>all</strong> necessary dependencies for a successful runtime invocation.
@@ -19,7 +20,9 @@ import lombok.Setter;
 public class Context {
     /**
      * Used by storage related endpoints for accessing the trie storage for a block.
+     * Rebound on every lease of a pooled runtime instance.
      */
+    @Setter(AccessLevel.PACKAGE)
     TrieAccessor trieAccessor;
 
     /**
@@ -56,4 +59,10 @@ public class Context {
      */
     @Setter(AccessLevel.PACKAGE)
     RuntimeVersion runtimeVersion;
+
+    /**
+     * Records the host function calls of the current runtime call, null unless profiling is enabled.
+     */
+    @Nullable
+    CallProfile callProfile;
 }
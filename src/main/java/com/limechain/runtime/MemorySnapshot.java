@@ -0,0 +1,49 @@
+package com.limechain.runtime;
+
+import com.limechain.runtime.allocator.FreeingBumpHeapAllocator;
+import com.limechain.runtime.memory.Memory;
+
+/**
+ * The linear memory of a freshly instantiated runtime below its heap base, i.e. the applied data segments and the
+ * stack. It is the same for all instances of a compiled module, so it's captured once per module.
+ * <p>
+ * Restoring it, together with resetting the allocator, brings a used instance back to its post-instantiation state:
+ * the runtime only touches heap memory handed out by the host allocator, so clearing the heap up to the allocator's
+ * high-water mark across all calls made on the instance is enough.
+ */
+class MemorySnapshot {
+    private static final byte[] ZEROES = new byte[64 * 1024];
+
+    private final byte[] belowHeapBase;
+
+    private MemorySnapshot(byte[] belowHeapBase) {
+        this.belowHeapBase = belowHeapBase;
+    }
+
+    /**
+     * @param memory   the memory of an instance which hasn't executed any calls yet
+     * @param heapBase the value of the instance's `__heap_base` global
+     * @return a snapshot of the memory below the heap base
+     */
+    static MemorySnapshot capture(Memory memory, int heapBase) {
+        byte[] data = new byte[heapBase];
+        memory.read(0, data);
+        return new MemorySnapshot(data);
+    }
+
+    /**
+     * Frees all heap allocations, clears the used heap and restores the memory below the heap base.
+     *
+     * @param memory    the memory of an instance of the module the snapshot was captured from
+     * @param allocator the allocator of the same instance
+     */
+    void restore(Memory memory, FreeingBumpHeapAllocator allocator) {
+        allocator.reset();
+        int usedHeapEnd = allocator.takeHighWaterMark();
+
+        memory.write(0, belowHeapBase);
+        for (int position = belowHeapBase.length; position < usedHeapEnd; position += ZEROES.length) {
+            memory.write(position, ZEROES, 0, Math.min(ZEROES.length, usedHeapEnd - position));
+        }
+    }
+}
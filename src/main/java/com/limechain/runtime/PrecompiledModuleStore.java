@@ -0,0 +1,234 @@
+package com.limechain.runtime;
+
+import com.limechain.utils.HashUtils;
+import io.emeraldpay.polkaj.types.Hash256;
+import lombok.Getter;
+import lombok.extern.java.Log;
+import org.apache.tomcat.util.buf.HexUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk store of serialized precompiled wasm modules, keyed by the blake2b hash of the runtime code blob.
+ * Allows skipping the compilation of already known runtimes across node restarts.
+ * <p>
+ * Each artifact is stored in its own file, prefixed with a header holding the store format version,
+ * the engine version it was compiled with and a checksum of the serialized module. Artifacts with a mismatching
+ * header are considered stale or corrupted and are deleted on load, as deserializing them is unsafe.
+ * The store is bounded by size, evicting the least recently used artifacts (by last modified time) first.
+ */
+@Log
+public class PrecompiledModuleStore {
+    /**
+     * Directory under the db path where the artifacts are stored
+     */
+    public static final String FOLDER_NAME = "precompiled-runtimes";
+    public static final long DEFAULT_MAX_SIZE_BYTES = 512L * 1024 * 1024;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_EXTENSION = ".bin";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    /**
+     * The serialized artifacts are only valid for the exact same engine build and target architecture, and
+     * deserializing an artifact of another build may crash the JVM. wasmer-java doesn't declare its version, so the
+     * build is identified by a digest of the jar bundling its native library. Null if the jar can't be read.
+     */
+    @Nullable
+    static final String ENGINE_VERSION = Optional.ofNullable(wasmerJarDigest())
+            .map(digest -> String.join("-", "wasmer", digest, System.getProperty("os.name"),
+                    System.getProperty("os.arch")))
+            .orElse(null);
+
+    @Getter
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final byte[] engineVersion;
+
+    /**
+     * @param directory the directory to store the artifacts in
+     * @throws IllegalStateException if the engine build can't be identified, see {@link #isSupported()}
+     */
+    public PrecompiledModuleStore(Path directory) {
+        this(directory, DEFAULT_MAX_SIZE_BYTES, Optional.ofNullable(ENGINE_VERSION).orElseThrow(
+                () -> new IllegalStateException("Can't identify the wasm engine build to key precompiled modules by")));
+    }
+
+    PrecompiledModuleStore(Path directory, long maxSizeBytes, String engineVersion) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        this.engineVersion = engineVersion.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return whether the engine build can be identified, without which no artifacts can be safely stored
+     */
+    public static boolean isSupported() {
+        return ENGINE_VERSION != null;
+    }
+
+    @Nullable
+    private static String wasmerJarDigest() {
+        try {
+            CodeSource codeSource = org.wasmer.Module.class.getProtectionDomain().getCodeSource();
+            Path jar = codeSource != null ? Path.of(codeSource.getLocation().toURI()) : null;
+            if (jar != null && Files.isRegularFile(jar)) {
+                return HexUtils.toHexString(HashUtils.hashWithBlake2b(Files.readAllBytes(jar)));
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            log.log(Level.WARNING, "Couldn't read the wasmer jar", e);
+        }
+        log.log(Level.WARNING, "Couldn't identify the wasmer build, precompiled runtimes won't be persisted");
+        return null;
+    }
+
+    /**
+     * Loads a serialized module for the given code hash, if a valid one is present.
+     *
+     * @param codeHash the blake2b hash of the runtime code blob
+     * @return the serialized module bytes, or empty if missing or invalid
+     */
+    public synchronized Optional<byte[]> load(Hash256 codeHash) {
+        Path file = fileFor(codeHash);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+
+        try {
+            Optional<byte[]> serializedModule = decode(Files.readAllBytes(file));
+            if (serializedModule.isEmpty()) {
+                log.log(Level.WARNING, "Discarding invalid precompiled runtime artifact: " + file);
+                Files.deleteIfExists(file);
+                return Optional.empty();
+            }
+
+            // Mark as recently used for the purposes of eviction
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return serializedModule;
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Error reading precompiled runtime artifact: " + file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a serialized module for the given code hash and evicts the least recently used artifacts
+     * if the store exceeds its maximum size. Failures are logged and otherwise ignored,
+     * as the store is only an optimization.
+     *
+     * @param codeHash         the blake2b hash of the runtime code blob
+     * @param serializedModule the serialized compiled module
+     */
+    public synchronized void store(Hash256 codeHash, byte[] serializedModule) {
+        Path file = fileFor(codeHash);
+        Path tempFile = file.resolveSibling(file.getFileName() + TEMP_FILE_EXTENSION);
+        try {
+            Files.createDirectories(directory);
+            // Write to a temporary file first, so that a crash mid-write never leaves a partial artifact behind
+            Files.write(tempFile, encode(serializedModule));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.log(Level.FINE, "Stored precompiled runtime artifact: " + file);
+
+            evictExcessArtifacts(file);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Error storing precompiled runtime artifact: " + file, e);
+        }
+    }
+
+    private void evictExcessArtifacts(Path justStored) throws IOException {
+        List<Path> artifacts;
+        try (Stream<Path> files = Files.list(directory)) {
+            artifacts = files
+                    .filter(path -> path.getFileName().toString().endsWith(FILE_EXTENSION))
+                    .sorted(Comparator.comparing(PrecompiledModuleStore::lastModifiedTime))
+                    .toList();
+        }
+
+        long totalSize = 0;
+        for (Path artifact : artifacts) {
+            totalSize += Files.size(artifact);
+        }
+
+        for (Path artifact : artifacts) {
+            if (totalSize <= maxSizeBytes) {
+                break;
+            }
+            if (artifact.equals(justStored)) {
+                continue;
+            }
+
+            long size = Files.size(artifact);
+            Files.deleteIfExists(artifact);
+            totalSize -= size;
+            log.log(Level.FINE, "Evicted precompiled runtime artifact: " + artifact);
+        }
+    }
+
+    private static FileTime lastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Path fileFor(Hash256 codeHash) {
+        return directory.resolve(HexUtils.toHexString(codeHash.getBytes()) + FILE_EXTENSION);
+    }
+
+    /**
+     * Layout: format version (int), engine version length (int), engine version bytes,
+     * blake2b checksum of the payload (32 bytes), payload.
+     */
+    private byte[] encode(byte[] serializedModule) {
+        byte[] checksum = HashUtils.hashWithBlake2b(serializedModule);
+        return ByteBuffer.allocate(2 * Integer.BYTES + engineVersion.length + checksum.length + serializedModule.length)
+                .putInt(FORMAT_VERSION)
+                .putInt(engineVersion.length)
+                .put(engineVersion)
+                .put(checksum)
+                .put(serializedModule)
+                .array();
+    }
+
+    private Optional<byte[]> decode(byte[] artifact) {
+        ByteBuffer buffer = ByteBuffer.wrap(artifact);
+        if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != FORMAT_VERSION) {
+            return Optional.empty();
+        }
+
+        int engineVersionLength = buffer.getInt();
+        if (engineVersionLength != engineVersion.length || buffer.remaining() < engineVersionLength + Hash256.SIZE_BYTES) {
+            return Optional.empty();
+        }
+
+        byte[] storedEngineVersion = new byte[engineVersionLength];
+        buffer.get(storedEngineVersion);
+        byte[] checksum = new byte[Hash256.SIZE_BYTES];
+        buffer.get(checksum);
+        byte[] serializedModule = new byte[buffer.remaining()];
+        buffer.get(serializedModule);
+
+        if (!Arrays.equals(storedEngineVersion, engineVersion)
+            || !Arrays.equals(checksum, HashUtils.hashWithBlake2b(serializedModule))) {
+            return Optional.empty();
+        }
+
+        return Optional.of(serializedModule);
+    }
+}
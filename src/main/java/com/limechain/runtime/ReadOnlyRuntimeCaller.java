@@ -0,0 +1,126 @@
+package com.limechain.runtime;
+
+import com.limechain.storage.block.state.BlockState;
+import com.limechain.storage.trie.TrieStorage;
+import com.limechain.trie.EphemeralTrieAccessor;
+import io.emeraldpay.polkaj.types.Hash256;
+import io.prometheus.metrics.core.metrics.Histogram;
+import io.prometheus.metrics.model.snapshots.Unit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Executes runtime calls which don't alter the stored state (e.g. RPC queries and transaction validation)
+ * concurrently with each other and with block import.
+ * <p>
+ * Every call gets its own runtime instance from the {@link RuntimeInstancePool}, over an {@link EphemeralTrieAccessor}
+ * frozen at the state of the requested block, so writes made by the runtime during the call are discarded.
+ * Calls are run on a bounded executor and are rejected once its queue is full.
+ */
+@Log
+@Component
+public class ReadOnlyRuntimeCaller {
+    static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private static final String API_LABEL = "api";
+    private static final Histogram QUEUE_WAIT = Histogram.builder()
+            .name("fruzhin_runtime_read_only_call_queue_wait_seconds")
+            .help("Time read-only runtime calls spent waiting for an executor thread.")
+            .labelNames(API_LABEL)
+            .register();
+    private static final Histogram EXECUTION_TIME = Histogram.builder()
+            .name("fruzhin_runtime_read_only_call_execution_seconds")
+            .help("Time spent executing read-only runtime calls, including the runtime instance setup.")
+            .labelNames(API_LABEL)
+            .register();
+
+    private final RuntimeBuilder runtimeBuilder;
+    private final TrieStorage trieStorage;
+    private final BlockState blockState;
+    private final ExecutorService executor;
+
+    public ReadOnlyRuntimeCaller(RuntimeBuilder runtimeBuilder, TrieStorage trieStorage, BlockState blockState) {
+        this.runtimeBuilder = runtimeBuilder;
+        this.trieStorage = trieStorage;
+        this.blockState = blockState;
+
+        int threads = java.lang.Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY));
+    }
+
+    /**
+     * Schedules a read-only runtime call at the state of the given block.
+     *
+     * @param api       the runtime API being called, used for the metrics
+     * @param blockHash the block whose state the call is executed against
+     * @param call      the call to execute on the provided runtime
+     * @return the result of the call, completed exceptionally if the call failed or was rejected
+     */
+    public <T> CompletableFuture<T> submit(RuntimeEndpoint api, Hash256 blockHash, Function<Runtime, T> call) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                QUEUE_WAIT.labelValues(api.getName()).observe(Unit.nanosToSeconds(startedAt - queuedAt));
+                try {
+                    return callAt(blockHash, call);
+                } finally {
+                    EXECUTION_TIME.labelValues(api.getName())
+                            .observe(Unit.nanosToSeconds(System.nanoTime() - startedAt));
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            log.log(Level.WARNING, "Too many pending read-only runtime calls, rejecting " + api.getName());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Executes a read-only runtime call at the state of the given block, blocking until it completes.
+     *
+     * @param api       the runtime API being called, used for the metrics
+     * @param blockHash the block whose state the call is executed against
+     * @param call      the call to execute on the provided runtime
+     * @return the result of the call
+     */
+    public <T> T call(RuntimeEndpoint api, Hash256 blockHash, Function<Runtime, T> call) {
+        try {
+            return submit(api, blockHash, call).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> T callAt(Hash256 blockHash, Function<Runtime, T> call) {
+        Hash256 stateRoot = blockState.getBlockStateRoot(blockHash);
+        EphemeralTrieAccessor trieAccessor = new EphemeralTrieAccessor(trieStorage, stateRoot.getBytes());
+
+        Runtime runtime = runtimeBuilder.buildRuntimeFromState(trieAccessor);
+        try {
+            trieAccessor.setCurrentStateVersion(runtime.getCachedVersion().getStateVersion());
+            return call.apply(runtime);
+        } finally {
+            runtime.close();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
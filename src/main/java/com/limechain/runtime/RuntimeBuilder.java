@@ -15,6 +15,7 @@ import com.limechain.trie.structure.nibble.Nibbles;
 import io.libp2p.core.Host;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
 
 /**
@@ -25,12 +26,18 @@ import org.springframework.stereotype.Component;
  */
 @Component
 @RequiredArgsConstructor
+// The runtime factory is configured by these beans, which must happen before the first runtime gets built
+@DependsOn({"wasmEngine", "runtimeProfiler", "precompiledModuleStore"})
 public class RuntimeBuilder {
     private final KVRepository<String, Object> db;
     private final KeyStore keyStore;
     private final NetworkService network;
     private final HostConfig hostConfig;
 
+    // Created on first use, as the network host isn't started when the bean is constructed
+    @Nullable
+    private RuntimeInstancePool instancePool;
+
     /**
      * Builds a ready-to-execute `Runtime` with dependencies from the global Spring context.
      *
@@ -56,14 +63,43 @@ public class RuntimeBuilder {
                 .orElseThrow(() -> new RuntimeException("Runtime code not found in the trie"));
     }
 
+    /**
+     * Starts compiling the runtime code set by a block in the background, if the block changed `:code`.
+     * Building the runtime for the following blocks then finds the compiled module in the cache, or waits for
+     * the ongoing compilation, instead of compiling the new code from scratch.
+     *
+     * @param runtime the runtime the block has just been successfully executed with, before persisting its changes
+     * @implNote Only the changes of a successfully executed block are checked, so code set by a failed
+     * or rolled back call, or by a read-only call, never gets compiled here.
+     */
+    public void precompileUpgradedCode(Runtime runtime) {
+        TrieAccessor trieAccessor = ((RuntimeImpl) runtime).context.getTrieAccessor();
+        if (trieAccessor instanceof DiskTrieAccessor diskTrieAccessor) {
+            diskTrieAccessor.findChangedStorageValue(Nibbles.fromBytes(":code".getBytes()))
+                    .ifPresent(RuntimeFactory::precompileInBackground);
+        }
+    }
+
     /**
      * Builds a ready-to-execute `Runtime` with dependencies from the global Spring context.
      *
      * @param code         the runtime wasm bytecode
      * @param trieAccessor provides access to the trie storage for a given block
-     * @return a ready to execute `Runtime` instance
+     * @return a ready to execute `Runtime` instance, backed by a pooled instance which is returned to the pool
+     * once the runtime is closed
      */
     private Runtime buildRuntime(byte[] code, @Nullable TrieAccessor trieAccessor) {
+        return getInstancePool().acquire(code, trieAccessor);
+    }
+
+    private synchronized RuntimeInstancePool getInstancePool() {
+        if (instancePool == null) {
+            instancePool = new RuntimeInstancePool(buildPoolConfig());
+        }
+        return instancePool;
+    }
+
+    private RuntimeFactory.Config buildPoolConfig() {
         var localStorage = new OffchainStore(db, StorageKind.LOCAL);
         var persistentStorage = new OffchainStore(db, StorageKind.PERSISTENT);
         // TODO:
@@ -78,15 +114,14 @@ public class RuntimeBuilder {
         var nodeRole = hostConfig.getNodeRole();
         boolean isValidator = nodeRole == NodeRole.AUTHORING;
 
-        RuntimeFactory.Config cfg = new RuntimeFactory.Config(
-                trieAccessor,
+        // The trie accessor is bound on every acquisition from the pool
+        return new RuntimeFactory.Config(
+                null,
                 keyStore,
                 offchainStorages,
                 offchainNetworkState,
                 isValidator
         );
-
-        return RuntimeFactory.buildRuntime(code, cfg);
     }
 
     public Runtime buildRuntimeFromState(TrieAccessor trieAccessor) {
@@ -2,26 +2,31 @@ package com.limechain.runtime;
 
 import com.github.luben.zstd.Zstd;
 import com.limechain.runtime.allocator.FreeingBumpHeapAllocator;
+import com.limechain.runtime.engine.MemoryDescriptor;
+import com.limechain.runtime.engine.WasmEngine;
+import com.limechain.runtime.engine.WasmInstance;
+import com.limechain.runtime.engine.WasmModule;
+import com.limechain.runtime.engine.WasmerEngine;
 import com.limechain.runtime.hostapi.DefaultHostApi;
 import com.limechain.runtime.hostapi.HostApi;
-import com.limechain.runtime.hostapi.WasmExports;
+import com.limechain.runtime.hostapi.HostFunction;
 import com.limechain.runtime.hostapi.dto.OffchainNetworkState;
-import com.limechain.runtime.memory.WasmMemory;
 import com.limechain.runtime.version.RuntimeVersion;
 import com.limechain.storage.crypto.KeyStore;
 import com.limechain.storage.offchain.OffchainStorages;
 import com.limechain.trie.TrieAccessor;
+import com.limechain.utils.HashUtils;
+import com.limechain.utils.async.AsyncExecutor;
+import io.emeraldpay.polkaj.types.Hash256;
 import lombok.extern.java.Log;
 import org.jetbrains.annotations.Nullable;
-import org.wasmer.ImportObject;
-import org.wasmer.Imports;
-import org.wasmer.Instance;
-import org.wasmer.Memory;
-import org.wasmer.Module;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.logging.Level;
 
@@ -35,6 +40,67 @@ public class RuntimeFactory {
 
     private static final int DEFAULT_MEMORY_PAGES = 2048;
 
+    private static final CompiledModuleCache MODULE_CACHE = new CompiledModuleCache();
+    private static final AsyncExecutor PRECOMPILATION_EXECUTOR = AsyncExecutor.withSingleThread();
+    /**
+     * Writes serialized compiled modules to the {@link PrecompiledModuleStore}, off the path of building a runtime.
+     */
+    private static final AsyncExecutor MODULE_STORE_EXECUTOR = AsyncExecutor.withSingleThread();
+
+    private static final int MAX_CACHED_RUNTIME_VERSIONS = 32;
+    /**
+     * Versions of arbitrary code blobs, looked up by the runtime when validating and executing code upgrades.
+     */
+    private static final Map<Hash256, RuntimeVersion> RUNTIME_VERSIONS = Collections.synchronizedMap(
+            new LinkedHashMap<>(MAX_CACHED_RUNTIME_VERSIONS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Hash256, RuntimeVersion> eldest) {
+                    return size() > MAX_CACHED_RUNTIME_VERSIONS;
+                }
+            });
+
+    private static volatile WasmEngine engine = new WasmerEngine();
+
+    /**
+     * An optional on-disk store of precompiled modules, consulted on a {@link #MODULE_CACHE} miss.
+     */
+    @Nullable
+    private static volatile PrecompiledModuleStore precompiledModuleStore;
+
+    /**
+     * Enables persisting compiled modules to disk, so that known runtimes don't need recompilation across restarts.
+     *
+     * @param store the on-disk store to use, or null to disable it
+     */
+    public static void setPrecompiledModuleStore(@Nullable PrecompiledModuleStore store) {
+        precompiledModuleStore = store;
+    }
+
+    /**
+     * Collects host function and runtime call statistics of instantiated runtimes, if enabled.
+     */
+    @Nullable
+    private static volatile RuntimeProfiler profiler;
+
+    /**
+     * Enables profiling the runtimes instantiated from now on.
+     *
+     * @param runtimeProfiler the profiler to report to, or null to disable profiling
+     */
+    public static void setProfiler(@Nullable RuntimeProfiler runtimeProfiler) {
+        profiler = runtimeProfiler;
+    }
+
+    /**
+     * Sets the engine runtimes are compiled and executed with. Modules compiled by the previous engine are dropped.
+     *
+     * @param wasmEngine the engine to use
+     */
+    public static void setEngine(WasmEngine wasmEngine) {
+        engine = wasmEngine;
+        MODULE_CACHE.clear();
+    }
+
     /**
      * Builds and returns a ready-to-execute `Runtime` with an explicit context configuration.
      *
@@ -61,11 +127,92 @@ public class RuntimeFactory {
      * but you can choose to either use it or not.
      */
     public static Runtime buildRuntime(byte[] code, Config config, Function<Context, HostApi> hostApiProvider) {
-        byte[] wasmBinary = zstDecompressIfNecessary(code);
+        CompiledModuleCache.CompiledModule compiledModule = getCompiledModule(code);
+        try {
+            return instantiate(compiledModule, config, hostApiProvider, null);
+        } finally {
+            compiledModule.release();
+        }
+    }
 
-        Module module = new Module(wasmBinary);
+    /**
+     * Reads the version of a runtime code blob without executing it if possible, i.e. from its `runtime_version` and
+     * `runtime_apis` custom sections. Only blobs without these sections get instantiated to call `Core_version`,
+     * from a module compiled just for that and never added to the compiled module cache.
+     * Versions are cached by the hash of the code blob, as the same upgrade gets checked on every validation and
+     * execution of the extrinsic setting it.
+     *
+     * @param code the runtime wasm bytecode, possibly zstd compressed
+     * @return the version of the runtime
+     */
+    public static RuntimeVersion getRuntimeVersion(byte[] code) {
+        Hash256 codeHash = new Hash256(HashUtils.hashWithBlake2b(code));
+        RuntimeVersion cached = RUNTIME_VERSIONS.get(codeHash);
+        if (cached != null) {
+            return cached;
+        }
 
+        RuntimeVersion runtimeVersion = WasmSectionUtils.parseRuntimeVersionFromBinary(zstDecompressIfNecessary(code));
+        if (runtimeVersion == null) {
+            log.log(Level.FINE, "No runtime version custom sections in code with hash: " + codeHash
+                    + ", calling 'Core_version'.");
+            // The code isn't necessarily ever enacted, so it's compiled outside the module cache and dropped
+            // right away instead of evicting the modules of the runtimes in use
+            CompiledModuleCache.CompiledModule compiledModule = compile(engine, null, code);
+            try {
+                Runtime runtime = instantiate(compiledModule, Config.EMPTY, DefaultHostApi::new, null);
+                try {
+                    runtimeVersion = runtime.getCachedVersion();
+                } finally {
+                    runtime.close();
+                }
+            } finally {
+                compiledModule.release();
+            }
+        }
+
+        RUNTIME_VERSIONS.put(codeHash, runtimeVersion);
+        return runtimeVersion;
+    }
+
+    /**
+     * Compiles a runtime code blob that's about to be enacted, i.e. one written to `:code` by a successfully
+     * executed block, in the background. Building a runtime from it later on finds the compiled module in the cache, or waits for
+     * the ongoing compilation, instead of stalling block import for the whole compilation.
+     *
+     * @param code the runtime wasm bytecode
+     */
+    public static void precompileInBackground(byte[] code) {
+        WasmEngine wasmEngine = engine;
+        MODULE_CACHE.compileInBackground(code, (codeHash, wasm) -> compile(wasmEngine, codeHash, wasm),
+                PRECOMPILATION_EXECUTOR::executeAndForget);
+    }
+
+    /**
+     * @param code the runtime wasm bytecode
+     * @return a lease of the cached compiled module for the code, compiling it if necessary. It must be released
+     * once the module has been instantiated.
+     */
+    static CompiledModuleCache.CompiledModule getCompiledModule(byte[] code) {
+        return MODULE_CACHE.getOrCompile(code, (codeHash, wasm) -> compile(engine, codeHash, wasm));
+    }
+
+    /**
+     * Instantiates a compiled module.
+     *
+     * @param compiledModule  the module to instantiate
+     * @param config          an explicit configuration of necessary dependencies
+     * @param hostApiProvider a provider for a {@link HostApi} implementation, given the current execution {@link Context}
+     * @param pool            the pool to return the instance to when the runtime is closed, or null to close it
+     * @return a ready to execute runtime
+     */
+    static RuntimeImpl instantiate(CompiledModuleCache.CompiledModule compiledModule,
+                                   Config config,
+                                   Function<Context, HostApi> hostApiProvider,
+                                   @Nullable RuntimeInstancePool pool) {
         SharedMemory sharedMemory = new SharedMemory(null, null);
+        RuntimeProfiler runtimeProfiler = profiler;
+        CallProfile callProfile = runtimeProfiler == null ? null : new CallProfile(runtimeProfiler);
         Context context = new Context(
                 config.trieAccessor,
                 config.keyStore(),
@@ -73,40 +220,101 @@ public class RuntimeFactory {
                 config.offchainNetworkState(),
                 config.isValidator(),
                 sharedMemory,
-                null
+                null,
+                callProfile
         );
 
         // Construct the host API implementation
         HostApi hostApi = hostApiProvider.apply(context);
 
-        // Build the imports
-        ImportObject.MemoryImport memoryImport = buildMemoryImport(wasmBinary);
-        List<ImportObject.FuncImport> functionImports = hostApi.getFunctionImports();
-
-        List<ImportObject> imports = new ArrayList<>(functionImports);
-        imports.add(memoryImport);
+        List<HostFunction> imports = hostApi.getFunctionImports();
+        if (callProfile != null) {
+            imports = callProfile.instrument(imports, sharedMemory);
+        }
 
         // Instantiate the wasm module
-        Instance instance = module.instantiate(Imports.from(imports, module));
+        WasmInstance instance = compiledModule.getModule()
+                .instantiate(imports, compiledModule.getMemoryDescriptor());
 
         // Construct our Runtime instance
-        Runtime runtime = new RuntimeImpl(module, context, instance);
+        RuntimeImpl runtime = new RuntimeImpl(compiledModule, context, instance, pool);
 
         // Inject the wasm memory and the allocator into the shared memory
         // NOTE:
         //  This injection is necessarily delayed to circumvent the circular dependency:
         //  instance needs imports -> imports need shared memory -> shared memory needs instance (to fetch the memory from)
-        Memory instanceMemory = instance.exports.getMemory(WasmExports.MEMORY.getValue());
-        int heapBase = instance.exports.getGlobal(WasmExports.HEAP_BASE.getValue()).getIntValue();
-        sharedMemory.setMemory(new WasmMemory(instanceMemory));
+        int heapBase = instance.heapBase();
+        sharedMemory.setMemory(instance.memory());
         sharedMemory.setAllocator(new FreeingBumpHeapAllocator(heapBase));
 
+        // The memory is pristine only before the first call, so the snapshot must be captured before anything else
+        if (compiledModule.getMemorySnapshot() == null) {
+            compiledModule.setMemorySnapshot(MemorySnapshot.capture(instance.memory(), heapBase));
+        }
+
         // We cache the runtime version in the context as it's often needed
-        cacheRuntimeVersion(wasmBinary, runtime, context);
+        cacheRuntimeVersion(compiledModule, runtime, context);
 
         return runtime;
     }
 
+    /**
+     * Compiles the runtime code with the given engine.
+     *
+     * @param wasmEngine the engine to compile with
+     * @param codeHash   the blake2b hash of the code, or null to skip the {@link PrecompiledModuleStore}
+     * @param code       the runtime wasm bytecode
+     * @return the compiled module, which isn't cached
+     */
+    static CompiledModuleCache.CompiledModule compile(WasmEngine wasmEngine, @Nullable Hash256 codeHash, byte[] code) {
+        byte[] wasmBinary = zstDecompressIfNecessary(code);
+
+        return new CompiledModuleCache.CompiledModule(
+                loadOrCompileModule(wasmEngine, codeHash, wasmBinary),
+                buildMemoryDescriptor(wasmBinary),
+                // Attempt parsing the runtime version from custom sections
+                WasmSectionUtils.parseRuntimeVersionFromBinary(wasmBinary)
+        );
+    }
+
+    private static WasmModule loadOrCompileModule(WasmEngine wasmEngine,
+                                                  @Nullable Hash256 codeHash,
+                                                  byte[] wasmBinary) {
+        PrecompiledModuleStore store = precompiledModuleStore;
+        if (store == null || codeHash == null || !wasmEngine.supportsSerialization()) {
+            return wasmEngine.compile(wasmBinary);
+        }
+
+        Optional<byte[]> serializedModule = store.load(codeHash);
+        if (serializedModule.isPresent()) {
+            try {
+                log.log(Level.FINE, "Loaded precompiled runtime module with code hash: " + codeHash);
+                return wasmEngine.deserialize(serializedModule.get());
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Couldn't deserialize precompiled runtime module, recompiling.", e);
+            }
+        }
+
+        WasmModule module = wasmEngine.compile(wasmBinary);
+        // Serialized before the module gets published to the cache, as it may be evicted and closed from then on
+        byte[] serializedCompiled;
+        try {
+            serializedCompiled = module.serialize();
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Couldn't serialize precompiled runtime module with code hash: " + codeHash, e);
+            return module;
+        }
+
+        MODULE_STORE_EXECUTOR.executeAndForget(() -> {
+            try {
+                store.store(codeHash, serializedCompiled);
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Couldn't persist precompiled runtime module with code hash: " + codeHash, e);
+            }
+        });
+        return module;
+    }
+
     private static byte[] zstDecompressIfNecessary(byte[] code) {
         byte[] wasmBinaryPrefix = Arrays.copyOfRange(code, 0, 8);
         if (Arrays.equals(wasmBinaryPrefix, ZSTD_PREFIX)) {
@@ -119,27 +327,29 @@ public class RuntimeFactory {
         return code;
     }
 
-    private static ImportObject.MemoryImport buildMemoryImport(byte[] wasmBinary) {
+    private static MemoryDescriptor buildMemoryDescriptor(byte[] wasmBinary) {
         // Attempt to parse memory needs from the raw binary source
-        ImportObject.MemoryImport memoryImport = WasmSectionUtils.parseMemoryFromBinary(wasmBinary);
+        MemoryDescriptor memoryDescriptor = WasmSectionUtils.parseMemoryFromBinary(wasmBinary);
 
         // If no information could be found, build the default import
-        if (memoryImport == null) {
-            memoryImport = new ImportObject.MemoryImport(WasmSectionUtils.ENV_MODULE_NAME, DEFAULT_MEMORY_PAGES, false);
+        if (memoryDescriptor == null) {
+            memoryDescriptor = new MemoryDescriptor(DEFAULT_MEMORY_PAGES, false);
         }
 
-        return memoryImport;
+        return memoryDescriptor;
     }
 
-    private static void cacheRuntimeVersion(byte[] wasmBinary, Runtime runtime, Context context) {
-        // Attempt parsing the runtime version from custom sections
-        RuntimeVersion runtimeVersion = WasmSectionUtils.parseRuntimeVersionFromBinary(wasmBinary);
+    private static void cacheRuntimeVersion(CompiledModuleCache.CompiledModule compiledModule,
+                                            Runtime runtime,
+                                            Context context) {
+        RuntimeVersion runtimeVersion = compiledModule.getRuntimeVersion();
 
         // If we couldn't get the data from the wasm custom sections,
-        // we must fall back to calling Core_version
+        // we must fall back to calling Core_version, but only once per compiled module
         if (runtimeVersion == null) {
             log.log(Level.INFO, "Couldn't fetch runtime version from custom section, calling 'Core_version'.");
             runtimeVersion = runtime.getVersion();
+            compiledModule.setRuntimeVersion(runtimeVersion);
         }
 
         context.setRuntimeVersion(runtimeVersion);
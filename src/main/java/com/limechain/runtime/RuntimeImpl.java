@@ -19,6 +19,10 @@ import com.limechain.network.protocol.warp.scale.reader.BlockHeaderReader;
 import com.limechain.network.protocol.warp.scale.writer.BlockBodyWriter;
 import com.limechain.rpc.methods.author.dto.DecodedKey;
 import com.limechain.rpc.methods.author.dto.DecodedKeysReader;
+import com.limechain.runtime.allocator.AllocationStats;
+import com.limechain.runtime.allocator.FreeingBumpHeapAllocator;
+import com.limechain.runtime.engine.WasmInstance;
+import com.limechain.runtime.engine.WasmModule;
 import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
 import com.limechain.runtime.version.RuntimeVersion;
 import com.limechain.runtime.version.scale.RuntimeVersionReader;
@@ -42,14 +46,11 @@ import io.emeraldpay.polkaj.scale.ScaleCodecReader;
 import io.emeraldpay.polkaj.scale.ScaleCodecWriter;
 import io.emeraldpay.polkaj.scale.reader.ListReader;
 import io.emeraldpay.polkaj.scale.writer.UInt64Writer;
-import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
+import io.prometheus.metrics.core.metrics.Histogram;
 import lombok.extern.java.Log;
 import org.apache.commons.lang3.ArrayUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.wasmer.Instance;
-import org.wasmer.Module;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -59,12 +60,42 @@ import java.util.Optional;
 import java.util.logging.Level;
 
 @Log
-@AllArgsConstructor(access = AccessLevel.PACKAGE)
 public class RuntimeImpl implements Runtime {
-
-    Module module;
+    // The number of most time consuming host functions logged for every executed block when profiling
+    private static final int BLOCK_PROFILE_ENTRIES = 5;
+    private static final String API_LABEL = "api";
+    private static final Histogram HEAP_PEAK_BYTES = Histogram.builder()
+            .name("fruzhin_runtime_heap_peak_bytes")
+            .help("Peak number of bytes allocated on the runtime heap during a runtime call, including headers.")
+            .labelNames(API_LABEL)
+            .classicExponentialUpperBounds(1024, 4, 12)
+            .register();
+    private static final Histogram HEAP_FRAGMENTATION = Histogram.builder()
+            .name("fruzhin_runtime_heap_fragmentation_ratio")
+            .help("Share of the runtime heap address space used by a runtime call which was never in use at once.")
+            .labelNames(API_LABEL)
+            .classicLinearUpperBounds(0.1, 0.1, 10)
+            .register();
+
+    CompiledModuleCache.CompiledModule compiledModule;
     Context context;
-    Instance instance;
+    WasmInstance instance;
+    @Nullable
+    RuntimeInstancePool pool;
+    // Set once a call fails, as the instance may have been left in a state that can't be reset
+    private boolean poisoned;
+    // Set once a call has been made, after which the memory is no longer in its post-instantiation state
+    private boolean called;
+
+    RuntimeImpl(CompiledModuleCache.CompiledModule compiledModule,
+                Context context,
+                WasmInstance instance,
+                @Nullable RuntimeInstancePool pool) {
+        this.compiledModule = compiledModule;
+        this.context = context;
+        this.instance = instance;
+        this.pool = pool;
+    }
 
     @Override
     public BabeApiConfiguration getBabeApiConfiguration() {
@@ -205,10 +236,27 @@ public class RuntimeImpl implements Runtime {
         context.getTrieAccessor().persistChanges();
     }
 
+    /**
+     * Closes the underlying wasm instance, or returns it to the {@link RuntimeInstancePool} it was acquired from.
+     * Closing an already closed runtime has no effect.
+     *
+     * @implNote The compiled {@link WasmModule} is shared between all runtimes built from the same code
+     * and is owned by {@link CompiledModuleCache}, so it's not closed here.
+     */
     @Override
-    public void close() {
-        module.close();
-        instance.close();
+    public synchronized void close() {
+        if (instance == null) {
+            return;
+        }
+
+        WasmInstance closing = instance;
+        instance = null;
+
+        if (pool != null && !poisoned) {
+            pool.release(compiledModule, context, closing);
+        } else {
+            closing.close();
+        }
     }
 
     private byte[] serializeExecuteBlockParameter(Block block) {
@@ -235,7 +283,7 @@ public class RuntimeImpl implements Runtime {
      */
     @Nullable
     private synchronized byte[] call(RuntimeEndpoint function) {
-        return callInner(function, new RuntimePointerSize(0, 0));
+        return callInner(function, null);
     }
 
     /**
@@ -247,7 +295,7 @@ public class RuntimeImpl implements Runtime {
     @Nullable
     private synchronized byte[] callAndBackup(RuntimeEndpoint function) {
         context.trieAccessor.prepareBackup();
-        byte[] result = callInner(function, new RuntimePointerSize(0, 0));
+        byte[] result = callInner(function, null);
         context.trieAccessor.backup();
 
         return result;
@@ -262,7 +310,7 @@ public class RuntimeImpl implements Runtime {
      */
     @Nullable
     private synchronized byte[] call(RuntimeEndpoint function, @NotNull byte[] parameter) {
-        return callInner(function, context.getSharedMemory().writeData(parameter));
+        return callInner(function, parameter);
     }
 
     /**
@@ -275,25 +323,79 @@ public class RuntimeImpl implements Runtime {
     @Nullable
     private synchronized byte[] callAndBackup(RuntimeEndpoint function, @NotNull byte[] parameter) {
         context.trieAccessor.prepareBackup();
-        byte[] result = callInner(function, context.getSharedMemory().writeData(parameter));
+        byte[] result = callInner(function, parameter);
         context.trieAccessor.backup();
 
         return result;
     }
 
     @Nullable
-    private byte[] callInner(RuntimeEndpoint function, RuntimePointerSize parameterPtrSize) {
+    private byte[] callInner(RuntimeEndpoint function, @Nullable byte[] parameter) {
+        if (instance == null) {
+            throw new IllegalStateException("Runtime has already been closed.");
+        }
+
         String functionName = function.getName();
         log.log(Level.FINE, "Making a runtime call: " + functionName);
-        Object[] response = instance.exports.getFunction(functionName)
-                .apply(parameterPtrSize.pointer(), parameterPtrSize.size());
 
-        if (response == null) {
-            return null;
+        // Invariant: every call starts from the post-instantiation memory, i.e. the memory below the heap base is
+        // restored whenever the allocator is reset, as a reset alone would leave the data segments changed by previous
+        // calls. Fresh instances and ones restored on their return to the pool are already in that state.
+        SharedMemory sharedMemory = context.getSharedMemory();
+        FreeingBumpHeapAllocator allocator = (FreeingBumpHeapAllocator) sharedMemory.getAllocator();
+        if (called) {
+            compiledModule.getMemorySnapshot().restore(sharedMemory.getMemory(), allocator);
+        }
+        called = true;
+
+        CallProfile profile = context.getCallProfile();
+        boolean profiled = false;
+        long start = System.nanoTime();
+        try {
+            Long response;
+            try {
+                RuntimePointerSize parameterPtrSize = parameter == null
+                        ? new RuntimePointerSize(0, 0)
+                        : sharedMemory.writeData(parameter);
+                response = instance.call(functionName, parameterPtrSize.pointer(), parameterPtrSize.size());
+            } catch (RuntimeException e) {
+                poisoned = true;
+                throw e;
+            }
+
+            AllocationStats stats = allocator.getStats();
+            HEAP_PEAK_BYTES.labelValues(functionName).observe(stats.getBytesAllocatedPeak());
+            HEAP_FRAGMENTATION.labelValues(functionName).observe(stats.fragmentation());
+
+            byte[] result = response == null ? null : sharedMemory.readData(new RuntimePointerSize(response));
+
+            if (profile != null) {
+                profileCall(function, System.nanoTime() - start, parameter, result, profile);
+                profiled = true;
+            }
+
+            return result;
+        } finally {
+            // The host function calls of a failed call would otherwise be counted towards the next call
+            if (profile != null && !profiled) {
+                profile.clear();
+            }
+        }
+    }
+
+    private static void profileCall(RuntimeEndpoint function,
+                                    long nanos,
+                                    @Nullable byte[] parameter,
+                                    @Nullable byte[] result,
+                                    CallProfile profile) {
+        if (function == RuntimeEndpoint.CORE_EXECUTE_BLOCK) {
+            log.log(Level.INFO, String.format("Block executed in %.1fms, %.1fms of which in host functions: %s",
+                    nanos / 1_000_000.0, profile.totalNanos() / 1_000_000.0, profile.summary(BLOCK_PROFILE_ENTRIES)));
         }
 
-        RuntimePointerSize responsePtrSize = new RuntimePointerSize((long) response[0]);
-        return context.getSharedMemory().readData(responsePtrSize);
+        profile.complete(function, nanos,
+                parameter == null ? 0 : parameter.length,
+                result == null ? 0 : result.length);
     }
 
     private Optional<byte[]> findStorageValue(Nibbles key) {
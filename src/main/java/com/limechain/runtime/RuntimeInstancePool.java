@@ -0,0 +1,141 @@
+package com.limechain.runtime;
+
+import com.limechain.runtime.allocator.FreeingBumpHeapAllocator;
+import com.limechain.runtime.engine.WasmInstance;
+import com.limechain.runtime.hostapi.DefaultHostApi;
+import com.limechain.trie.TrieAccessor;
+import lombok.extern.java.Log;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.logging.Level;
+
+/**
+ * A thread-safe pool of instantiated runtimes, grouped by compiled module (i.e. by code hash).
+ * <p>
+ * Acquiring a runtime reuses an idle instance of the same module if there is one, binding it to the given trie,
+ * and only instantiates the module otherwise. Closing the acquired runtime returns its instance to the pool, after
+ * restoring the instance memory to its post-instantiation {@link MemorySnapshot} and resetting its allocator.
+ * Every acquisition gets its own {@link Runtime} object, so a runtime which has been closed can't reach an instance
+ * that is already leased by someone else.
+ * <p>
+ * Instances whose calls failed are closed instead of being returned, as a trap may leave the instance's globals
+ * (e.g. the stack pointer) in a state that can't be reset from the host.
+ */
+@Log
+public class RuntimeInstancePool {
+    static final int DEFAULT_MAX_IDLE_INSTANCES = 4;
+
+    private final RuntimeFactory.Config config;
+    private final int maxIdleInstances;
+    // Access ordered, so that iteration starts from the least recently used module
+    private final LinkedHashMap<CompiledModuleCache.CompiledModule, Deque<IdleInstance>> idleInstances =
+            new LinkedHashMap<>(CompiledModuleCache.DEFAULT_MAX_ENTRIES, 0.75f, true);
+
+    /**
+     * @param config the dependencies of the pooled instances; its trie accessor is ignored, as tries are bound
+     *               per acquisition
+     */
+    public RuntimeInstancePool(RuntimeFactory.Config config) {
+        this(config, DEFAULT_MAX_IDLE_INSTANCES);
+    }
+
+    RuntimeInstancePool(RuntimeFactory.Config config, int maxIdleInstances) {
+        this.config = config;
+        this.maxIdleInstances = maxIdleInstances;
+    }
+
+    /**
+     * Returns a ready-to-execute runtime for the given code, bound to the given trie. The runtime should be closed
+     * once it's not needed anymore, so that its instance can be reused.
+     *
+     * @param code         the runtime wasm bytecode
+     * @param trieAccessor provides access to the trie storage for a given block
+     * @return a runtime backed by an idle or a new instance
+     */
+    public Runtime acquire(byte[] code, @Nullable TrieAccessor trieAccessor) {
+        CompiledModuleCache.CompiledModule compiledModule = RuntimeFactory.getCompiledModule(code);
+        try {
+            IdleInstance idle = pollIdle(compiledModule);
+            if (idle == null) {
+                log.log(Level.FINE, "No idle runtime instance, instantiating a new one.");
+                RuntimeImpl runtime = RuntimeFactory.instantiate(compiledModule, config, DefaultHostApi::new, this);
+                runtime.context.setTrieAccessor(trieAccessor);
+                return runtime;
+            }
+
+            idle.context().setTrieAccessor(trieAccessor);
+            return new RuntimeImpl(compiledModule, idle.context(), idle.instance(), this);
+        } finally {
+            // The instance doesn't depend on the module once created, so the module may be closed on eviction
+            compiledModule.release();
+        }
+    }
+
+    /**
+     * @return the number of idle instances in the pool
+     */
+    synchronized int idleCount() {
+        return idleInstances.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    /**
+     * Resets the instance of a closed runtime and makes it available for reuse, or closes it if the pool is full.
+     */
+    void release(CompiledModuleCache.CompiledModule compiledModule, Context context, WasmInstance instance) {
+        context.setTrieAccessor(null);
+
+        MemorySnapshot snapshot = compiledModule.getMemorySnapshot();
+        if (snapshot == null) {
+            instance.close();
+            return;
+        }
+
+        try {
+            SharedMemory sharedMemory = context.getSharedMemory();
+            snapshot.restore(sharedMemory.getMemory(), (FreeingBumpHeapAllocator) sharedMemory.getAllocator());
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Couldn't reset runtime instance, closing it.", e);
+            instance.close();
+            return;
+        }
+
+        synchronized (this) {
+            Deque<IdleInstance> idle = idleInstances.computeIfAbsent(compiledModule, module -> new ArrayDeque<>());
+            if (idle.size() >= maxIdleInstances) {
+                instance.close();
+                return;
+            }
+            idle.push(new IdleInstance(context, instance));
+            evictExcessModules();
+        }
+    }
+
+    /**
+     * Closes all idle instances.
+     */
+    public synchronized void clear() {
+        idleInstances.values().forEach(idle -> idle.forEach(idleInstance -> idleInstance.instance().close()));
+        idleInstances.clear();
+    }
+
+    @Nullable
+    private synchronized IdleInstance pollIdle(CompiledModuleCache.CompiledModule compiledModule) {
+        Deque<IdleInstance> idle = idleInstances.get(compiledModule);
+        return idle == null ? null : idle.poll();
+    }
+
+    private void evictExcessModules() {
+        // Keep idle instances of no more modules than the module cache holds
+        var iterator = idleInstances.entrySet().iterator();
+        while (idleInstances.size() > CompiledModuleCache.DEFAULT_MAX_ENTRIES && iterator.hasNext()) {
+            iterator.next().getValue().forEach(idleInstance -> idleInstance.instance().close());
+            iterator.remove();
+        }
+    }
+
+    private record IdleInstance(Context context, WasmInstance instance) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.limechain.runtime;
+
+import com.limechain.runtime.hostapi.Endpoint;
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates where runtime execution time goes: the calls, time and bytes moved per host function {@link Endpoint}
+ * and per {@link RuntimeEndpoint runtime API call}, across all runtime instances.
+ * <p>
+ * When enabled, every instantiated runtime gets its host functions wrapped by a {@link CallProfile}, which is merged
+ * in here at the end of each runtime call. Disabled, the host functions are imported as they are and there's no
+ * overhead at all.
+ */
+public class RuntimeProfiler {
+    private static final Endpoint[] ENDPOINTS = Endpoint.values();
+    private static final RuntimeEndpoint[] RUNTIME_ENDPOINTS = RuntimeEndpoint.values();
+
+    @Getter
+    private final boolean enabled;
+    private final Accumulator[] hostFunctions = new Accumulator[ENDPOINTS.length];
+    private final Accumulator[] runtimeCalls = new Accumulator[RUNTIME_ENDPOINTS.length];
+
+    public RuntimeProfiler(boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < hostFunctions.length; i++) {
+            hostFunctions[i] = new Accumulator();
+        }
+        for (int i = 0; i < runtimeCalls.length; i++) {
+            runtimeCalls[i] = new Accumulator();
+        }
+    }
+
+    /**
+     * The totals of a host function or a runtime API call since the node started.
+     *
+     * @param calls        the number of calls
+     * @param nanos        the cumulative execution time in nanoseconds
+     * @param bytesRead    the bytes read from the runtime memory by the host: the inputs of host functions
+     *                     or the results of runtime calls
+     * @param bytesWritten the bytes written to the runtime memory by the host: the outputs of host functions
+     *                     or the parameters of runtime calls
+     */
+    public record Totals(long calls, long nanos, long bytesRead, long bytesWritten) {
+        private Totals plus(Totals other) {
+            return new Totals(calls + other.calls, nanos + other.nanos,
+                    bytesRead + other.bytesRead, bytesWritten + other.bytesWritten);
+        }
+    }
+
+    /**
+     * @return the totals of all host functions which have been called at least once
+     */
+    public Map<Endpoint, Totals> hostFunctionTotals() {
+        Map<Endpoint, Totals> totals = new EnumMap<>(Endpoint.class);
+        for (int i = 0; i < ENDPOINTS.length; i++) {
+            if (hostFunctions[i].calls.sum() > 0) {
+                totals.put(ENDPOINTS[i], hostFunctions[i].totals());
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * @return the totals of all runtime API calls which have been made at least once, by function name
+     */
+    public Map<String, Totals> runtimeCallTotals() {
+        // Keyed by name, as a few runtime endpoints share the same function
+        Map<String, Totals> totals = new TreeMap<>();
+        for (int i = 0; i < RUNTIME_ENDPOINTS.length; i++) {
+            if (runtimeCalls[i].calls.sum() > 0) {
+                totals.merge(RUNTIME_ENDPOINTS[i].getName(), runtimeCalls[i].totals(), Totals::plus);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Adds a completed runtime call and the host functions called during it to the totals.
+     */
+    void record(RuntimeEndpoint function, long nanos, int parameterSize, int resultSize, CallProfile profile) {
+        runtimeCalls[function.ordinal()].add(1, nanos, resultSize, parameterSize);
+
+        for (int i = 0; i < ENDPOINTS.length; i++) {
+            if (profile.calls[i] > 0) {
+                hostFunctions[i].add(profile.calls[i], profile.nanos[i], profile.bytesRead[i], profile.bytesWritten[i]);
+            }
+        }
+    }
+
+    private static class Accumulator {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder bytesRead = new LongAdder();
+        private final LongAdder bytesWritten = new LongAdder();
+
+        private void add(long calls, long nanos, long bytesRead, long bytesWritten) {
+            this.calls.add(calls);
+            this.nanos.add(nanos);
+            this.bytesRead.add(bytesRead);
+            this.bytesWritten.add(bytesWritten);
+        }
+
+        private Totals totals() {
+            return new Totals(calls.sum(), nanos.sum(), bytesRead.sum(), bytesWritten.sum());
+        }
+    }
+}
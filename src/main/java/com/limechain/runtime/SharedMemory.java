@@ -4,19 +4,28 @@ import com.limechain.runtime.allocator.Allocator;
 import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
 import com.limechain.runtime.memory.Memory;
 import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.Setter;
+import net.openhft.hashing.LongHashFunction;
 
-import java.nio.ByteBuffer;
+import java.lang.foreign.MemorySegment;
 
 /**
  * A container for a {@link Memory} with an added {@link Allocator}, providing memory management functionality.
  */
+@Getter(AccessLevel.PACKAGE)
 @Setter(AccessLevel.PACKAGE)
-@AllArgsConstructor
 public class SharedMemory {
     private Memory memory;
     private Allocator allocator;
+    // Running totals of the data moved between the host and the runtime, used by the CallProfile
+    private long bytesRead;
+    private long bytesWritten;
+
+    public SharedMemory(Memory memory, Allocator allocator) {
+        this.memory = memory;
+        this.allocator = allocator;
+    }
 
     /**
      * Get the data stored in memory using a {@link  RuntimePointerSize}
@@ -25,13 +34,50 @@ public class SharedMemory {
      * @return byte array with read data
      */
     public byte[] readData(RuntimePointerSize runtimePointerSize) {
-        ByteBuffer memoryBuffer = this.memory.buffer();
         byte[] data = new byte[runtimePointerSize.size()];
-        memoryBuffer.position(runtimePointerSize.pointer());
-        memoryBuffer.get(data);
+        memory.read(runtimePointerSize.pointer(), data);
+        bytesRead += data.length;
         return data;
     }
 
+    /**
+     * Read the data stored in memory using a {@link RuntimePointerSize} into the start of a given array,
+     * for callers reusing a buffer across calls.
+     *
+     * @param runtimePointerSize pointer to data and its size, not larger than the destination
+     * @param destination        array to read the data into
+     */
+    public void readData(RuntimePointerSize runtimePointerSize, byte[] destination) {
+        memory.read(runtimePointerSize.pointer(), destination, 0, runtimePointerSize.size());
+        bytesRead += runtimePointerSize.size();
+    }
+
+    /**
+     * Hash the data stored in memory using a {@link RuntimePointerSize}, without copying it where the memory
+     * allows it.
+     *
+     * @param runtimePointerSize pointer to data and its size
+     * @param hashFunction       hash function to hash the data with
+     * @return the hash of the data
+     */
+    public long hashData(RuntimePointerSize runtimePointerSize, LongHashFunction hashFunction) {
+        bytesRead += runtimePointerSize.size();
+        return memory.hash(hashFunction, runtimePointerSize.pointer(), runtimePointerSize.size());
+    }
+
+    /**
+     * Get a read-only view of the data stored in memory using a {@link RuntimePointerSize}, without copying it
+     * where the memory allows it.
+     * <br>The view must not be used after memory is allocated or the runtime is called again, as the memory may grow.
+     *
+     * @param runtimePointerSize pointer to data and its size
+     * @return a segment of the memory holding the data
+     */
+    public MemorySegment readSlice(RuntimePointerSize runtimePointerSize) {
+        bytesRead += runtimePointerSize.size();
+        return memory.slice(runtimePointerSize.pointer(), runtimePointerSize.size());
+    }
+
     /**
      * Write data to memory, by allocating space in memory and then writing to it.
      *
@@ -53,9 +99,9 @@ public class SharedMemory {
      * @param runtimePointerSize pointer to memory and size of data to be stored.
      */
     public void writeData(byte[] data, RuntimePointerSize runtimePointerSize) {
-        ByteBuffer memoryBuffer = memory.buffer();
-        memoryBuffer.position(runtimePointerSize.pointer());
-        memoryBuffer.put(data, 0, Math.min(data.length, runtimePointerSize.size()));
+        int length = Math.min(data.length, runtimePointerSize.size());
+        memory.write(runtimePointerSize.pointer(), data, 0, length);
+        bytesWritten += length;
     }
 
     /**
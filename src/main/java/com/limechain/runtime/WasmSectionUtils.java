@@ -11,13 +11,13 @@ import com.dylibso.chicory.wasm.types.MemoryLimits;
 import com.dylibso.chicory.wasm.types.MemorySection;
 import com.dylibso.chicory.wasm.types.SectionId;
 import com.dylibso.chicory.wasm.types.UnknownCustomSection;
+import com.limechain.runtime.engine.MemoryDescriptor;
 import com.limechain.runtime.version.ApiVersions;
 import com.limechain.runtime.version.RuntimeVersion;
 import com.limechain.runtime.version.scale.RuntimeVersionReader;
 import com.limechain.utils.scale.ScaleUtils;
 import lombok.experimental.UtilityClass;
 import org.jetbrains.annotations.Nullable;
-import org.wasmer.ImportObject;
 
 import java.io.ByteArrayInputStream;
 import java.util.Objects;
@@ -28,7 +28,6 @@ public class WasmSectionUtils {
     private static final String RUNTIME_VERSION_SECTION_NAME = "runtime_version";
     private static final String RUNTIME_APIS_SECTION_NAME = "runtime_apis";
     private static final String MEMORY_IMPORT_NAME = "memory";
-    static final String ENV_MODULE_NAME = "env";
 
     /**
      * Parses the runtime version if both wasm custom sections ("runtime_apis" and "runtime_version") are present.
@@ -65,10 +64,10 @@ public class WasmSectionUtils {
      * Parses the import section of a wasm blob and extracts the "memory" import if present.
      *
      * @param wasmBinary the wasm blob
-     * @return the parsed {@link ImportObject.MemoryImport} if present, null otherwise.
+     * @return the parsed {@link MemoryDescriptor} if present, null otherwise.
      */
     @Nullable
-    public ImportObject.MemoryImport parseMemoryFromBinary(byte[] wasmBinary) {
+    public MemoryDescriptor parseMemoryFromBinary(byte[] wasmBinary) {
         Module moduleWithSections =
                 toModuleWithSections(wasmBinary, SectionId.IMPORT, SectionId.MEMORY, SectionId.EXPORT);
         Integer initialPagesLimit = null;
@@ -91,8 +90,7 @@ public class WasmSectionUtils {
             }
         }
 
-        return initialPagesLimit != null ? new ImportObject.MemoryImport(ENV_MODULE_NAME, initialPagesLimit, isShared) :
-                null;
+        return initialPagesLimit != null ? new MemoryDescriptor(initialPagesLimit, isShared) : null;
     }
 
     private boolean isMemorySectionValid(@Nullable MemorySection memorySection) {
@@ -2,18 +2,20 @@ package com.limechain.runtime.allocator;
 
 import lombok.Data;
 
-import java.math.BigInteger;
-
+/**
+ * Statistics of a {@link FreeingBumpHeapAllocator} since its last {@link FreeingBumpHeapAllocator#reset() reset}.
+ * Sizes include the allocation headers and the rounding up to the order block size.
+ */
 @Data
 public class AllocationStats {
     private int bytesAllocated;
     private int bytesAllocatedPeak;
-    private BigInteger bytesAllocatedSum = BigInteger.ZERO;
+    private long bytesAllocatedSum;
     private int addressSpaceUsed;
 
     public void allocated(int allocatedSize, int addressSpaceUsed) {
         bytesAllocated += allocatedSize;
-        bytesAllocatedSum = bytesAllocatedSum.add(BigInteger.valueOf(allocatedSize));
+        bytesAllocatedSum += allocatedSize;
         bytesAllocatedPeak = Math.max(bytesAllocatedPeak, bytesAllocated);
         this.addressSpaceUsed = addressSpaceUsed;
     }
@@ -21,4 +23,24 @@ public class AllocationStats {
     public void deallocated(int deallocateSize) {
         bytesAllocated -= deallocateSize;
     }
+
+    /**
+     * The share of the bumped address space that was never in use at the same time, i.e. blocks which sat in the
+     * free list of one order while allocations of another order had to bump.
+     *
+     * @return a ratio between 0 (no fragmentation) and 1
+     */
+    public double fragmentation() {
+        if (addressSpaceUsed == 0) {
+            return 0;
+        }
+        return 1 - (double) bytesAllocatedPeak / addressSpaceUsed;
+    }
+
+    public void reset() {
+        bytesAllocated = 0;
+        bytesAllocatedPeak = 0;
+        bytesAllocatedSum = 0;
+        addressSpaceUsed = 0;
+    }
 }
@@ -2,14 +2,13 @@ package com.limechain.runtime.allocator;
 
 import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
 import com.limechain.runtime.memory.Memory;
-import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.java.Log;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.logging.Level;
 
-import static com.limechain.runtime.allocator.Order.MAX_POSSIBLE_ALLOCATION;
-import static com.limechain.runtime.allocator.Order.MIN_POSSIBLE_ALLOCATION;
+import static com.limechain.runtime.allocator.Header.END_OF_FREE_LIST;
 import static com.limechain.runtime.allocator.Order.NUMBER_OF_ORDERS;
 
 /**
@@ -24,9 +23,8 @@ import static com.limechain.runtime.allocator.Order.NUMBER_OF_ORDERS;
  * Each allocation has a {@link Header} immediately preceding it. The header is always 8 bytes and can
  * be either free or occupied.
  * <br>
- * For implementing freeing we maintain a linked lists for each order, by each order pointing to the
- * {@link Order#getFreeHeaderPointer() next free header}
- * and each free header pointing to the {@link Header#getNextFreeHeaderPointer() next free one}.
+ * For implementing freeing we maintain a linked lists for each order, by keeping the pointer to the first
+ * free header of each order in an array indexed by the order and each free header pointing to the next free one.
  * <br>
  * The maximum supported allocation size is capped, therefore the number of orders and thus the linked lists is as well
  * limited. Currently, the maximum size of an allocation is 32 MiB.
@@ -63,9 +61,12 @@ import static com.limechain.runtime.allocator.Order.NUMBER_OF_ORDERS;
  *   sizes.
  * </li>
  * </ul>
+ * Memory handed out within a top-level runtime call is not expected to outlive it, so the allocator is
+ * {@link #reset() reset} before each call, which also bounds the first shortcoming to a single call. The reset
+ * happens as part of restoring the instance's memory to its post-instantiation state, as the runtime expects
+ * to start each call from it.
  */
 @Log
-@AllArgsConstructor
 public class FreeingBumpHeapAllocator implements Allocator {
     private static final int ALIGNMENT = 8;
     private static final int HEADER_SIZE = 8;
@@ -73,30 +74,34 @@ public class FreeingBumpHeapAllocator implements Allocator {
     private static final int MAX_WASM_PAGES = (int) (4L * 1024 * 1024 * 1024 / PAGE_SIZE); // 4GB
 
     private final int originalHeapBase;
-    private final List<Order> orders;
+    /**
+     * Pointers to the first free header of each order, {@link Header#END_OF_FREE_LIST} for empty lists.
+     */
+    private final int[] freeLists;
+    @Getter
     private final AllocationStats stats;
     private int lastObservedMemorySize;
     private int bumper;
+    private int highWaterMark;
 
     public FreeingBumpHeapAllocator(int heapBase) {
         int alignedHeapBase = (heapBase + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
 
         this.originalHeapBase = alignedHeapBase;
         this.bumper = alignedHeapBase;
-        this.orders = new ArrayList<>(NUMBER_OF_ORDERS);
+        this.highWaterMark = alignedHeapBase;
+        this.freeLists = new int[NUMBER_OF_ORDERS];
         this.lastObservedMemorySize = 0;
         this.stats = new AllocationStats();
 
-        for (int i = 0; i < NUMBER_OF_ORDERS; i++) {
-            orders.add(new Order(i));
-        }
+        Arrays.fill(freeLists, END_OF_FREE_LIST);
     }
 
     /**
      * Allocates a block for given size in memory.
      * <br>The block allocated will have size equal to the next power of 2, relative to the given size.
-     * <br>The block will be allocated at the next free header pointed by the {@link Order order} of this size, if any.
-     * Otherwise, memory will be bumped and the new space will be allocated.
+     * <br>The block will be allocated at the first free header in the free list of the {@link Order order} of this
+     * size, if any. Otherwise, memory will be bumped and the new space will be allocated.
      * <br>An occupied {@link Header header} is written before the allocated block.
      *
      * @param size   size to be allocated; max size is 32MB
@@ -105,54 +110,49 @@ public class FreeingBumpHeapAllocator implements Allocator {
      * @throws AllocationError when a block of this size can't be allocated
      */
     public RuntimePointerSize allocate(int size, Memory memory) {
-        log.finer("Allocating memory... size=" + size);
         verifyMemorySize(memory);
-        Order order = getOrderForSize(size);
-        int headerPointer = nextFreeHeaderPointer(order, memory);
-        writeOccupiedHeader(headerPointer, order.getValue(), memory);
-        stats.allocated(order.getBlockSize() + HEADER_SIZE, bumper - originalHeapBase);
-        log.finer("Allocated " + stats.getBytesAllocated() + " bytes successfully");
-        log.finer("Total Allocated Memory: " + stats.getBytesAllocatedSum().toString());
+        int order = Order.forSize(size);
+        int blockSize = Order.blockSize(order);
+        int headerPointer = nextFreeHeaderPointer(order, blockSize, memory);
+        memory.writeLong(headerPointer, Header.occupied(order));
+        stats.allocated(blockSize + HEADER_SIZE, bumper - originalHeapBase);
+        if (log.isLoggable(Level.FINEST)) {
+            log.finest("Allocated " + size + " bytes at " + (headerPointer + HEADER_SIZE)
+                    + ", total allocated: " + stats.getBytesAllocated());
+        }
         return new RuntimePointerSize(headerPointer + HEADER_SIZE, size);
-
     }
 
-    private Order getOrderForSize(int size) {
-        if (size > MAX_POSSIBLE_ALLOCATION) {
-            throw new AllocationError("Requested allocation size is too large");
-        }
-        if (size <= MIN_POSSIBLE_ALLOCATION) {
-            return orders.get(0);
+    private int nextFreeHeaderPointer(int order, int blockSize, Memory memory) {
+        int headerPointer = freeLists[order];
+        if (headerPointer == END_OF_FREE_LIST) {
+            return bump(blockSize + HEADER_SIZE, memory);
         }
 
-        int order = nextPowerOfTwo(size) - nextPowerOfTwo(MIN_POSSIBLE_ALLOCATION);
-        return orders.get(order);
-    }
-
-    private int nextPowerOfTwo(int value) {
-        return Integer.SIZE - Integer.numberOfLeadingZeros(value - 1);
-    }
-
-    private int nextFreeHeaderPointer(Order order, Memory memory) {
-        return order.popFreeHeaderPointer(memory)
-                .orElseGet(() -> bump(order.getBlockSize() + HEADER_SIZE, memory));
+        long rawHeader = memory.readLong(headerPointer);
+        if (Header.isOccupied(rawHeader)) {
+            throw new AllocationError("Free list points to an occupied header");
+        }
+        freeLists[order] = Header.data(rawHeader);
+        return headerPointer;
     }
 
     private int bump(int size, Memory memory) {
         long requiredSize = (long) bumper + size;
 
-        if (requiredSize > memory.buffer().limit()) {
+        if (requiredSize > memory.size()) {
             growPages(size, memory);
         }
 
         int pointer = bumper;
         bumper += size;
+        highWaterMark = Math.max(highWaterMark, bumper);
         return pointer;
     }
 
     private void growPages(int size, Memory memory) {
         int requiredPages = pagesFromSize(size);
-        int currentPages = pagesFromSize(memory.buffer().limit());
+        int currentPages = pagesFromSize(memory.size());
 
         if (currentPages >= MAX_WASM_PAGES) {
             throw new AllocationError("Max pages already reached.");
@@ -179,16 +179,10 @@ public class FreeingBumpHeapAllocator implements Allocator {
         return (int) pages;
     }
 
-    private void writeOccupiedHeader(int pointer, int order, Memory memory) {
-        Header header = Header.occupied(order);
-        memory.buffer().putLong(pointer, header.raw());
-    }
-
     /**
      * Deallocate a block of memory.
-     * <br> The header of the deallocated block is set to free with a pointer to the current
-     * {@link Order#getFreeHeaderPointer() free header pointer} of its order.
-     * The pointer of the order is set to the deallocated header.
+     * <br> The header of the deallocated block is set to free with a pointer to the first free header of its order,
+     * and the block becomes the head of the free list of its order.
      *
      * @param pointer pointer to the block
      * @param memory  memory
@@ -197,34 +191,50 @@ public class FreeingBumpHeapAllocator implements Allocator {
     public void deallocate(int pointer, Memory memory) {
         verifyMemorySize(memory);
         int headerPointer = pointer - HEADER_SIZE;
-        Order order = getOrderFromHeader(headerPointer, memory);
-        writeFreeHeader(headerPointer, order.getFreeHeaderPointer(), memory);
-        order.setFreeHeaderPointer(headerPointer);
-        stats.deallocated(order.getBlockSize());
-    }
-
-    private Order getOrderFromHeader(int headerPointer, Memory memory) {
         if (headerPointer < originalHeapBase) {
             throw new AllocationError("Invalid pointer for deallocation");
         }
-        Header header = Header.fromMemory(headerPointer, memory);
-        if (!header.isOccupied() || header.getOrder() == null) {
+
+        long rawHeader = memory.readLong(headerPointer);
+        int order = Header.data(rawHeader);
+        if (!Header.isOccupied(rawHeader) || order < 0 || order >= NUMBER_OF_ORDERS) {
             throw new AllocationError("No occupied header found at address");
         }
 
-        return orders.get(header.getOrder());
+        memory.writeLong(headerPointer, Header.free(freeLists[order]));
+        freeLists[order] = headerPointer;
+        stats.deallocated(Order.blockSize(order) + HEADER_SIZE);
+    }
+
+    /**
+     * Frees all allocations at once by emptying the free lists and moving the bumper back to the heap base.
+     * Called before each top-level runtime call, as the runtime doesn't keep heap allocations between calls.
+     * The contents of the freed memory are left as they are, so the caller is responsible for clearing the used heap
+     * and restoring the memory below the heap base.
+     */
+    public void reset() {
+        bumper = originalHeapBase;
+        Arrays.fill(freeLists, END_OF_FREE_LIST);
+        stats.reset();
+    }
+
+    /**
+     * Returns the end of the heap space handed out since the allocator was created or this method was last called,
+     * across {@link #reset() resets}, and starts tracking it anew from the current bumper.
+     *
+     * @return the end of the used heap space; memory past it has never been handed out
+     */
+    public int takeHighWaterMark() {
+        int usedHeapEnd = highWaterMark;
+        highWaterMark = bumper;
+        return usedHeapEnd;
     }
 
     private void verifyMemorySize(Memory memory) throws AllocationError {
-        int memorySize = memory.buffer().limit();
+        int memorySize = memory.size();
         if (memorySize < lastObservedMemorySize) {
             throw new AllocationError("Memory shrank");
         }
         lastObservedMemorySize = memorySize;
     }
-
-    private void writeFreeHeader(int pointer, Integer nextFreeHeaderPointer, Memory memory) {
-        Header header = Header.free(nextFreeHeaderPointer == null ? Integer.MAX_VALUE : nextFreeHeaderPointer);
-        memory.buffer().putLong(pointer, header.raw());
-    }
 }
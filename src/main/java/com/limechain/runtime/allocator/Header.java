@@ -1,10 +1,6 @@
 package com.limechain.runtime.allocator;
 
-import com.limechain.runtime.memory.Memory;
-import lombok.AccessLevel;
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.java.Log;
+import lombok.experimental.UtilityClass;
 
 /**
  * Allocation header preceding a memory block.
@@ -18,72 +14,52 @@ import lombok.extern.java.Log;
  * </ul>
  * The header is written in memory as 64 bits: the most significant ones denoting its type
  * and the least significant - the header data (next free block or order).
+ * <br>
+ * Headers are read and written on every allocation, so they are handled in their raw form only.
  */
-@Log
-@Getter
-@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+@UtilityClass
 public class Header {
     private static final long OCCUPIED_HEADER_MASK = 0x00000001_00000000L;
     private static final long FREE_HEADER_MASK = 0x00000000_00000000L;
 
-    private final boolean occupied;
-
-    private Integer nextFreeHeaderPointer;
-    private Integer order;
+    /**
+     * Pointer stored in the free header of the last block of a free list.
+     */
+    public static final int END_OF_FREE_LIST = Integer.MAX_VALUE;
 
     /**
-     * Creates a header for an occupied block.
+     * Encodes a header for an occupied block.
      *
      * @param order order of the occupied block
-     * @return occupied header
+     * @return raw 64-bit occupied header
      */
-    public static Header occupied(int order) {
-        Header header = new Header(true);
-        log.finer( "Creating occupied header, order=" + order);
-        header.order = order;
-        return header;
+    public static long occupied(int order) {
+        return Integer.toUnsignedLong(order) | OCCUPIED_HEADER_MASK;
     }
 
     /**
-     * Creates a header for a free block.
+     * Encodes a header for a free block.
      *
      * @param next pointer to the next free block of this order
-     * @return free header
+     * @return raw 64-bit free header
      */
-    public static Header free(int next) {
-        Header header = new Header(false);
-        header.nextFreeHeaderPointer = next;
-        log.finer("Creating free header, next=" + next);
-
-        return header;
+    public static long free(int next) {
+        return Integer.toUnsignedLong(next) | FREE_HEADER_MASK;
     }
 
     /**
-     * Read a header from memory.
-     *
-     * @param pointer header address
-     * @param memory  memory to read from
-     * @return parsed header
+     * @param rawHeader raw 64-bit header
+     * @return whether the header is of an occupied block
      */
-    public static Header fromMemory(int pointer, Memory memory) {
-        log.finer("Reading header from memory, pointer=" + pointer);
-        long rawHeader = memory.buffer().getLong(pointer);
-        boolean occupied = (rawHeader & OCCUPIED_HEADER_MASK) != 0;
-        int data = (int) rawHeader;
-
-        return occupied ? Header.occupied(data) : Header.free(data);
+    public static boolean isOccupied(long rawHeader) {
+        return (rawHeader & OCCUPIED_HEADER_MASK) != 0;
     }
 
     /**
-     * Returns the raw 64-bit representation of this header.
-     *
-     * @return 64-bit header
+     * @param rawHeader raw 64-bit header
+     * @return the order of an occupied header or the next free block pointer of a free one
      */
-    public long raw() {
-        if (occupied) {
-            return (long) order | OCCUPIED_HEADER_MASK;
-        } else {
-            return (long) nextFreeHeaderPointer | FREE_HEADER_MASK;
-        }
+    public static int data(long rawHeader) {
+        return (int) rawHeader;
     }
 }
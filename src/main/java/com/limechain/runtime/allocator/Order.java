@@ -1,10 +1,6 @@
 package com.limechain.runtime.allocator;
 
-import com.limechain.runtime.memory.Memory;
-import lombok.Data;
-import lombok.extern.java.Log;
-
-import java.util.Optional;
+import lombok.experimental.UtilityClass;
 
 /**
  * <b>Order for blocks of certain size.</b>
@@ -12,10 +8,9 @@ import java.util.Optional;
  * <br> Orders with value 0 have size {@value MIN_POSSIBLE_ALLOCATION} bytes, with each consecutive value
  * corresponding to a size equal to the next power of 2, up to a size of {@value MAX_POSSIBLE_ALLOCATION} bytes.
  * (orders with value 1 have size 16 bytes; with value 2 - 32 bytes, etc.)
- * <br> An order includes a pointer to the next free header of this order, if any.
+ * <br> Orders are plain indices into the free lists of the {@link FreeingBumpHeapAllocator}.
  */
-@Log
-@Data
+@UtilityClass
 public class Order {
     // This number corresponds to the number of powers between the minimum possible allocation and
     // maximum possible allocation, or: 2^3...2^25 (both ends inclusive, hence 23).
@@ -24,38 +19,29 @@ public class Order {
     public static final int MIN_POSSIBLE_ALLOCATION = 8; // 2^3 bytes, 8 bytes
     public static final int MAX_POSSIBLE_ALLOCATION = 32 * 1024 * 1024; // 2^25 bytes, 32 MiB
 
-    private final int value;
-    private final int blockSize;
-    /**
-     * Pointer to the header of the next free block of this order.
-     */
-    private Integer freeHeaderPointer;
+    private static final int MIN_POSSIBLE_ALLOCATION_POWER = Integer.numberOfTrailingZeros(MIN_POSSIBLE_ALLOCATION);
 
     /**
-     * Create an order with given value, calculating the block size of the order.
-     *
-     * @param value order
+     * @param size requested allocation size
+     * @return the smallest order whose blocks fit the size
+     * @throws AllocationError when the size exceeds {@value MAX_POSSIBLE_ALLOCATION} bytes
      */
-    public Order(int value) {
-        this.value = value;
-        this.blockSize = MIN_POSSIBLE_ALLOCATION << value;
+    public static int forSize(int size) {
+        if (size > MAX_POSSIBLE_ALLOCATION) {
+            throw new AllocationError("Requested allocation size is too large");
+        }
+        if (size <= MIN_POSSIBLE_ALLOCATION) {
+            return 0;
+        }
+
+        return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1) - MIN_POSSIBLE_ALLOCATION_POWER;
     }
 
     /**
-     * Pop the pointer to the next free header for this order. Replace its value with the one written
-     * in the {@link Header} being pointed at.
-     *
-     * @param memory memory to read from
-     * @return Optional of the popped value or empty if there was no value.
+     * @param order order value
+     * @return the size in bytes of the blocks of the order
      */
-    public Optional<Integer> popFreeHeaderPointer(Memory memory) {
-        if (freeHeaderPointer == null || freeHeaderPointer == Integer.MAX_VALUE) {
-            return Optional.empty();
-        }
-
-        int result = freeHeaderPointer;
-        freeHeaderPointer = Header.fromMemory(freeHeaderPointer, memory).getNextFreeHeaderPointer();
-        log.finer("Next free header pointer=" + freeHeaderPointer);
-        return Optional.of(result);
+    public static int blockSize(int order) {
+        return MIN_POSSIBLE_ALLOCATION << order;
     }
 }
@@ -0,0 +1,159 @@
+package com.limechain.runtime.engine;
+
+import com.dylibso.chicory.runtime.HostGlobal;
+import com.dylibso.chicory.runtime.HostImports;
+import com.dylibso.chicory.runtime.HostMemory;
+import com.dylibso.chicory.runtime.Instance;
+import com.dylibso.chicory.runtime.Module;
+import com.dylibso.chicory.wasm.types.MemoryLimits;
+import com.dylibso.chicory.wasm.types.Value;
+import com.limechain.runtime.hostapi.Endpoint;
+import com.limechain.runtime.hostapi.HostFunction;
+import com.limechain.runtime.hostapi.ValueType;
+import com.limechain.runtime.hostapi.WasmExports;
+import com.limechain.runtime.memory.Memory;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Interprets the wasm code on the JVM using Chicory. Host functions are plain java calls from the interpreter,
+ * so they can be inlined by the JIT and don't pay for crossing JNI.
+ */
+public class ChicoryEngine implements WasmEngine {
+
+    @Override
+    public WasmModule compile(byte[] wasmBinary) {
+        return new ChicoryModule(Module.builder(wasmBinary).build());
+    }
+
+    private static com.dylibso.chicory.runtime.HostFunction toChicoryFunction(HostFunction hostFunction) {
+        Endpoint endpoint = hostFunction.endpoint();
+        List<ValueType> argTypes = endpoint.getArgs();
+        ValueType retType = endpoint.getRetType();
+        HostFunction.Implementation implementation = hostFunction.implementation();
+        // Reused across calls, as an instance never runs more than one host function at a time
+        long[] argv = new long[argTypes.size()];
+
+        return new com.dylibso.chicory.runtime.HostFunction(
+                (Instance instance, Value... args) -> {
+                    for (int i = 0; i < argv.length; i++) {
+                        argv[i] = argTypes.get(i) == ValueType.I32 ? args[i].asInt() : args[i].asLong();
+                    }
+
+                    long result = implementation.invoke(argv);
+                    if (retType == null) {
+                        return null;
+                    }
+                    return new Value[]{retType == ValueType.I32 ? Value.i32((int) result) : Value.i64(result)};
+                },
+                HostFunction.MODULE_NAME,
+                endpoint.getFunctionName(),
+                argTypes.stream().map(ChicoryEngine::toValueType).toList(),
+                retType == null ? List.of() : List.of(toValueType(retType))
+        );
+    }
+
+    private static com.dylibso.chicory.wasm.types.ValueType toValueType(ValueType type) {
+        return switch (type) {
+            case I32 -> com.dylibso.chicory.wasm.types.ValueType.I32;
+            case I64 -> com.dylibso.chicory.wasm.types.ValueType.I64;
+        };
+    }
+
+    private record ChicoryModule(Module module) implements WasmModule {
+
+        @Override
+        public WasmInstance instantiate(List<HostFunction> hostFunctions, MemoryDescriptor memory) {
+            HostMemory hostMemory = new HostMemory(
+                    HostFunction.MODULE_NAME,
+                    WasmExports.MEMORY.getValue(),
+                    new com.dylibso.chicory.runtime.Memory(new MemoryLimits(memory.initialPages()))
+            );
+            HostImports imports = new HostImports(
+                    hostFunctions.stream()
+                            .map(ChicoryEngine::toChicoryFunction)
+                            .toArray(com.dylibso.chicory.runtime.HostFunction[]::new),
+                    new HostGlobal[0],
+                    hostMemory
+            );
+
+            return new ChicoryInstance(module.instantiate(imports));
+        }
+
+        @Override
+        public void close() {
+            // The module is a plain java object, there's nothing to release
+        }
+    }
+
+    private static final class ChicoryInstance implements WasmInstance {
+        private final Instance instance;
+        private final Memory memory;
+
+        private ChicoryInstance(Instance instance) {
+            this.instance = instance;
+            this.memory = new ChicoryMemory(instance.memory());
+        }
+
+        @Override
+        public Memory memory() {
+            return memory;
+        }
+
+        @Override
+        public int heapBase() {
+            // Exported globals are read through an export function returning their value
+            return instance.export(WasmExports.HEAP_BASE.getValue()).apply()[0].asInt();
+        }
+
+        @Nullable
+        @Override
+        public Long call(String functionName, int pointer, int size) {
+            Value[] result = instance.export(functionName).apply(Value.i32(pointer), Value.i32(size));
+            return result == null || result.length == 0 ? null : result[0].asLong();
+        }
+
+        @Override
+        public void close() {
+            // The instance is a plain java object, there's nothing to release
+        }
+    }
+
+    private record ChicoryMemory(com.dylibso.chicory.runtime.Memory memory) implements Memory {
+        private static final int PAGE_SIZE = 65536;
+
+        @Override
+        public int size() {
+            return memory.pages() * PAGE_SIZE;
+        }
+
+        @Override
+        public void read(int offset, byte[] destination, int destinationOffset, int length) {
+            System.arraycopy(memory.readBytes(offset, length), 0, destination, destinationOffset, length);
+        }
+
+        @Override
+        public void write(int offset, byte[] source, int sourceOffset, int length) {
+            memory.write(offset, sourceOffset == 0 && length == source.length
+                    ? source
+                    : Arrays.copyOfRange(source, sourceOffset, sourceOffset + length));
+        }
+
+        @Override
+        public long readLong(int offset) {
+            return memory.readLong(offset);
+        }
+
+        @Override
+        public void writeLong(int offset, long value) {
+            memory.writeLong(offset, value);
+        }
+
+        @Override
+        public int grow(int numPages) {
+            return memory.grow(numPages);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.limechain.runtime.engine;
+
+/**
+ * Describes the memory a runtime imports from the host.
+ *
+ * @param initialPages the initial size of the memory in wasm pages
+ * @param shared       whether the memory is shared
+ */
+public record MemoryDescriptor(int initialPages, boolean shared) {
+}
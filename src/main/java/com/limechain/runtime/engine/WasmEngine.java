@@ -0,0 +1,37 @@
+package com.limechain.runtime.engine;
+
+/**
+ * A WebAssembly execution engine, compiling runtime wasm binaries into {@link WasmModule}s.
+ * <p>
+ * Everything above this interface (the runtime API calls, the host functions, the allocator) is engine agnostic,
+ * so engines can be swapped without affecting the rest of the node.
+ */
+public interface WasmEngine {
+
+    /**
+     * Compiles (or, for interpreting engines, parses and validates) a wasm binary.
+     *
+     * @param wasmBinary the uncompressed wasm binary
+     * @return a module which can be instantiated multiple times
+     */
+    WasmModule compile(byte[] wasmBinary);
+
+    /**
+     * @return whether compiled modules can be {@link WasmModule#serialize() serialized} and restored
+     * with {@link #deserialize(byte[])}
+     */
+    default boolean supportsSerialization() {
+        return false;
+    }
+
+    /**
+     * Restores a module serialized with {@link WasmModule#serialize()} by the same engine build.
+     *
+     * @param serializedModule the serialized module
+     * @return the restored module
+     * @throws UnsupportedOperationException if the engine doesn't support serialization
+     */
+    default WasmModule deserialize(byte[] serializedModule) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " doesn't support serialized modules.");
+    }
+}
@@ -0,0 +1,30 @@
+package com.limechain.runtime.engine;
+
+import java.util.function.Supplier;
+
+/**
+ * The available {@link WasmEngine} implementations.
+ */
+public enum WasmEngineType {
+    /**
+     * Executes natively compiled code through wasmer's JNI bindings.
+     */
+    WASMER(WasmerEngine::new),
+    /**
+     * Interprets the wasm code on the JVM, so host function calls don't cross JNI.
+     */
+    CHICORY(ChicoryEngine::new);
+
+    private final Supplier<WasmEngine> factory;
+
+    WasmEngineType(Supplier<WasmEngine> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @return a new instance of the engine
+     */
+    public WasmEngine create() {
+        return factory.get();
+    }
+}
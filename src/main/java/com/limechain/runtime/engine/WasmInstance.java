@@ -0,0 +1,36 @@
+package com.limechain.runtime.engine;
+
+import com.limechain.runtime.memory.Memory;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An instantiated wasm module of a given {@link WasmEngine}.
+ */
+public interface WasmInstance {
+
+    /**
+     * @return the linear memory of the instance
+     */
+    Memory memory();
+
+    /**
+     * @return the value of the exported `__heap_base` global, i.e. the start of the memory the host can allocate in
+     */
+    int heapBase();
+
+    /**
+     * Calls an exported runtime function, following the runtime calling convention.
+     *
+     * @param functionName the name of the exported function
+     * @param pointer      a pointer to the SCALE encoded parameters
+     * @param size         the size of the SCALE encoded parameters
+     * @return the pointer-size of the SCALE encoded result, or null if the function returned nothing
+     */
+    @Nullable
+    Long call(String functionName, int pointer, int size);
+
+    /**
+     * Releases the resources held by the instance.
+     */
+    void close();
+}
@@ -0,0 +1,33 @@
+package com.limechain.runtime.engine;
+
+import com.limechain.runtime.hostapi.HostFunction;
+
+import java.util.List;
+
+/**
+ * A compiled wasm module of a given {@link WasmEngine}.
+ */
+public interface WasmModule {
+
+    /**
+     * Instantiates the module, linking the given host functions and memory as its imports.
+     *
+     * @param hostFunctions the host functions the module may import
+     * @param memory        the memory the module imports, if it doesn't define its own
+     * @return a new instance of the module
+     */
+    WasmInstance instantiate(List<HostFunction> hostFunctions, MemoryDescriptor memory);
+
+    /**
+     * @return the module serialized in an engine specific format
+     * @throws UnsupportedOperationException if the engine doesn't support serialization
+     */
+    default byte[] serialize() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can't be serialized.");
+    }
+
+    /**
+     * Releases the resources held by the compiled module. Existing instances of the module stay usable.
+     */
+    void close();
+}
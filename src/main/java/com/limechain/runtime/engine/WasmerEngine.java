@@ -0,0 +1,160 @@
+package com.limechain.runtime.engine;
+
+import com.limechain.runtime.hostapi.Endpoint;
+import com.limechain.runtime.hostapi.HostFunction;
+import com.limechain.runtime.hostapi.ValueType;
+import com.limechain.runtime.hostapi.WasmExports;
+import com.limechain.runtime.memory.Memory;
+import com.limechain.runtime.memory.WasmMemory;
+import org.jetbrains.annotations.Nullable;
+import org.wasmer.ImportObject;
+import org.wasmer.Imports;
+import org.wasmer.Instance;
+import org.wasmer.Module;
+import org.wasmer.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes natively compiled code through wasmer's JNI bindings.
+ */
+public class WasmerEngine implements WasmEngine {
+
+    @Override
+    public WasmModule compile(byte[] wasmBinary) {
+        return new WasmerModule(new Module(wasmBinary));
+    }
+
+    @Override
+    public boolean supportsSerialization() {
+        return true;
+    }
+
+    @Override
+    public WasmModule deserialize(byte[] serializedModule) {
+        return new WasmerModule(Module.deserialize(serializedModule));
+    }
+
+    private static ImportObject.FuncImport toFuncImport(HostFunction hostFunction) {
+        Endpoint endpoint = hostFunction.endpoint();
+        ValueType retType = endpoint.getRetType();
+        HostFunction.Implementation implementation = hostFunction.implementation();
+        // Reused across calls, as an instance never runs more than one host function at a time
+        long[] argv = new long[endpoint.getArgs().size()];
+        Result result = new Result(retType == ValueType.I32);
+        List<Number> results = retType == null ? List.of() : List.of(result);
+
+        return new ImportObject.FuncImport(
+                HostFunction.MODULE_NAME,
+                endpoint.getFunctionName(),
+                // The bindings box the values crossing JNI, so they're only unboxed once here and the results are
+                // handed back through the reused holder instead of being boxed on every call
+                args -> {
+                    for (int i = 0; i < argv.length; i++) {
+                        argv[i] = args.get(i).longValue();
+                    }
+
+                    result.value = implementation.invoke(argv);
+                    return results;
+                },
+                endpoint.getArgs().stream().map(WasmerEngine::toWasmerType).toList(),
+                retType == null ? List.of() : List.of(toWasmerType(retType))
+        );
+    }
+
+    private static Type toWasmerType(ValueType type) {
+        return switch (type) {
+            case I32 -> Type.I32;
+            case I64 -> Type.I64;
+        };
+    }
+
+    /**
+     * A mutable {@link Number} holding the result of the last call of a host function, narrowed to an int for
+     * I32 results. The bindings read it through {@link Number#intValue()} or {@link Number#longValue()} as soon as
+     * the call returns, so it's safe to overwrite on the next call.
+     */
+    private static final class Result extends Number {
+        private final boolean i32;
+        private long value;
+
+        private Result(boolean i32) {
+            this.i32 = i32;
+        }
+
+        @Override
+        public int intValue() {
+            return (int) value;
+        }
+
+        @Override
+        public long longValue() {
+            return i32 ? (int) value : value;
+        }
+
+        @Override
+        public float floatValue() {
+            return longValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return longValue();
+        }
+    }
+
+    private record WasmerModule(Module module) implements WasmModule {
+
+        @Override
+        public WasmInstance instantiate(List<HostFunction> hostFunctions, MemoryDescriptor memory) {
+            List<ImportObject> imports = new ArrayList<>(hostFunctions.size() + 1);
+            hostFunctions.forEach(hostFunction -> imports.add(toFuncImport(hostFunction)));
+            imports.add(new ImportObject.MemoryImport(HostFunction.MODULE_NAME, memory.initialPages(), memory.shared()));
+
+            return new WasmerInstance(module.instantiate(Imports.from(imports, module)));
+        }
+
+        @Override
+        public byte[] serialize() {
+            return module.serialize();
+        }
+
+        @Override
+        public void close() {
+            module.close();
+        }
+    }
+
+    private static final class WasmerInstance implements WasmInstance {
+        private final Instance instance;
+        private final Memory memory;
+
+        private WasmerInstance(Instance instance) {
+            this.instance = instance;
+            this.memory = new WasmMemory(instance.exports.getMemory(WasmExports.MEMORY.getValue()));
+        }
+
+        @Override
+        public Memory memory() {
+            return memory;
+        }
+
+        @Override
+        public int heapBase() {
+            return instance.exports.getGlobal(WasmExports.HEAP_BASE.getValue()).getIntValue();
+        }
+
+        @Nullable
+        @Override
+        public Long call(String functionName, int pointer, int size) {
+            Object[] response = instance.exports.getFunction(functionName).apply(pointer, size);
+            return response == null ? null : (Long) response[0];
+        }
+
+        @Override
+        public void close() {
+            instance.close();
+        }
+    }
+}
@@ -4,7 +4,6 @@ import com.limechain.runtime.SharedMemory;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.extern.java.Log;
-import org.wasmer.ImportObject;
 
 import java.util.Map;
 
@@ -21,13 +20,13 @@ public class AllocatorHostFunctions implements PartialHostApi {
     private final SharedMemory sharedMemory;
 
     @Override
-    public Map<Endpoint, ImportObject.FuncImport> getFunctionImports() {
+    public Map<Endpoint, HostFunction> getFunctionImports() {
         return Map.ofEntries(
             newImportObjectPair(Endpoint.ext_allocator_malloc_version_1, argv -> {
-                return extAllocatorMallocVersion1(argv.get(0).intValue());
+                return extAllocatorMallocVersion1((int) argv[0]);
             }),
             newImportObjectPair(Endpoint.ext_allocator_free_version_1, argv -> {
-                extAllocatorFreeVersion1(argv.get(0).intValue());
+                extAllocatorFreeVersion1((int) argv[0]);
             })
         );
     }
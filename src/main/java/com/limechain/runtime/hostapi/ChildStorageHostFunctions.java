@@ -12,11 +12,11 @@ import io.emeraldpay.polkaj.scale.ScaleCodecReader;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.extern.java.Log;
-import org.wasmer.ImportObject;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static com.limechain.runtime.hostapi.PartialHostApi.newImportObjectPair;
 import static com.limechain.runtime.hostapi.StorageHostFunctions.scaleEncodedOption;
@@ -30,81 +30,84 @@ import static com.limechain.runtime.hostapi.StorageHostFunctions.scaleEncodedOpt
 @AllArgsConstructor(access = AccessLevel.PACKAGE)
 public class ChildStorageHostFunctions implements PartialHostApi {
     private final SharedMemory sharedMemory;
-    private final TrieAccessor trieAccessor;
+    /**
+     * Resolved on every call, as pooled runtime instances are rebound to different tries.
+     */
+    private final Supplier<TrieAccessor> trieAccessorSupplier;
 
     @Override
-    public Map<Endpoint, ImportObject.FuncImport> getFunctionImports() {
+    public Map<Endpoint, HostFunction> getFunctionImports() {
         return Map.ofEntries(
             newImportObjectPair(Endpoint.ext_default_child_storage_set_version_1, argv -> {
                 extDefaultChildStorageSetVersion1(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1)),
-                    new RuntimePointerSize(argv.get(2)));
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1]),
+                    new RuntimePointerSize(argv[2]));
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_get_version_1, argv -> {
                 return extDefaultChildStorageGetVersion1(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1))).pointerSize();
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1])).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_read_version_1, argv -> {
                 return extDefaultChildStorageReadVersion1(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1)),
-                    new RuntimePointerSize(argv.get(2)),
-                    argv.get(2).intValue()
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1]),
+                    new RuntimePointerSize(argv[2]),
+                    (int) argv[2]
                 ).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_clear_version_1, argv -> {
                 extDefaultChildStorageClearVersion1(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1)));
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1]));
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_storage_kill_version_1, argv -> {
-                extDefaultChildStorageKillVersion1(new RuntimePointerSize(argv.get(0)));
+                extDefaultChildStorageKillVersion1(new RuntimePointerSize(argv[0]));
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_storage_kill_version_2, argv -> {
                 return extDefaultChildStorageKillVersion2(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1))).size();
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1])).size();
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_storage_kill_version_3, argv -> {
                 return extDefaultChildStorageKillVersion3(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1))).pointerSize();
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1])).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_exists_version_1, argv -> {
                 return extDefaultChildStorageExistsVersion1(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1)));
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1]));
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_clear_prefix_version_1, argv -> {
                 extDefaultChildStorageClearPrefixVersion1(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1)));
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1]));
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_clear_prefix_version_2, argv -> {
                 return extDefaultChildStorageClearPrefixVersion2(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1)),
-                    new RuntimePointerSize(argv.get(2))
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1]),
+                    new RuntimePointerSize(argv[2])
                 ).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_root_version_1, argv -> {
                 return extDefaultChildStorageRoot(
-                    new RuntimePointerSize(argv.get(0)),
+                    new RuntimePointerSize(argv[0]),
                     null
                 ).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_root_version_2, argv -> {
                 return extDefaultChildStorageRoot(
-                    new RuntimePointerSize(argv.get(0)),
-                    StateVersion.fromInt(argv.get(1).intValue())
+                    new RuntimePointerSize(argv[0]),
+                    StateVersion.fromInt((int) argv[1])
                 ).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_default_child_storage_next_key_version_1, argv -> {
                 return extDefaultChildStorageStorageNextKeyVersion1(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1))
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1])
                 ).pointerSize();
             })
         );
@@ -128,10 +131,10 @@ public class ChildStorageHostFunctions implements PartialHostApi {
                                                                  RuntimePointerSize valueOutPointer,
                                                                  int offset) {
         log.fine("extDefaultChildStorageReadVersion1");
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
+        Nibbles key = Nibbles.fromBytes(sharedMemory.readSlice(keyPointer));
 
-        TrieAccessor childTrie = trieAccessor.getChildTrie(childStorageKey);
+        TrieAccessor childTrie = trieAccessor().getChildTrie(childStorageKey);
 
         byte[] value = childTrie.findStorageValue(key).orElse(null);
 
@@ -160,11 +163,11 @@ public class ChildStorageHostFunctions implements PartialHostApi {
                                                   RuntimePointerSize valuePointer) {
         log.fine("extDefaultChildStorageSetVersion1");
 
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
+        Nibbles key = Nibbles.fromBytes(sharedMemory.readSlice(keyPointer));
         byte[] value = sharedMemory.readData(valuePointer);
 
-        TrieAccessor childTrie = trieAccessor.getChildTrie(childStorageKey);
+        TrieAccessor childTrie = trieAccessor().getChildTrie(childStorageKey);
         childTrie.upsertNode(key, value);
     }
 
@@ -178,10 +181,10 @@ public class ChildStorageHostFunctions implements PartialHostApi {
                                                     RuntimePointerSize keyPointer) {
         log.fine("extDefaultChildStorageClearVersion1");
 
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
+        Nibbles key = Nibbles.fromBytes(sharedMemory.readSlice(keyPointer));
 
-        TrieAccessor childTrie = trieAccessor.getChildTrie(childStorageKey);
+        TrieAccessor childTrie = trieAccessor().getChildTrie(childStorageKey);
         childTrie.deleteNode(key);
     }
 
@@ -195,10 +198,10 @@ public class ChildStorageHostFunctions implements PartialHostApi {
                                                           RuntimePointerSize prefixPointer) {
         log.fine("extDefaultChildStorageClearPrefixVersion1");
 
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
-        Nibbles prefix = Nibbles.fromBytes(sharedMemory.readData(prefixPointer));
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
+        Nibbles prefix = Nibbles.fromBytes(sharedMemory.readSlice(prefixPointer));
 
-        TrieAccessor childTrie = trieAccessor.getChildTrie(childStorageKey);
+        TrieAccessor childTrie = trieAccessor().getChildTrie(childStorageKey);
         childTrie.deleteMultipleNodesByPrefix(prefix, null);
     }
 
@@ -219,13 +222,13 @@ public class ChildStorageHostFunctions implements PartialHostApi {
                                                                         RuntimePointerSize limitPointer) {
         log.fine("extDefaultChildStorageClearPrefixVersion2");
 
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
-        Nibbles prefix = Nibbles.fromBytes(sharedMemory.readData(prefixPointer));
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
+        Nibbles prefix = Nibbles.fromBytes(sharedMemory.readSlice(prefixPointer));
 
         byte[] limitBytes = sharedMemory.readData(limitPointer);
         Long limit = new ScaleCodecReader(limitBytes).readOptional(ScaleCodecReader.UINT32).orElse(null);
 
-        TrieAccessor childTrie = trieAccessor.getChildTrie(childStorageKey);
+        TrieAccessor childTrie = trieAccessor().getChildTrie(childStorageKey);
         DeleteByPrefixResult result = childTrie.deleteMultipleNodesByPrefix(prefix, limit);
 
         return sharedMemory.writeData(result.scaleEncoded());
@@ -242,10 +245,10 @@ public class ChildStorageHostFunctions implements PartialHostApi {
                                                     RuntimePointerSize keyPointer) {
         log.fine("extDefaultChildStorageExistsVersion1");
 
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
+        Nibbles key = Nibbles.fromBytes(sharedMemory.readSlice(keyPointer));
 
-        TrieAccessor childTrie = trieAccessor.getChildTrie(childStorageKey);
+        TrieAccessor childTrie = trieAccessor().getChildTrie(childStorageKey);
         return childTrie.findStorageValue(key).isPresent() ? 1 : 0;
     }
 
@@ -260,10 +263,10 @@ public class ChildStorageHostFunctions implements PartialHostApi {
                                                                 RuntimePointerSize keyPointer) {
         log.fine("extDefaultChildStorageGetVersion1");
 
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
+        Nibbles key = Nibbles.fromBytes(sharedMemory.readSlice(keyPointer));
 
-        TrieAccessor childTrie = trieAccessor.getChildTrie(childStorageKey);
+        TrieAccessor childTrie = trieAccessor().getChildTrie(childStorageKey);
         byte[] value = childTrie.findStorageValue(key).orElse(null);
 
         return sharedMemory.writeData(scaleEncodedOption(value));
@@ -281,10 +284,10 @@ public class ChildStorageHostFunctions implements PartialHostApi {
                                                                            RuntimePointerSize keyPointer) {
         log.fine("extDefaultChildStorageStorageNextKeyVersion1");
 
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
+        Nibbles key = Nibbles.fromBytes(sharedMemory.readSlice(keyPointer));
 
-        TrieAccessor childTrie = trieAccessor.getChildTrie(childStorageKey);
+        TrieAccessor childTrie = trieAccessor().getChildTrie(childStorageKey);
 
         byte[] nextKey = childTrie.getNextKey(key)
             .map(NibblesUtils::toBytesAppending)
@@ -311,8 +314,8 @@ public class ChildStorageHostFunctions implements PartialHostApi {
     public RuntimePointerSize extDefaultChildStorageRoot(RuntimePointerSize childStorageKeyPointer, StateVersion v0) {
         log.fine("extDefaultChildStorageRootVersion1");
 
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
-        TrieAccessor childTrie = trieAccessor.getChildTrie(childStorageKey);
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
+        TrieAccessor childTrie = trieAccessor().getChildTrie(childStorageKey);
 
         byte[] rootHash = childTrie.getMerkleRoot(v0);
 
@@ -327,9 +330,9 @@ public class ChildStorageHostFunctions implements PartialHostApi {
     public void extDefaultChildStorageKillVersion1(RuntimePointerSize childStorageKeyPointer) {
         log.fine("extDefaultChildStorageKillVersion1");
 
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
-        DiskChildTrieAccessor childTrie = (DiskChildTrieAccessor) trieAccessor.getChildTrie(childStorageKey);
-        trieAccessor.deleteNode(childTrie.getChildTrieKey());
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
+        DiskChildTrieAccessor childTrie = (DiskChildTrieAccessor) trieAccessor().getChildTrie(childStorageKey);
+        trieAccessor().deleteNode(childTrie.getChildTrieKey());
     }
 
     /**
@@ -342,12 +345,12 @@ public class ChildStorageHostFunctions implements PartialHostApi {
                                                                  RuntimePointerSize limitPointer) {
         log.fine("extDefaultChildStorageKillVersion2");
 
-        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readData(childStorageKeyPointer));
+        Nibbles childStorageKey = Nibbles.fromBytes(sharedMemory.readSlice(childStorageKeyPointer));
 
         byte[] limitBytes = sharedMemory.readData(limitPointer);
         Long limit = new ScaleCodecReader(limitBytes).readOptional(ScaleCodecReader.UINT32).orElse(null);
 
-        TrieAccessor childTrie = trieAccessor.getChildTrie(childStorageKey);
+        TrieAccessor childTrie = trieAccessor().getChildTrie(childStorageKey);
         DeleteByPrefixResult result = childTrie.deleteMultipleNodesByPrefix(Nibbles.EMPTY, limit);
 
         return sharedMemory.writeData(result.scaleEncoded());
@@ -364,4 +367,8 @@ public class ChildStorageHostFunctions implements PartialHostApi {
 
         return extDefaultChildStorageKillVersion2(childStorageKeyPointer, limitPointer);
     }
+
+    private TrieAccessor trieAccessor() {
+        return trieAccessorSupplier.get();
+    }
 }
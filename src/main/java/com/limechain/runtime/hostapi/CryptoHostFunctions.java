@@ -28,7 +28,6 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
 import org.jetbrains.annotations.NotNull;
-import org.wasmer.ImportObject;
 import org.wasmer.Util;
 import org.web3j.crypto.MnemonicUtils;
 
@@ -68,108 +67,108 @@ public class CryptoHostFunctions implements PartialHostApi {
     }
 
     @Override
-    public Map<Endpoint, ImportObject.FuncImport> getFunctionImports() {
+    public Map<Endpoint, HostFunction> getFunctionImports() {
         return Map.ofEntries(
                 newImportObjectPair(Endpoint.ext_crypto_ed25519_public_keys_version_1, argv -> {
-                    return ed25519PublicKeysV1(argv.get(0).intValue()).pointerSize();
+                    return ed25519PublicKeysV1((int) argv[0]).pointerSize();
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ed25519_generate_version_1, argv -> {
-                    return ed25519GenerateV1(argv.get(0).intValue(), new RuntimePointerSize(argv.get(1)));
+                    return ed25519GenerateV1((int) argv[0], new RuntimePointerSize(argv[1]));
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ed25519_sign_version_1, argv -> {
                     return ed25519SignV1(
-                            argv.get(0).intValue(),
-                            argv.get(1).intValue(),
-                            new RuntimePointerSize(argv.get(2)));
+                            (int) argv[0],
+                            (int) argv[1],
+                            new RuntimePointerSize(argv[2]));
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ed25519_verify_version_1, argv -> {
                     return ed25519VerifyV1(
-                            argv.get(0).intValue(),
-                            new RuntimePointerSize(argv.get(1)),
-                            argv.get(2).intValue());
+                            (int) argv[0],
+                            new RuntimePointerSize(argv[1]),
+                            (int) argv[2]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ed25519_batch_verify_version_1, argv -> {
                     return ed25519BatchVerifyV1(
-                            argv.get(0).intValue(),
-                            new RuntimePointerSize(argv.get(1)),
-                            argv.get(2).intValue());
+                            (int) argv[0],
+                            new RuntimePointerSize(argv[1]),
+                            (int) argv[2]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_sr25519_public_keys_version_1, argv -> {
-                    return sr25519PublicKeysV1(argv.get(0).intValue()).pointerSize();
+                    return sr25519PublicKeysV1((int) argv[0]).pointerSize();
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_sr25519_generate_version_1, argv -> {
-                    return sr25519GenerateV1(argv.get(0).intValue(), new RuntimePointerSize(argv.get(1)));
+                    return sr25519GenerateV1((int) argv[0], new RuntimePointerSize(argv[1]));
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_sr25519_sign_version_1, argv -> {
                     return sr25519SignV1(
-                            argv.get(0).intValue(),
-                            argv.get(1).intValue(),
-                            new RuntimePointerSize(argv.get(2)));
+                            (int) argv[0],
+                            (int) argv[1],
+                            new RuntimePointerSize(argv[2]));
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_sr25519_verify_version_1, argv -> {
-                    return sr25519VerifyV1(argv.get(0).intValue(), new RuntimePointerSize(argv.get(1)), argv.get(2).intValue());
+                    return sr25519VerifyV1((int) argv[0], new RuntimePointerSize(argv[1]), (int) argv[2]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_sr25519_verify_version_2, argv -> {
                     // NOTE: Intentionally does the same as V1, see: https://spec.polkadot.network/chap-host-api#sect-ext-crypto-sr25519-verify
-                    return sr25519VerifyV1(argv.get(0).intValue(), new RuntimePointerSize(argv.get(1)), argv.get(2).intValue());
+                    return sr25519VerifyV1((int) argv[0], new RuntimePointerSize(argv[1]), (int) argv[2]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_sr25519_batch_verify_version_1, argv -> {
                     return sr25519BatchVerifyV1(
-                            argv.get(0).intValue(),
-                            new RuntimePointerSize(argv.get(1)),
-                            argv.get(2).intValue());
+                            (int) argv[0],
+                            new RuntimePointerSize(argv[1]),
+                            (int) argv[2]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ecdsa_public_keys_version_1, argv -> {
-                    return ecdsaPublicKeysV1(argv.get(0).intValue()).pointerSize();
+                    return ecdsaPublicKeysV1((int) argv[0]).pointerSize();
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ecdsa_generate_version_1, argv -> {
-                    return ecdsaGenerateV1(argv.get(0).intValue(), new RuntimePointerSize(argv.get(1)));
+                    return ecdsaGenerateV1((int) argv[0], new RuntimePointerSize(argv[1]));
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ecdsa_sign_version_1, argv -> {
-                    return ecdsaSignV1(argv.get(0).intValue(), argv.get(1).intValue(), new RuntimePointerSize(argv.get(2)));
+                    return ecdsaSignV1((int) argv[0], (int) argv[1], new RuntimePointerSize(argv[2]));
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ecdsa_sign_prehashed_version_1, argv -> {
                     return ecdsaSignPrehashedV1(
-                            argv.get(0).intValue(),
-                            argv.get(1).intValue(),
-                            new RuntimePointerSize(argv.get(2)));
+                            (int) argv[0],
+                            (int) argv[1],
+                            new RuntimePointerSize(argv[2]));
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ecdsa_verify_version_1, argv -> {
                     return ecdsaVerifyV1(
-                            argv.get(0).intValue(),
-                            new RuntimePointerSize(argv.get(1)),
-                            argv.get(2).intValue());
+                            (int) argv[0],
+                            new RuntimePointerSize(argv[1]),
+                            (int) argv[2]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ecdsa_verify_version_2, argv -> {
                     return ecdsaVerifyV1(
-                            argv.get(0).intValue(),
-                            new RuntimePointerSize(argv.get(1)),
-                            argv.get(2).intValue());
+                            (int) argv[0],
+                            new RuntimePointerSize(argv[1]),
+                            (int) argv[2]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ecdsa_verify_prehashed_version_1, argv -> {
                     return ecdsaVerifyPrehashedV1(
-                            argv.get(0).intValue(),
-                            argv.get(1).intValue(),
-                            argv.get(2).intValue());
+                            (int) argv[0],
+                            (int) argv[1],
+                            (int) argv[2]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_ecdsa_batch_verify_version_1, argv -> {
                     return ecdsaBatchVerifyV1(
-                            argv.get(0).intValue(),
-                            new RuntimePointerSize(argv.get(1)),
-                            argv.get(2).intValue());
+                            (int) argv[0],
+                            new RuntimePointerSize(argv[1]),
+                            (int) argv[2]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_secp256k1_ecdsa_recover_version_1, argv -> {
-                    return secp256k1EcdsaRecoverV1(argv.get(0).intValue(), argv.get(1).intValue());
+                    return secp256k1EcdsaRecoverV1((int) argv[0], (int) argv[1]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_secp256k1_ecdsa_recover_version_2, argv -> {
                     // NOTE: Intentionally does the same as V1, see: https://spec.polkadot.network/chap-host-api#id-ext_crypto_secp256k1_ecdsa_recover
-                    return secp256k1EcdsaRecoverV1(argv.get(0).intValue(), argv.get(1).intValue());
+                    return secp256k1EcdsaRecoverV1((int) argv[0], (int) argv[1]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_secp256k1_ecdsa_recover_compressed_version_1, argv -> {
-                    return secp256k1EcdsaRecoverCompressedV1(argv.get(0).intValue(), argv.get(1).intValue());
+                    return secp256k1EcdsaRecoverCompressedV1((int) argv[0], (int) argv[1]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_secp256k1_ecdsa_recover_compressed_version_2, argv -> {
-                    return secp256k1EcdsaRecoverCompressedV1(argv.get(0).intValue(), argv.get(1).intValue());
+                    return secp256k1EcdsaRecoverCompressedV1((int) argv[0], (int) argv[1]);
                 }),
                 newImportObjectPair(Endpoint.ext_crypto_start_batch_verify_version_1, argv -> {
                     startBatchVerify();
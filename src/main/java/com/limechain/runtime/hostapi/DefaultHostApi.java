@@ -1,7 +1,6 @@
 package com.limechain.runtime.hostapi;
 
 import com.limechain.runtime.Context;
-import org.wasmer.ImportObject;
 
 import java.util.List;
 import java.util.Map;
@@ -16,16 +15,16 @@ public class DefaultHostApi extends HostApi {
     }
 
     @Override
-    protected Map<Endpoint, ImportObject.FuncImport> buildFunctionImports() {
+    protected Map<Endpoint, HostFunction> buildFunctionImports() {
         List<PartialHostApi> impls = List.of(
             new AllocatorHostFunctions(sharedMemory),
             new HashingHostFunctions(sharedMemory),
-            new StorageHostFunctions(sharedMemory, context.getTrieAccessor()),
+            new StorageHostFunctions(sharedMemory, context::getTrieAccessor),
             new TrieHostFunctions(sharedMemory),
             new MiscellaneousHostFunctions(sharedMemory),
             new OffchainHostFunctions(sharedMemory, context.getOffchainStorages(), context.getOffchainNetworkState(), context.isValidator()),
             new CryptoHostFunctions(sharedMemory, context.getKeyStore()),
-            new ChildStorageHostFunctions(sharedMemory, context.getTrieAccessor())
+            new ChildStorageHostFunctions(sharedMemory, context::getTrieAccessor)
         );
 
         return impls.stream()
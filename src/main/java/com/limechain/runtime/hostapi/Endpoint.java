@@ -6,13 +6,9 @@ import lombok.Getter;
 import lombok.extern.java.Log;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.wasmer.ImportObject;
-import org.wasmer.Type;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.function.Consumer;
-import java.util.function.Function;
+import java.util.logging.Level;
 
 /**
  * An enum to hold the signatures of all necessary function imports for the runtime.
@@ -26,174 +22,181 @@ public enum Endpoint {
     //@formatter:off
 
     // Storage Host API endpoints
-    ext_storage_set_version_1("ext_storage_set_version_1", List.of(Type.I64, Type.I64), null),
-    ext_storage_get_version_1("ext_storage_get_version_1", List.of(Type.I64), Type.I64),
-    ext_storage_read_version_1("ext_storage_read_version_1", List.of(Type.I64, Type.I64, Type.I32), Type.I64),
-    ext_storage_clear_version_1("ext_storage_clear_version_1", List.of(Type.I64), null),
-    ext_storage_exists_version_1("ext_storage_exists_version_1", List.of(Type.I64), Type.I32),
-    ext_storage_clear_prefix_version_1("ext_storage_clear_prefix_version_1", List.of(Type.I64), null),
-    ext_storage_clear_prefix_version_2("ext_storage_clear_prefix_version_2", List.of(Type.I64, Type.I64), Type.I64),
-    ext_storage_append_version_1("ext_storage_append_version_1", List.of(Type.I64, Type.I64), null),
-    ext_storage_root_version_1("ext_storage_root_version_1", List.of(), Type.I64),
-    ext_storage_root_version_2("ext_storage_root_version_2", List.of(Type.I32), Type.I64),
-    ext_storage_changes_root_version_1("ext_storage_changes_root_version_1", List.of(Type.I64), Type.I64),
-    ext_storage_next_key_version_1("ext_storage_next_key_version_1", List.of(Type.I64), Type.I64),
+    ext_storage_set_version_1("ext_storage_set_version_1", List.of(ValueType.I64, ValueType.I64), null),
+    ext_storage_get_version_1("ext_storage_get_version_1", List.of(ValueType.I64), ValueType.I64),
+    ext_storage_read_version_1("ext_storage_read_version_1", List.of(ValueType.I64, ValueType.I64, ValueType.I32), ValueType.I64),
+    ext_storage_clear_version_1("ext_storage_clear_version_1", List.of(ValueType.I64), null),
+    ext_storage_exists_version_1("ext_storage_exists_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_storage_clear_prefix_version_1("ext_storage_clear_prefix_version_1", List.of(ValueType.I64), null),
+    ext_storage_clear_prefix_version_2("ext_storage_clear_prefix_version_2", List.of(ValueType.I64, ValueType.I64), ValueType.I64),
+    ext_storage_append_version_1("ext_storage_append_version_1", List.of(ValueType.I64, ValueType.I64), null),
+    ext_storage_root_version_1("ext_storage_root_version_1", List.of(), ValueType.I64),
+    ext_storage_root_version_2("ext_storage_root_version_2", List.of(ValueType.I32), ValueType.I64),
+    ext_storage_changes_root_version_1("ext_storage_changes_root_version_1", List.of(ValueType.I64), ValueType.I64),
+    ext_storage_next_key_version_1("ext_storage_next_key_version_1", List.of(ValueType.I64), ValueType.I64),
     ext_storage_start_transaction_version_1("ext_storage_start_transaction_version_1", List.of(), null),
     ext_storage_rollback_transaction_version_1("ext_storage_rollback_transaction_version_1", List.of(), null),
     ext_storage_commit_transaction_version_1("ext_storage_commit_transaction_version_1", List.of(), null),
 
     // Child storage Host API endpoints
-    ext_default_child_storage_set_version_1("ext_default_child_storage_set_version_1", List.of(Type.I64, Type.I64, Type.I64), null),
-    ext_default_child_storage_get_version_1("ext_default_child_storage_get_version_1", List.of(Type.I64, Type.I64), Type.I64),
-    ext_default_child_storage_read_version_1("ext_default_child_storage_read_version_1", List.of(Type.I64, Type.I64, Type.I64, Type.I32), Type.I64),
-    ext_default_child_storage_clear_version_1("ext_default_child_storage_clear_version_1", List.of(Type.I64, Type.I64), null),
-    ext_default_child_storage_storage_kill_version_1("ext_default_child_storage_storage_kill_version_1", List.of(Type.I64), null),
-    ext_default_child_storage_storage_kill_version_2("ext_default_child_storage_storage_kill_version_2", List.of(Type.I64, Type.I64), Type.I32),
-    ext_default_child_storage_storage_kill_version_3("ext_default_child_storage_storage_kill_version_3", List.of(Type.I64, Type.I64), Type.I64),
-    ext_default_child_storage_exists_version_1("ext_default_child_storage_exists_version_1", List.of(Type.I64, Type.I64), Type.I32),
-    ext_default_child_storage_clear_prefix_version_1("ext_default_child_storage_clear_prefix_version_1", List.of(Type.I64, Type.I64), null),
-    ext_default_child_storage_clear_prefix_version_2("ext_default_child_storage_clear_prefix_version_2", List.of(Type.I64, Type.I64, Type.I64), Type.I64),
-    ext_default_child_storage_root_version_1("ext_default_child_storage_root_version_1", List.of(Type.I64), Type.I64),
-    ext_default_child_storage_root_version_2("ext_default_child_storage_root_version_2", List.of(Type.I64, Type.I32), Type.I64),
-    ext_default_child_storage_next_key_version_1("ext_default_child_storage_next_key_version_1", List.of(Type.I64, Type.I64), Type.I64),
+    ext_default_child_storage_set_version_1("ext_default_child_storage_set_version_1", List.of(ValueType.I64, ValueType.I64, ValueType.I64), null),
+    ext_default_child_storage_get_version_1("ext_default_child_storage_get_version_1", List.of(ValueType.I64, ValueType.I64), ValueType.I64),
+    ext_default_child_storage_read_version_1("ext_default_child_storage_read_version_1", List.of(ValueType.I64, ValueType.I64, ValueType.I64, ValueType.I32), ValueType.I64),
+    ext_default_child_storage_clear_version_1("ext_default_child_storage_clear_version_1", List.of(ValueType.I64, ValueType.I64), null),
+    ext_default_child_storage_storage_kill_version_1("ext_default_child_storage_storage_kill_version_1", List.of(ValueType.I64), null),
+    ext_default_child_storage_storage_kill_version_2("ext_default_child_storage_storage_kill_version_2", List.of(ValueType.I64, ValueType.I64), ValueType.I32),
+    ext_default_child_storage_storage_kill_version_3("ext_default_child_storage_storage_kill_version_3", List.of(ValueType.I64, ValueType.I64), ValueType.I64),
+    ext_default_child_storage_exists_version_1("ext_default_child_storage_exists_version_1", List.of(ValueType.I64, ValueType.I64), ValueType.I32),
+    ext_default_child_storage_clear_prefix_version_1("ext_default_child_storage_clear_prefix_version_1", List.of(ValueType.I64, ValueType.I64), null),
+    ext_default_child_storage_clear_prefix_version_2("ext_default_child_storage_clear_prefix_version_2", List.of(ValueType.I64, ValueType.I64, ValueType.I64), ValueType.I64),
+    ext_default_child_storage_root_version_1("ext_default_child_storage_root_version_1", List.of(ValueType.I64), ValueType.I64),
+    ext_default_child_storage_root_version_2("ext_default_child_storage_root_version_2", List.of(ValueType.I64, ValueType.I32), ValueType.I64),
+    ext_default_child_storage_next_key_version_1("ext_default_child_storage_next_key_version_1", List.of(ValueType.I64, ValueType.I64), ValueType.I64),
 
     // Crypto Host API endpoints
-    ext_crypto_ed25519_public_keys_version_1("ext_crypto_ed25519_public_keys_version_1", List.of(Type.I32), Type.I64),
-    ext_crypto_ed25519_generate_version_1("ext_crypto_ed25519_generate_version_1", List.of(Type.I32, Type.I64), Type.I32),
-    ext_crypto_ed25519_sign_version_1("ext_crypto_ed25519_sign_version_1", List.of(Type.I32, Type.I32, Type.I64), Type.I64),
-    ext_crypto_ed25519_verify_version_1("ext_crypto_ed25519_verify_version_1", List.of(Type.I32, Type.I64, Type.I32), Type.I32),
-    ext_crypto_ed25519_batch_verify_version_1("ext_crypto_ed25519_batch_verify_version_1", List.of(Type.I32, Type.I64, Type.I32), Type.I32),
-    ext_crypto_sr25519_public_keys_version_1("ext_crypto_sr25519_public_keys_version_1", List.of(Type.I32), Type.I64),
-    ext_crypto_sr25519_generate_version_1("ext_crypto_sr25519_generate_version_1", List.of(Type.I32, Type.I64), Type.I32),
-    ext_crypto_sr25519_sign_version_1("ext_crypto_sr25519_sign_version_1", List.of(Type.I32, Type.I32, Type.I64), Type.I64),
-    ext_crypto_sr25519_verify_version_1("ext_crypto_sr25519_verify_version_1", List.of(Type.I32, Type.I64, Type.I32), Type.I32),
-    ext_crypto_sr25519_verify_version_2("ext_crypto_sr25519_verify_version_2", List.of(Type.I32, Type.I64, Type.I32), Type.I32),
-    ext_crypto_sr25519_batch_verify_version_1("ext_crypto_sr25519_batch_verify_version_1", List.of(Type.I32, Type.I64, Type.I32), Type.I32),
-    ext_crypto_ecdsa_public_keys_version_1("ext_crypto_ecdsa_public_keys_version_1", List.of(Type.I64), Type.I64),
-    ext_crypto_ecdsa_generate_version_1("ext_crypto_ecdsa_generate_version_1", List.of(Type.I32, Type.I64), Type.I32),
-    ext_crypto_ecdsa_sign_version_1("ext_crypto_ecdsa_sign_version_1", List.of(Type.I32, Type.I32, Type.I64), Type.I64),
-    ext_crypto_ecdsa_sign_prehashed_version_1("ext_crypto_ecdsa_sign_prehashed_version_1", List.of(Type.I32, Type.I32, Type.I64), Type.I64),
-    ext_crypto_ecdsa_verify_version_1("ext_crypto_ecdsa_verify_version_1", List.of(Type.I32, Type.I64, Type.I32), Type.I32),
-    ext_crypto_ecdsa_verify_version_2("ext_crypto_ecdsa_verify_version_2", List.of(Type.I32, Type.I64, Type.I32), Type.I32),
-    ext_crypto_ecdsa_verify_prehashed_version_1("ext_crypto_ecdsa_verify_prehashed_version_1", List.of(Type.I32, Type.I32, Type.I32), Type.I32),
-    ext_crypto_ecdsa_batch_verify_version_1("ext_crypto_ecdsa_batch_verify_version_1", List.of(Type.I32, Type.I64, Type.I32), Type.I32),
-    ext_crypto_secp256k1_ecdsa_recover_version_1("ext_crypto_secp256k1_ecdsa_recover_version_1", List.of(Type.I32, Type.I32), Type.I64),
-    ext_crypto_secp256k1_ecdsa_recover_version_2("ext_crypto_secp256k1_ecdsa_recover_version_2", List.of(Type.I32, Type.I32), Type.I64),
-    ext_crypto_secp256k1_ecdsa_recover_compressed_version_1("ext_crypto_secp256k1_ecdsa_recover_compressed_version_1", List.of(Type.I32, Type.I32), Type.I64),
-    ext_crypto_secp256k1_ecdsa_recover_compressed_version_2("ext_crypto_secp256k1_ecdsa_recover_compressed_version_2", List.of(Type.I32, Type.I32), Type.I64),
+    ext_crypto_ed25519_public_keys_version_1("ext_crypto_ed25519_public_keys_version_1", List.of(ValueType.I32), ValueType.I64),
+    ext_crypto_ed25519_generate_version_1("ext_crypto_ed25519_generate_version_1", List.of(ValueType.I32, ValueType.I64), ValueType.I32),
+    ext_crypto_ed25519_sign_version_1("ext_crypto_ed25519_sign_version_1", List.of(ValueType.I32, ValueType.I32, ValueType.I64), ValueType.I64),
+    ext_crypto_ed25519_verify_version_1("ext_crypto_ed25519_verify_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_crypto_ed25519_batch_verify_version_1("ext_crypto_ed25519_batch_verify_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_crypto_sr25519_public_keys_version_1("ext_crypto_sr25519_public_keys_version_1", List.of(ValueType.I32), ValueType.I64),
+    ext_crypto_sr25519_generate_version_1("ext_crypto_sr25519_generate_version_1", List.of(ValueType.I32, ValueType.I64), ValueType.I32),
+    ext_crypto_sr25519_sign_version_1("ext_crypto_sr25519_sign_version_1", List.of(ValueType.I32, ValueType.I32, ValueType.I64), ValueType.I64),
+    ext_crypto_sr25519_verify_version_1("ext_crypto_sr25519_verify_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_crypto_sr25519_verify_version_2("ext_crypto_sr25519_verify_version_2", List.of(ValueType.I32, ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_crypto_sr25519_batch_verify_version_1("ext_crypto_sr25519_batch_verify_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_crypto_ecdsa_public_keys_version_1("ext_crypto_ecdsa_public_keys_version_1", List.of(ValueType.I64), ValueType.I64),
+    ext_crypto_ecdsa_generate_version_1("ext_crypto_ecdsa_generate_version_1", List.of(ValueType.I32, ValueType.I64), ValueType.I32),
+    ext_crypto_ecdsa_sign_version_1("ext_crypto_ecdsa_sign_version_1", List.of(ValueType.I32, ValueType.I32, ValueType.I64), ValueType.I64),
+    ext_crypto_ecdsa_sign_prehashed_version_1("ext_crypto_ecdsa_sign_prehashed_version_1", List.of(ValueType.I32, ValueType.I32, ValueType.I64), ValueType.I64),
+    ext_crypto_ecdsa_verify_version_1("ext_crypto_ecdsa_verify_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_crypto_ecdsa_verify_version_2("ext_crypto_ecdsa_verify_version_2", List.of(ValueType.I32, ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_crypto_ecdsa_verify_prehashed_version_1("ext_crypto_ecdsa_verify_prehashed_version_1", List.of(ValueType.I32, ValueType.I32, ValueType.I32), ValueType.I32),
+    ext_crypto_ecdsa_batch_verify_version_1("ext_crypto_ecdsa_batch_verify_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_crypto_secp256k1_ecdsa_recover_version_1("ext_crypto_secp256k1_ecdsa_recover_version_1", List.of(ValueType.I32, ValueType.I32), ValueType.I64),
+    ext_crypto_secp256k1_ecdsa_recover_version_2("ext_crypto_secp256k1_ecdsa_recover_version_2", List.of(ValueType.I32, ValueType.I32), ValueType.I64),
+    ext_crypto_secp256k1_ecdsa_recover_compressed_version_1("ext_crypto_secp256k1_ecdsa_recover_compressed_version_1", List.of(ValueType.I32, ValueType.I32), ValueType.I64),
+    ext_crypto_secp256k1_ecdsa_recover_compressed_version_2("ext_crypto_secp256k1_ecdsa_recover_compressed_version_2", List.of(ValueType.I32, ValueType.I32), ValueType.I64),
     ext_crypto_start_batch_verify_version_1("ext_crypto_start_batch_verify_version_1", List.of(), null),
-    ext_crypto_finish_batch_verify_version_1("ext_crypto_finish_batch_verify_version_1", List.of(), Type.I32),
+    ext_crypto_finish_batch_verify_version_1("ext_crypto_finish_batch_verify_version_1", List.of(), ValueType.I32),
 
     // Hashing Host API endpoints
-    ext_hashing_keccak_256_version_1("ext_hashing_keccak_256_version_1", List.of(Type.I64), Type.I32),
-    ext_hashing_keccak_512_version_1("ext_hashing_keccak_512_version_1", List.of(Type.I64), Type.I32),
-    ext_hashing_sha2_256_version_1("ext_hashing_sha2_256_version_1", List.of(Type.I64), Type.I32),
-    ext_hashing_blake2_128_version_1("ext_hashing_blake2_128_version_1", List.of(Type.I64), Type.I32),
-    ext_hashing_blake2_256_version_1("ext_hashing_blake2_256_version_1", List.of(Type.I64), Type.I32),
-    ext_hashing_twox_64_version_1("ext_hashing_twox_64_version_1", List.of(Type.I64), Type.I32),
-    ext_hashing_twox_128_version_1("ext_hashing_twox_128_version_1", List.of(Type.I64), Type.I32),
-    ext_hashing_twox_256_version_1("ext_hashing_twox_256_version_1", List.of(Type.I64), Type.I32),
+    ext_hashing_keccak_256_version_1("ext_hashing_keccak_256_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_hashing_keccak_512_version_1("ext_hashing_keccak_512_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_hashing_sha2_256_version_1("ext_hashing_sha2_256_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_hashing_blake2_128_version_1("ext_hashing_blake2_128_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_hashing_blake2_256_version_1("ext_hashing_blake2_256_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_hashing_twox_64_version_1("ext_hashing_twox_64_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_hashing_twox_128_version_1("ext_hashing_twox_128_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_hashing_twox_256_version_1("ext_hashing_twox_256_version_1", List.of(ValueType.I64), ValueType.I32),
 
     // Offchain Host API endpoints
-    ext_offchain_is_validator_version_1("ext_offchain_is_validator_version_1", List.of(), Type.I32),
-    ext_offchain_submit_transaction_version_1("ext_offchain_submit_transaction_version_1", List.of(Type.I64), Type.I64),
-    ext_offchain_network_state_version_1("ext_offchain_network_state_version_1", List.of(), Type.I64),
-    ext_offchain_timestamp_version_1("ext_offchain_timestamp_version_1", List.of(), Type.I64),
-    ext_offchain_sleep_until_version_1("ext_offchain_sleep_until_version_1", List.of(Type.I64), null),
-    ext_offchain_random_seed_version_1("ext_offchain_random_seed_version_1", List.of(), Type.I32),
-    ext_offchain_local_storage_set_version_1("ext_offchain_local_storage_set_version_1", List.of(Type.I32, Type.I64, Type.I64), null),
-    ext_offchain_local_storage_clear_version_1("ext_offchain_local_storage_clear_version_1", List.of(Type.I32, Type.I64), null),
-    ext_offchain_local_storage_compare_and_set_version_1("ext_offchain_local_storage_compare_and_set_version_1", List.of(Type.I32, Type.I64, Type.I64, Type.I64), Type.I32),
-    ext_offchain_local_storage_get_version_1("ext_offchain_local_storage_get_version_1", List.of(Type.I32, Type.I64), Type.I64),
-    ext_offchain_http_request_start_version_1("ext_offchain_http_request_start_version_1", List.of(Type.I64, Type.I64, Type.I64), Type.I64),
-    ext_offchain_http_request_add_header_version_1("ext_offchain_http_request_add_header_version_1", List.of(Type.I32, Type.I64, Type.I64), Type.I64),
-    ext_offchain_http_request_write_body_version_1("ext_offchain_http_request_write_body_version_1", List.of(Type.I32, Type.I64, Type.I64), Type.I64),
-    ext_offchain_http_response_wait_version_1("ext_offchain_http_response_wait_version_1", List.of(Type.I64, Type.I64), Type.I64),
-    ext_offchain_http_response_headers_version_1("ext_offchain_http_response_headers_version_1", List.of(Type.I32), Type.I64),
-    ext_offchain_http_response_read_body_version_1("ext_offchain_http_response_read_body_version_1", List.of(Type.I32, Type.I64, Type.I64), Type.I64),
+    ext_offchain_is_validator_version_1("ext_offchain_is_validator_version_1", List.of(), ValueType.I32),
+    ext_offchain_submit_transaction_version_1("ext_offchain_submit_transaction_version_1", List.of(ValueType.I64), ValueType.I64),
+    ext_offchain_network_state_version_1("ext_offchain_network_state_version_1", List.of(), ValueType.I64),
+    ext_offchain_timestamp_version_1("ext_offchain_timestamp_version_1", List.of(), ValueType.I64),
+    ext_offchain_sleep_until_version_1("ext_offchain_sleep_until_version_1", List.of(ValueType.I64), null),
+    ext_offchain_random_seed_version_1("ext_offchain_random_seed_version_1", List.of(), ValueType.I32),
+    ext_offchain_local_storage_set_version_1("ext_offchain_local_storage_set_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I64), null),
+    ext_offchain_local_storage_clear_version_1("ext_offchain_local_storage_clear_version_1", List.of(ValueType.I32, ValueType.I64), null),
+    ext_offchain_local_storage_compare_and_set_version_1("ext_offchain_local_storage_compare_and_set_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I64, ValueType.I64), ValueType.I32),
+    ext_offchain_local_storage_get_version_1("ext_offchain_local_storage_get_version_1", List.of(ValueType.I32, ValueType.I64), ValueType.I64),
+    ext_offchain_http_request_start_version_1("ext_offchain_http_request_start_version_1", List.of(ValueType.I64, ValueType.I64, ValueType.I64), ValueType.I64),
+    ext_offchain_http_request_add_header_version_1("ext_offchain_http_request_add_header_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I64), ValueType.I64),
+    ext_offchain_http_request_write_body_version_1("ext_offchain_http_request_write_body_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I64), ValueType.I64),
+    ext_offchain_http_response_wait_version_1("ext_offchain_http_response_wait_version_1", List.of(ValueType.I64, ValueType.I64), ValueType.I64),
+    ext_offchain_http_response_headers_version_1("ext_offchain_http_response_headers_version_1", List.of(ValueType.I32), ValueType.I64),
+    ext_offchain_http_response_read_body_version_1("ext_offchain_http_response_read_body_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I64), ValueType.I64),
 
     // Offchain index Host API endpoints
-    ext_offchain_index_set_version_1("ext_offchain_index_set_version_1", List.of(Type.I64, Type.I64), null),
-    ext_offchain_index_clear_version_1("ext_offchain_index_clear_version_1", List.of(Type.I64), null),
+    ext_offchain_index_set_version_1("ext_offchain_index_set_version_1", List.of(ValueType.I64, ValueType.I64), null),
+    ext_offchain_index_clear_version_1("ext_offchain_index_clear_version_1", List.of(ValueType.I64), null),
 
     // Trie Host API endpoints
-    ext_trie_blake2_256_root_version_1("ext_trie_blake2_256_root_version_1", List.of(Type.I64), Type.I32),
-    ext_trie_blake2_256_root_version_2("ext_trie_blake2_256_root_version_2", List.of(Type.I64, Type.I32), Type.I32),
-    ext_trie_blake2_256_ordered_root_version_1("ext_trie_blake2_256_ordered_root_version_1", List.of(Type.I64), Type.I32),
-    ext_trie_blake2_256_ordered_root_version_2("ext_trie_blake2_256_ordered_root_version_2", List.of(Type.I64, Type.I32), Type.I32),
-    ext_trie_keccak_256_root_version_1("ext_trie_keccak_256_root_version_1", List.of(Type.I64), Type.I32),
-    ext_trie_keccak_256_root_version_2("ext_trie_keccak_256_root_version_2", List.of(Type.I64, Type.I32), Type.I32),
-    ext_trie_keccak_256_ordered_root_version_1("ext_trie_keccak_256_ordered_root_version_1", List.of(Type.I64), Type.I32),
-    ext_trie_keccak_256_ordered_root_version_2("ext_trie_keccak_256_ordered_root_version_2", List.of(Type.I64, Type.I32), Type.I32),
-    ext_trie_blake2_256_verify_proof_version_1("ext_trie_blake2_256_verify_proof_version_1", List.of(Type.I32, Type.I64, Type.I64, Type.I64), Type.I32),
-    ext_trie_blake2_256_verify_proof_version_2("ext_trie_blake2_256_verify_proof_version_2", List.of(Type.I32, Type.I64, Type.I64, Type.I64, Type.I32), Type.I32),
-    ext_trie_keccak_256_verify_proof_version_1("ext_trie_keccak_256_verify_proof_version_1", List.of(Type.I32, Type.I64, Type.I64, Type.I64), Type.I32),
-    ext_trie_keccak_256_verify_proof_version_2("ext_trie_keccak_256_verify_proof_version_2", List.of(Type.I32, Type.I64, Type.I64, Type.I64, Type.I32), Type.I32),
+    ext_trie_blake2_256_root_version_1("ext_trie_blake2_256_root_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_trie_blake2_256_root_version_2("ext_trie_blake2_256_root_version_2", List.of(ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_trie_blake2_256_ordered_root_version_1("ext_trie_blake2_256_ordered_root_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_trie_blake2_256_ordered_root_version_2("ext_trie_blake2_256_ordered_root_version_2", List.of(ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_trie_keccak_256_root_version_1("ext_trie_keccak_256_root_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_trie_keccak_256_root_version_2("ext_trie_keccak_256_root_version_2", List.of(ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_trie_keccak_256_ordered_root_version_1("ext_trie_keccak_256_ordered_root_version_1", List.of(ValueType.I64), ValueType.I32),
+    ext_trie_keccak_256_ordered_root_version_2("ext_trie_keccak_256_ordered_root_version_2", List.of(ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_trie_blake2_256_verify_proof_version_1("ext_trie_blake2_256_verify_proof_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I64, ValueType.I64), ValueType.I32),
+    ext_trie_blake2_256_verify_proof_version_2("ext_trie_blake2_256_verify_proof_version_2", List.of(ValueType.I32, ValueType.I64, ValueType.I64, ValueType.I64, ValueType.I32), ValueType.I32),
+    ext_trie_keccak_256_verify_proof_version_1("ext_trie_keccak_256_verify_proof_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I64, ValueType.I64), ValueType.I32),
+    ext_trie_keccak_256_verify_proof_version_2("ext_trie_keccak_256_verify_proof_version_2", List.of(ValueType.I32, ValueType.I64, ValueType.I64, ValueType.I64, ValueType.I32), ValueType.I32),
 
     // Miscellaneous Host API endpoints
-    ext_misc_print_num_version_1("ext_misc_print_num_version_1", List.of(Type.I64), null),
-    ext_misc_print_utf8_version_1("ext_misc_print_utf8_version_1", List.of(Type.I64), null),
-    ext_misc_print_hex_version_1("ext_misc_print_hex_version_1", List.of(Type.I64), null),
-    ext_misc_runtime_version_version_1("ext_misc_runtime_version_version_1", List.of(Type.I64), Type.I64),
+    ext_misc_print_num_version_1("ext_misc_print_num_version_1", List.of(ValueType.I64), null),
+    ext_misc_print_utf8_version_1("ext_misc_print_utf8_version_1", List.of(ValueType.I64), null),
+    ext_misc_print_hex_version_1("ext_misc_print_hex_version_1", List.of(ValueType.I64), null),
+    ext_misc_runtime_version_version_1("ext_misc_runtime_version_version_1", List.of(ValueType.I64), ValueType.I64),
 
     // Allocator Host API endpoints
-    ext_allocator_free_version_1("ext_allocator_free_version_1", List.of(Type.I32), null),
-    ext_allocator_malloc_version_1("ext_allocator_malloc_version_1", List.of(Type.I32), Type.I32),
+    ext_allocator_free_version_1("ext_allocator_free_version_1", List.of(ValueType.I32), null),
+    ext_allocator_malloc_version_1("ext_allocator_malloc_version_1", List.of(ValueType.I32), ValueType.I32),
 
     // Logging Host API endpoints
-    ext_logging_log_version_1("ext_logging_log_version_1", List.of(Type.I32, Type.I64, Type.I64), null),
-    ext_logging_max_level_version_1("ext_logging_max_level_version_1", List.of(), Type.I32),
+    ext_logging_log_version_1("ext_logging_log_version_1", List.of(ValueType.I32, ValueType.I64, ValueType.I64), null),
+    ext_logging_max_level_version_1("ext_logging_max_level_version_1", List.of(), ValueType.I32),
     ;
     //@formatter:on
 
     @NotNull
     private final String functionName;
     @NotNull
-    private final List<Type> args;
+    private final List<ValueType> args;
     @Nullable
-    private final Type retType;
+    private final ValueType retType;
 
     /**
-     * Builds a functional import object for an implementation with a non-void return type.
+     * Builds a host function for an implementation with a non-void return type.
      * @param impl an implementation for an endpoint with a non-void return type.
-     * @return a functional import object for the provided implementation.
+     * @return a host function for the provided implementation.
      */
-    public ImportObject.FuncImport getImportObject(Function<List<Number>, Number> impl) {
+    public HostFunction getImportObject(HostFunction.Implementation impl) {
         if (retType == null) {
             throw new IllegalArgumentException(String.format("The Host API endpoint '%s' returns no value, wrong implementation provided.", functionName));
         }
 
-        return new ImportObject.FuncImport("env", functionName, argv -> {
-            log.finest(String.format("Host API endpoint invoked: '%s'%n", functionName));
-            return Collections.singletonList(impl.apply(argv));
-        }, args, Collections.singletonList(retType));
+        return new HostFunction(this, argv -> {
+            logInvocation();
+            return impl.invoke(argv);
+        });
     }
 
     /**
-     * Builds a functional import object for an implementation with a void return type.
+     * Builds a host function for an implementation with a void return type.
      * @param impl an implementation for an endpoint with a void return type.
-     * @return a functional import object for the provided implementation.
+     * @return a host function for the provided implementation.
      */
-    public ImportObject.FuncImport getImportObject(Consumer<List<Number>> impl) {
+    public HostFunction getImportObject(HostFunction.VoidImplementation impl) {
         if (retType != null) {
             throw new IllegalArgumentException(String.format("The Host API endpoint '%s' does return a value, wrong implementation provided.", functionName));
         }
 
-        return new ImportObject.FuncImport("env", functionName, argv -> {
-            log.finest(String.format("Host API endpoint invoked '%s'%n", functionName));
-            impl.accept(argv);
-            return List.of();
-        }, args, List.of());
+        return new HostFunction(this, argv -> {
+            logInvocation();
+            impl.invoke(argv);
+            return 0;
+        });
     }
 
     /**
-     * Builds a functional import object with an implementation throwing a `NotImplementedException`,
+     * Builds a host function with an implementation throwing a `NotImplementedException`,
      * regardless of the expected return type.
-     * @return a throwing functional import object.
+     * @return a throwing host function.
      */
-    public ImportObject.FuncImport getImportObjectNotImplemented() {
-        return new ImportObject.FuncImport("env", functionName, argv -> {
+    public HostFunction getImportObjectNotImplemented() {
+        return new HostFunction(this, argv -> {
             throw new NotImplementedException(String.format("The Host API endpoint '%s' is not yet implemented.", functionName));
-        }, args, this.retType == null ? List.of() : List.of(this.retType));
+        });
+    }
+
+    // Guarded, as host functions are called millions of times per block and the message is costly to build
+    private void logInvocation() {
+        if (log.isLoggable(Level.FINEST)) {
+            log.finest(String.format("Host API endpoint invoked: '%s'%n", functionName));
+        }
     }
 }
@@ -3,11 +3,14 @@ package com.limechain.runtime.hostapi;
 import com.limechain.runtime.SharedMemory;
 import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
 import com.limechain.utils.HashUtils;
+import io.emeraldpay.polkaj.types.Hash256;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.extern.java.Log;
-import org.wasmer.ImportObject;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.util.Map;
 
 import static com.limechain.runtime.hostapi.PartialHostApi.newImportObjectPair;
@@ -20,35 +23,41 @@ import static com.limechain.runtime.hostapi.PartialHostApi.newImportObjectPair;
 @Log
 @AllArgsConstructor(access = AccessLevel.PACKAGE)
 public class HashingHostFunctions implements PartialHostApi {
+    private static final VarHandle LITTLE_ENDIAN_LONG =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
 
     private final SharedMemory sharedMemory;
+    /**
+     * Holds an xxHash result on its way to the runtime, as the twox hashes are called too often to allocate for.
+     */
+    private final byte[] xxHashBuffer = new byte[Hash256.SIZE_BYTES];
 
     @Override
-    public Map<Endpoint, ImportObject.FuncImport> getFunctionImports() {
+    public Map<Endpoint, HostFunction> getFunctionImports() {
         return Map.ofEntries(
             newImportObjectPair(Endpoint.ext_hashing_keccak_256_version_1, argv -> {
-                return keccak256V1(new RuntimePointerSize(argv.get(0)));
+                return keccak256V1(new RuntimePointerSize(argv[0]));
             }),
             newImportObjectPair(Endpoint.ext_hashing_keccak_512_version_1, argv -> {
-                return keccak512V1(new RuntimePointerSize(argv.get(0)));
+                return keccak512V1(new RuntimePointerSize(argv[0]));
             }),
             newImportObjectPair(Endpoint.ext_hashing_sha2_256_version_1, argv -> {
-                return sha2256V1(new RuntimePointerSize(argv.get(0)));
+                return sha2256V1(new RuntimePointerSize(argv[0]));
             }),
             newImportObjectPair(Endpoint.ext_hashing_blake2_128_version_1, argv -> {
-                return blake2128V1(new RuntimePointerSize(argv.get(0)));
+                return blake2128V1(new RuntimePointerSize(argv[0]));
             }),
             newImportObjectPair(Endpoint.ext_hashing_blake2_256_version_1, argv -> {
-                return blake2256V1(new RuntimePointerSize(argv.get(0)));
+                return blake2256V1(new RuntimePointerSize(argv[0]));
             }),
             newImportObjectPair(Endpoint.ext_hashing_twox_64_version_1, argv -> {
-                return twox64V1(new RuntimePointerSize(argv.get(0)));
+                return twox64V1(new RuntimePointerSize(argv[0]));
             }),
             newImportObjectPair(Endpoint.ext_hashing_twox_128_version_1, argv -> {
-                return twox128V1(new RuntimePointerSize(argv.get(0)));
+                return twox128V1(new RuntimePointerSize(argv[0]));
             }),
             newImportObjectPair(Endpoint.ext_hashing_twox_256_version_1, argv -> {
-                return twox256V1(new RuntimePointerSize(argv.get(0)));
+                return twox256V1(new RuntimePointerSize(argv[0]));
             })
         );
     }
@@ -140,11 +149,7 @@ public class HashingHostFunctions implements PartialHostApi {
     public int twox64V1(final RuntimePointerSize data) {
         log.fine("twox64V1");
 
-        byte[] dataToHash = sharedMemory.readData(data);
-
-        byte[] hash = HashUtils.hashXx64(0, dataToHash);
-
-        return sharedMemory.writeData(hash).pointer();
+        return writeXxHash(data, HashUtils.HASH_64_SIZE_BYTES);
     }
 
     /**
@@ -156,13 +161,7 @@ public class HashingHostFunctions implements PartialHostApi {
     public int twox128V1(final RuntimePointerSize data) {
         log.fine("twox128V1");
 
-        byte[] dataToHash = sharedMemory.readData(data);
-        log.fine("with data to hash: " + new String(dataToHash));
-
-
-        byte[] hash = HashUtils.hashXx128(0, dataToHash);
-
-        return sharedMemory.writeData(hash).pointer();
+        return writeXxHash(data, HashUtils.HASH_128_SIZE_BYTES);
     }
 
     /**
@@ -174,11 +173,21 @@ public class HashingHostFunctions implements PartialHostApi {
     public int twox256V1(final RuntimePointerSize data) {
         log.fine("twox256V1");
 
-        byte[] dataToHash = sharedMemory.readData(data);
-
-        byte[] hash = HashUtils.hashXx256(0, dataToHash);
-
-        return sharedMemory.writeData(hash).pointer();
+        return writeXxHash(data, Hash256.SIZE_BYTES);
     }
 
+    /**
+     * Concatenates the little endian 64-bit xxHash hashes of the data with consecutive seeds starting at 0,
+     * as the xxHash functions of {@link HashUtils} do, and writes the result to a new allocation.
+     */
+    private int writeXxHash(RuntimePointerSize data, int sizeBytes) {
+        for (int i = 0; i < sizeBytes / HashUtils.HASH_64_SIZE_BYTES; i++) {
+            long hash = sharedMemory.hashData(data, HashUtils.xxHash64Function(i));
+            LITTLE_ENDIAN_LONG.set(xxHashBuffer, i * HashUtils.HASH_64_SIZE_BYTES, hash);
+        }
+
+        RuntimePointerSize hashPointer = sharedMemory.allocate(sizeBytes);
+        sharedMemory.writeData(xxHashBuffer, hashPointer);
+        return hashPointer.pointer();
+    }
 }
@@ -3,7 +3,6 @@ package com.limechain.runtime.hostapi;
 import com.limechain.runtime.Context;
 import com.limechain.runtime.SharedMemory;
 import lombok.extern.java.Log;
-import org.wasmer.ImportObject;
 
 import java.util.EnumSet;
 import java.util.List;
@@ -14,7 +13,7 @@ import java.util.stream.Collectors;
 /**
  * An abstract class defining a total implementation of the Host API.
  * Crucially, it makes sure that all {@link Endpoint}s have been implemented
- * ("implemented" meaning, an {@link org.wasmer.ImportObject.FuncImport} has been provided).
+ * ("implemented" meaning, a {@link HostFunction} has been provided).
  *
  * @apiNote All implementations rely on the {@link Context} for runtime executions.
  */
@@ -31,7 +30,7 @@ public abstract class HostApi {
     /**
      * @return a list of import objects for all {@link Endpoint}s
      */
-    public final List<ImportObject.FuncImport> getFunctionImports() {
+    public final List<HostFunction> getFunctionImports() {
         var imports = this.buildFunctionImports();
 
         // Assert all endpoints have been implemented, exactly once (because we collect in a set).
@@ -54,5 +53,5 @@ public abstract class HostApi {
      * Builds a map from all endpoints to their implementations, thus constituting the total implementation.
      * @implSpec the map is expected to contain an entry for every {@link Endpoint}
      */
-    protected abstract Map<Endpoint, ImportObject.FuncImport> buildFunctionImports();
+    protected abstract Map<Endpoint, HostFunction> buildFunctionImports();
 }
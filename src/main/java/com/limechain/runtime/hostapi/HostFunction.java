@@ -0,0 +1,37 @@
+package com.limechain.runtime.hostapi;
+
+/**
+ * An engine agnostic implementation of a Host API {@link Endpoint}, imported by the runtime from the "env" module.
+ * <p>
+ * Arguments and results are passed as primitive longs, so dispatching a call doesn't box or allocate.
+ * I32 values are widened to longs and narrowed back by the engine, as declared by the endpoint's signature.
+ *
+ * @param endpoint       the implemented endpoint
+ * @param implementation maps the arguments of a call to its result
+ */
+public record HostFunction(Endpoint endpoint, Implementation implementation) {
+    public static final String MODULE_NAME = "env";
+
+    /**
+     * The implementation of an endpoint with a non-void return type.
+     */
+    @FunctionalInterface
+    public interface Implementation {
+        /**
+         * @param argv the arguments of the call, owned by the engine and only valid until the call returns
+         * @return the result of the call, ignored for endpoints with a void return type
+         */
+        long invoke(long[] argv);
+    }
+
+    /**
+     * The implementation of an endpoint with a void return type.
+     */
+    @FunctionalInterface
+    public interface VoidImplementation {
+        /**
+         * @param argv the arguments of the call, owned by the engine and only valid until the call returns
+         */
+        void invoke(long[] argv);
+    }
+}
@@ -1,7 +1,6 @@
 package com.limechain.runtime.hostapi;
 
 import com.limechain.exception.scale.ScaleEncodingException;
-import com.limechain.runtime.Runtime;
 import com.limechain.runtime.RuntimeFactory;
 import com.limechain.runtime.SharedMemory;
 import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
@@ -13,7 +12,6 @@ import lombok.AllArgsConstructor;
 import lombok.extern.java.Log;
 import org.apache.tomcat.util.buf.HexUtils;
 import org.springframework.lang.Nullable;
-import org.wasmer.ImportObject;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -36,22 +34,22 @@ public class MiscellaneousHostFunctions implements PartialHostApi {
     private final SharedMemory sharedMemory;
 
     @Override
-    public Map<Endpoint, ImportObject.FuncImport> getFunctionImports() {
+    public Map<Endpoint, HostFunction> getFunctionImports() {
         return Map.ofEntries(
                 newImportObjectPair(Endpoint.ext_misc_print_num_version_1, argv -> {
-                    printNumV1(argv.get(0));
+                    printNumV1(argv[0]);
                 }),
                 newImportObjectPair(Endpoint.ext_misc_print_utf8_version_1, argv -> {
-                    printUtf8V1(new RuntimePointerSize(argv.get(0)));
+                    printUtf8V1(new RuntimePointerSize(argv[0]));
                 }),
                 newImportObjectPair(Endpoint.ext_misc_print_hex_version_1, argv -> {
-                    printHexV1(new RuntimePointerSize(argv.get(0)));
+                    printHexV1(new RuntimePointerSize(argv[0]));
                 }),
                 newImportObjectPair(Endpoint.ext_misc_runtime_version_version_1, argv -> {
-                    return runtimeVersionV1(new RuntimePointerSize(argv.get(0))).pointerSize();
+                    return runtimeVersionV1(new RuntimePointerSize(argv[0])).pointerSize();
                 }),
                 newImportObjectPair(Endpoint.ext_logging_log_version_1, argv -> {
-                    logV1(argv.get(0).intValue(), new RuntimePointerSize(argv.get(1)), new RuntimePointerSize(argv.get(2)));
+                    logV1((int) argv[0], new RuntimePointerSize(argv[1]), new RuntimePointerSize(argv[2]));
                 }),
                 newImportObjectPair(Endpoint.ext_logging_max_level_version_1, argv -> {
                     return maxLevelV1();
@@ -64,7 +62,7 @@ public class MiscellaneousHostFunctions implements PartialHostApi {
      *
      * @param number the number to be printed
      */
-    public void printNumV1(Number number) {
+    public void printNumV1(long number) {
         log.fine("Printing number from runtime: " + number);
     }
 
@@ -93,12 +91,11 @@ public class MiscellaneousHostFunctions implements PartialHostApi {
     }
 
     /**
-     * Extract the Runtime version of the given Wasm blob by calling Core_version. Returns the SCALE encoded runtime
-     * version or None if the call fails. This function gets primarily used when upgrading Runtimes.
+     * Extract the Runtime version of the given Wasm blob. Returns the SCALE encoded runtime version or None if it
+     * can't be extracted. This function gets primarily used when upgrading Runtimes.
      * <p>
-     * <b>Caution</b>
-     * Calling this function is very expensive and should only be done very occasionally. For getting the runtime
-     * version, it requires instantiating the Wasm blob and calling the Core_version function in this blob.
+     * The version is read from the custom sections of the blob if present, falling back to instantiating it and
+     * calling Core_version otherwise, and is cached by the hash of the blob.
      *
      * @param data a pointer-size to the Wasm blob
      * @return a pointer-size to the SCALE encoded Option value containing the Runtime version of the given Wasm blob
@@ -110,13 +107,12 @@ public class MiscellaneousHostFunctions implements PartialHostApi {
         byte[] versionOption;
 
         try {
-            Runtime runtime = RuntimeFactory.buildRuntime(wasmBlob, RuntimeFactory.Config.EMPTY);
             byte[] runtimeVersionData = ScaleUtils.Encode.encode(
-                    RuntimeVersionWriter.getInstance(), runtime.getCachedVersion());
+                    RuntimeVersionWriter.getInstance(), RuntimeFactory.getRuntimeVersion(wasmBlob));
 
             versionOption = scaleEncodedOption(runtimeVersionData);
-        } catch (UnsatisfiedLinkError e) {
-            log.log(Level.SEVERE, "Error loading wasm module: " + e.getMessage());
+        } catch (RuntimeException | UnsatisfiedLinkError e) {
+            log.log(Level.SEVERE, "Error reading the version of wasm module: " + e.getMessage());
             versionOption = scaleEncodedOption(null);
         }
 
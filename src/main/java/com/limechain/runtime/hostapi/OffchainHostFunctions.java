@@ -26,7 +26,6 @@ import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.extern.java.Log;
 import org.javatuples.Pair;
-import org.wasmer.ImportObject;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -71,13 +70,13 @@ public class OffchainHostFunctions implements PartialHostApi {
     }
 
     @Override
-    public Map<Endpoint, ImportObject.FuncImport> getFunctionImports() {
+    public Map<Endpoint, HostFunction> getFunctionImports() {
         return Map.ofEntries(
             newImportObjectPair(Endpoint.ext_offchain_is_validator_version_1, argv -> {
                 return extOffchainIsValidator();
             }),
             newImportObjectPair(Endpoint.ext_offchain_submit_transaction_version_1, argv -> {
-                return extOffchainSubmitTransaction(new RuntimePointerSize(argv.get(0))).pointerSize();
+                return extOffchainSubmitTransaction(new RuntimePointerSize(argv[0])).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_offchain_network_state_version_1, argv -> {
                 return extOffchainNetworkState().pointerSize();
@@ -86,75 +85,75 @@ public class OffchainHostFunctions implements PartialHostApi {
                 return extOffchainTimestamp();
             }),
             newImportObjectPair(Endpoint.ext_offchain_sleep_until_version_1, argv -> {
-                extOffchainSleepUntil(argv.get(0).longValue());
+                extOffchainSleepUntil(argv[0]);
             }),
             newImportObjectPair(Endpoint.ext_offchain_random_seed_version_1, argv -> {
                 return extOffchainRandomSeed();
             }),
             newImportObjectPair(Endpoint.ext_offchain_local_storage_set_version_1, argv -> {
                 extOffchainLocalStorageSet(
-                    argv.get(0).intValue(),
-                    new RuntimePointerSize(argv.get(1)),
-                    new RuntimePointerSize(argv.get(2))
+                    (int) argv[0],
+                    new RuntimePointerSize(argv[1]),
+                    new RuntimePointerSize(argv[2])
                 );
             }),
             newImportObjectPair(Endpoint.ext_offchain_local_storage_clear_version_1, argv -> {
-                extOffchainLocalStorageClear(argv.get(0).intValue(), new RuntimePointerSize(argv.get(1)));
+                extOffchainLocalStorageClear((int) argv[0], new RuntimePointerSize(argv[1]));
             }),
             newImportObjectPair(Endpoint.ext_offchain_local_storage_compare_and_set_version_1, argv -> {
                 return extOffchainLocalStorageCompareAndSet(
-                    argv.get(0).intValue(),
-                    new RuntimePointerSize(argv.get(1)),
-                    new RuntimePointerSize(argv.get(2)),
-                    new RuntimePointerSize(argv.get(3))
+                    (int) argv[0],
+                    new RuntimePointerSize(argv[1]),
+                    new RuntimePointerSize(argv[2]),
+                    new RuntimePointerSize(argv[3])
                 );
             }),
             newImportObjectPair(Endpoint.ext_offchain_local_storage_get_version_1, argv -> {
-                return extOffchainLocalStorageGet(argv.get(0).intValue(), new RuntimePointerSize(argv.get(1)))
+                return extOffchainLocalStorageGet((int) argv[0], new RuntimePointerSize(argv[1]))
                     .pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_offchain_http_request_start_version_1, argv -> {
                 return extOffchainHttpRequestStart(
-                    new RuntimePointerSize(argv.get(0)),
-                    new RuntimePointerSize(argv.get(1)),
+                    new RuntimePointerSize(argv[0]),
+                    new RuntimePointerSize(argv[1]),
                     new byte[0]
                 ).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_offchain_http_request_add_header_version_1, argv -> {
                 return extOffchainHttpRequestAddHeader(
-                    argv.get(0).intValue(),
-                    new RuntimePointerSize(argv.get(1)),
-                    new RuntimePointerSize(argv.get(2))
+                    (int) argv[0],
+                    new RuntimePointerSize(argv[1]),
+                    new RuntimePointerSize(argv[2])
                 ).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_offchain_http_request_write_body_version_1, argv -> {
                 return extOffchainHttpRequestWriteBody(
-                    argv.get(0).intValue(),
-                    new RuntimePointerSize(argv.get(1)),
-                    new RuntimePointerSize(argv.get(2))
+                    (int) argv[0],
+                    new RuntimePointerSize(argv[1]),
+                    new RuntimePointerSize(argv[2])
                 ).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_offchain_http_response_wait_version_1, argv -> {
                 return extOffchainHttpResponseWaitVersion1(
-                    new RuntimePointerSize(argv.get(1)),
-                    new RuntimePointerSize(argv.get(2))
+                    new RuntimePointerSize(argv[1]),
+                    new RuntimePointerSize(argv[2])
                 ).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_offchain_http_response_headers_version_1, argv -> {
-                return extOffchainHttpResponseHeadersVersion1(argv.get(0).intValue()).pointerSize();
+                return extOffchainHttpResponseHeadersVersion1((int) argv[0]).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_offchain_http_response_read_body_version_1, argv -> {
                 return extOffchainHttpResponseReadBodyVersion1(
-                    argv.get(0).intValue(),
-                    new RuntimePointerSize(argv.get(1)),
-                    new RuntimePointerSize(argv.get(2))
+                    (int) argv[0],
+                    new RuntimePointerSize(argv[1]),
+                    new RuntimePointerSize(argv[2])
                 ).pointerSize();
             }),
             newImportObjectPair(Endpoint.ext_offchain_index_set_version_1, argv -> {
-                offchainIndexSet(new RuntimePointerSize(argv.get(0)), new RuntimePointerSize(argv.get(1)));
+                offchainIndexSet(new RuntimePointerSize(argv[0]), new RuntimePointerSize(argv[1]));
             }),
             newImportObjectPair(Endpoint.ext_offchain_index_clear_version_1, argv -> {
-                offchainIndexClear(new RuntimePointerSize(argv.get(0)));
+                offchainIndexClear(new RuntimePointerSize(argv[0]));
             })
         );
     }
@@ -1,11 +1,6 @@
 package com.limechain.runtime.hostapi;
 
-import org.wasmer.ImportObject;
-
-import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
-import java.util.function.Function;
 
 /**
  * An interface defining an implementation of a (not necessarily strict) subset of all {@link Endpoint}s.
@@ -18,17 +13,17 @@ public interface PartialHostApi {
      * @apiNote It is left to the implementor to decide which endpoints they're going to implement.
      *          This information is encoded in the collection of keys of this map.
      */
-    Map<Endpoint, ImportObject.FuncImport> getFunctionImports();
+    Map<Endpoint, HostFunction> getFunctionImports();
 
-    static Map.Entry<Endpoint, ImportObject.FuncImport> newImportObjectPair(Endpoint endpoint, Function<List<Number>, Number> impl) {
+    static Map.Entry<Endpoint, HostFunction> newImportObjectPair(Endpoint endpoint, HostFunction.Implementation impl) {
         return Map.entry(endpoint, endpoint.getImportObject(impl));
     }
 
-    static Map.Entry<Endpoint, ImportObject.FuncImport> newImportObjectPair(Endpoint endpoint, Consumer<List<Number>> impl) {
+    static Map.Entry<Endpoint, HostFunction> newImportObjectPair(Endpoint endpoint, HostFunction.VoidImplementation impl) {
         return Map.entry(endpoint, endpoint.getImportObject(impl));
     }
 
-    static Map.Entry<Endpoint, ImportObject.FuncImport> newImportObjectPairNotImplemented(Endpoint endpoint) {
+    static Map.Entry<Endpoint, HostFunction> newImportObjectPairNotImplemented(Endpoint endpoint) {
         return Map.entry(endpoint, endpoint.getImportObjectNotImplemented());
     }
 }
@@ -17,7 +17,6 @@ import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.extern.java.Log;
 import org.springframework.lang.Nullable;
-import org.wasmer.ImportObject;
 import org.wasmer.Util;
 
 import java.io.ByteArrayOutputStream;
@@ -25,6 +24,8 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 
 import static com.limechain.runtime.hostapi.PartialHostApi.newImportObjectPair;
 
@@ -37,9 +38,18 @@ import static com.limechain.runtime.hostapi.PartialHostApi.newImportObjectPair;
 @AllArgsConstructor(access = AccessLevel.PACKAGE)
 public class StorageHostFunctions implements PartialHostApi {
     public static final String TRANSACTION_PANIC = "No active transaction.";
+    private static final byte[] NONE_OPTION = {0};
+    // The tag byte followed by the longest compact encoding of an int length, a mode byte and 4 bytes
+    private static final int OPTION_PREFIX_MAX_LENGTH = 6;
 
     private final SharedMemory sharedMemory;
-    private final TrieAccessor trieAccessor;
+    /**
+     * Resolved on every call, as pooled runtime instances are rebound to different tries.
+     */
+    private final Supplier<TrieAccessor> trieAccessorSupplier;
+    private final StorageKeyCache keyCache = new StorageKeyCache();
+    // The tag and compact encoded length prefixing a SCALE encoded Option<Vec<u8>>, reused across calls
+    private final byte[] optionPrefix = new byte[OPTION_PREFIX_MAX_LENGTH];
 
     public static byte[] scaleEncodedOption(int data) {
         return ScaleUtils.Encode.encodeOptional(ScaleCodecWriter::writeUint32, data);
@@ -50,43 +60,43 @@ public class StorageHostFunctions implements PartialHostApi {
     }
 
     @Override
-    public Map<Endpoint, ImportObject.FuncImport> getFunctionImports() {
+    public Map<Endpoint, HostFunction> getFunctionImports() {
         return Map.ofEntries(
                 newImportObjectPair(Endpoint.ext_storage_set_version_1, argv -> {
                     extStorageSetVersion1(
-                            new RuntimePointerSize(argv.get(0)),
-                            new RuntimePointerSize(argv.get(1)));
+                            new RuntimePointerSize(argv[0]),
+                            new RuntimePointerSize(argv[1]));
                 }),
                 newImportObjectPair(Endpoint.ext_storage_get_version_1, argv -> {
-                    return extStorageGetVersion1(new RuntimePointerSize(argv.get(0))).pointerSize();
+                    return extStorageGetVersion1(new RuntimePointerSize(argv[0])).pointerSize();
                 }),
                 newImportObjectPair(Endpoint.ext_storage_read_version_1, argv -> {
                     return extStorageReadVersion1(
-                            new RuntimePointerSize(argv.get(0)), new RuntimePointerSize(argv.get(1)),
-                            argv.get(2).intValue()).pointerSize();
+                            new RuntimePointerSize(argv[0]), new RuntimePointerSize(argv[1]),
+                            (int) argv[2]).pointerSize();
                 }),
                 newImportObjectPair(Endpoint.ext_storage_clear_version_1, argv -> {
-                    extStorageClearVersion1(new RuntimePointerSize(argv.get(0)));
+                    extStorageClearVersion1(new RuntimePointerSize(argv[0]));
                 }),
 
                 newImportObjectPair(Endpoint.ext_storage_exists_version_1, argv -> {
-                    return extStorageExistsVersion1(new RuntimePointerSize(argv.get(0)));
+                    return extStorageExistsVersion1(new RuntimePointerSize(argv[0]));
                 }),
 
                 newImportObjectPair(Endpoint.ext_storage_clear_prefix_version_1, argv -> {
-                    extStorageClearPrefixVersion1(new RuntimePointerSize(argv.get(0)));
+                    extStorageClearPrefixVersion1(new RuntimePointerSize(argv[0]));
                 }),
 
                 newImportObjectPair(Endpoint.ext_storage_clear_prefix_version_2, argv -> {
                     return extStorageClearPrefixVersion2(
-                            new RuntimePointerSize(argv.get(0)),
-                            new RuntimePointerSize(argv.get(1))
+                            new RuntimePointerSize(argv[0]),
+                            new RuntimePointerSize(argv[1])
                     ).pointerSize();
 
                 }),
                 newImportObjectPair(Endpoint.ext_storage_append_version_1, argv -> {
                     extStorageAppendVersion1(
-                            new RuntimePointerSize(argv.get(0)), new RuntimePointerSize(argv.get(1))
+                            new RuntimePointerSize(argv[0]), new RuntimePointerSize(argv[1])
                     );
                 }),
 
@@ -95,13 +105,13 @@ public class StorageHostFunctions implements PartialHostApi {
                 }),
 
                 newImportObjectPair(Endpoint.ext_storage_root_version_2, argv -> {
-                    return extStorageRootVersion2(argv.get(0).intValue()).pointerSize();
+                    return extStorageRootVersion2((int) argv[0]).pointerSize();
                 }),
                 newImportObjectPair(Endpoint.ext_storage_changes_root_version_1, argv -> {
-                    return extStorageChangesRootVersion1(new RuntimePointerSize(argv.get(0))).pointerSize();
+                    return extStorageChangesRootVersion1(new RuntimePointerSize(argv[0])).pointerSize();
                 }),
                 newImportObjectPair(Endpoint.ext_storage_next_key_version_1, argv -> {
-                    return extStorageNextKeyVersion1(new RuntimePointerSize(argv.get(0))).pointerSize();
+                    return extStorageNextKeyVersion1(new RuntimePointerSize(argv[0])).pointerSize();
                 }),
                 newImportObjectPair(Endpoint.ext_storage_start_transaction_version_1, argv -> {
                     extStorageStartTransactionVersion1();
@@ -122,15 +132,17 @@ public class StorageHostFunctions implements PartialHostApi {
      * @param valuePointer a pointer-size containing the key.
      */
     public void extStorageSetVersion1(RuntimePointerSize keyPointer, RuntimePointerSize valuePointer) {
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
+        Nibbles key = keyCache.read(sharedMemory, keyPointer);
         byte[] value = sharedMemory.readData(valuePointer);
 
-        log.fine("");
-        log.fine("extStorageSetVersion1 with ");
-        log.fine("key: " + key);
-        log.fine("value: " + Arrays.toString(value));
-        log.fine("");
-        trieAccessor.upsertNode(key, value);
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("");
+            log.fine("extStorageSetVersion1 with ");
+            log.fine("key: " + key);
+            log.fine("value: " + Arrays.toString(value));
+            log.fine("");
+        }
+        trieAccessor().upsertNode(key, value);
     }
 
     /**
@@ -140,15 +152,65 @@ public class StorageHostFunctions implements PartialHostApi {
      * @return a pointer-size returning the SCALE encoded Option value containing the value.
      */
     public RuntimePointerSize extStorageGetVersion1(RuntimePointerSize keyPointer) {
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
-        byte[] value = trieAccessor.findStorageValue(key).orElse(null);
+        Nibbles key = keyCache.read(sharedMemory, keyPointer);
+        byte[] value = trieAccessor().findStorageValue(key).orElse(null);
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("");
+            log.fine("extStorageGetVersion1");
+            log.fine("key: " + key);
+            log.fine("");
+        }
+
+        return writeOption(value);
+    }
 
-        log.fine("");
-        log.fine("extStorageGetVersion1");
-        log.fine("key: " + key);
-        log.fine("");
+    /**
+     * Writes the value as a SCALE encoded Option straight to a new allocation, as
+     * {@link #scaleEncodedOption(byte[])} would encode it, without encoding it into an intermediate array.
+     */
+    private RuntimePointerSize writeOption(@Nullable byte[] value) {
+        if (value == null) {
+            return sharedMemory.writeData(NONE_OPTION);
+        }
+
+        int prefixLength = writeOptionPrefix(value.length);
+        RuntimePointerSize option = sharedMemory.allocate(prefixLength + value.length);
+        sharedMemory.writeData(optionPrefix, new RuntimePointerSize(option.pointer(), prefixLength));
+        sharedMemory.writeData(value, new RuntimePointerSize(option.pointer() + prefixLength, value.length));
+        return option;
+    }
 
-        return sharedMemory.writeData(scaleEncodedOption(value));
+    /**
+     * Writes the Some tag and the compact encoded length of the value to the option prefix buffer.
+     *
+     * @return the length of the prefix
+     */
+    private int writeOptionPrefix(int length) {
+        optionPrefix[0] = 1;
+        if (length < 1 << 6) {
+            optionPrefix[1] = (byte) (length << 2);
+            return 2;
+        }
+        if (length < 1 << 14) {
+            int encoded = length << 2 | 0b01;
+            optionPrefix[1] = (byte) encoded;
+            optionPrefix[2] = (byte) (encoded >> 8);
+            return 3;
+        }
+        if (length < 1 << 30) {
+            int encoded = length << 2 | 0b10;
+            for (int i = 0; i < 4; i++) {
+                optionPrefix[1 + i] = (byte) (encoded >> 8 * i);
+            }
+            return 5;
+        }
+        // Big integer mode with the number of bytes following, minus 4, in the upper six bits
+        optionPrefix[1] = 0b11;
+        for (int i = 0; i < 4; i++) {
+            optionPrefix[2 + i] = (byte) (length >> 8 * i);
+        }
+        return OPTION_PREFIX_MAX_LENGTH;
     }
 
     /**
@@ -166,8 +228,8 @@ public class StorageHostFunctions implements PartialHostApi {
     public RuntimePointerSize extStorageReadVersion1(RuntimePointerSize keyPointer, RuntimePointerSize valueOutPointer,
                                                      int offset) {
         log.fine("extStorageReadVersion1");
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
-        byte[] value = trieAccessor.findStorageValue(key).orElse(null);
+        Nibbles key = keyCache.read(sharedMemory, keyPointer);
+        byte[] value = trieAccessor().findStorageValue(key).orElse(null);
 
         if (value == null) {
             return sharedMemory.writeData(scaleEncodedOption(null));
@@ -190,14 +252,16 @@ public class StorageHostFunctions implements PartialHostApi {
      * @param keyPointer a pointer-size containing the key.
      */
     public void extStorageClearVersion1(RuntimePointerSize keyPointer) {
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
+        Nibbles key = keyCache.read(sharedMemory, keyPointer);
 
-        log.fine("");
-        log.fine("extStorageClearVersion1");
-        log.fine("key: " + key);
-        log.fine("");
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("");
+            log.fine("extStorageClearVersion1");
+            log.fine("key: " + key);
+            log.fine("");
+        }
 
-        trieAccessor.deleteNode(key);
+        trieAccessor().deleteNode(key);
     }
 
     /**
@@ -208,8 +272,8 @@ public class StorageHostFunctions implements PartialHostApi {
      */
     public int extStorageExistsVersion1(RuntimePointerSize keyPointer) {
         log.fine("extStorageExistsVersion1");
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
-        return trieAccessor.findStorageValue(key).isPresent() ? 1 : 0;
+        Nibbles key = keyCache.read(sharedMemory, keyPointer);
+        return trieAccessor().findStorageValue(key).isPresent() ? 1 : 0;
     }
 
     /**
@@ -219,8 +283,8 @@ public class StorageHostFunctions implements PartialHostApi {
      */
     public void extStorageClearPrefixVersion1(RuntimePointerSize prefixPointer) {
         log.fine("extStorageClearPrefixVersion1");
-        Nibbles prefix = Nibbles.fromBytes(sharedMemory.readData(prefixPointer));
-        trieAccessor.deleteMultipleNodesByPrefix(prefix, null);
+        Nibbles prefix = Nibbles.fromBytes(sharedMemory.readSlice(prefixPointer));
+        trieAccessor().deleteMultipleNodesByPrefix(prefix, null);
     }
 
     /**
@@ -237,12 +301,12 @@ public class StorageHostFunctions implements PartialHostApi {
     public RuntimePointerSize extStorageClearPrefixVersion2(RuntimePointerSize prefixPointer,
                                                             RuntimePointerSize limitPointer) {
         log.fine("extStorageClearPrefixVersion2");
-        Nibbles prefix = Nibbles.fromBytes(sharedMemory.readData(prefixPointer));
+        Nibbles prefix = Nibbles.fromBytes(sharedMemory.readSlice(prefixPointer));
 
         byte[] limitBytes = sharedMemory.readData(limitPointer);
         Long limit = new ScaleCodecReader(limitBytes).readOptional(ScaleCodecReader.UINT32).orElse(null);
 
-        DeleteByPrefixResult result = trieAccessor.deleteMultipleNodesByPrefix(prefix, limit);
+        DeleteByPrefixResult result = trieAccessor().deleteMultipleNodesByPrefix(prefix, limit);
 
         return sharedMemory.writeData(result.scaleEncoded());
     }
@@ -258,8 +322,8 @@ public class StorageHostFunctions implements PartialHostApi {
     public void extStorageAppendVersion1(RuntimePointerSize keyPointer, RuntimePointerSize valuePointer) {
         log.fine("extStorageAppendVersion1");
 
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
-        byte[] sequence = trieAccessor.findStorageValue(key).orElse(null);
+        Nibbles key = keyCache.read(sharedMemory, keyPointer);
+        byte[] sequence = trieAccessor().findStorageValue(key).orElse(null);
         byte[] valueToAppend = sharedMemory.readData(valuePointer);
 
         if (sequence == null) {
@@ -270,7 +334,7 @@ public class StorageHostFunctions implements PartialHostApi {
             } catch (IOException e) {
                 throw new ScaleEncodingException(e);
             }
-            trieAccessor.upsertNode(key, buf.toByteArray());
+            trieAccessor().upsertNode(key, buf.toByteArray());
             return;
         }
 
@@ -285,7 +349,7 @@ public class StorageHostFunctions implements PartialHostApi {
             } catch (IOException ez) {
                 throw new ScaleEncodingException(e);
             }
-            trieAccessor.upsertNode(key, buf.toByteArray());
+            trieAccessor().upsertNode(key, buf.toByteArray());
             return;
         }
 
@@ -303,7 +367,7 @@ public class StorageHostFunctions implements PartialHostApi {
         } catch (IOException e) {
             throw new ScaleEncodingException(e);
         }
-        trieAccessor.upsertNode(key, buf.toByteArray());
+        trieAccessor().upsertNode(key, buf.toByteArray());
     }
 
     /**
@@ -313,7 +377,7 @@ public class StorageHostFunctions implements PartialHostApi {
      */
     public RuntimePointerSize extStorageRootVersion1() {
         log.fine("extStorageRootVersion1");
-        byte[] rootHash = trieAccessor.getMerkleRoot(null);
+        byte[] rootHash = trieAccessor().getMerkleRoot(null);
 
         return sharedMemory.writeData(rootHash);
     }
@@ -326,7 +390,7 @@ public class StorageHostFunctions implements PartialHostApi {
      */
     public RuntimePointerSize extStorageRootVersion2(int version) {
         log.fine("extStorageRootVersion2");
-        byte[] rootHash = trieAccessor.getMerkleRoot(StateVersion.fromInt(version));
+        byte[] rootHash = trieAccessor().getMerkleRoot(StateVersion.fromInt(version));
 
         return sharedMemory.writeData(rootHash);
     }
@@ -351,14 +415,16 @@ public class StorageHostFunctions implements PartialHostApi {
      * @return a pointer-size to the SCALE encoded Option value containing the next key in lexicographic order.
      */
     public RuntimePointerSize extStorageNextKeyVersion1(RuntimePointerSize keyPointer) {
-        Nibbles key = Nibbles.fromBytes(sharedMemory.readData(keyPointer));
+        Nibbles key = keyCache.read(sharedMemory, keyPointer);
 
-        log.fine("");
-        log.fine("extStorageNextKeyVersion1");
-        log.fine("key: " + key);
-        log.fine("");
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("");
+            log.fine("extStorageNextKeyVersion1");
+            log.fine("key: " + key);
+            log.fine("");
+        }
 
-        byte[] nextKey = trieAccessor.getNextKey(key)
+        byte[] nextKey = trieAccessor().getNextKey(key)
                 .map(NibblesUtils::toBytesAppending)
                 .map(this::asByteArray)
                 .orElse(null);
@@ -382,7 +448,7 @@ public class StorageHostFunctions implements PartialHostApi {
      */
     public void extStorageStartTransactionVersion1() {
         log.fine("extStorageStartTransactionVersion1");
-        trieAccessor.startTransaction();
+        trieAccessor().startTransaction();
     }
 
     /**
@@ -392,7 +458,7 @@ public class StorageHostFunctions implements PartialHostApi {
     public void extStorageRollbackTransactionVersion1() {
         log.fine("extStorageRollbackTransactionVersion1");
         try {
-            trieAccessor.rollbackTransaction();
+            trieAccessor().rollbackTransaction();
         } catch (TrieTransactionException e) {
             Util.nativePanic(TRANSACTION_PANIC);
         }
@@ -406,9 +472,13 @@ public class StorageHostFunctions implements PartialHostApi {
     public void extStorageCommitTransactionVersion1() {
         log.fine("extStorageCommitTransactionVersion1");
         try {
-            trieAccessor.commitTransaction();
+            trieAccessor().commitTransaction();
         } catch (TrieTransactionException e) {
             Util.nativePanic(TRANSACTION_PANIC);
         }
     }
+
+    private TrieAccessor trieAccessor() {
+        return trieAccessorSupplier.get();
+    }
 }
@@ -0,0 +1,60 @@
+package com.limechain.runtime.hostapi;
+
+import com.limechain.runtime.SharedMemory;
+import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
+import com.limechain.trie.structure.nibble.Nibbles;
+
+import java.util.Arrays;
+
+/**
+ * Maps storage keys read from the memory of a runtime instance to their {@link Nibbles}, so that keys the runtime
+ * reads over and over, e.g. the ones of its pallets' storage values, aren't copied and converted on every read.
+ * <p>
+ * The cache is direct-mapped: each key has a single slot picked by its hash and replaces the key in it on a miss.
+ * It isn't thread safe, as a runtime instance never runs more than one host function at a time.
+ */
+class StorageKeyCache {
+    private static final int CAPACITY = 512;
+    // Covers the keys of storage values and maps with hashed keys, longer ones are rarely read repeatedly
+    static final int MAX_CACHED_KEY_LENGTH = 128;
+
+    private final byte[][] keys = new byte[CAPACITY][];
+    private final Nibbles[] values = new Nibbles[CAPACITY];
+    private final byte[] buffer = new byte[MAX_CACHED_KEY_LENGTH];
+
+    /**
+     * Reads a key from the memory, reusing its {@link Nibbles} if the same key was read recently.
+     *
+     * @param sharedMemory the memory of the runtime instance
+     * @param keyPointer   a pointer-size containing the key
+     * @return the key as nibbles
+     */
+    Nibbles read(SharedMemory sharedMemory, RuntimePointerSize keyPointer) {
+        int length = keyPointer.size();
+        if (length > MAX_CACHED_KEY_LENGTH) {
+            return Nibbles.fromBytes(sharedMemory.readSlice(keyPointer));
+        }
+
+        sharedMemory.readData(keyPointer, buffer);
+        int slot = slot(length);
+        byte[] cachedKey = keys[slot];
+        if (cachedKey != null && Arrays.equals(cachedKey, 0, cachedKey.length, buffer, 0, length)) {
+            return values[slot];
+        }
+
+        byte[] key = Arrays.copyOf(buffer, length);
+        Nibbles nibbles = Nibbles.fromBytes(key);
+        keys[slot] = key;
+        values[slot] = nibbles;
+        return nibbles;
+    }
+
+    private int slot(int length) {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        // Folds the high bits into the low ones picking the slot
+        return (hash ^ hash >>> 16) & (CAPACITY - 1);
+    }
+}
@@ -19,7 +19,6 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.java.Log;
 import org.javatuples.Pair;
-import org.wasmer.ImportObject;
 
 import java.util.HashMap;
 import java.util.List;
@@ -40,7 +39,7 @@ public class TrieHostFunctions implements PartialHostApi {
     private final SharedMemory sharedMemory;
 
     @Override
-    public Map<Endpoint, ImportObject.FuncImport> getFunctionImports() {
+    public Map<Endpoint, HostFunction> getFunctionImports() {
         return Map.ofEntries(
             PartialHostApi.newImportObjectPair(Endpoint.ext_trie_blake2_256_root_version_1, this::ext_trie_blake2_256_root_version_1),
             PartialHostApi.newImportObjectPair(Endpoint.ext_trie_blake2_256_root_version_2, this::ext_trie_blake2_256_root_version_2),
@@ -57,7 +56,7 @@ public class TrieHostFunctions implements PartialHostApi {
         );
     }
 
-    Number ext_trie_blake2_256_root_version_1(List<Number> args) {
+    long ext_trie_blake2_256_root_version_1(long[] args) {
         log.fine("ext_trie_blake2_256_root_version_1");
         ArgParser argParser = new ArgParser(args);
 
@@ -68,7 +67,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return sharedMemory.writeData(trieRoot).pointer();
     }
 
-    Number ext_trie_blake2_256_root_version_2(List<Number> argv) {
+    long ext_trie_blake2_256_root_version_2(long[] argv) {
         log.fine("ext_trie_blake2_256_root_version_2");
         ArgParser argParser = new ArgParser(argv);
 
@@ -80,7 +79,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return sharedMemory.writeData(trieRoot).pointer();
     }
 
-    Number ext_trie_blake2_256_ordered_root_version_1(List<Number> argv) {
+    long ext_trie_blake2_256_ordered_root_version_1(long[] argv) {
         log.fine("ext_trie_blake2_256_ordered_root_version_1");
         ArgParser argParser = new ArgParser(argv);
 
@@ -91,7 +90,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return sharedMemory.writeData(trieRoot).pointer();
     }
 
-    Number ext_trie_blake2_256_ordered_root_version_2(List<Number> argv) {
+    long ext_trie_blake2_256_ordered_root_version_2(long[] argv) {
         log.fine("ext_trie_blake2_256_ordered_root_version_2");
         ArgParser argParser = new ArgParser(argv);
 
@@ -103,7 +102,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return sharedMemory.writeData(trieRoot).pointer();
     }
 
-    Number ext_trie_keccak_256_root_version_1(List<Number> argv) {
+    long ext_trie_keccak_256_root_version_1(long[] argv) {
         log.fine("ext_trie_keccak_256_root_version_1");
         ArgParser argParser = new ArgParser(argv);
 
@@ -114,7 +113,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return sharedMemory.writeData(trieRoot).pointer();
     }
 
-    Number ext_trie_keccak_256_root_version_2(List<Number> argv) {
+    long ext_trie_keccak_256_root_version_2(long[] argv) {
         log.fine("ext_trie_keccak_256_root_version_2");
         ArgParser argParser = new ArgParser(argv);
 
@@ -126,7 +125,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return sharedMemory.writeData(trieRoot).pointer();
     }
 
-    Number ext_trie_keccak_256_ordered_root_version_1(List<Number> argv) {
+    long ext_trie_keccak_256_ordered_root_version_1(long[] argv) {
         log.fine("ext_trie_keccak_256_ordered_root_version_1");
         ArgParser argParser = new ArgParser(argv);
 
@@ -137,7 +136,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return sharedMemory.writeData(trieRoot).pointer();
     }
 
-    Number ext_trie_keccak_256_ordered_root_version_2(List<Number> argv) {
+    long ext_trie_keccak_256_ordered_root_version_2(long[] argv) {
         log.fine("ext_trie_keccak_256_ordered_root_version_2");
         ArgParser argParser = new ArgParser(argv);
 
@@ -149,7 +148,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return sharedMemory.writeData(trieRoot).pointer();
     }
 
-    Number ext_trie_blake2_256_verify_proof_version_1(List<Number> args) {
+    long ext_trie_blake2_256_verify_proof_version_1(long[] args) {
         log.fine("ext_trie_blake2_256_verify_proof_version_1");
         ArgParser argParser = new ArgParser(args);
         byte[] trieRoot = argParser.parseTrieRoot(0);
@@ -163,7 +162,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return verified ? 1 : 0;
     }
 
-    Number ext_trie_blake2_256_verify_proof_version_2(List<Number> argv) {
+    long ext_trie_blake2_256_verify_proof_version_2(long[] argv) {
         log.fine("ext_trie_blake2_256_verify_proof_version_2");
         ArgParser argParser = new ArgParser(argv);
         byte[] trieRoot = argParser.parseTrieRoot(0);
@@ -177,7 +176,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return verified ? 1 : 0;
     }
 
-    Number ext_trie_keccak_256_verify_proof_version_1(List<Number> argv) {
+    long ext_trie_keccak_256_verify_proof_version_1(long[] argv) {
         log.fine("ext_trie_keccak_256_verify_proof_version_1");
         ArgParser argParser = new ArgParser(argv);
         byte[] trieRoot = argParser.parseTrieRoot(0);
@@ -191,7 +190,7 @@ public class TrieHostFunctions implements PartialHostApi {
         return verified ? 1 : 0;
     }
 
-    Number ext_trie_keccak_256_verify_proof_version_2(List<Number> args) {
+    long ext_trie_keccak_256_verify_proof_version_2(long[] args) {
         log.fine("ext_trie_keccak_256_verify_proof_version_2");
         ArgParser argParser = new ArgParser(args);
         byte[] trieRoot = argParser.parseTrieRoot(0);
@@ -269,10 +268,10 @@ public class TrieHostFunctions implements PartialHostApi {
 
     @AllArgsConstructor
     class ArgParser {
-        private final List<Number> args;
+        private final long[] args;
 
         public StateVersion parseStateVersion(int index) {
-            return StateVersion.fromInt((Integer) args.get(index));
+            return StateVersion.fromInt((int) args[index]);
         }
 
         public List<byte[]> parseOrderedValues(int index) {
@@ -290,12 +289,12 @@ public class TrieHostFunctions implements PartialHostApi {
         }
 
         public byte[] parseTrieRoot(int index) {
-            int rootPtr = args.get(index).intValue();
+            int rootPtr = (int) args[index];
             return sharedMemory.readData(new RuntimePointerSize(rootPtr, TRIE_ROOT_HASH_BYTE_LEN));
         }
 
         public byte[] getDataFromMemory(int index) {
-            return sharedMemory.readData(new RuntimePointerSize(args.get(index)));
+            return sharedMemory.readData(new RuntimePointerSize(args[index]));
         }
     }
 }
@@ -0,0 +1,10 @@
+package com.limechain.runtime.hostapi;
+
+/**
+ * The types of the values passed to and returned from Host API endpoints, mapped by each engine to its own.
+ * The Host API only uses integer types.
+ */
+public enum ValueType {
+    I32,
+    I64
+}
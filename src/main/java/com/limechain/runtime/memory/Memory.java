@@ -1,21 +1,94 @@
 package com.limechain.runtime.memory;
 
-import java.nio.ByteBuffer;
+import net.openhft.hashing.LongHashFunction;
+
+import java.lang.foreign.MemorySegment;
 
 /**
- * A simple minimalistic interface for a {@link Memory}.
+ * A simple minimalistic interface for the linear memory of a runtime instance.
  */
 public interface Memory {
     /**
-     * Exposes the underlying buffer for mutation.
-     * @return the underlying {@link ByteBuffer}
+     * @return the current size of the memory in bytes
+     */
+    int size();
+
+    /**
+     * Reads bytes from the memory, filling the destination array.
+     * @param offset      the address to read from
+     * @param destination the array to read into
+     */
+    default void read(int offset, byte[] destination) {
+        read(offset, destination, 0, destination.length);
+    }
+
+    /**
+     * Reads bytes from the memory into a range of the destination array.
+     * @param offset            the address to read from
+     * @param destination       the array to read into
+     * @param destinationOffset the start of the range in the destination array
+     * @param length            the length of the range
+     */
+    void read(int offset, byte[] destination, int destinationOffset, int length);
+
+    /**
+     * Hashes a region of the memory, reading it in place if the memory allows it.
+     * @param hashFunction the hash function to use
+     * @param offset       the address of the region
+     * @param length       the length of the region in bytes
+     * @return the hash of the region
+     */
+    default long hash(LongHashFunction hashFunction, int offset, int length) {
+        return hashFunction.hashBytes(slice(offset, length).asByteBuffer());
+    }
+
+    /**
+     * Gives a view of a region of the memory, copying it only if the memory can't be accessed in place.
+     * The view is invalidated by the memory growing, which any allocation or runtime call may cause.
+     * @param offset the address of the region
+     * @param length the length of the region in bytes
+     * @return a read-only segment of the region
+     */
+    default MemorySegment slice(int offset, int length) {
+        byte[] copy = new byte[length];
+        read(offset, copy);
+        return MemorySegment.ofArray(copy).asReadOnly();
+    }
+
+    /**
+     * Writes a range of the given array to the memory.
+     * @param offset       the address to write at
+     * @param source       the array to write from
+     * @param sourceOffset the start of the range in the source array
+     * @param length       the length of the range
+     */
+    void write(int offset, byte[] source, int sourceOffset, int length);
+
+    /**
+     * Writes the whole array to the memory.
+     * @param offset the address to write at
+     * @param source the array to write
+     */
+    default void write(int offset, byte[] source) {
+        write(offset, source, 0, source.length);
+    }
+
+    /**
+     * @param offset the address to read from
+     * @return the 64-bit value at the address
+     */
+    long readLong(int offset);
+
+    /**
+     * @param offset the address to write at
+     * @param value  the 64-bit value to write
      */
-    ByteBuffer buffer();
+    void writeLong(int offset, long value);
 
     /**
      * Grows the memory by a given amount of pages.
      * @param numPages the number of pages to grow by
-     * @return idk
+     * @return the previous size of the memory in pages
      */
     int grow(int numPages);
 }
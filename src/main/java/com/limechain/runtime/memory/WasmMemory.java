@@ -1,6 +1,8 @@
 package com.limechain.runtime.memory;
 
-import java.nio.ByteBuffer;
+import net.openhft.hashing.LongHashFunction;
+
+import java.lang.foreign.MemorySegment;
 
 /**
  * A new type wrapping {@link org.wasmer.Memory} and implementing {@link Memory}.
@@ -9,8 +11,39 @@ import java.nio.ByteBuffer;
  */
 public record WasmMemory(org.wasmer.Memory memory) implements Memory {
     @Override
-    public ByteBuffer buffer() {
-        return memory.buffer();
+    public int size() {
+        return memory.buffer().limit();
+    }
+
+    @Override
+    public void read(int offset, byte[] destination, int destinationOffset, int length) {
+        memory.buffer().get(offset, destination, destinationOffset, length);
+    }
+
+    // The buffer is a direct view of the native linear memory, so the segment is too
+    @Override
+    public MemorySegment slice(int offset, int length) {
+        return MemorySegment.ofBuffer(memory.buffer()).asSlice(offset, length).asReadOnly();
+    }
+
+    @Override
+    public long hash(LongHashFunction hashFunction, int offset, int length) {
+        return hashFunction.hashBytes(memory.buffer(), offset, length);
+    }
+
+    @Override
+    public void write(int offset, byte[] source, int sourceOffset, int length) {
+        memory.buffer().put(offset, source, sourceOffset, length);
+    }
+
+    @Override
+    public long readLong(int offset) {
+        return memory.buffer().getLong(offset);
+    }
+
+    @Override
+    public void writeLong(int offset, long value) {
+        memory.buffer().putLong(offset, value);
     }
 
     @Override
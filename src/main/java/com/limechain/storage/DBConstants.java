@@ -29,6 +29,16 @@ public class DBConstants {
      */
     public static final String HIGHEST_ROUND_AND_SET_ID_KEY = "hrs";
 
+    /**
+     * Key under which the format version of the stored trie nodes is kept.
+     */
+    public static final String TRIE_NODE_FORMAT_VERSION = "trieNodeFormatVersion";
+
+    /**
+     * Key under which it's marked that the trie nodes have been saved with state pruning enabled.
+     */
+    public static final String STATE_PRUNING_ENABLED = "statePruningEnabled";
+
     // SyncState keys
     public static final String LAST_FINALIZED_BLOCK_NUMBER = "ss::lastFinalizedBlockNumber";
     public static final String LAST_FINALIZED_BLOCK_HASH = "ss::lastFinalizedBlockHash";
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -93,6 +94,23 @@ public class DBRepository implements KVRepository<String, Object> {
         }
     }
 
+    @Override
+    public synchronized void saveRawBatch(Map<byte[], byte[]> kvMap) {
+        log.fine("Saving batch of raw key value pairs.");
+        try (final WriteBatch batch = new WriteBatch()) {
+            for (Map.Entry<byte[], byte[]> e : kvMap.entrySet()) {
+                batch.put(e.getKey(), e.getValue());
+            }
+
+            try (final WriteOptions writeOptions = new WriteOptions()) {
+                db.write(writeOptions, batch);
+            }
+        } catch (RocksDBException e) {
+            log.warning(String.format("Error saving raw batch. Cause: '%s', message: '%s'",
+                e.getCause(), e.getMessage()));
+        }
+    }
+
     @Override
     public synchronized boolean save(String key, Object value) {
         log.log(Level.FINE, String.format("saving value '%s' with key '%s'", value, key));
@@ -126,12 +144,78 @@ public class DBRepository implements KVRepository<String, Object> {
         return Optional.ofNullable(value);
     }
 
+    @Override
+    public synchronized Optional<byte[]> findRaw(byte[] key) {
+        try {
+            return Optional.ofNullable(db.get(key));
+        } catch (RocksDBException e) {
+            log.severe(String.format(
+                "Error retrieving the raw entry, cause: %s, message: %s",
+                e.getCause(),
+                e.getMessage())
+            );
+            return Optional.empty();
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <T> T find(String key, T defaultValue) {
         return (T) find(key).orElse(defaultValue);
     }
 
+    @Override
+    public synchronized void deleteRawBatch(Collection<byte[]> keys) {
+        log.fine("Deleting batch of raw keys.");
+        try (final WriteBatch batch = new WriteBatch()) {
+            for (byte[] key : keys) {
+                batch.delete(key);
+            }
+
+            try (final WriteOptions writeOptions = new WriteOptions()) {
+                db.write(writeOptions, batch);
+            }
+        } catch (RocksDBException e) {
+            log.warning(String.format("Error deleting raw batch. Cause: '%s', message: '%s'",
+                e.getCause(), e.getMessage()));
+        }
+    }
+
+    @Override
+    public synchronized void writeRawBatch(Map<byte[], byte[]> kvMap, Collection<byte[]> keys) {
+        log.fine("Writing batch of raw key value pairs and deletions.");
+        try (final WriteBatch batch = new WriteBatch()) {
+            for (Map.Entry<byte[], byte[]> e : kvMap.entrySet()) {
+                batch.put(e.getKey(), e.getValue());
+            }
+            for (byte[] key : keys) {
+                batch.delete(key);
+            }
+
+            try (final WriteOptions writeOptions = new WriteOptions()) {
+                db.write(writeOptions, batch);
+            }
+        } catch (RocksDBException e) {
+            log.warning(String.format("Error writing raw batch. Cause: '%s', message: '%s'",
+                e.getCause(), e.getMessage()));
+            throw new DBException(e);
+        }
+    }
+
+    @Override
+    public synchronized List<byte[]> findRawKeysByPrefix(byte[] prefix, byte[] from, int limit) {
+        List<byte[]> keys = new ArrayList<>();
+        try (RocksIterator rocksIterator = db.newIterator()) {
+            rocksIterator.seek(from);
+            while (rocksIterator.isValid() && keys.size() < limit
+                   && ByteArrayUtils.hasPrefix(rocksIterator.key(), prefix)) {
+                keys.add(rocksIterator.key());
+                rocksIterator.next();
+            }
+        }
+        return keys;
+    }
+
     @Override
     public synchronized List<byte[]> findKeysByPrefix(String prefixSeek, int limit) {
         return findByPrefix(prefixSeek, (long) limit)
@@ -197,6 +281,18 @@ public class DBRepository implements KVRepository<String, Object> {
         return Optional.ofNullable(nextKey);
     }
 
+    @Override
+    public long getDiskUsage() {
+        try {
+            return db.getLongProperty("rocksdb.total-sst-files-size")
+                   + db.getLongProperty("rocksdb.size-all-mem-tables");
+        } catch (RocksDBException e) {
+            log.log(Level.WARNING, String.format("Error reading the DB size. Cause: '%s', message: '%s'",
+                e.getCause(), e.getMessage()));
+            return 0;
+        }
+    }
+
     public synchronized void closeConnection() {
         this.db.close();
     }
@@ -2,6 +2,7 @@ package com.limechain.storage;
 
 import org.springframework.lang.Nullable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -35,6 +36,48 @@ public interface KVRepository<K, V> {
      */
     Optional<V> find(K key);
 
+    /**
+     * Persists raw key-value pairs to the DB, as they are, without serializing keys or values.
+     *
+     * @param kvMap a map of all the raw key value pairs
+     */
+    void saveRawBatch(Map<byte[], byte[]> kvMap);
+
+    /**
+     * Tries to find a raw value for a given raw key in the DB, without deserializing it.
+     *
+     * @param key the raw key to search for
+     * @return Optional result that could contain the raw value
+     */
+    Optional<byte[]> findRaw(byte[] key);
+
+    /**
+     * Deletes raw keys from the DB in a single batch.
+     *
+     * @param keys the raw keys to delete
+     */
+    void deleteRawBatch(Collection<byte[]> keys);
+
+    /**
+     * Persists raw key-value pairs and deletes raw keys in a single atomic batch, so either all changes are applied or
+     * none of them.
+     *
+     * @param kvMap a map of the raw key value pairs to persist
+     * @param keys  the raw keys to delete
+     * @throws com.limechain.exception.storage.DBException if the batch couldn't be written
+     */
+    void writeRawBatch(Map<byte[], byte[]> kvMap, Collection<byte[]> keys);
+
+    /**
+     * Finds raw keys sharing a common prefix in ascending order, starting from a given raw key, up to a given limit.
+     *
+     * @param prefix prefix of the raw keys to look for
+     * @param from   the raw key to start from, inclusive
+     * @param limit  maximum keys to return
+     * @return the found raw keys
+     */
+    List<byte[]> findRawKeysByPrefix(byte[] prefix, byte[] from, int limit);
+
 
     /**
      * Generic method to fetch a value from the repository with a default fallback if no result is being found.
@@ -80,6 +123,13 @@ public interface KVRepository<K, V> {
      */
     Optional<K> getNextKey(K key);
 
+    /**
+     * Estimates the space taken by the DB on disk.
+     *
+     * @return the estimated size in bytes
+     */
+    long getDiskUsage();
+
     /**
      * Closes the connection to the DB
      */
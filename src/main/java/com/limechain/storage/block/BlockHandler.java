@@ -117,12 +117,13 @@ public class BlockHandler {
 
     private void verifyAndExecuteBlock(Block block) {
 
+        Runtime newRuntime = null;
         try {
             BlockHeader header = block.getHeader();
 
             BlockState blockState = stateManager.getBlockState();
             Runtime runtime = blockState.getRuntime(header.getParentHash());
-            Runtime newRuntime = builder.copyRuntime(runtime);
+            newRuntime = builder.copyRuntime(runtime);
 
             EpochState epochState = stateManager.getEpochState();
             if (!verifier.isAuthorshipValid(newRuntime,
@@ -136,11 +137,17 @@ public class BlockHandler {
             newRuntime.executeBlock(block);
             log.fine(String.format("Executed block No: %s with hash: %s.",
                     block.getHeader().getBlockNumber(), header.getHash()));
+            builder.precompileUpgradedCode(newRuntime);
             blockState.storeRuntime(header.getHash(), runtime);
 
             asyncExecutor.executeAndForget(() -> transactionProcessor.maintainTransactionPool(block));
         } catch (Exception e) {
             log.warning("Error while importing announced block: " + e);
+        } finally {
+            // The copy is only used for the execution, so its instance can be reused
+            if (newRuntime != null) {
+                newRuntime.close();
+            }
         }
     }
 
@@ -21,6 +21,7 @@ import com.limechain.storage.DBConstants;
 import com.limechain.storage.KVRepository;
 import com.limechain.storage.block.tree.BlockNode;
 import com.limechain.storage.block.tree.BlockTree;
+import com.limechain.storage.trie.StatePruner;
 import com.limechain.utils.scale.ScaleUtils;
 import io.emeraldpay.polkaj.types.Hash256;
 import lombok.Getter;
@@ -48,14 +49,16 @@ import java.util.Optional;
 public class BlockState extends AbstractState {
 
     private final KVRepository<String, Object> db;
+    private final StatePruner statePruner;
 
     private final Map<Hash256, Block> unfinalizedBlocks;
     private final BlockHeader genesisBlockHeader;
     private BlockTree blockTree;
     private Hash256 lastFinalized;
 
-    public BlockState(KVRepository<String, Object> db, GenesisBlockHash genesisBlockHash) {
+    public BlockState(KVRepository<String, Object> db, GenesisBlockHash genesisBlockHash, StatePruner statePruner) {
         this.db = db;
+        this.statePruner = statePruner;
         unfinalizedBlocks = new HashMap<>();
         genesisBlockHeader = genesisBlockHash.getGenesisBlockHeader();
     }
@@ -79,6 +82,7 @@ public class BlockState extends AbstractState {
 
         //set the latest finalized head to the genesis header
         setFinalizedHash(genesisBlockHeader, BigInteger.ZERO, BigInteger.ZERO);
+        statePruner.onFinalized(genesisBlockHeader);
     }
 
     @Override
@@ -792,12 +796,17 @@ public class BlockState extends AbstractState {
 
         List<Hash256> pruned = blockTree.prune(hash);
 
+        List<BlockHeader> discarded = new ArrayList<>();
         for (Hash256 prunedHash : pruned) {
-            unfinalizedBlocks.remove(prunedHash);
-            //Delete from trie the states of pruned blocks' state root
-            //TODO: tries.delete(blockheader.StateRoot)
-            //TODO: implement when the Trie is ready
+            Block prunedBlock = unfinalizedBlocks.remove(prunedHash);
+            if (prunedBlock != null) {
+                discarded.add(prunedBlock.getHeader());
+            }
         }
+        List<BlockHeader> kept = new ArrayList<>();
+        kept.add(header);
+        unfinalizedBlocks.values().forEach(block -> kept.add(block.getHeader()));
+        statePruner.onDiscarded(discarded, kept);
 
         // if nothing was previously finalized, set the first slot of the network to the
         // slot number of block 1, which is now being set as final
@@ -806,11 +815,6 @@ public class BlockState extends AbstractState {
             //TODO: Implement when BABE is implemented - setFirstSlotOnFinalisation
         }
 
-        if (this.lastFinalized != hash) {
-            //Delete from trie last finalized
-            //TODO: implement when the Trie is ready
-        }
-
         this.lastFinalized = hash;
     }
 
@@ -930,6 +934,7 @@ public class BlockState extends AbstractState {
             setBlockBody(subchainHash, block.getBody());
 
             getRuntime(block.getHeader().getHash()).persistsChanges();
+            statePruner.onFinalized(block.getHeader());
 
             Instant arrivalTime = blockTree.getArrivalTime(subchainHash);
             setArrivalTime(subchainHash, arrivalTime);
@@ -939,10 +944,6 @@ public class BlockState extends AbstractState {
             // Delete from the unfinalizedBlockMap and delete reference to in-memory trie
             unfinalizedBlocks.remove(subchainHash);
             ChainSub.getInstance().notifyFinalizedChainHead(block.getHeader());
-
-            // Prune all the subchain hashes state trie from memory
-            // but keep the state trie from the current finalized block
-            //TODO: If currentFinalizedHash is not equal to subchain hash, delete subchain state trie
         }
     }
 }
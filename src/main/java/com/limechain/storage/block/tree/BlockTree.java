@@ -14,20 +14,26 @@ import io.emeraldpay.polkaj.types.Hash256;
 import lombok.Getter;
 
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * BlockTree is a tree that represents the current state with all possible blocks
  * that are known to the node. It is used to store the blocks that are received
  * from the network and to be able to retrieve them when needed.
+ * <p>
+ * The nodes are indexed by hash and by number, along with ancestry links, in a {@link BlockTreeIndex}, which is
+ * maintained as blocks are added and pruned.
  */
 public class BlockTree {
 
     private final HashToRuntime runtimes;
+    private final BlockTreeIndex index = new BlockTreeIndex();
     @Getter
     private BlockNode root;
     @Getter
@@ -51,6 +57,7 @@ public class BlockTree {
         this.root = root;
         this.leaves = new LeafMap(root);
         this.runtimes = new HashToRuntime();
+        this.index.addSubtree(root);
     }
 
     /**
@@ -69,6 +76,7 @@ public class BlockTree {
         this.root = n;
         this.leaves = new LeafMap(n);
         this.runtimes = new HashToRuntime();
+        this.index.add(n);
     }
 
     /**
@@ -107,6 +115,7 @@ public class BlockTree {
                 number, arrivalTime, isPrimary);
         parent.addChild(newBlockNode);
         leaves.replace(parent, newBlockNode);
+        index.add(newBlockNode);
     }
 
     /**
@@ -123,11 +132,9 @@ public class BlockTree {
         }
 
         long number = blockNode.getNumber() + 1;
-        if (root.getNumber() == number) {
-            return Collections.singletonList(root.getHash());
-        }
-
-        return root.getNodesWithNumber(number);
+        return index.getNodesWithNumber(number).stream()
+                .map(BlockNode::getHash)
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
     /**
@@ -224,24 +231,17 @@ public class BlockTree {
      * @return Node with the given hash
      */
     public BlockNode getNode(final Hash256 hash) {
-        if (Objects.equals(root.getHash(), hash)) {
-            return root;
-        }
-
-        for (BlockNode leaf : leaves.nodes()) {
-            if (Objects.equals(leaf.getHash(), hash)) {
-                return leaf;
-            }
+        BlockNode blockNode = index.get(hash);
+        if (blockNode != null) {
+            return blockNode;
         }
 
-        for (BlockNode child : root.getChildren()) {
-            BlockNode n = child.getNode(hash);
-            if (n != null) {
-                return n;
-            }
+        // Nodes linked directly through BlockNode#addChild and registered as leaves are indexed once found
+        BlockNode leaf = leaves.load(hash);
+        if (leaf != null) {
+            index.addWithAncestors(leaf);
         }
-
-        return null;
+        return leaf;
     }
 
     /**
@@ -279,7 +279,11 @@ public class BlockTree {
 
         runtimes.onFinalisation(newCanonicalChainBlockHashes);
 
-        List<Hash256> pruned = root.prune(finalizedBlockNode);
+        List<Hash256> pruned = new ArrayList<>();
+        pruneNotDescendantsOf(root, finalizedBlockNode, pruned);
+        for (BlockNode ancestor = finalizedBlockNode.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            index.remove(ancestor);
+        }
         root = finalizedBlockNode;
         root.setParent(null);
 
@@ -292,6 +296,40 @@ public class BlockTree {
         return pruned;
     }
 
+    /**
+     * Detaches the nodes which are neither ancestors nor descendants of the finalized node, collecting their hashes.
+     */
+    private void pruneNotDescendantsOf(final BlockNode blockNode,
+                                       final BlockNode finalized,
+                                       final List<Hash256> pruned) {
+        Deque<BlockNode> toVisit = new ArrayDeque<>();
+        toVisit.push(blockNode);
+        while (!toVisit.isEmpty()) {
+            BlockNode current = toVisit.pop();
+            // All descendants of the finalized block are kept
+            if (isDescendantOf(finalized, current)) {
+                continue;
+            }
+
+            if (!isDescendantOf(current, finalized)) {
+                pruned.add(current.getHash());
+                if (current.getParent() != null) {
+                    current.getParent().deleteChild(current);
+                }
+                index.remove(current);
+            }
+
+            List<BlockNode> children = current.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                toVisit.push(children.get(i));
+            }
+        }
+    }
+
+    private boolean isDescendantOf(final BlockNode ancestor, final BlockNode descendant) {
+        return index.isDescendantOf(ancestor, descendant);
+    }
+
     /**
      * Returns the best node in the block tree using the fork choice rule
      *
@@ -341,7 +379,7 @@ public class BlockTree {
             throw new BlockNodeNotFoundException("End node not found: " + child);
         }
 
-        return childBlockNode.isDescendantOf(parentBlockNode);
+        return isDescendantOf(parentBlockNode, childBlockNode);
     }
 
     /**
@@ -385,6 +423,16 @@ public class BlockTree {
      * indicating that one of the nodes does not have a parent in the chain.
      */
     public Hash256 lowestCommonAncestor(final BlockNode blockNodeA, final BlockNode blockNodeB) {
+        if (index.contains(blockNodeA) && index.contains(blockNodeB)) {
+            BlockNode ancestor = index.lowestCommonAncestor(blockNodeA, blockNodeB);
+            if (ancestor == null) {
+                throw new BlockStorageGenericException(
+                        "Out of bounds ancestor check for block number "
+                                + Math.max(blockNodeA.getNumber(), blockNodeB.getNumber()));
+            }
+            return ancestor.getHash();
+        }
+
         BlockNode higherBlockNode = blockNodeB;
         BlockNode lowerBlockNode = blockNodeA;
         if (blockNodeA.getNumber() > blockNodeB.getNumber()) {
@@ -461,18 +509,11 @@ public class BlockTree {
             return root.getHash();
         }
 
-        BlockNode curr = best.getParent();
-        while (true) {
-            if (curr == null) {
-                throw new BlockNodeNotFoundException("Node not found");
-            }
-
-            if (curr.getNumber() == num) {
-                return curr.getHash();
-            }
-
-            curr = curr.getParent();
+        BlockNode ancestor = index.ancestorAt(best, num);
+        if (ancestor == null) {
+            throw new BlockNodeNotFoundException("Node not found");
         }
+        return ancestor.getHash();
     }
 
     /**
@@ -504,6 +545,7 @@ public class BlockTree {
         }
 
         blockTreeCopy.root = root.deepCopy(null);
+        blockTreeCopy.index.addSubtree(blockTreeCopy.root);
 
         if (leaves != null) {
             blockTreeCopy.leaves = new LeafMap();
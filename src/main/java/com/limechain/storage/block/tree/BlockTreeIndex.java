@@ -0,0 +1,185 @@
+package com.limechain.storage.block.tree;
+
+import io.emeraldpay.polkaj.types.Hash256;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lookup structures over the nodes of a {@link BlockTree}: nodes by hash, nodes by number, and for each node the
+ * hashes of its ancestors 1, 2, 4, ... levels up (binary lifting), so that finding the ancestor at a given number,
+ * checking ancestry and finding the lowest common ancestor take a logarithmic number of steps.
+ * <p>
+ * Ancestors are referenced by hash, so pruned nodes are not kept alive by their descendants. Ancestors pruned from
+ * the tree are not found anymore, which is fine as queries never go below the root.
+ */
+class BlockTreeIndex {
+
+    private final Map<Hash256, IndexedNode> nodes = new HashMap<>();
+    private final Map<Long, List<BlockNode>> nodesByNumber = new HashMap<>();
+
+    /**
+     * Indexes a node. Its parent, if any, should already be indexed.
+     *
+     * @param blockNode node to index
+     */
+    void add(final BlockNode blockNode) {
+        if (nodes.containsKey(blockNode.getHash())) {
+            return;
+        }
+
+        List<Hash256> jumps = new ArrayList<>();
+        if (blockNode.getParent() != null) {
+            jumps.add(blockNode.getParent().getHash());
+            IndexedNode ancestor;
+            while ((ancestor = nodes.get(jumps.getLast())) != null && ancestor.jumps.length >= jumps.size()) {
+                jumps.add(ancestor.jumps[jumps.size() - 1]);
+            }
+        }
+
+        nodes.put(blockNode.getHash(), new IndexedNode(blockNode, jumps.toArray(Hash256[]::new)));
+        nodesByNumber.computeIfAbsent(blockNode.getNumber(), number -> new ArrayList<>()).add(blockNode);
+    }
+
+    /**
+     * Indexes a node and all of its descendants.
+     *
+     * @param blockNode root of the subtree to index
+     */
+    void addSubtree(final BlockNode blockNode) {
+        Deque<BlockNode> toIndex = new ArrayDeque<>();
+        toIndex.push(blockNode);
+        while (!toIndex.isEmpty()) {
+            BlockNode current = toIndex.pop();
+            add(current);
+            current.getChildren().forEach(toIndex::push);
+        }
+    }
+
+    /**
+     * Indexes a node together with its ancestors which are not indexed yet.
+     *
+     * @param blockNode node to index
+     */
+    void addWithAncestors(final BlockNode blockNode) {
+        Deque<BlockNode> toIndex = new ArrayDeque<>();
+        for (BlockNode current = blockNode; current != null && !contains(current); current = current.getParent()) {
+            toIndex.push(current);
+        }
+        toIndex.forEach(this::add);
+    }
+
+    void remove(final BlockNode blockNode) {
+        if (nodes.remove(blockNode.getHash()) == null) {
+            return;
+        }
+
+        List<BlockNode> withNumber = nodesByNumber.get(blockNode.getNumber());
+        withNumber.removeIf(node -> Objects.equals(node.getHash(), blockNode.getHash()));
+        if (withNumber.isEmpty()) {
+            nodesByNumber.remove(blockNode.getNumber());
+        }
+    }
+
+    BlockNode get(final Hash256 hash) {
+        IndexedNode indexedNode = nodes.get(hash);
+        return indexedNode == null ? null : indexedNode.blockNode;
+    }
+
+    boolean contains(final BlockNode blockNode) {
+        return get(blockNode.getHash()) == blockNode;
+    }
+
+    List<BlockNode> getNodesWithNumber(final long number) {
+        return nodesByNumber.getOrDefault(number, List.of());
+    }
+
+    /**
+     * Finds the ancestor of a node with the given number.
+     *
+     * @param blockNode node to start from
+     * @param number    number of the ancestor
+     * @return the ancestor, the node itself if it has the given number, or null if there is no such node in the tree
+     */
+    BlockNode ancestorAt(final BlockNode blockNode, final long number) {
+        long distance = blockNode.getNumber() - number;
+        if (distance < 0) {
+            return null;
+        }
+
+        BlockNode current = blockNode;
+        for (int level = 0; distance > 0 && current != null; level++, distance >>= 1) {
+            if ((distance & 1) != 0) {
+                current = jump(current, level);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * @return true if the descendant is the ancestor or one of its descendants
+     */
+    boolean isDescendantOf(final BlockNode ancestor, final BlockNode descendant) {
+        BlockNode atAncestorNumber = ancestorAt(descendant, ancestor.getNumber());
+        return atAncestorNumber != null && Objects.equals(atAncestorNumber.getHash(), ancestor.getHash());
+    }
+
+    /**
+     * Finds the lowest common ancestor of two indexed nodes.
+     *
+     * @return the lowest common ancestor, or null if it's not in the tree
+     */
+    BlockNode lowestCommonAncestor(final BlockNode blockNodeA, final BlockNode blockNodeB) {
+        long number = Math.min(blockNodeA.getNumber(), blockNodeB.getNumber());
+        BlockNode a = ancestorAt(blockNodeA, number);
+        BlockNode b = ancestorAt(blockNodeB, number);
+        if (a == null || b == null) {
+            return null;
+        }
+        if (Objects.equals(a.getHash(), b.getHash())) {
+            return a;
+        }
+
+        for (int level = Math.max(jumpCount(a), jumpCount(b)) - 1; level >= 0; level--) {
+            // Ancestors which are the same or not in the tree anymore are at or above the lowest common ancestor
+            BlockNode jumpA = jump(a, level);
+            BlockNode jumpB = jump(b, level);
+            if (jumpA != null && jumpB != null && !Objects.equals(jumpA.getHash(), jumpB.getHash())) {
+                a = jumpA;
+                b = jumpB;
+            }
+        }
+
+        return a.getParent() != null && b.getParent() != null
+                && Objects.equals(a.getParent().getHash(), b.getParent().getHash())
+                ? a.getParent()
+                : null;
+    }
+
+    private int jumpCount(final BlockNode blockNode) {
+        IndexedNode indexedNode = nodes.get(blockNode.getHash());
+        return indexedNode == null ? 0 : indexedNode.jumps.length;
+    }
+
+    private BlockNode jump(final BlockNode blockNode, final int level) {
+        IndexedNode indexedNode = nodes.get(blockNode.getHash());
+        if (indexedNode == null) {
+            // Not indexed, follow the parents
+            BlockNode current = blockNode;
+            for (long i = 0; i < (1L << level) && current != null; i++) {
+                current = current.getParent();
+            }
+            return current;
+        }
+
+        return level < indexedNode.jumps.length ? get(indexedNode.jumps[level]) : null;
+    }
+
+    private record IndexedNode(BlockNode blockNode, Hash256[] jumps) {
+    }
+}
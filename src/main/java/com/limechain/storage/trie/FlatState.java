@@ -0,0 +1,186 @@
+package com.limechain.storage.trie;
+
+import com.google.common.primitives.Bytes;
+import com.limechain.storage.KVRepository;
+import com.limechain.trie.structure.nibble.Nibbles;
+import io.prometheus.metrics.core.metrics.Counter;
+import lombok.extern.java.Log;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * A flat copy of the storage entries of a single state, kept next to the trie so that values are read with a single
+ * lookup and keys are iterated with a range scan, instead of walking the trie from its root one node at a time.
+ * <p>
+ * The flat state follows the latest persisted state of the main trie: it's rebuilt when a whole trie is inserted and
+ * every persist whose parent is the state it holds moves it forward. The trie stays authoritative for everything else:
+ * reads at any other root fall back to it, as do merkle values and proofs. Entries are stored under their key
+ * prefixed with {@link #ENTRY_PREFIX}, and the root of the state they belong to under {@link #STATE_ROOT_KEY}, which is
+ * removed while the entries are being changed so that a crash in between can't leave a stale flat state behind.
+ * Only keys made of whole bytes are kept, which all storage keys are.
+ */
+@Log
+class FlatState {
+
+    static final byte[] ENTRY_PREFIX = "fse:".getBytes(StandardCharsets.UTF_8);
+    static final byte[] STATE_ROOT_KEY = "fsr:".getBytes(StandardCharsets.UTF_8);
+    private static final int BATCH_SIZE = 10_000;
+    // Child trie roots are read through the trie, which doesn't hold them as storage values
+    private static final Nibbles CHILD_STORAGE_PREFIX =
+            Nibbles.fromBytes(":child_storage:".getBytes(StandardCharsets.US_ASCII));
+
+    private static final Counter READS = Counter.builder()
+            .name("fruzhin_flat_state_reads")
+            .help("Number of storage reads served from the flat state instead of the trie.")
+            .register();
+
+    private final KVRepository<String, Object> db;
+    @Nullable
+    private byte[] stateRoot;
+
+    FlatState(KVRepository<String, Object> db) {
+        this.db = db;
+        this.stateRoot = db.findRaw(STATE_ROOT_KEY).orElse(null);
+    }
+
+    synchronized boolean isAt(byte[] root) {
+        return Arrays.equals(stateRoot, root);
+    }
+
+    /**
+     * @param root the state root the value is read at
+     * @param key  the key of the value
+     * @return the value, an empty optional if the key is absent, or null if it has to be read from the trie
+     */
+    @Nullable
+    @SuppressWarnings("java:S2789") // Null tells a read the flat state can't serve apart from an absent key
+    synchronized Optional<byte[]> get(byte[] root, Nibbles key) {
+        if (!isAt(root) || key.size() % 2 != 0 || key.startsWith(CHILD_STORAGE_PREFIX)) {
+            return null;
+        }
+
+        READS.inc();
+        return db.findRaw(entryKey(key));
+    }
+
+    /**
+     * @param root   the state root the keys are read at
+     * @param prefix the prefix of the keys
+     * @param after  the key to start after
+     * @param limit  maximum keys to return
+     * @return the keys starting with the prefix which follow the given key in order, or null if they have to be read
+     * from the trie
+     */
+    @Nullable
+    synchronized List<Nibbles> keysAfter(byte[] root, Nibbles prefix, Nibbles after, int limit) {
+        if (!isAt(root)) {
+            return null;
+        }
+
+        READS.inc();
+        // The smallest byte key following a key is the key with a zero byte appended, or padded with a zero nibble
+        byte[] from = after.size() % 2 == 0
+                ? Bytes.concat(entryKey(after), new byte[1])
+                : entryKey(after);
+        byte[] prefixFrom = entryKey(prefix);
+        if (Arrays.compareUnsigned(from, prefixFrom) < 0) {
+            from = prefixFrom;
+        }
+
+        // Keys with the prefix are contiguous, starting with the first key not lower than it
+        List<Nibbles> keys = new ArrayList<>();
+        for (byte[] entryKey : db.findRawKeysByPrefix(ENTRY_PREFIX, from, limit)) {
+            Nibbles key = Nibbles.fromBytes(Arrays.copyOfRange(entryKey, ENTRY_PREFIX.length, entryKey.length));
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * Moves the flat state forward to a new state, if it holds the state the changes were made to.
+     *
+     * @param parentRoot the state root the changes were made to
+     * @param newRoot    the state root after the changes
+     * @param changes    the changed entries, empty if deleted
+     */
+    synchronized void apply(byte[] parentRoot, byte[] newRoot, Map<Nibbles, Optional<byte[]>> changes) {
+        if (!isAt(parentRoot) || Arrays.equals(parentRoot, newRoot)) {
+            return;
+        }
+
+        invalidate();
+        Map<byte[], byte[]> puts = new HashMap<>();
+        List<byte[]> deletes = new ArrayList<>();
+        changes.forEach((key, value) -> {
+            if (key.size() % 2 == 0) {
+                value.ifPresentOrElse(v -> puts.put(entryKey(key), v), () -> deletes.add(entryKey(key)));
+            }
+        });
+        db.deleteRawBatch(deletes);
+        db.saveRawBatch(puts);
+        setStateRoot(newRoot);
+    }
+
+    /**
+     * Replaces the flat state with all entries of a state.
+     *
+     * @param root    the root of the state
+     * @param entries calls the given consumer with every key and value of the state
+     */
+    synchronized void rebuild(byte[] root, Consumer<BiConsumer<Nibbles, byte[]>> entries) {
+        invalidate();
+
+        List<byte[]> stale = db.findRawKeysByPrefix(ENTRY_PREFIX, ENTRY_PREFIX, BATCH_SIZE);
+        while (!stale.isEmpty()) {
+            db.deleteRawBatch(stale);
+            stale = db.findRawKeysByPrefix(ENTRY_PREFIX, ENTRY_PREFIX, BATCH_SIZE);
+        }
+
+        Map<byte[], byte[]> batch = new HashMap<>();
+        int[] written = {0};
+        entries.accept((key, value) -> {
+            if (key.size() % 2 != 0) {
+                return;
+            }
+            batch.put(entryKey(key), value);
+            written[0]++;
+            if (batch.size() >= BATCH_SIZE) {
+                db.saveRawBatch(batch);
+                batch.clear();
+            }
+        });
+        db.saveRawBatch(batch);
+        setStateRoot(root);
+
+        log.log(Level.INFO, "Flat state rebuilt with " + written[0] + " entries");
+    }
+
+    private void invalidate() {
+        if (stateRoot != null) {
+            db.deleteRawBatch(List.of(STATE_ROOT_KEY));
+            stateRoot = null;
+        }
+    }
+
+    private void setStateRoot(byte[] root) {
+        db.saveRawBatch(Map.of(STATE_ROOT_KEY, root));
+        stateRoot = root.clone();
+    }
+
+    private static byte[] entryKey(Nibbles key) {
+        return Bytes.concat(ENTRY_PREFIX, key.toPackedBytes());
+    }
+}
@@ -0,0 +1,26 @@
+package com.limechain.storage.trie;
+
+/**
+ * How many states of finalized blocks are kept in the {@link TrieStorage}.
+ *
+ * @param retainedStates the number of most recently finalized states to keep, or 0 to keep all of them
+ */
+public record PruningMode(int retainedStates) {
+
+    public static final PruningMode ARCHIVE = new PruningMode(0);
+
+    public PruningMode {
+        if (retainedStates < 0) {
+            throw new IllegalArgumentException("The number of retained states can't be negative");
+        }
+    }
+
+    public boolean isArchive() {
+        return retainedStates == 0;
+    }
+
+    @Override
+    public String toString() {
+        return isArchive() ? "archive" : String.valueOf(retainedStates);
+    }
+}
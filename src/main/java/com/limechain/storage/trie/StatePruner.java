@@ -0,0 +1,183 @@
+package com.limechain.storage.trie;
+
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
+import com.limechain.network.protocol.warp.dto.BlockHeader;
+import com.limechain.storage.KVRepository;
+import com.limechain.utils.async.AsyncExecutor;
+import io.prometheus.metrics.core.metrics.Counter;
+import lombok.Getter;
+import lombok.extern.java.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+
+/**
+ * Deletes the states of finalized blocks which fall out of the window kept by the {@link PruningMode}, and the states
+ * of blocks on abandoned forks.
+ * <p>
+ * The state of every finalized block is retained in the {@link TrieStorage} and recorded in a journal persisted in the
+ * DB, under the block number prefixed with {@link #JOURNAL_PREFIX}. Once more states than the window holds are
+ * journaled, the oldest ones are released and their nodes which no newer state shares are deleted in the background.
+ * In archive mode nothing is ever deleted.
+ * <p>
+ * A journal entry is written in the same batch as the count retaining its state, and deleted in the same batch as the
+ * release, so after a crash every journaled state is retained and gets released exactly once.
+ */
+@Log
+public class StatePruner {
+
+    static final byte[] JOURNAL_PREFIX = "spj:".getBytes(StandardCharsets.UTF_8);
+    private static final String REASON_LABEL = "reason";
+    private static final String FINALIZED = "finalized";
+    private static final String DISCARDED = "discarded";
+
+    private static final Counter PRUNED_STATES = Counter.builder()
+            .name("fruzhin_state_pruning_pruned_states")
+            .help("Number of states released from the pruning window or discarded with their forks.")
+            .labelNames(REASON_LABEL)
+            .register();
+    private static final Counter DELETED_NODES = Counter.builder()
+            .name("fruzhin_state_pruning_deleted_nodes")
+            .help("Number of trie nodes deleted by state pruning.")
+            .register();
+
+    private final KVRepository<String, Object> db;
+    private final TrieStorage trieStorage;
+    @Getter
+    private final PruningMode mode;
+    private final AsyncExecutor executor;
+    private final Deque<JournalEntry> journal;
+    private final AtomicInteger pendingStates = new AtomicInteger();
+    private volatile long releasedBlockNumber;
+    private volatile long prunedBlockNumber;
+
+    public StatePruner(KVRepository<String, Object> db, TrieStorage trieStorage, PruningMode mode) {
+        this(db, trieStorage, mode, AsyncExecutor.withSingleThread());
+    }
+
+    StatePruner(KVRepository<String, Object> db, TrieStorage trieStorage, PruningMode mode, AsyncExecutor executor) {
+        this.db = db;
+        this.trieStorage = trieStorage;
+        this.mode = mode;
+        this.executor = executor;
+        this.journal = loadJournal(db);
+    }
+
+    private static Deque<JournalEntry> loadJournal(KVRepository<String, Object> db) {
+        Deque<JournalEntry> journal = new ArrayDeque<>();
+        for (byte[] key : db.findRawKeysByPrefix(JOURNAL_PREFIX, JOURNAL_PREFIX, Integer.MAX_VALUE)) {
+            long blockNumber = Longs.fromByteArray(Arrays.copyOfRange(key, JOURNAL_PREFIX.length, key.length));
+            db.findRaw(key).ifPresent(stateRoot -> journal.addLast(new JournalEntry(blockNumber, stateRoot)));
+        }
+        return journal;
+    }
+
+    /**
+     * Retains the state of a newly finalized block and schedules the release of the states falling out of the window.
+     * Must be called for the finalized blocks in ascending order, after their state has been persisted.
+     *
+     * @param header the header of the finalized block
+     */
+    public synchronized void onFinalized(BlockHeader header) {
+        if (mode.isArchive()) {
+            return;
+        }
+
+        long blockNumber = header.getBlockNumber().longValueExact();
+        if (!journal.isEmpty() && journal.getLast().blockNumber() >= blockNumber) {
+            return;
+        }
+
+        byte[] stateRoot = header.getStateRoot().getBytes();
+        JournalEntry entry = new JournalEntry(blockNumber, stateRoot);
+        trieStorage.retainState(stateRoot, Map.of(entry.key(), stateRoot));
+        journal.addLast(entry);
+
+        while (journal.size() > mode.retainedStates()) {
+            JournalEntry expired = journal.removeFirst();
+            releasedBlockNumber = expired.blockNumber();
+            schedule(FINALIZED, () -> {
+                int deleted = trieStorage.releaseState(expired.stateRoot(), List.of(expired.key()));
+                prunedBlockNumber = expired.blockNumber();
+                return deleted;
+            });
+        }
+    }
+
+    /**
+     * Schedules the deletion of the states of blocks pruned from the block tree because they're not descendants of the
+     * finalized block. States shared with blocks which are kept, e.g. a sibling of the same state, aren't deleted as
+     * they aren't retained until their block is finalized.
+     *
+     * @param discarded the headers of the discarded blocks
+     * @param kept      the headers of the blocks still in the block tree
+     */
+    public void onDiscarded(Collection<BlockHeader> discarded, Collection<BlockHeader> kept) {
+        if (mode.isArchive()) {
+            return;
+        }
+
+        Set<ByteBuffer> keptRoots = new HashSet<>();
+        kept.forEach(header -> keptRoots.add(ByteBuffer.wrap(header.getStateRoot().getBytes())));
+        for (BlockHeader header : discarded) {
+            byte[] stateRoot = header.getStateRoot().getBytes();
+            if (keptRoots.add(ByteBuffer.wrap(stateRoot))) {
+                schedule(DISCARDED, () -> trieStorage.discardState(stateRoot));
+            }
+        }
+    }
+
+    /**
+     * @return the number of states waiting to be deleted in the background
+     */
+    public int pendingStates() {
+        return pendingStates.get();
+    }
+
+    /**
+     * @return the number of blocks by which the deletion of the released finalized states is behind
+     */
+    public long lag() {
+        return Math.max(0, releasedBlockNumber - prunedBlockNumber);
+    }
+
+    /**
+     * @return the estimated space taken by the DB on disk in bytes
+     */
+    public long diskUsage() {
+        return db.getDiskUsage();
+    }
+
+    private void schedule(String reason, IntSupplier task) {
+        pendingStates.incrementAndGet();
+        executor.executeAndForget(() -> {
+            try {
+                DELETED_NODES.inc(task.getAsInt());
+                PRUNED_STATES.labelValues(reason).inc();
+            } catch (Exception e) {
+                log.log(Level.WARNING, "Failed to prune " + reason + " state", e);
+            } finally {
+                pendingStates.decrementAndGet();
+            }
+        });
+    }
+
+    private record JournalEntry(long blockNumber, byte[] stateRoot) {
+
+        byte[] key() {
+            return Bytes.concat(JOURNAL_PREFIX, Longs.toByteArray(blockNumber));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.limechain.storage.trie;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.limechain.trie.structure.nibble.Nibbles;
+import io.prometheus.metrics.core.metrics.Counter;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A concurrent cache of storage values keyed by the state root they were read at and their key, bounded by the
+ * estimated size of the cached entries in bytes and evicting the least recently used ones.
+ * <p>
+ * The state at a given root never changes, so a cached value never goes stale and there's nothing to invalidate when
+ * forks are imported or abandoned. Keys which are absent from the state are cached as well. The pending changes of a
+ * block being executed are an overlay on top of its parent's root, so when the block is persisted the values of the
+ * keys read during its execution are {@link #promote promoted} to its new root and stay hits for the next block.
+ */
+class StorageValueCache {
+
+    static final long DEFAULT_MAX_SIZE_BYTES = 64L * 1024 * 1024;
+
+    // Rough size of the cache entry, key record, ByteBuffer, Nibbles and Optional objects, excluding their arrays
+    private static final int ENTRY_OVERHEAD_BYTES = 192;
+    private static final int ARRAY_OVERHEAD_BYTES = 16;
+
+    private static final Counter HITS = Counter.builder()
+            .name("fruzhin_storage_value_cache_hits")
+            .help("Number of storage value reads served from the storage value cache.")
+            .register();
+    private static final Counter MISSES = Counter.builder()
+            .name("fruzhin_storage_value_cache_misses")
+            .help("Number of storage value reads not found in the storage value cache.")
+            .register();
+
+    private final Cache<Key, Optional<byte[]>> cache;
+
+    StorageValueCache() {
+        this(DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    StorageValueCache(long maxSizeBytes) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((Key key, Optional<byte[]> value) -> estimateSize(key, value))
+                .build();
+    }
+
+    /**
+     * @param stateRoot the state root the value is read at
+     * @param key       the key of the value
+     * @return the cached value, an empty optional if the key is cached as absent, or null if it's not cached
+     */
+    @Nullable
+    @SuppressWarnings("java:S2789") // Null tells an uncached key apart from a key cached as absent
+    Optional<byte[]> get(byte[] stateRoot, Nibbles key) {
+        Optional<byte[]> value = cache.getIfPresent(new Key(ByteBuffer.wrap(stateRoot), key));
+        if (value != null) {
+            HITS.inc();
+        } else {
+            MISSES.inc();
+        }
+        return value;
+    }
+
+    void put(byte[] stateRoot, Nibbles key, Optional<byte[]> value) {
+        // The caller may reuse its array, so the key is backed by a copy
+        cache.put(new Key(ByteBuffer.wrap(stateRoot.clone()), key), value);
+    }
+
+    /**
+     * Carries the cached values of keys over from the state root of a block's parent to the block's own root.
+     *
+     * @param parentRoot the state root the block was executed on
+     * @param stateRoot  the state root of the block after persisting its changes
+     * @param keys       the keys to carry over, only the ones cached at the parent root are
+     * @param changes    the values of the keys which the block changed, empty if deleted
+     */
+    void promote(byte[] parentRoot, byte[] stateRoot, Collection<Nibbles> keys, Map<Nibbles, Optional<byte[]>> changes) {
+        ByteBuffer parent = ByteBuffer.wrap(parentRoot);
+        ByteBuffer root = ByteBuffer.wrap(stateRoot.clone());
+        for (Nibbles key : keys) {
+            Optional<byte[]> value = changes.containsKey(key)
+                    ? changes.get(key)
+                    : cache.getIfPresent(new Key(parent, key));
+            if (value != null) {
+                cache.put(new Key(root, key), value);
+            }
+        }
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    private static int estimateSize(Key key, Optional<byte[]> value) {
+        long size = ENTRY_OVERHEAD_BYTES
+                + ARRAY_OVERHEAD_BYTES + key.stateRoot().capacity()
+                + ARRAY_OVERHEAD_BYTES + key.key().size() / 2 + 1
+                + value.map(bytes -> ARRAY_OVERHEAD_BYTES + bytes.length).orElse(0);
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private record Key(ByteBuffer stateRoot, Nibbles key) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.limechain.storage.trie;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.limechain.trie.structure.node.TrieNodeData;
+import io.prometheus.metrics.core.metrics.Counter;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+/**
+ * A concurrent cache of decoded trie nodes keyed by their merkle value, bounded by the estimated size of the cached
+ * nodes in bytes and evicting the least recently used ones.
+ * <p>
+ * Nodes are content addressed, so a cached node never goes stale. The cached instances are shared between all
+ * readers and must not be modified.
+ */
+class TrieNodeCache {
+
+    static final long DEFAULT_MAX_SIZE_BYTES = 256L * 1024 * 1024;
+
+    // Rough size of the TrieNodeData, Nibbles and children list objects, excluding the arrays they reference
+    private static final int NODE_OVERHEAD_BYTES = 160;
+    private static final int ARRAY_OVERHEAD_BYTES = 16;
+
+    private static final Counter HITS = Counter.builder()
+            .name("fruzhin_trie_node_cache_hits")
+            .help("Number of trie node reads served from the decoded node cache.")
+            .register();
+    private static final Counter MISSES = Counter.builder()
+            .name("fruzhin_trie_node_cache_misses")
+            .help("Number of trie node reads not found in the decoded node cache.")
+            .register();
+    private static final Counter EVICTIONS = Counter.builder()
+            .name("fruzhin_trie_node_cache_evictions")
+            .help("Number of trie nodes evicted from the decoded node cache.")
+            .register();
+
+    private final Cache<ByteBuffer, TrieNodeData> cache;
+
+    TrieNodeCache() {
+        this(DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    TrieNodeCache(long maxSizeBytes) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((ByteBuffer key, TrieNodeData node) -> estimateSize(key, node))
+                .removalListener(TrieNodeCache::onRemoval)
+                .build();
+    }
+
+    /**
+     * Returns the node with the given merkle value, loading and caching it on a miss.
+     *
+     * @param merkleValue the merkle value of the node
+     * @param loader      loads the node if it isn't cached, returning null if there is no such node
+     * @return the node or null if the loader didn't find it
+     */
+    @Nullable
+    TrieNodeData get(byte[] merkleValue, Function<byte[], TrieNodeData> loader) {
+        ByteBuffer key = ByteBuffer.wrap(merkleValue);
+        TrieNodeData node = cache.getIfPresent(key);
+        if (node != null) {
+            HITS.inc();
+            return node;
+        }
+
+        MISSES.inc();
+        node = loader.apply(merkleValue);
+        if (node != null) {
+            // The caller may reuse its array, so the key is backed by a copy
+            cache.put(ByteBuffer.wrap(merkleValue.clone()), node);
+        }
+        return node;
+    }
+
+    void invalidate(byte[] merkleValue) {
+        cache.invalidate(ByteBuffer.wrap(merkleValue));
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    private static void onRemoval(RemovalNotification<ByteBuffer, TrieNodeData> notification) {
+        if (notification.wasEvicted()) {
+            EVICTIONS.inc();
+        }
+    }
+
+    private static int estimateSize(ByteBuffer key, TrieNodeData node) {
+        long size = NODE_OVERHEAD_BYTES + arraySize(key.capacity())
+                + arraySize(node.getPartialKey().size() / 2 + 1)
+                + arraySize(node.getValue())
+                + arraySize(node.getTrieRootRef());
+        for (byte[] child : node.getChildrenMerkleValues()) {
+            size += arraySize(child);
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static int arraySize(@Nullable byte[] array) {
+        return array == null ? 0 : arraySize(array.length);
+    }
+
+    private static int arraySize(int length) {
+        return ARRAY_OVERHEAD_BYTES + length;
+    }
+}
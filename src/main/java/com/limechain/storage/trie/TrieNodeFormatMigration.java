@@ -0,0 +1,132 @@
+package com.limechain.storage.trie;
+
+import com.google.common.primitives.Bytes;
+import com.limechain.exception.trie.NodeEncodingException;
+import com.limechain.runtime.version.StateVersion;
+import com.limechain.storage.DBConstants;
+import com.limechain.storage.KVRepository;
+import com.limechain.storage.trie.scale.TrieNodeDataWriter;
+import com.limechain.trie.dto.node.DecodedNode;
+import com.limechain.trie.dto.node.StorageValue;
+import com.limechain.trie.structure.node.TrieNodeData;
+import com.limechain.utils.HashUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+
+/**
+ * One-time conversion of trie nodes stored in the former format, i.e. java serialized {@link TrieNodeData} under
+ * {@code "tn:" + new String(merkleValue)}, to the binary format of {@link TrieNodeDataWriter} under raw merkle keys.
+ * <p>
+ * The former keys can't be converted back to merkle values, as turning arbitrary bytes into a string is lossy.
+ * Instead, the merkle value of each node is calculated from its contents. Whether a node is a trie root isn't known,
+ * so a node whose encoding is shorter than a hash is stored both under its encoding (as it is referenced by its
+ * parent) and under its hash (as it's referenced if it's a root).
+ * <p>
+ * Nodes are converted in batches. The converted nodes of a batch are written and its former entries deleted in a single
+ * atomic write, so an interrupted or failed migration loses no nodes and resumes on the next start. A failed write
+ * aborts the migration, which is only marked complete under {@link DBConstants#TRIE_NODE_FORMAT_VERSION} once all
+ * batches are written.
+ */
+@Log
+@RequiredArgsConstructor
+public class TrieNodeFormatMigration {
+
+    static final String LEGACY_TRIE_NODE_PREFIX = "tn:";
+    private static final int BATCH_SIZE = 10_000;
+    private static final int HASH_LENGTH = 32;
+
+    private final KVRepository<String, Object> db;
+
+    /**
+     * Converts all trie nodes stored in the former format, unless already done.
+     *
+     * @throws com.limechain.exception.storage.DBException if a batch couldn't be written, leaving its former entries
+     */
+    public void migrate() {
+        Integer formatVersion = db.find(DBConstants.TRIE_NODE_FORMAT_VERSION, null);
+        if (formatVersion != null && formatVersion == TrieNodeDataWriter.FORMAT_VERSION) {
+            return;
+        }
+
+        long migrated = 0;
+        List<byte[]> legacyKeys = db.findKeysByPrefix(LEGACY_TRIE_NODE_PREFIX, BATCH_SIZE);
+        if (!legacyKeys.isEmpty()) {
+            log.log(Level.INFO, "Migrating trie nodes to the binary storage format...");
+        }
+
+        while (!legacyKeys.isEmpty()) {
+            Map<byte[], byte[]> batch = new HashMap<>();
+            for (byte[] legacyKey : legacyKeys) {
+                Optional<Object> legacyNode = db.find(new String(legacyKey, StandardCharsets.UTF_8));
+                if (legacyNode.isPresent() && legacyNode.get() instanceof TrieNodeData node) {
+                    addToBatch(batch, node);
+                }
+            }
+
+            // The string keys of the former entries are stored as their UTF-8 bytes, so they're deleted as raw keys
+            db.writeRawBatch(batch, legacyKeys);
+            migrated += legacyKeys.size();
+            log.log(Level.FINE, "Migrated " + migrated + " trie nodes");
+
+            legacyKeys = db.findKeysByPrefix(LEGACY_TRIE_NODE_PREFIX, BATCH_SIZE);
+        }
+
+        if (migrated > 0) {
+            log.log(Level.INFO, "Migrated " + migrated + " trie nodes to the binary storage format");
+        }
+        db.save(DBConstants.TRIE_NODE_FORMAT_VERSION, TrieNodeDataWriter.FORMAT_VERSION);
+    }
+
+    private static void addToBatch(Map<byte[], byte[]> batch, TrieNodeData node) {
+        byte[] encodedNode;
+        try {
+            encodedNode = encodeForMerkleValue(node);
+        } catch (NodeEncodingException e) {
+            log.log(Level.WARNING, "Skipping invalid trie node during migration: " + node, e);
+            return;
+        }
+
+        byte[] value = TrieStorage.encode(node);
+        if (encodedNode.length < HASH_LENGTH) {
+            batch.put(TrieStorage.trieNodeKey(encodedNode), value);
+        }
+        batch.put(TrieStorage.trieNodeKey(HashUtils.hashWithBlake2b(encodedNode)), value);
+    }
+
+    private static byte[] encodeForMerkleValue(TrieNodeData node) {
+        List<List<Byte>> children = node.getChildrenMerkleValues().stream()
+            .map(child -> child == null ? null : Bytes.asList(child))
+            .toList();
+
+        byte[] value = node.getValue() != null ? node.getValue() : node.getTrieRootRef();
+        StateVersion stateVersion = StateVersion.fromInt(node.getEntriesVersion());
+
+        DecodedNode<List<Byte>> decoded = new DecodedNode<>(
+            children,
+            node.getPartialKey(),
+            constructStorageValue(value, stateVersion));
+
+        return Bytes.toArray(decoded.encode());
+    }
+
+    @Nullable
+    private static StorageValue constructStorageValue(@Nullable byte[] value, StateVersion stateVersion) {
+        if (value == null) {
+            return null;
+        }
+
+        if (stateVersion == StateVersion.V1 && value.length >= 33) {
+            return new StorageValue(HashUtils.hashWithBlake2b(value), true);
+        }
+
+        return new StorageValue(value, false);
+    }
+}
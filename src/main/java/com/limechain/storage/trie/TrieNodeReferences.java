@@ -0,0 +1,206 @@
+package com.limechain.storage.trie;
+
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Ints;
+import com.limechain.storage.KVRepository;
+import com.limechain.trie.structure.node.InsertTrieNode;
+import com.limechain.trie.structure.node.TrieNodeData;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reference counts of the trie nodes stored in pruning mode, kept under the node's merkle value prefixed with
+ * {@link #REFERENCE_COUNT_PREFIX}.
+ * <p>
+ * A node's count is the number of stored nodes referencing it as a child or as the root of a child trie, plus the
+ * number of times it has been {@link #retain retained} as the root of a state. Nodes are shared between the states of
+ * many blocks, so a node is deleted only once its count drops to zero. Nodes without a count, e.g. ones stored before
+ * pruning was enabled or imported by warp sync, are pinned and never deleted.
+ * <p>
+ * Counting happens under the same lock as saving nodes, so a node can't be deleted while a new state starts
+ * referencing it. Updated counts are written in the same batch as the deletion of the nodes they free, so a crash can't
+ * leave counts behind which don't match the stored nodes.
+ */
+class TrieNodeReferences {
+
+    static final byte[] REFERENCE_COUNT_PREFIX = "tnr:".getBytes(StandardCharsets.UTF_8);
+
+    private final KVRepository<String, Object> db;
+    private final Function<byte[], TrieNodeData> nodeLoader;
+    private final Consumer<byte[]> onDelete;
+
+    /**
+     * @param db         the repository the nodes are stored in
+     * @param nodeLoader loads a stored node by its merkle value, returning null if there is no such node
+     * @param onDelete   called with the merkle value of every deleted node
+     */
+    TrieNodeReferences(KVRepository<String, Object> db, Function<byte[], TrieNodeData> nodeLoader,
+                       Consumer<byte[]> onDelete) {
+        this.db = db;
+        this.nodeLoader = nodeLoader;
+        this.onDelete = onDelete;
+    }
+
+    /**
+     * Saves encoded nodes together with the counts of the ones which aren't stored yet and of their children.
+     *
+     * @param nodes the nodes to be saved
+     * @param batch the encoded nodes, to which the updated counts are added before saving it
+     */
+    synchronized void save(List<InsertTrieNode> nodes, Map<byte[], byte[]> batch) {
+        Map<ByteBuffer, Integer> counts = new HashMap<>();
+        Set<ByteBuffer> seen = new HashSet<>();
+        List<InsertTrieNode> created = new ArrayList<>();
+        for (InsertTrieNode node : nodes) {
+            if (seen.add(ByteBuffer.wrap(node.merkleValue()))
+                && readCount(node.merkleValue()) == null
+                && nodeLoader.apply(node.merkleValue()) == null) {
+                counts.put(ByteBuffer.wrap(node.merkleValue()), 0);
+                created.add(node);
+            }
+        }
+
+        // Only new nodes reference their children, existing ones were counted when they were saved
+        for (InsertTrieNode node : created) {
+            for (byte[] child : node.childrenMerkleValues()) {
+                if (child != null) {
+                    reference(child, counts);
+                }
+            }
+            if (node.isReferenceValue() && node.storageValue() != null) {
+                reference(node.storageValue(), counts);
+            }
+        }
+
+        counts.forEach((merkleValue, count) -> batch.put(countKey(merkleValue.array()), Ints.toByteArray(count)));
+        db.saveRawBatch(batch);
+    }
+
+    /**
+     * Keeps the state with the given root, and thereby all nodes it references, until it's released.
+     *
+     * @param stateRoot the merkle value of the state's root node
+     * @param batch     other entries to save atomically with the updated count
+     */
+    synchronized void retain(byte[] stateRoot, Map<byte[], byte[]> batch) {
+        Map<byte[], byte[]> entries = new HashMap<>(batch);
+        Integer count = readCount(stateRoot);
+        if (count != null) {
+            entries.put(countKey(stateRoot), Ints.toByteArray(count + 1));
+        }
+        db.saveRawBatch(entries);
+    }
+
+    /**
+     * Undoes a {@link #retain}, deleting the nodes of the state which no other state references anymore.
+     *
+     * @param stateRoot the merkle value of the state's root node
+     * @param keys      other keys to delete atomically with the nodes and updated counts
+     * @return the number of deleted nodes
+     */
+    synchronized int release(byte[] stateRoot, Collection<byte[]> keys) {
+        Map<ByteBuffer, Integer> counts = new HashMap<>();
+        Deque<byte[]> unreferenced = new ArrayDeque<>();
+        dereference(stateRoot, counts, unreferenced);
+        return delete(counts, unreferenced, keys);
+    }
+
+    /**
+     * Deletes a state which was saved but never retained, e.g. the state of a block on an abandoned fork, along with
+     * the nodes no other state references.
+     *
+     * @param stateRoot the merkle value of the state's root node
+     * @return the number of deleted nodes
+     */
+    synchronized int discard(byte[] stateRoot) {
+        Integer count = readCount(stateRoot);
+        if (count == null || count > 0) {
+            return 0;
+        }
+
+        Map<ByteBuffer, Integer> counts = new HashMap<>();
+        Deque<byte[]> unreferenced = new ArrayDeque<>();
+        counts.put(ByteBuffer.wrap(stateRoot), 0);
+        unreferenced.push(stateRoot);
+        return delete(counts, unreferenced, List.of());
+    }
+
+    private int delete(Map<ByteBuffer, Integer> counts, Deque<byte[]> unreferenced, Collection<byte[]> keys) {
+        List<byte[]> deletedKeys = new ArrayList<>(keys);
+        Set<ByteBuffer> deleted = new HashSet<>();
+        while (!unreferenced.isEmpty()) {
+            byte[] merkleValue = unreferenced.pop();
+            if (!deleted.add(ByteBuffer.wrap(merkleValue))) {
+                continue;
+            }
+
+            TrieNodeData node = nodeLoader.apply(merkleValue);
+            if (node != null) {
+                for (byte[] child : node.getChildrenMerkleValues()) {
+                    if (child != null) {
+                        dereference(child, counts, unreferenced);
+                    }
+                }
+                if (node.getTrieRootRef() != null) {
+                    dereference(node.getTrieRootRef(), counts, unreferenced);
+                }
+            }
+            deletedKeys.add(TrieStorage.trieNodeKey(merkleValue));
+            deletedKeys.add(countKey(merkleValue));
+        }
+
+        Map<byte[], byte[]> updatedCounts = new HashMap<>();
+        counts.forEach((merkleValue, count) -> {
+            if (!deleted.contains(merkleValue)) {
+                updatedCounts.put(countKey(merkleValue.array()), Ints.toByteArray(count));
+            }
+        });
+        db.writeRawBatch(updatedCounts, deletedKeys);
+        deleted.forEach(merkleValue -> onDelete.accept(merkleValue.array()));
+        return deleted.size();
+    }
+
+    private void dereference(byte[] merkleValue, Map<ByteBuffer, Integer> counts, Deque<byte[]> unreferenced) {
+        ByteBuffer key = ByteBuffer.wrap(merkleValue);
+        Integer count = counts.containsKey(key) ? counts.get(key) : readCount(merkleValue);
+        if (count == null || count == 0) {
+            // Pinned, or already unreferenced
+            return;
+        }
+
+        counts.put(key, count - 1);
+        if (count == 1) {
+            unreferenced.push(merkleValue);
+        }
+    }
+
+    private void reference(byte[] merkleValue, Map<ByteBuffer, Integer> counts) {
+        ByteBuffer key = ByteBuffer.wrap(merkleValue);
+        Integer count = counts.containsKey(key) ? counts.get(key) : readCount(merkleValue);
+        if (count != null) {
+            counts.put(key, count + 1);
+        }
+    }
+
+    @Nullable
+    private Integer readCount(byte[] merkleValue) {
+        return db.findRaw(countKey(merkleValue)).map(Ints::fromByteArray).orElse(null);
+    }
+
+    private static byte[] countKey(byte[] merkleValue) {
+        return Bytes.concat(REFERENCE_COUNT_PREFIX, merkleValue);
+    }
+}
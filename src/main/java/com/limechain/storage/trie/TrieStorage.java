@@ -1,7 +1,11 @@
 package com.limechain.storage.trie;
 
+import com.google.common.primitives.Bytes;
 import com.limechain.runtime.version.StateVersion;
+import com.limechain.storage.DBConstants;
 import com.limechain.storage.KVRepository;
+import com.limechain.storage.trie.scale.TrieNodeDataReader;
+import com.limechain.storage.trie.scale.TrieNodeDataWriter;
 import com.limechain.trie.cache.node.PendingInsertUpdate;
 import com.limechain.trie.dto.node.StorageNode;
 import com.limechain.trie.structure.TrieNodeIndex;
@@ -12,30 +16,93 @@ import com.limechain.trie.structure.nibble.Nibble;
 import com.limechain.trie.structure.nibble.Nibbles;
 import com.limechain.trie.structure.node.InsertTrieNode;
 import com.limechain.trie.structure.node.TrieNodeData;
+import com.limechain.utils.scale.ScaleUtils;
 import io.emeraldpay.polkaj.types.Hash256;
-import lombok.AllArgsConstructor;
 import lombok.extern.java.Log;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 
 /**
  * A wrapper around a KVRepository that provides a public interface for trie-related DB queries.
+ * <p>
+ * Trie nodes are stored under their raw merkle value, prefixed with {@link #TRIE_NODE_PREFIX}, and encoded with
+ * {@link TrieNodeDataWriter}. Databases using the former java serialized format are converted by
+ * {@link TrieNodeFormatMigration}.
+ * <p>
+ * Decoded nodes are kept in a {@link TrieNodeCache} and storage values in a {@link StorageValueCache}, both shared by
+ * all users of this storage.
+ * <p>
+ * Unless running in {@link PruningMode#ARCHIVE archive} mode, saved nodes are reference counted by
+ * {@link TrieNodeReferences} so that the states of old finalized blocks and abandoned forks can be deleted by the
+ * {@link StatePruner}. Once pruned, a database can't be switched back to archive mode.
+ * <p>
+ * Optionally, the entries of the latest persisted state are also kept in a {@link FlatState}, which serves reads at
+ * that state's root without walking the trie.
  */
 @Log
-@AllArgsConstructor
 public class TrieStorage {
 
-    private static final String TRIE_NODE_PREFIX = "tn:";
-    private KVRepository<String, Object> db;
+    static final byte[] TRIE_NODE_PREFIX = "tnb:".getBytes(StandardCharsets.UTF_8);
+    private final KVRepository<String, Object> db;
+    private final TrieNodeCache nodeCache;
+    private final StorageValueCache valueCache;
+    @Nullable
+    private final TrieNodeReferences references;
+    @Nullable
+    private final FlatState flatState;
+
+    public TrieStorage(KVRepository<String, Object> db) {
+        this(db, PruningMode.ARCHIVE);
+    }
+
+    public TrieStorage(KVRepository<String, Object> db, PruningMode pruningMode) {
+        this(db, pruningMode, false);
+    }
+
+    public TrieStorage(KVRepository<String, Object> db, PruningMode pruningMode, boolean flatState) {
+        this(db, new TrieNodeCache(), new StorageValueCache(), pruningMode, flatState);
+    }
+
+    TrieStorage(KVRepository<String, Object> db, TrieNodeCache nodeCache, StorageValueCache valueCache,
+                PruningMode pruningMode, boolean flatState) {
+        this.db = db;
+        this.nodeCache = nodeCache;
+        this.valueCache = valueCache;
+        checkPruningMode(db, pruningMode);
+        this.references = pruningMode.isArchive()
+            ? null
+            : new TrieNodeReferences(db, this::getTrieNodeFromMerkleValue, nodeCache::invalidate);
+        this.flatState = flatState ? new FlatState(db) : null;
+    }
+
+    /**
+     * Nodes saved in archive mode don't reference their children, so a database which has been pruned can't be
+     * switched back to archive mode: the counts would miss the references of the states saved meanwhile, and pruning
+     * it again would delete nodes those states still use.
+     */
+    private static void checkPruningMode(KVRepository<String, Object> db, PruningMode pruningMode) {
+        boolean pruned = Boolean.TRUE.equals(db.find(DBConstants.STATE_PRUNING_ENABLED, false));
+        if (pruningMode.isArchive() && pruned) {
+            throw new IllegalStateException("The database has been used with state pruning and can't be switched to "
+                + "archive mode, keep pruning it or recreate it");
+        }
+        if (!pruningMode.isArchive() && !pruned) {
+            db.save(DBConstants.STATE_PRUNING_ENABLED, true);
+        }
+    }
 
     /**
      * Retrieves a value by key from the trie associated with a specific block hash.
@@ -52,6 +119,141 @@ public class TrieStorage {
         return Optional.ofNullable(nodeFromDb);
     }
 
+    /**
+     * Retrieves a storage value by key from the state with the given root, serving repeated reads from the
+     * {@link StorageValueCache} and reads at the root of the {@link FlatState} with a single lookup.
+     *
+     * @param merkleRoot The merkle root under which to search.
+     * @param key        The key for which to retrieve the value.
+     * @return An {@link Optional} containing the value associated with the key if found, or empty if not found.
+     */
+    public Optional<byte[]> getStorageValue(byte[] merkleRoot, Nibbles key) {
+        Optional<byte[]> cached = valueCache.get(merkleRoot, key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<byte[]> flat = flatState != null ? flatState.get(merkleRoot, key) : null;
+        if (flat != null) {
+            valueCache.put(merkleRoot, key, flat);
+            return flat;
+        }
+
+        TrieNodeData trieNode = getTrieNodeFromMerkleValue(merkleRoot);
+        Nibbles remainder = key;
+        while (trieNode != null && remainder.startsWith(trieNode.getPartialKey())) {
+            remainder = remainder.drop(trieNode.getPartialKey().size());
+            if (remainder.isEmpty()) {
+                Optional<byte[]> value = Optional.ofNullable(trieNode.getValue());
+                valueCache.put(merkleRoot, key, value);
+                return value;
+            }
+
+            byte[] childMerkleValue = trieNode.getChildrenMerkleValues().get(remainder.get(0).asInt());
+            if (childMerkleValue == null) {
+                break;
+            }
+            trieNode = getTrieNodeFromMerkleValue(childMerkleValue);
+            remainder = remainder.drop(1);
+        }
+
+        // A node missing from the db (e.g. of a state which is still being synced) doesn't prove the key's absence
+        if (trieNode != null) {
+            valueCache.put(merkleRoot, key, Optional.empty());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Carries the cached storage values of keys read while executing a block over to the state root the block
+     * persisted, so the next block on top of it finds them in the {@link StorageValueCache} as well.
+     *
+     * @param parentRoot the state root the block was executed on
+     * @param stateRoot  the state root after persisting the block's changes
+     * @param keys       the keys read during the block's execution
+     * @param changes    the values of those keys which the block changed, empty if deleted
+     */
+    public void promoteStorageValues(byte[] parentRoot,
+                                     byte[] stateRoot,
+                                     Collection<Nibbles> keys,
+                                     Map<Nibbles, Optional<byte[]>> changes) {
+        valueCache.promote(parentRoot, stateRoot, keys, changes);
+    }
+
+    /**
+     * @param stateRoot the state root to check
+     * @return whether reads at the given state root are served by the {@link FlatState}
+     */
+    public boolean isFlatStateAt(byte[] stateRoot) {
+        return flatState != null && flatState.isAt(stateRoot);
+    }
+
+    /**
+     * Reads the keys following a given one from the {@link FlatState}, in order.
+     *
+     * @param stateRoot the state root the keys are read at
+     * @param after     the key to start after
+     * @param limit     maximum keys to return
+     * @return the keys, or null if the flat state isn't at the given root anymore
+     */
+    @Nullable
+    public List<Nibbles> getFlatStateKeysAfter(byte[] stateRoot, Nibbles after, int limit) {
+        return flatState != null ? flatState.keysAfter(stateRoot, Nibbles.EMPTY, after, limit) : null;
+    }
+
+    /**
+     * Moves the {@link FlatState} forward with the changes a persist made, if it's at the state they were made to.
+     *
+     * @param parentRoot the state root the changes were made to
+     * @param stateRoot  the state root after persisting the changes
+     * @param changes    the changed entries, empty if deleted
+     */
+    public void applyFlatStateChanges(byte[] parentRoot, byte[] stateRoot, Map<Nibbles, Optional<byte[]>> changes) {
+        if (flatState != null) {
+            flatState.apply(parentRoot, stateRoot, changes);
+        }
+    }
+
+    /**
+     * Rebuilds the {@link FlatState} from the trie if it's not at the given state root, e.g. when it was enabled for an
+     * existing database or fell behind the persisted state.
+     *
+     * @param stateRoot the state root to build the flat state for
+     */
+    public void syncFlatState(byte[] stateRoot) {
+        if (flatState == null || flatState.isAt(stateRoot) || getTrieNodeFromMerkleValue(stateRoot) == null) {
+            return;
+        }
+
+        log.log(Level.INFO, "Rebuilding the flat state from the trie, this may take a while");
+        flatState.rebuild(stateRoot, action -> forEachEntry(stateRoot, action));
+    }
+
+    private void forEachEntry(byte[] merkleRoot, BiConsumer<Nibbles, byte[]> action) {
+        Deque<Map.Entry<Nibbles, byte[]>> pending = new ArrayDeque<>();
+        pending.push(Map.entry(Nibbles.EMPTY, merkleRoot));
+        while (!pending.isEmpty()) {
+            Map.Entry<Nibbles, byte[]> entry = pending.pop();
+            TrieNodeData node = getTrieNodeFromMerkleValue(entry.getValue());
+            if (node == null) {
+                continue;
+            }
+
+            Nibbles key = entry.getKey().addAll(node.getPartialKey());
+            byte[] value = node.getValue() != null ? node.getValue() : node.getTrieRootRef();
+            if (value != null) {
+                action.accept(key, value);
+            }
+
+            List<byte[]> children = node.getChildrenMerkleValues();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                if (children.get(i) != null) {
+                    pending.push(Map.entry(key.add(Nibble.fromInt(i)), children.get(i)));
+                }
+            }
+        }
+    }
+
     /**
      * Recursively searches for a TrieNode by key starting from a given trie node.
      * <p>
@@ -101,9 +303,9 @@ public class TrieStorage {
 
     @Nullable
     public TrieNodeData getTrieNodeFromMerkleValue(@NotNull byte[] childMerkleValue) {
-        Optional<Object> encodedChild = db.find(TRIE_NODE_PREFIX + new String(childMerkleValue));
-
-        return (TrieNodeData) encodedChild.orElse(null);
+        return nodeCache.get(childMerkleValue, merkleValue -> db.findRaw(trieNodeKey(merkleValue))
+            .map(encoded -> ScaleUtils.Decode.decode(encoded, TrieNodeDataReader.getInstance()))
+            .orElse(null));
     }
 
     public boolean merkleValueExists(Hash256 lastFinalizedStateRoot) {
@@ -233,67 +435,67 @@ public class TrieStorage {
         }
 
         List<Nibbles> matchingKeys = new ArrayList<>();
-        collectKeysWithPrefix(rootNode, Nibbles.EMPTY, prefix, matchingKeys);
+        collectKeysWithPrefix(rootNode, rootNode.getPartialKey(), prefix, null, Integer.MAX_VALUE, matchingKeys);
         return matchingKeys;
     }
 
-    private void collectKeysWithPrefix(TrieNodeData node, Nibbles currentPath, Nibbles prefix, List<Nibbles> keys) {
-        Nibbles fullPath = currentPath.addAll(node.getPartialKey());
-
-        if (node.getValue() != null && fullPath.startsWith(prefix)) {
-            keys.add(fullPath);
-        }
-
-        for (byte[] childMerkleValue : node.getChildrenMerkleValues()) {
-            if (childMerkleValue == null) continue;
-            TrieNodeData childNode = getTrieNodeFromMerkleValue(childMerkleValue);
-            if (childNode != null) {
-                collectKeysWithPrefix(childNode, fullPath, prefix, keys);
-            }
-        }
-    }
-
     /**
-     * Retrieves keys starting with a given prefix, supporting pagination through a starting key and limit.
+     * Retrieves keys starting with a given prefix, supporting pagination through a starting key and limit. Reads at
+     * the root of the {@link FlatState} are served from it, with the same results as traversing the trie.
      *
      * @param blockStateRoot The state root of the block to search within.
      * @param prefix         The prefix to match against keys in the trie.
-     * @param startKey       The key from which to start returning results.
+     * @param startKey       The key after which to start returning results, or null to start from the first key.
      * @param limit          The maximum number of keys to return.
-     * @return A list of byte arrays representing the keys that match the given prefix, starting from the startKey.
+     * @return A list of byte arrays representing the keys that match the given prefix, following the startKey.
      */
-    public List<Nibbles> getKeysWithPrefixPaged(Hash256 blockStateRoot, Nibbles prefix, Nibbles startKey, int limit) {
+    public List<Nibbles> getKeysWithPrefixPaged(Hash256 blockStateRoot, Nibbles prefix, @Nullable Nibbles startKey,
+                                                int limit) {
+        List<Nibbles> flatKeys = flatState != null
+            ? flatState.keysAfter(blockStateRoot.getBytes(), prefix, startKey != null ? startKey : Nibbles.EMPTY, limit)
+            : null;
+        if (flatKeys != null) {
+            return flatKeys;
+        }
+
         TrieNodeData rootNode = getTrieNodeFromMerkleValue(blockStateRoot.getBytes());
         if (rootNode == null) {
             return new ArrayList<>();
         }
 
         List<Nibbles> matchingKeys = new ArrayList<>();
-        collectKeysWithPrefix(rootNode, Nibbles.EMPTY, prefix, startKey, limit, matchingKeys, new boolean[]{false});
+        collectKeysWithPrefix(rootNode, rootNode.getPartialKey(), prefix,
+            startKey != null ? startKey : Nibbles.EMPTY, limit, matchingKeys);
         return matchingKeys;
     }
 
-    private void collectKeysWithPrefix(TrieNodeData node, Nibbles currentPath, Nibbles prefix, Nibbles startKey,
-                                       int limit,
-                                       List<Nibbles> keys, boolean[] startKeyFound) {
-        if (keys.size() >= limit) return;
+    /**
+     * Collects the keys of the entries under a node which start with the prefix and follow the start key, in order.
+     * Entries holding a child trie root are included, as they are storage entries of the trie as well.
+     */
+    private void collectKeysWithPrefix(TrieNodeData node, Nibbles fullPath, Nibbles prefix,
+                                       @Nullable Nibbles startKey, int limit, List<Nibbles> keys) {
+        // Subtrees which neither lead to nor lie under the prefix hold no matching keys, and subtrees ordered before
+        // the start key hold no following keys
+        if (keys.size() >= limit
+            || !fullPath.startsWith(prefix) && !prefix.startsWith(fullPath)
+            || startKey != null && fullPath.compareTo(startKey) < 0 && !startKey.startsWith(fullPath)) {
+            return;
+        }
 
-        Nibbles fullPath = currentPath.addAll(node.getPartialKey());
-        if (node.getValue() != null && fullPath.startsWith(prefix) &&
-            startKey == null || startKeyFound[0] || Objects.equals(startKey, fullPath)) {
-            if (!startKeyFound[0]) {
-                startKeyFound[0] = true;
-            } else {
-                keys.add(fullPath); // Add key if it matches the prefix and is after the startKey
-            }
+        if ((node.getValue() != null || node.getTrieRootRef() != null)
+            && fullPath.startsWith(prefix)
+            && (startKey == null || fullPath.compareTo(startKey) > 0)) {
+            keys.add(fullPath);
         }
 
-        // Traverse children
-        for (byte[] childMerkleValue : node.getChildrenMerkleValues()) {
-            if (childMerkleValue == null) continue;
-            TrieNodeData childNode = getTrieNodeFromMerkleValue(childMerkleValue);
+        List<byte[]> childrenMerkleValues = node.getChildrenMerkleValues();
+        for (int i = 0; i < childrenMerkleValues.size() && keys.size() < limit; i++) {
+            byte[] childMerkleValue = childrenMerkleValues.get(i);
+            TrieNodeData childNode = childMerkleValue == null ? null : getTrieNodeFromMerkleValue(childMerkleValue);
             if (childNode != null) {
-                collectKeysWithPrefix(childNode, fullPath, prefix, startKey, limit, keys, startKeyFound);
+                Nibbles childPath = fullPath.add(Nibble.fromInt(i)).addAll(childNode.getPartialKey());
+                collectKeysWithPrefix(childNode, childPath, prefix, startKey, limit, keys);
             }
         }
     }
@@ -335,6 +537,16 @@ public class TrieStorage {
     public void insertTrieStorage(TrieStructure<NodeData> trie) {
         List<InsertTrieNode> dbSerializedTrieNodes = InsertTrieBuilder.build(trie);
         saveTrieNodes(dbSerializedTrieNodes);
+
+        if (flatState != null) {
+            trie.getRootNode().ifPresent(root -> flatState.rebuild(root.getUserData().getMerkleValue(),
+                action -> trie.streamOrdered().forEach(index -> {
+                    NodeData nodeData = trie.getUserDataAtIndex(index);
+                    if (nodeData != null && nodeData.getValue() != null) {
+                        action.accept(trie.nodeFullKeyAtIndex(index), nodeData.getValue());
+                    }
+                })));
+        }
     }
 
     /**
@@ -360,42 +572,80 @@ public class TrieStorage {
      */
     private void saveTrieNodes(final List<InsertTrieNode> insertTrieNodes) {
         try {
-            for (InsertTrieNode trieNode : insertTrieNodes) {
-                insertTrieNodeStorage(trieNode);
-            }
+            insertTrieNodeStorageBatch(insertTrieNodes);
         } catch (Exception e) {
             log.log(Level.SEVERE, "Failed to insert trie structure to db storage", e);
         }
     }
 
     /**
-     * Inserts trie node storage data into the key-value repository.
+     * Inserts trie nodes storage data into the key-value repository in a batch manner.
      * <p>
-     * The storage data is represented by a {@link TrieNodeData} object, which is serialized and saved to the repository.
+     * The storage data is represented by a {@link TrieNodeData} object, which is encoded and saved to the repository.
      *
-     * @param trieNode The trie node whose storage data is to be inserted.
+     * @param insertTrieNodes The trie nodes whose storage data is to be inserted.
      */
-    private void insertTrieNodeStorage(InsertTrieNode trieNode) {
-        String key = TRIE_NODE_PREFIX + new String(trieNode.merkleValue());
-        db.save(key, toTrieNodeData(trieNode));
+    public void insertTrieNodeStorageBatch(List<InsertTrieNode> insertTrieNodes) {
+        Map<byte[], byte[]> nodesMap = new HashMap<>();
+
+        for (InsertTrieNode trieNode : insertTrieNodes) {
+            nodesMap.put(trieNodeKey(trieNode.merkleValue()), encode(toTrieNodeData(trieNode)));
+        }
+
+        if (references != null) {
+            references.save(insertTrieNodes, nodesMap);
+        } else {
+            db.saveRawBatch(nodesMap);
+        }
     }
 
     /**
-     * Inserts trie nodes storage data into the key-value repository in a batch manner.
-     * <p>
-     * The storage data is represented by a {@link TrieNodeData} object, which is serialized and saved to the repository.
+     * Keeps the state with the given root until it's {@link #releaseState released}. In archive mode only the given
+     * entries are saved.
      *
-     * @param insertTrieNodes The trie nodes whose storage data is to be inserted.
+     * @param stateRoot the merkle value of the state's root node
+     * @param batch     other entries to save atomically with retaining the state
      */
-    public void insertTrieNodeStorageBatch(List<InsertTrieNode> insertTrieNodes) {
-        Map<String, Object> nodesMap = new HashMap<>();
+    void retainState(byte[] stateRoot, Map<byte[], byte[]> batch) {
+        if (references != null) {
+            references.retain(stateRoot, batch);
+        } else {
+            db.saveRawBatch(batch);
+        }
+    }
 
-        for (InsertTrieNode trieNode : insertTrieNodes) {
-            String key = TRIE_NODE_PREFIX + new String(trieNode.merkleValue());
-            nodesMap.put(key, toTrieNodeData(trieNode));
+    /**
+     * Undoes a {@link #retainState}, deleting the nodes no other retained state references. In archive mode only the
+     * given keys are deleted.
+     *
+     * @param stateRoot the merkle value of the state's root node
+     * @param keys      other keys to delete atomically with releasing the state
+     * @return the number of deleted nodes
+     */
+    int releaseState(byte[] stateRoot, Collection<byte[]> keys) {
+        if (references != null) {
+            return references.release(stateRoot, keys);
         }
+        db.deleteRawBatch(keys);
+        return 0;
+    }
+
+    /**
+     * Deletes the nodes of a state which was never retained, unless another state references them.
+     *
+     * @param stateRoot the merkle value of the state's root node
+     * @return the number of deleted nodes
+     */
+    int discardState(byte[] stateRoot) {
+        return references != null ? references.discard(stateRoot) : 0;
+    }
+
+    static byte[] trieNodeKey(byte[] merkleValue) {
+        return Bytes.concat(TRIE_NODE_PREFIX, merkleValue);
+    }
 
-        db.saveBatch(nodesMap);
+    static byte[] encode(TrieNodeData trieNodeData) {
+        return ScaleUtils.Encode.encode(TrieNodeDataWriter.getInstance(), trieNodeData);
     }
 
     private static TrieNodeData toTrieNodeData(InsertTrieNode insertTrieNode) {
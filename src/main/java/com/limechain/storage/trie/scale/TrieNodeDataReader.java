@@ -0,0 +1,61 @@
+package com.limechain.storage.trie.scale;
+
+import com.limechain.exception.scale.ScaleDecodingException;
+import com.limechain.trie.dto.node.DecodedNode;
+import com.limechain.trie.structure.nibble.Nibbles;
+import com.limechain.trie.structure.node.TrieNodeData;
+import io.emeraldpay.polkaj.scale.ScaleCodecReader;
+import io.emeraldpay.polkaj.scale.ScaleReader;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a {@link TrieNodeData} written by {@link TrieNodeDataWriter}. The children merkle values are always read
+ * into an unmodifiable list of {@link DecodedNode#CHILDREN_COUNT} entries, with null marking a missing child, as
+ * decoded nodes may be cached and shared.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TrieNodeDataReader implements ScaleReader<TrieNodeData> {
+
+    private static final TrieNodeDataReader INSTANCE = new TrieNodeDataReader();
+
+    public static TrieNodeDataReader getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public TrieNodeData read(ScaleCodecReader reader) {
+        int formatVersion = reader.readUByte();
+        if (formatVersion != TrieNodeDataWriter.FORMAT_VERSION) {
+            throw new ScaleDecodingException("Unsupported trie node format version: " + formatVersion);
+        }
+
+        int flags = reader.readUByte();
+        byte entriesVersion = reader.readByte();
+
+        int partialKeySize = reader.readCompactInt();
+        byte[] packedPartialKey = reader.readByteArray((partialKeySize + 1) / 2);
+        Nibbles partialKey = Nibbles.fromBytes(packedPartialKey).take(partialKeySize);
+
+        int childrenBitmap = reader.readUint16();
+        List<byte[]> children = new ArrayList<>(DecodedNode.CHILDREN_COUNT);
+        for (int i = 0; i < DecodedNode.CHILDREN_COUNT; i++) {
+            children.add((childrenBitmap & (1 << i)) != 0 ? reader.readByteArray() : null);
+        }
+
+        byte[] value = (flags & TrieNodeDataWriter.VALUE_FLAG) != 0 ? reader.readByteArray() : null;
+        byte[] trieRootRef = (flags & TrieNodeDataWriter.TRIE_ROOT_REF_FLAG) != 0 ? reader.readByteArray() : null;
+
+        return new TrieNodeData(
+            (flags & TrieNodeDataWriter.BRANCH_NODE_FLAG) != 0,
+            partialKey,
+            Collections.unmodifiableList(children),
+            value,
+            trieRootRef,
+            entriesVersion);
+    }
+}
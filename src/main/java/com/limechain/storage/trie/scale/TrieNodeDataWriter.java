@@ -0,0 +1,74 @@
+package com.limechain.storage.trie.scale;
+
+import com.limechain.trie.structure.nibble.Nibbles;
+import com.limechain.trie.structure.node.TrieNodeData;
+import io.emeraldpay.polkaj.scale.ScaleCodecWriter;
+import io.emeraldpay.polkaj.scale.ScaleWriter;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a {@link TrieNodeData} in the binary format trie nodes are persisted with. The layout is:
+ * <ul>
+ *     <li>format version (u8), currently {@link #FORMAT_VERSION}</li>
+ *     <li>flags (u8): branch node, has value, has trie root reference</li>
+ *     <li>entries version (u8)</li>
+ *     <li>partial key: the number of nibbles (compact), followed by the nibbles packed two per byte</li>
+ *     <li>children bitmap (u16), followed by the merkle value of each present child, in order (byte lists)</li>
+ *     <li>the value and the trie root reference, if flagged as present (byte lists)</li>
+ * </ul>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TrieNodeDataWriter implements ScaleWriter<TrieNodeData> {
+
+    public static final int FORMAT_VERSION = 1;
+
+    static final int BRANCH_NODE_FLAG = 1;
+    static final int VALUE_FLAG = 1 << 1;
+    static final int TRIE_ROOT_REF_FLAG = 1 << 2;
+
+    private static final TrieNodeDataWriter INSTANCE = new TrieNodeDataWriter();
+
+    public static TrieNodeDataWriter getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void write(ScaleCodecWriter writer, TrieNodeData node) throws IOException {
+        int flags = (node.isBranchNode() ? BRANCH_NODE_FLAG : 0)
+                    | (node.getValue() != null ? VALUE_FLAG : 0)
+                    | (node.getTrieRootRef() != null ? TRIE_ROOT_REF_FLAG : 0);
+
+        writer.writeByte(FORMAT_VERSION);
+        writer.writeByte(flags);
+        writer.writeByte(node.getEntriesVersion());
+
+        Nibbles partialKey = node.getPartialKey();
+        writer.writeCompact(partialKey.size());
+        writer.writeByteArray(partialKey.toPackedBytes());
+
+        List<byte[]> children = node.getChildrenMerkleValues();
+        int childrenBitmap = 0;
+        for (int i = 0; i < children.size(); i++) {
+            if (children.get(i) != null) {
+                childrenBitmap |= 1 << i;
+            }
+        }
+        writer.writeUint16(childrenBitmap);
+        for (byte[] child : children) {
+            if (child != null) {
+                writer.writeAsList(child);
+            }
+        }
+
+        if (node.getValue() != null) {
+            writer.writeAsList(node.getValue());
+        }
+        if (node.getTrieRootRef() != null) {
+            writer.writeAsList(node.getTrieRootRef());
+        }
+    }
+}
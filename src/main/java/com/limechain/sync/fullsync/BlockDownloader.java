@@ -0,0 +1,286 @@
+package com.limechain.sync.fullsync;
+
+import com.limechain.exception.global.ThreadInterruptedException;
+import com.limechain.network.NetworkService;
+import com.limechain.network.PeerRequester;
+import com.limechain.network.protocol.sync.BlockRequestField;
+import com.limechain.network.protocol.warp.dto.Block;
+import io.emeraldpay.polkaj.types.Hash256;
+import io.libp2p.core.PeerId;
+import lombok.extern.java.Log;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Downloads consecutive blocks from multiple peers for full sync.
+ * <p>
+ * The blocks ahead of the next one to import are split into ranges, and a sliding window of ranges is requested in
+ * parallel, spreading the requests over the connected peers. Responses are buffered until all ranges before them
+ * have arrived, so {@link #nextBatch()} always returns blocks in order. The window bounds the number of downloaded
+ * blocks waiting to be imported. A range that fails or times out is requested again from another peer, and if the
+ * range the importer waits on takes too long, it is additionally requested from an idle peer.
+ * <p>
+ * Each response must be a chain of blocks linked by their parent hashes, and a range is only returned once its first
+ * block links to the last returned one, so a peer on another fork can't splice its blocks into the imported chain.
+ * Ranges which don't link are requested again from another peer.
+ * <p>
+ * Requests are scheduled whenever a response arrives or a batch is handed out, so downloading continues while the
+ * returned blocks are being imported.
+ * <p>
+ * A range that none of the peers can serve marks the end of the available chain. While no peer can serve the next
+ * range, requests are retried with an increasing delay.
+ */
+@Log
+public class BlockDownloader {
+
+    static final int BLOCKS_PER_REQUEST = 100;
+    static final int WINDOW_SIZE = 16;
+    static final int MAX_REQUESTS_PER_PEER = 2;
+    static final int END_CONFIRMATIONS = 2;
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(20);
+    static final Duration HEAD_HEDGE_DELAY = Duration.ofSeconds(5);
+    static final Duration MAX_NO_PEERS_DELAY = Duration.ofSeconds(60);
+
+    private final PeerRequester requester;
+    private final NetworkService networkService;
+    private final TreeMap<Integer, BlockRange> ranges = new TreeMap<>();
+    private final Map<PeerId, Integer> requestsPerPeer = new HashMap<>();
+    private int nextToImport;
+    private Hash256 lastImportedHash;
+    private int nextToSchedule;
+    private int chainEnd = Integer.MAX_VALUE;
+    private boolean closed = false;
+    private long noPeersDelayMillis = 0;
+
+    /**
+     * @param requester      used to request blocks from peers
+     * @param networkService provides the peers to request blocks from
+     * @param startNumber    the number of the first block to download
+     * @param parentHash     the hash of the block preceding the first one to download
+     */
+    public BlockDownloader(PeerRequester requester, NetworkService networkService, int startNumber,
+                           Hash256 parentHash) {
+        this.requester = requester;
+        this.networkService = networkService;
+        this.nextToImport = startNumber;
+        this.lastImportedHash = parentHash;
+        this.nextToSchedule = startNumber;
+    }
+
+    /**
+     * Waits for the blocks following the previously returned ones.
+     *
+     * @return the next consecutive blocks, or an empty list if no peer has blocks after the previous ones
+     */
+    public synchronized List<Block> nextBatch() {
+        try {
+            while (!closed) {
+                if (nextToImport >= chainEnd) {
+                    return List.of();
+                }
+
+                BlockRange head = ranges.get(nextToImport);
+                if (head != null && head.blocks != null) {
+                    if (head.blocks.getFirst().getHeader().getParentHash().equals(lastImportedHash)) {
+                        ranges.remove(nextToImport);
+                        nextToImport += head.blocks.size();
+                        lastImportedHash = head.lastHash;
+                        // Keep the window downloading while the returned blocks are being imported
+                        schedule(false);
+                        return head.blocks;
+                    }
+
+                    log.log(Level.FINE, "Blocks from " + head.servedBy + " starting at " + head.start
+                            + " don't link to the previous blocks");
+                    head.failedPeers.add(head.servedBy);
+                    head.blocks = null;
+                }
+
+                schedule(true);
+                // Responses completed right away while scheduling may have already resolved the head
+                if (isHeadPending()) {
+                    wait(nextWaitMillis());
+                }
+            }
+            return List.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ThreadInterruptedException(e);
+        }
+    }
+
+    /**
+     * Stops scheduling requests. Responses to requests in flight are discarded.
+     */
+    public synchronized void close() {
+        closed = true;
+        ranges.clear();
+        notifyAll();
+    }
+
+    /**
+     * Fills the window and requests its ranges which have no request in flight.
+     *
+     * @param retryFailedPeers whether a range may be requested again from peers which have all failed it already.
+     *                         Only set when waiting in between, so that failing peers aren't requested in a busy loop.
+     */
+    private void schedule(boolean retryFailedPeers) {
+        while (ranges.size() < WINDOW_SIZE && nextToSchedule < chainEnd) {
+            ranges.put(nextToSchedule, new BlockRange(nextToSchedule, BLOCKS_PER_REQUEST));
+            nextToSchedule += BLOCKS_PER_REQUEST;
+        }
+
+        long now = System.nanoTime();
+        for (BlockRange range : new ArrayList<>(ranges.values())) {
+            // Responses completed right away may have dropped the range in the meantime
+            if (ranges.get(range.start) != range) {
+                continue;
+            }
+            boolean hedgeHead = range.start == nextToImport
+                    && !range.activePeers.isEmpty()
+                    && now - range.requestedAt > HEAD_HEDGE_DELAY.toNanos();
+            if (range.blocks == null && (range.activePeers.isEmpty() || hedgeHead)) {
+                selectPeer(range, retryFailedPeers).ifPresent(peerId -> request(range, peerId));
+            }
+        }
+    }
+
+    private boolean isHeadPending() {
+        BlockRange head = ranges.get(nextToImport);
+        return nextToImport < chainEnd && (head == null || head.blocks == null);
+    }
+
+    /**
+     * Waits for responses while requests are in flight, and backs off while no peer can serve any range.
+     */
+    private long nextWaitMillis() {
+        boolean requesting = ranges.values().stream().anyMatch(range -> !range.activePeers.isEmpty());
+        if (requesting) {
+            noPeersDelayMillis = 0;
+            return HEAD_HEDGE_DELAY.toMillis();
+        }
+
+        noPeersDelayMillis = noPeersDelayMillis == 0
+                ? HEAD_HEDGE_DELAY.toMillis()
+                : Math.min(noPeersDelayMillis * 2, MAX_NO_PEERS_DELAY.toMillis());
+        log.log(Level.FINE, "No peers to download blocks from, retrying in " + noPeersDelayMillis + " ms");
+        return noPeersDelayMillis;
+    }
+
+    private Optional<PeerId> selectPeer(BlockRange range, boolean retryFailedPeers) {
+        List<PeerId> peers = networkService.getPeersWithBlock(BigInteger.valueOf(range.start));
+        if (retryFailedPeers && !peers.isEmpty() && range.failedPeers.containsAll(peers)) {
+            // Every peer has failed this range once, give them another chance
+            range.failedPeers.clear();
+        }
+
+        return peers.stream()
+                .filter(peerId -> !range.failedPeers.contains(peerId) && !range.activePeers.contains(peerId))
+                .filter(peerId -> requestsPerPeer.getOrDefault(peerId, 0) < MAX_REQUESTS_PER_PEER)
+                .min(Comparator.comparing(peerId -> requestsPerPeer.getOrDefault(peerId, 0)));
+    }
+
+    private void request(BlockRange range, PeerId peerId) {
+        range.activePeers.add(peerId);
+        range.requestedAt = System.nanoTime();
+        requestsPerPeer.merge(peerId, 1, Integer::sum);
+
+        requester.requestBlocksFromPeer(peerId, BlockRequestField.ALL, range.start, range.amount)
+                .orTimeout(REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((blocks, error) -> onResponse(range, peerId, blocks, error));
+    }
+
+    private synchronized void onResponse(BlockRange range, PeerId peerId, List<Block> blocks, Throwable error) {
+        requestsPerPeer.merge(peerId, -1, Integer::sum);
+        range.activePeers.remove(peerId);
+
+        // The range may have been completed by another peer or dropped past the end of the chain
+        if (range.blocks == null && ranges.get(range.start) == range) {
+            handleResponse(range, peerId, blocks, error);
+        }
+
+        // The peer is free again, so put it to use right away instead of when the importer asks for more blocks
+        if (!closed) {
+            schedule(false);
+        }
+        notifyAll();
+    }
+
+    private void handleResponse(BlockRange range, PeerId peerId, List<Block> blocks, Throwable error) {
+        if (error != null || !isValidResponse(range, blocks)) {
+            log.log(Level.FINE, "Failed to download blocks " + range.start + " to " + (range.start + range.amount - 1)
+                    + " from " + peerId + (error != null ? ": " + error.getMessage() : ""));
+            range.failedPeers.add(peerId);
+        } else if (blocks.isEmpty()) {
+            range.failedPeers.add(peerId);
+            range.emptyResponses++;
+            int peerCount = networkService.getPeersWithBlock(BigInteger.valueOf(range.start)).size();
+            if (range.emptyResponses >= Math.min(END_CONFIRMATIONS, Math.max(peerCount, 1))) {
+                markChainEnd(range.start);
+            }
+        } else {
+            complete(range, peerId, blocks);
+        }
+    }
+
+    private static boolean isValidResponse(BlockRange range, List<Block> blocks) {
+        if (blocks.size() > range.amount) {
+            return false;
+        }
+        for (int i = 0; i < blocks.size(); i++) {
+            if (!blocks.get(i).getHeader().getBlockNumber().equals(BigInteger.valueOf((long) range.start + i))) {
+                return false;
+            }
+            if (i > 0 && !blocks.get(i).getHeader().getParentHash().equals(blocks.get(i - 1).getHeader().getHash())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void complete(BlockRange range, PeerId peerId, List<Block> blocks) {
+        if (blocks.size() < range.amount) {
+            // Request the rest of the range separately, peers may limit the size of their responses
+            int restStart = range.start + blocks.size();
+            ranges.put(restStart, new BlockRange(restStart, range.amount - blocks.size()));
+            range.amount = blocks.size();
+        }
+        range.blocks = blocks;
+        range.lastHash = blocks.getLast().getHeader().getHash();
+        range.servedBy = peerId;
+    }
+
+    private void markChainEnd(int number) {
+        chainEnd = Math.min(chainEnd, number);
+        ranges.tailMap(chainEnd, true).clear();
+    }
+
+    private static class BlockRange {
+        private final int start;
+        private int amount;
+        private final Set<PeerId> activePeers = new HashSet<>();
+        private final Set<PeerId> failedPeers = new HashSet<>();
+        private int emptyResponses = 0;
+        private long requestedAt;
+        private List<Block> blocks;
+        private Hash256 lastHash;
+        private PeerId servedBy;
+
+        private BlockRange(int start, int amount) {
+            this.start = start;
+            this.amount = amount;
+        }
+    }
+}
@@ -10,7 +10,6 @@ import com.limechain.network.NetworkService;
 import com.limechain.network.PeerMessageCoordinator;
 import com.limechain.network.PeerRequester;
 import com.limechain.network.protocol.blockannounce.NodeRole;
-import com.limechain.network.protocol.sync.BlockRequestField;
 import com.limechain.network.protocol.sync.pb.SyncMessage;
 import com.limechain.network.protocol.warp.dto.Block;
 import com.limechain.network.protocol.warp.dto.BlockHeader;
@@ -92,6 +91,7 @@ public class FullSyncMachine {
             //TODO Sync improvements: This does not work on polkadot chain.
             loadStateAtBlockFromPeer(lastFinalizedBlockHash);
         }
+        trieStorage.syncFlatState(stateRoot.getBytes());
 
         runtime = runtimeBuilder.buildRuntimeFromState(trieAccessor);
         StateVersion runtimeStateVersion = runtime.getCachedVersion().getStateVersion();
@@ -112,15 +112,18 @@ public class FullSyncMachine {
         messageCoordinator.handshakeBootNodes();
         messageCoordinator.handshakePeers();
 
-        int blocksToFetch = 100;
-        List<Block> receivedBlocks = requester.requestBlocks(BlockRequestField.ALL, startNumber, blocksToFetch).join();
+        BlockDownloader downloader = new BlockDownloader(requester, networkService, startNumber, lastFinalizedBlockHash);
+        try {
+            List<Block> receivedBlocks = downloader.nextBatch();
 
-        while (!receivedBlocks.isEmpty()) {
-            executeBlocks(receivedBlocks, trieAccessor);
-            log.info("Executed blocks from " + receivedBlocks.getFirst().getHeader().getBlockNumber()
-                    + " to " + receivedBlocks.getLast().getHeader().getBlockNumber());
-            startNumber += receivedBlocks.size();
-            receivedBlocks = requester.requestBlocks(BlockRequestField.ALL, startNumber, blocksToFetch).join();
+            while (!receivedBlocks.isEmpty()) {
+                executeBlocks(receivedBlocks, trieAccessor);
+                log.info("Executed blocks from " + receivedBlocks.getFirst().getHeader().getBlockNumber()
+                        + " to " + receivedBlocks.getLast().getHeader().getBlockNumber());
+                receivedBlocks = downloader.nextBatch();
+            }
+        } finally {
+            downloader.close();
         }
 
         finishFullSync();
@@ -217,6 +220,9 @@ public class FullSyncMachine {
             runtime.executeBlock(block);
             log.fine("Block executed successfully");
 
+            // A runtime upgrade gets compiled while the block's changes are persisted and the block is finalized
+            runtimeBuilder.precompileUpgradedCode(runtime);
+
             // Persist the updates to the trie structure
             trieAccessor.persistChanges();
 
@@ -227,6 +233,8 @@ public class FullSyncMachine {
 
             if (blockUpdatedRuntime) {
                 log.info("Runtime updated, updating the runtime code");
+                // The new code has been compiled in the background since the block executed successfully,
+                // so this only waits for the compilation if it's still ongoing
                 runtime = runtimeBuilder.buildRuntimeFromState(trieAccessor);
                 trieAccessor.setCurrentStateVersion(runtime.getCachedVersion().getStateVersion());
                 blockState.storeRuntime(blockHeader.getHash(), runtime);
@@ -0,0 +1,217 @@
+package com.limechain.transaction;
+
+import com.limechain.transaction.dto.Extrinsic;
+import com.limechain.transaction.dto.TransactionValidity;
+import com.limechain.transaction.dto.ValidTransaction;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Dependency graph of the transactions known to the node, based on the tags they require and provide.
+ * <p>
+ * Ready transactions have all their required tags provided by other ready transactions and are ordered by priority,
+ * highest first, and by arrival for equal priorities. Waiting transactions lack some required tags. Both sets are
+ * indexed by tag, so adding a ready transaction promotes the waiting transactions it completes in time proportional
+ * to the number of dependencies involved rather than the number of pending transactions.
+ * <p>
+ * Not thread safe, {@link TransactionState} synchronizes access.
+ */
+class TransactionGraph {
+
+    private static final Comparator<ReadyTransaction> READY_ORDER = Comparator
+            .comparing((ReadyTransaction ready) -> priority(ready.transaction()), Comparator.reverseOrder())
+            .thenComparingLong(ReadyTransaction::arrival);
+
+    private final TreeSet<ReadyTransaction> ready = new TreeSet<>(READY_ORDER);
+    private final Map<Extrinsic, ReadyTransaction> readyByExtrinsic = new HashMap<>();
+    // Number of ready transactions providing each tag
+    private final Map<ByteBuffer, Integer> providers = new HashMap<>();
+
+    private final Map<Extrinsic, WaitingTransaction> waiting = new HashMap<>();
+    private final Map<ByteBuffer, Set<Extrinsic>> waitingByTag = new HashMap<>();
+
+    private long arrivals = 0;
+
+    /**
+     * @return whether all tags required by the transaction are provided by ready transactions
+     */
+    boolean isSatisfied(ValidTransaction transaction) {
+        for (byte[] tag : requires(transaction)) {
+            if (!providers.containsKey(ByteBuffer.wrap(tag))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a ready transaction and promotes the waiting transactions whose required tags are now all provided.
+     *
+     * @return the promoted waiting transactions
+     */
+    List<ValidTransaction> addReady(ValidTransaction transaction) {
+        List<ValidTransaction> promoted = new ArrayList<>();
+        Deque<ValidTransaction> toAdd = new ArrayDeque<>();
+        toAdd.add(transaction);
+
+        while (!toAdd.isEmpty()) {
+            ValidTransaction next = toAdd.poll();
+            if (next != transaction) {
+                promoted.add(next);
+            }
+            insertReady(next);
+
+            for (byte[] tag : provides(next)) {
+                Set<Extrinsic> dependants = waitingByTag.remove(ByteBuffer.wrap(tag));
+                if (dependants == null) {
+                    continue;
+                }
+                for (Extrinsic dependant : dependants) {
+                    WaitingTransaction entry = waiting.get(dependant);
+                    if (entry == null) {
+                        continue;
+                    }
+                    entry.missingTags().remove(ByteBuffer.wrap(tag));
+                    if (entry.missingTags().isEmpty()) {
+                        waiting.remove(dependant);
+                        toAdd.add(entry.transaction());
+                    }
+                }
+            }
+        }
+
+        return promoted;
+    }
+
+    /**
+     * Tracks a transaction which is not ready, so that it's promoted once its missing tags are provided. Transactions
+     * without validity or without missing tags are not tracked.
+     */
+    void addWaiting(ValidTransaction transaction) {
+        if (transaction.getTransactionValidity() == null) {
+            return;
+        }
+
+        Set<ByteBuffer> missingTags = new HashSet<>();
+        for (byte[] tag : requires(transaction)) {
+            ByteBuffer key = ByteBuffer.wrap(tag);
+            if (!providers.containsKey(key)) {
+                missingTags.add(key);
+            }
+        }
+        if (missingTags.isEmpty()) {
+            return;
+        }
+
+        removeWaiting(transaction.getExtrinsic());
+        waiting.put(transaction.getExtrinsic(), new WaitingTransaction(transaction, missingTags));
+        missingTags.forEach(tag -> waitingByTag.computeIfAbsent(tag, k -> new HashSet<>())
+                .add(transaction.getExtrinsic()));
+    }
+
+    ValidTransaction pollReady() {
+        ReadyTransaction first = ready.pollFirst();
+        if (first == null) {
+            return null;
+        }
+        readyByExtrinsic.remove(first.transaction().getExtrinsic());
+        unregisterProvides(first.transaction());
+        return first.transaction();
+    }
+
+    ValidTransaction peekReady() {
+        return ready.isEmpty() ? null : ready.first().transaction();
+    }
+
+    List<ValidTransaction> readyTransactions() {
+        return ready.stream().map(ReadyTransaction::transaction).toList();
+    }
+
+    ValidTransaction getReady(Extrinsic extrinsic) {
+        ReadyTransaction entry = readyByExtrinsic.get(extrinsic);
+        return entry == null ? null : entry.transaction();
+    }
+
+    boolean containsReady(Extrinsic extrinsic) {
+        return readyByExtrinsic.containsKey(extrinsic);
+    }
+
+    /**
+     * Removes a transaction from both the ready and the waiting set.
+     */
+    void remove(Extrinsic extrinsic) {
+        ReadyTransaction entry = readyByExtrinsic.remove(extrinsic);
+        if (entry != null) {
+            ready.remove(entry);
+            unregisterProvides(entry.transaction());
+        }
+        removeWaiting(extrinsic);
+    }
+
+    void removeWaiting(Extrinsic extrinsic) {
+        WaitingTransaction entry = waiting.remove(extrinsic);
+        if (entry == null) {
+            return;
+        }
+        for (ByteBuffer tag : entry.missingTags()) {
+            Set<Extrinsic> dependants = waitingByTag.get(tag);
+            if (dependants != null) {
+                dependants.remove(extrinsic);
+                if (dependants.isEmpty()) {
+                    waitingByTag.remove(tag);
+                }
+            }
+        }
+    }
+
+    private void insertReady(ValidTransaction transaction) {
+        Extrinsic extrinsic = transaction.getExtrinsic();
+        remove(extrinsic);
+
+        ReadyTransaction entry = new ReadyTransaction(transaction, arrivals++);
+        ready.add(entry);
+        readyByExtrinsic.put(extrinsic, entry);
+        for (byte[] tag : provides(transaction)) {
+            providers.merge(ByteBuffer.wrap(tag), 1, Integer::sum);
+        }
+    }
+
+    private void unregisterProvides(ValidTransaction transaction) {
+        for (byte[] tag : provides(transaction)) {
+            providers.computeIfPresent(ByteBuffer.wrap(tag), (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private static BigInteger priority(ValidTransaction transaction) {
+        TransactionValidity validity = transaction.getTransactionValidity();
+        return validity == null || validity.getPriority() == null ? BigInteger.ZERO : validity.getPriority();
+    }
+
+    private static List<byte[]> requires(ValidTransaction transaction) {
+        TransactionValidity validity = transaction.getTransactionValidity();
+        return validity == null || validity.getRequires() == null ? List.of() : Arrays.asList(validity.getRequires());
+    }
+
+    private static List<byte[]> provides(ValidTransaction transaction) {
+        TransactionValidity validity = transaction.getTransactionValidity();
+        return validity == null || validity.getProvides() == null ? List.of() : Arrays.asList(validity.getProvides());
+    }
+
+    private record ReadyTransaction(ValidTransaction transaction, long arrival) {
+    }
+
+    private record WaitingTransaction(ValidTransaction transaction, Set<ByteBuffer> missingTags) {
+    }
+}
@@ -5,7 +5,8 @@ import com.limechain.exception.transaction.TransactionValidationException;
 import com.limechain.network.PeerMessageCoordinator;
 import com.limechain.network.protocol.warp.dto.Block;
 import com.limechain.network.protocol.warp.dto.BlockHeader;
-import com.limechain.runtime.Runtime;
+import com.limechain.runtime.ReadOnlyRuntimeCaller;
+import com.limechain.runtime.RuntimeEndpoint;
 import com.limechain.runtime.version.ApiVersionName;
 import com.limechain.state.StateManager;
 import com.limechain.storage.block.state.BlockState;
@@ -31,10 +32,14 @@ import java.util.stream.Collectors;
 public class TransactionProcessor {
     private final StateManager stateManager;
     private final PeerMessageCoordinator messageCoordinator;
+    private final ReadOnlyRuntimeCaller readOnlyRuntimeCaller;
 
-    public TransactionProcessor(StateManager stateManager, PeerMessageCoordinator messageCoordinator) {
+    public TransactionProcessor(StateManager stateManager,
+                                PeerMessageCoordinator messageCoordinator,
+                                ReadOnlyRuntimeCaller readOnlyRuntimeCaller) {
         this.stateManager = stateManager;
         this.messageCoordinator = messageCoordinator;
+        this.readOnlyRuntimeCaller = readOnlyRuntimeCaller;
     }
 
     public void handleExternalTransactions(Extrinsic[] extrinsics, PeerId peerId) {
@@ -159,20 +164,15 @@ public class TransactionProcessor {
             throw new TransactionValidationException("No best block header found while validating.");
         }
 
-        final Runtime runtime = blockState.getRuntime(header.getHash());
-        if (runtime == null) {
-            // This should be an unreachable state, but the blockState method has a return null.
-            throw new TransactionValidationException("No runtime found for block header " + header.getHash()
-                    + " while validating.");
-        }
-
-        return runtime.validateTransaction(createScaleValidationRequest(
-                runtime.getCachedVersion().getApis()
-                        .getApiVersion(ApiVersionName.TRANSACTION_QUEUE_API.getHashedName()),
-                TransactionSource.EXTERNAL,
-                header.getHash(),
-                extrinsic
-        ));
+        // Validated on an isolated runtime, so that validations neither block nor are blocked by block import
+        return readOnlyRuntimeCaller.call(RuntimeEndpoint.TRANSACTION_QUEUE_VALIDATE_TRANSACTION, header.getHash(),
+                runtime -> runtime.validateTransaction(createScaleValidationRequest(
+                        runtime.getCachedVersion().getApis()
+                                .getApiVersion(ApiVersionName.TRANSACTION_QUEUE_API.getHashedName()),
+                        TransactionSource.EXTERNAL,
+                        header.getHash(),
+                        extrinsic
+                )));
     }
 
     private static TransactionValidationRequest createScaleValidationRequest(BigInteger txQueueVersion,
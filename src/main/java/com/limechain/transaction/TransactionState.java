@@ -3,45 +3,49 @@ package com.limechain.transaction;
 import com.limechain.state.AbstractState;
 import com.limechain.transaction.dto.Extrinsic;
 import com.limechain.transaction.dto.ValidTransaction;
-import com.limechain.utils.ByteArrayUtils;
 import com.limechain.utils.HashUtils;
 import io.libp2p.core.PeerId;
 import lombok.extern.java.Log;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
-import java.util.stream.Collectors;
 
 @Log
 @Component
 public class TransactionState extends AbstractState {
 
     private final TransactionPool transactionPool;
-    private final Queue<ValidTransaction> transactionQueue;
+    private final TransactionGraph transactionGraph;
     private final ExecutorService executor;
 
     public TransactionState() {
         transactionPool = new TransactionPool();
         executor = Executors.newSingleThreadExecutor();
-        transactionQueue = new PriorityQueue<>();
+        transactionGraph = new TransactionGraph();
     }
 
-    public byte[] pushTransaction(ValidTransaction validTransaction) {
-        transactionQueue.add(validTransaction);
+    /**
+     * Adds a transaction to the ready queue. Transactions in the pool which only waited for the tags it provides are
+     * moved to the queue as well.
+     *
+     * @param validTransaction the transaction to add
+     * @return the hash of the transaction's extrinsic
+     */
+    public synchronized byte[] pushTransaction(ValidTransaction validTransaction) {
+        transactionPool.removeExtrinsic(validTransaction.getExtrinsic());
+        for (ValidTransaction promoted : transactionGraph.addReady(validTransaction)) {
+            transactionPool.removeExtrinsic(promoted.getExtrinsic());
+        }
         return HashUtils.hashWithBlake2b(validTransaction.getExtrinsic().getData());
     }
 
-    public ValidTransaction pollTransaction() {
-        return transactionQueue.poll();
+    public synchronized ValidTransaction pollTransaction() {
+        return transactionGraph.pollReady();
     }
 
     public ValidTransaction pollTransactionWithTimer(long timeout) {
@@ -75,58 +79,62 @@ public class TransactionState extends AbstractState {
         });
     }
 
-    public ValidTransaction peek() {
-        return transactionQueue.peek();
+    public synchronized ValidTransaction peek() {
+        return transactionGraph.peekReady();
     }
 
-    public ValidTransaction[] pending() {
-        return transactionQueue.toArray(new ValidTransaction[0]);
+    public synchronized ValidTransaction[] pending() {
+        return transactionGraph.readyTransactions().toArray(new ValidTransaction[0]);
     }
 
-    public ValidTransaction[] pendingInPool() {
+    public synchronized ValidTransaction[] pendingInPool() {
         return transactionPool.transactions();
     }
 
-    public boolean existsInQueue(Extrinsic extrinsic) {
-        return transactionQueue.contains(new ValidTransaction(extrinsic, null));
+    public synchronized boolean existsInQueue(Extrinsic extrinsic) {
+        return transactionGraph.containsReady(extrinsic);
     }
 
-    public boolean existsInPool(Extrinsic extrinsic) {
+    public synchronized boolean existsInPool(Extrinsic extrinsic) {
         return transactionPool.exists(extrinsic);
     }
 
-    public boolean shouldAddToQueue(ValidTransaction validTransaction) {
-        Set<byte[]> provided = transactionQueue.stream()
-                .flatMap(entry -> Arrays.stream(entry.getTransactionValidity().getProvides()))
-                .collect(Collectors.toSet());
-
-        Set<byte[]> required = Arrays.stream(validTransaction.getTransactionValidity().getRequires())
-                .collect(Collectors.toSet());
-
-        return ByteArrayUtils.sourceContainsAll(provided, required);
+    /**
+     * Checks whether all tags required by a transaction are provided by transactions in the ready queue.
+     *
+     * @param validTransaction the transaction to check
+     * @return true if the transaction can be added to the ready queue
+     */
+    public synchronized boolean shouldAddToQueue(ValidTransaction validTransaction) {
+        return transactionGraph.isSatisfied(validTransaction);
     }
 
-    public void removeExtrinsic(Extrinsic extrinsic) {
+    public synchronized void removeExtrinsic(Extrinsic extrinsic) {
         transactionPool.removeExtrinsic(extrinsic);
-        ValidTransaction transactionToBeRemoved = new ValidTransaction(extrinsic, null);
-        transactionQueue.remove(transactionToBeRemoved);
+        transactionGraph.remove(extrinsic);
     }
 
-    public void removeExtrinsicFromPool(Extrinsic extrinsic) {
+    public synchronized void removeExtrinsicFromPool(Extrinsic extrinsic) {
         transactionPool.removeExtrinsic(extrinsic);
+        transactionGraph.removeWaiting(extrinsic);
     }
 
-    public byte[] addToPool(ValidTransaction validTransaction) {
+    /**
+     * Adds a transaction to the pool. A transaction with missing required tags is moved to the ready queue once
+     * transactions providing them are pushed.
+     *
+     * @param validTransaction the transaction to add
+     * @return the hash of the transaction's extrinsic
+     */
+    public synchronized byte[] addToPool(ValidTransaction validTransaction) {
+        transactionGraph.addWaiting(validTransaction);
         return transactionPool.insert(validTransaction);
     }
 
-    public void addPeerToIgnore(Extrinsic extrinsic, PeerId peerId) {
-        if (existsInQueue(extrinsic)) {
-            for (ValidTransaction validTransaction : transactionQueue) {
-                if (validTransaction.getExtrinsic().equals(extrinsic)) {
-                    validTransaction.addPeerToIgnore(peerId);
-                }
-            }
+    public synchronized void addPeerToIgnore(Extrinsic extrinsic, PeerId peerId) {
+        ValidTransaction queued = transactionGraph.getReady(extrinsic);
+        if (queued != null) {
+            queued.addPeerToIgnore(peerId);
         } else if (existsInPool(extrinsic)) {
             transactionPool.get(extrinsic).addPeerToIgnore(peerId);
         }
@@ -7,11 +7,11 @@ import com.limechain.trie.structure.nibble.Nibbles;
 
 import java.util.Optional;
 
-public sealed class DiskTrieAccessor extends TrieAccessor permits DiskChildTrieAccessor {
+public sealed class DiskTrieAccessor extends TrieAccessor permits DiskChildTrieAccessor, EphemeralTrieAccessor {
 
-    private DiskTrieService diskTrieService;
-    // Serves as a temporary backup if a runtime call other than "Core_execute_block" alters state.
-    private DiskTrieService backupTrieService;
+    private final DiskTrieService diskTrieService;
+    // The transaction depth to roll back to if a runtime call other than "Core_execute_block" alters state.
+    private Integer backupTransactionDepth;
 
     public DiskTrieAccessor(TrieStorage trieStorage, byte[] mainTrieRoot) {
         super(trieStorage, mainTrieRoot);
@@ -46,6 +46,16 @@ public sealed class DiskTrieAccessor extends TrieAccessor permits DiskChildTrieA
         return diskTrieService.findStorageValue(key);
     }
 
+    /**
+     * Looks up a value changed since the last persisted state, i.e. by the changes that would be persisted next.
+     *
+     * @param key The key to look up.
+     * @return The changed value, or an empty optional if the key is unchanged or has been deleted.
+     */
+    public Optional<byte[]> findChangedStorageValue(Nibbles key) {
+        return diskTrieService.findChangedStorageValue(key);
+    }
+
     @Override
     public DeleteByPrefixResult deleteMultipleNodesByPrefix(Nibbles prefix, Long limit) {
         return diskTrieService.deleteMultipleNodesByPrefix(prefix, limit);
@@ -74,13 +84,19 @@ public sealed class DiskTrieAccessor extends TrieAccessor permits DiskChildTrieA
 
     @Override
     public void prepareBackup() {
-        backupTrieService = new DiskTrieService(diskTrieService);
+        // The changes of the call are recorded in a transaction of their own, which is rolled back afterward
+        backupTransactionDepth = diskTrieService.getTransactionDepth();
+        diskTrieService.startTransaction();
     }
 
     @Override
     public void backup() {
-        diskTrieService = backupTrieService;
-        backupTrieService = null;
+        if (backupTransactionDepth == null) {
+            return;
+        }
+
+        diskTrieService.rollbackTransactionsTo(backupTransactionDepth);
+        backupTransactionDepth = null;
     }
 
     @Override
@@ -22,13 +22,16 @@ import lombok.extern.java.Log;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -43,16 +46,19 @@ public class DiskTrieService {
 
     public static final String UNFINISHED_TRAVERSAL_ERROR =
             "Traversal result cannot be unfinished at this point in the logic";
+    private static final int FLAT_STATE_SCAN_BATCH = 64;
     private final TrieStorage trieStorage;
-    private final List<TrieChanges> transactions = new ArrayList<>();
+    private final TrieChanges trieChanges;
+    // Keys whose values were read from the persisted root, promoted to the next root in the storage value cache
+    private final Set<Nibbles> persistedReads;
 
     private byte[] trieMerkleRoot;
 
     DiskTrieService(TrieStorage trieStorage, byte[] trieMerkleRoot) {
         this.trieStorage = trieStorage;
         this.trieMerkleRoot = trieMerkleRoot;
-
-        transactions.add(TrieChanges.empty());
+        this.trieChanges = TrieChanges.empty();
+        this.persistedReads = new HashSet<>();
     }
 
     /**
@@ -63,58 +69,87 @@ public class DiskTrieService {
     DiskTrieService(DiskTrieService original) {
         trieStorage = original.trieStorage;
         trieMerkleRoot = original.trieMerkleRoot.clone();
-        transactions.addAll(original.transactions.stream()
-                .map(TrieChanges::copy)
-                .toList());
+        trieChanges = TrieChanges.copy(original.trieChanges);
+        persistedReads = new HashSet<>(original.persistedReads);
     }
 
-    private TrieChanges getCurrentTrieChanges() {
-        if (transactions.isEmpty()) {
-            throw new IllegalStateException("The should be at least one trie state loaded in memory.");
-        }
-
-        return transactions.getLast();
+    /**
+     * @return the number of currently open transactions.
+     */
+    public int getTransactionDepth() {
+        return trieChanges.getTransactionDepth();
     }
 
     public void startTransaction() {
-        transactions.add(TrieChanges.copy(getCurrentTrieChanges()));
+        trieChanges.startTransaction();
     }
 
     public void rollbackTransaction() {
-        if (transactions.size() < 2) {
+        if (trieChanges.getTransactionDepth() == 0) {
             throw new TrieTransactionException("No active transaction to rollback.");
         }
 
-        transactions.removeLast();
+        trieChanges.rollbackTransaction();
     }
 
     public void commitTransaction() {
-        if (transactions.size() < 2) {
+        if (trieChanges.getTransactionDepth() == 0) {
             throw new TrieTransactionException("No active transaction to commit.");
         }
 
-        TrieChanges transaction = transactions.removeLast();
-        transactions.set(transactions.size() - 1, transaction);
+        trieChanges.commitTransaction();
+    }
+
+    /**
+     * Rolls back all transactions opened after the given depth was reached, including ones left open by
+     * a failed runtime call.
+     *
+     * @param depth the transaction depth to return to.
+     */
+    public void rollbackTransactionsTo(int depth) {
+        while (trieChanges.getTransactionDepth() > depth) {
+            trieChanges.rollbackTransaction();
+        }
     }
 
     /**
      * This method checks the cache for an existing {@link PendingTrieNodeChange}. If a {@link PendingInsertUpdate} is
      * found returns its storage value, otherwise a {@link PendingRemove} means that node at provided key has been
      * deleted in the current block.<br>
-     * If no entry is found in cache traverses the disk in search of specified key.
+     * If no entry is found in cache the key has the same value as in the persisted trie, which is looked up through
+     * the storage value cache shared by all tries and only traversed on disk if it's not cached.
      *
      * @param key the key path for the sought storage value.
      * @return An {@link Optional} with the found storage value or an empty optional otherwise.
      */
     public Optional<byte[]> findStorageValue(Nibbles key) {
-        Optional<PendingTrieNodeChange> change = getCurrentTrieChanges().getFromCache(key);
-        return change.<Optional<byte[]>>map(pendingTrieNodeChange ->
-                        pendingTrieNodeChange instanceof PendingInsertUpdate update
-                                ? Optional.ofNullable(update.value())
-                                : Optional.empty())
-                .orElseGet(() -> traverseTrie(trieMerkleRoot, key) instanceof TraversalResult.Found found
-                        ? Optional.ofNullable(found.getFoundNode().getValue())
-                        : Optional.empty());
+        // Called for every storage read of the runtime, so it doesn't allocate lambdas or intermediate optionals
+        PendingTrieNodeChange change = trieChanges.get(key);
+        if (change instanceof PendingInsertUpdate update) {
+            return Optional.ofNullable(update.value());
+        }
+        if (change != null) {
+            return Optional.empty();
+        }
+
+        persistedReads.add(key);
+        return trieStorage.getStorageValue(trieMerkleRoot, key);
+    }
+
+    /**
+     * Looks up a value set by the pending changes, e.g. the ones of an executed block that aren't persisted yet.
+     * Values which are only pending because of a change in the trie structure around them, but equal
+     * the persisted ones, don't count as changed.
+     *
+     * @param key the key path for the sought storage value.
+     * @return An {@link Optional} with the changed storage value or an empty optional if the key is unchanged
+     * or has been deleted.
+     */
+    public Optional<byte[]> findChangedStorageValue(Nibbles key) {
+        return trieChanges.getFromCache(key)
+                .filter(PendingInsertUpdate.class::isInstance)
+                .map(change -> ((PendingInsertUpdate) change).value())
+                .filter(value -> !Arrays.equals(value, trieStorage.getStorageValue(trieMerkleRoot, key).orElse(null)));
     }
 
     /**
@@ -125,6 +160,13 @@ public class DiskTrieService {
      * @return An {@link Optional} with the found key or and empty one if not found.
      */
     public Optional<Nibbles> getNextKey(Nibbles key) {
+        if (trieStorage.isFlatStateAt(trieMerkleRoot)) {
+            Optional<Nibbles> nextKey = getNextKeyFromFlatState(key);
+            if (nextKey != null) {
+                return nextKey;
+            }
+        }
+
         TraversalResult traversalResult = traverseTrie(trieMerkleRoot, key);
         if (traversalResult.getTraversedNodes().isEmpty()) {
             return Optional.empty();
@@ -149,6 +191,43 @@ public class DiskTrieService {
         return result;
     }
 
+    /**
+     * Finds the next key by scanning the flat state of the persisted trie, skipping keys whose value is removed by
+     * the pending changes, and taking the next pending key with a value if it comes first.
+     *
+     * @return the next key, an empty optional if there is none, or null if the flat state moved on during the scan
+     */
+    @Nullable
+    @SuppressWarnings("java:S2789") // Null tells the caller to fall back to traversing the trie
+    private Optional<Nibbles> getNextKeyFromFlatState(Nibbles key) {
+        Optional<Nibbles> nextPending = trieChanges.getNextKeyWithValue(key);
+        Nibbles after = key;
+        while (true) {
+            List<Nibbles> persistedKeys =
+                    trieStorage.getFlatStateKeysAfter(trieMerkleRoot, after, FLAT_STATE_SCAN_BATCH);
+            if (persistedKeys == null) {
+                return null;
+            }
+
+            for (Nibbles persistedKey : persistedKeys) {
+                if (nextPending.isPresent() && nextPending.get().compareTo(persistedKey) <= 0) {
+                    return nextPending;
+                }
+                Optional<PendingTrieNodeChange> change = trieChanges.getFromCache(persistedKey);
+                boolean removed = change.isPresent()
+                        && !(change.get() instanceof PendingInsertUpdate update && update.value() != null);
+                if (!removed) {
+                    return Optional.of(persistedKey);
+                }
+            }
+
+            if (persistedKeys.size() < FLAT_STATE_SCAN_BATCH) {
+                return nextPending;
+            }
+            after = persistedKeys.getLast();
+        }
+    }
+
     private Optional<Nibbles> findNextKey(Nibbles prefix, Nibbles currentKey, TrieNodeData node) {
         // A key that is equal or greater and lower in the lexicographical order should be skipped.
         if (currentKey.size() >= prefix.size() && currentKey.compareTo(prefix) < 0) {
@@ -225,7 +304,7 @@ public class DiskTrieService {
                 closestSuccessor.getKey(),
                 closestSuccessor.getValue()));
 
-        getCurrentTrieChanges().updateCache(executionUpdates);
+        trieChanges.updateCache(executionUpdates);
     }
 
     /**
@@ -237,7 +316,7 @@ public class DiskTrieService {
      * @return A {@link TreeMap} of the newly created node and its updated parent/children if any.
      */
     private TreeMap<Nibbles, PendingInsertUpdate> executeInsert(byte[] merkleRoot, NodeInsertionData insertionData) {
-        boolean isRoot = getCurrentTrieChanges().getRoot().isEmpty() &&
+        boolean isRoot = trieChanges.getRoot().isEmpty() &&
                 trieStorage.getTrieNodeFromMerkleValue(merkleRoot) == null;
 
         // If trie is empty insert the newly created node as root.
@@ -367,7 +446,7 @@ public class DiskTrieService {
         Nibbles existingNodeFullKey = insertionData.getKey().addAll(
                 existingNodePartialKey.drop(newNodePartialKey.size()));
 
-        PendingInsertUpdate existing = result.computeIfAbsent(existingNodeFullKey,
+        result.computeIfAbsent(existingNodeFullKey,
                 (k) -> toPendingInsertUpdate(
                         existingNode.getValue(),
                         existingNodePartialKey.drop(newNodePartialKey.size() + 1),
@@ -377,7 +456,7 @@ public class DiskTrieService {
                 ));
 
         Nibble existingNodeIndexInNewNode = existingNodePartialKey.get(newNodePartialKey.size());
-        newNodeChildren.set(existingNodeIndexInNewNode.asInt(), existing.newMerkleValue());
+        newNodeChildren.set(existingNodeIndexInNewNode.asInt(), PendingInsertUpdate.UNHASHED_CHILD);
         result.put(insertionData.getKey(), toPendingInsertUpdate(
                 insertionData.getNewNodeValue(),
                 newNodePartialKey,
@@ -444,7 +523,7 @@ public class DiskTrieService {
         Nibbles existingNodeFullKey = insertionData.getKey().take(ancestorKeySize + 1)
                 .addAll(existingNodePartialKey);
 
-        PendingInsertUpdate existingStorage = result.computeIfAbsent(existingNodeFullKey,
+        result.computeIfAbsent(existingNodeFullKey,
                 (k) -> toPendingInsertUpdate(
                         existingNode.getValue(),
                         existingNodePartialKey.drop(branchPartialKeyLen + 1),
@@ -453,7 +532,7 @@ public class DiskTrieService {
                         false
                 ));
 
-        PendingInsertUpdate newStorage = result.computeIfAbsent(insertionData.getKey(),
+        result.computeIfAbsent(insertionData.getKey(),
                 (k) -> toPendingInsertUpdate(
                         insertionData.getNewNodeValue(),
                         newNodePartialKey.drop(branchPartialKeyLen + 1),
@@ -464,9 +543,9 @@ public class DiskTrieService {
 
         List<byte[]> newBranchChildren = new ArrayList<>(Collections.nCopies(16, null));
         Nibble existingNodeIndexInBranchNode = existingNodePartialKey.get(branchPartialKeyLen);
-        newBranchChildren.set(existingNodeIndexInBranchNode.asInt(), existingStorage.newMerkleValue());
+        newBranchChildren.set(existingNodeIndexInBranchNode.asInt(), PendingInsertUpdate.UNHASHED_CHILD);
         Nibble newNodeIndexInBranchNode = newNodePartialKey.get(branchPartialKeyLen);
-        newBranchChildren.set(newNodeIndexInBranchNode.asInt(), newStorage.newMerkleValue());
+        newBranchChildren.set(newNodeIndexInBranchNode.asInt(), PendingInsertUpdate.UNHASHED_CHILD);
 
         Nibbles branchNodeFullKey = insertionData.getKey().take(ancestorKeySize + 1 + branchPartialKeyLen);
 
@@ -490,7 +569,7 @@ public class DiskTrieService {
      */
     @Nullable
     private TrieNodeData getCachedChildAtIndex(Nibbles parentFullKey, Nibble childIndex) {
-        Optional<PendingInsertUpdate> cached = getCurrentTrieChanges().getChildByIndex(parentFullKey, childIndex);
+        Optional<PendingInsertUpdate> cached = trieChanges.getChildByIndex(parentFullKey, childIndex);
 
         if (cached.isPresent()) {
             PendingInsertUpdate update = cached.get();
@@ -518,7 +597,7 @@ public class DiskTrieService {
         switch (traversalResult) {
             case TraversalResult.Found found -> {
                 TreeMap<Nibbles, PendingTrieNodeChange> executionUpdates = executeDeletion(found.getFoundNode());
-                getCurrentTrieChanges().updateCache(mergeDeletionUpdatesWithTraversed(
+                trieChanges.updateCache(mergeDeletionUpdatesWithTraversed(
                         executionUpdates, traversalResult.traversedNodes));
             }
             case TraversalResult.NotFound ignored -> log.fine("DELETE: Node not found at key " + key);
@@ -552,9 +631,9 @@ public class DiskTrieService {
                         // If recursion returns a non-empty optional there have been changes during execution.
                         recursionResult.ifPresent(r -> {
                             node.getChildrenMerkleValues().set(n.asInt(),
-                                    r instanceof PendingInsertUpdate c
-                                            // If last change is an update set the new child merkle.
-                                            ? c.newMerkleValue()
+                                    r instanceof PendingInsertUpdate
+                                            // If last change is an update mark the child for hashing.
+                                            ? PendingInsertUpdate.UNHASHED_CHILD
                                             // If it's a deletion set to null.
                                             : null);
                         });
@@ -570,7 +649,7 @@ public class DiskTrieService {
                 }
 
                 TreeMap<Nibbles, PendingTrieNodeChange> executionUpdates = executeDeletion(node);
-                getCurrentTrieChanges().updateCache(mergeDeletionUpdatesWithTraversed(
+                trieChanges.updateCache(mergeDeletionUpdatesWithTraversed(
                         executionUpdates, traversalResult.traversedNodes));
 
                 return new DeleteByPrefixResult(deleted.get(), true);
@@ -608,9 +687,9 @@ public class DiskTrieService {
                 // If recursion returns a non-empty optional there have been changes during execution.
                 recursionResult.ifPresent(r -> {
                     foundNodeChildrenCopy.set(nibble.asInt(),
-                            r instanceof PendingInsertUpdate c
-                                    // If last change is an update set the new child merkle.
-                                    ? c.newMerkleValue()
+                            r instanceof PendingInsertUpdate
+                                    // If last change is an update mark the child for hashing.
+                                    ? PendingInsertUpdate.UNHASHED_CHILD
                                     // If it's a deletion set to null.
                                     : null);
                 });
@@ -619,7 +698,7 @@ public class DiskTrieService {
 
         if (limit == null || deleted.get() < limit) {
             PendingTrieNodeChange remove = new PendingRemove();
-            getCurrentTrieChanges().updateCache(new TreeMap<>(Map.of(foundNodeFullKey, remove)));
+            trieChanges.updateCache(new TreeMap<>(Map.of(foundNodeFullKey, remove)));
             if (childNode.getValue() != null) {
                 deleted.incrementAndGet();
             }
@@ -632,7 +711,7 @@ public class DiskTrieService {
                     foundNodeChildrenCopy,
                     false
             );
-            getCurrentTrieChanges().updateCache(new TreeMap<>(Map.of(foundNodeFullKey, update)));
+            trieChanges.updateCache(new TreeMap<>(Map.of(foundNodeFullKey, update)));
             return Optional.of(update);
         }
     }
@@ -739,13 +818,13 @@ public class DiskTrieService {
             // Add merged parent + child update.
             result.put(mergedUpdate.getKey(), mergedUpdate.getValue());
             // Remove old parent from cache.
-            getCurrentTrieChanges().removeFromCache(parent.getFullKey());
+            trieChanges.removeFromCache(parent.getFullKey());
 
             // Point grandparent to newly merged parent + child.
             TraversedNode grandParent = parent.getParent();
             Nibble foundIndexInGrandpa = parent.getFullKey().get(grandParent.getFullKey().size());
             grandParent.getChildrenMerkleValues().set(
-                    foundIndexInGrandpa.asInt(), mergedUpdate.getValue().newMerkleValue());
+                    foundIndexInGrandpa.asInt(), PendingInsertUpdate.UNHASHED_CHILD);
             result.put(grandParent.getFullKey(), toPendingInsertUpdate(
                     grandParent.getValue(),
                     grandParent.getPartialKey(),
@@ -798,13 +877,53 @@ public class DiskTrieService {
      * This method persists the changes from the cache layer to the disk. It also clears the cache.
      */
     public void persistChanges() {
-        Map<Nibbles, PendingInsertUpdate> updates = getCurrentTrieChanges().getChanges().entrySet().stream()
+        calculatePendingMerkleValues();
+
+        Map<Nibbles, PendingInsertUpdate> updates = trieChanges.getChanges().entrySet().stream()
                 .filter(e -> e.getValue() instanceof PendingInsertUpdate)
                 .collect(Collectors.toMap(Map.Entry::getKey, e -> (PendingInsertUpdate) e.getValue()));
 
         trieStorage.updateTrieStorage(updates);
 
-        getCurrentTrieChanges().clear();
+        byte[] parentMerkleRoot = trieMerkleRoot;
+        trieChanges.getRoot().ifPresent(r -> trieMerkleRoot = r.newMerkleValue());
+        promotePersistedReads(parentMerkleRoot);
+        applyFlatStateChanges(parentMerkleRoot);
+        trieChanges.clear();
+    }
+
+    /**
+     * Moves the flat state along with the persisted trie, if it was at the state the changes were made to.
+     */
+    private void applyFlatStateChanges(byte[] parentMerkleRoot) {
+        if (!trieStorage.isFlatStateAt(parentMerkleRoot)) {
+            return;
+        }
+
+        Map<Nibbles, Optional<byte[]>> changedValues = new HashMap<>();
+        trieChanges.getChanges().forEach((key, change) -> changedValues.put(key,
+                change instanceof PendingInsertUpdate update
+                        ? Optional.ofNullable(update.value())
+                        : Optional.empty()));
+        trieStorage.applyFlatStateChanges(parentMerkleRoot, trieMerkleRoot, changedValues);
+    }
+
+    /**
+     * Keys untouched by the pending changes keep their values in the new root, so values read in one block are
+     * still cached for the next one. Keys read and then changed are cached with their new values.
+     */
+    private void promotePersistedReads(byte[] parentMerkleRoot) {
+        if (!Arrays.equals(parentMerkleRoot, trieMerkleRoot)) {
+            Map<Nibbles, Optional<byte[]>> changedValues = new HashMap<>();
+            for (Nibbles key : persistedReads) {
+                trieChanges.getFromCache(key).ifPresent(change -> changedValues.put(key,
+                        change instanceof PendingInsertUpdate update
+                                ? Optional.ofNullable(update.value())
+                                : Optional.empty()));
+            }
+            trieStorage.promoteStorageValues(parentMerkleRoot, trieMerkleRoot, persistedReads, changedValues);
+        }
+        persistedReads.clear();
     }
 
     /**
@@ -813,8 +932,64 @@ public class DiskTrieService {
      * @return a byte array of the merkle root.
      */
     public byte[] getMerkleRoot() {
-        getCurrentTrieChanges().getRoot().ifPresent(r -> trieMerkleRoot = r.newMerkleValue());
-        return trieMerkleRoot;
+        calculatePendingMerkleValues();
+        // The root of the persisted trie is only replaced on persist, so that rolled back changes can't leak into it
+        return trieChanges.getRoot()
+                .map(PendingInsertUpdate::newMerkleValue)
+                .orElse(trieMerkleRoot);
+    }
+
+    /**
+     * Calculates the merkle values of all pending changes that are not yet hashed. Writes only mark the changed nodes
+     * as unhashed, so that nodes written to many times between two root calculations are hashed only once.<br>
+     * Descendants always follow their ancestors in the {@link TrieChanges} key order, so iterating in reverse
+     * hashes every node after its children, exactly once.
+     */
+    private void calculatePendingMerkleValues() {
+        // Hashing doesn't change what a node holds, so it bypasses the transaction journal. A hashed node which is
+        // not reverted by a rollback has no changed descendants, as writes rewrite all ancestors of the changed node.
+        for (Map.Entry<Nibbles, PendingTrieNodeChange> entry : trieChanges.getChanges().descendingMap().entrySet()) {
+            if (entry.getValue() instanceof PendingInsertUpdate update && update.isUnhashed()) {
+                entry.setValue(toHashedUpdate(trieChanges, entry.getKey(), update));
+            }
+        }
+    }
+
+    private static PendingInsertUpdate toHashedUpdate(TrieChanges trieChanges,
+                                                      Nibbles fullKey,
+                                                      PendingInsertUpdate update) {
+        List<byte[]> childrenMerkleValues = new ArrayList<>(update.childrenMerkleValues());
+        for (int i = 0; i < childrenMerkleValues.size(); i++) {
+            if (PendingInsertUpdate.isUnhashedChild(childrenMerkleValues.get(i))) {
+                Nibble childIndex = Nibble.fromInt(i);
+                byte[] childMerkleValue = trieChanges.getChildByIndex(fullKey, childIndex)
+                        .map(PendingInsertUpdate::newMerkleValue)
+                        .orElseThrow(() -> new IllegalStateException(
+                                "Unhashed child at index " + childIndex + " of " + fullKey + " is not in cache."));
+                childrenMerkleValues.set(i, childMerkleValue);
+            }
+        }
+
+        List<List<Byte>> childrenMerkles = childrenMerkleValues.stream()
+                .map(Optional::ofNullable)
+                .map(o -> o
+                        .map(Bytes::asList)
+                        .orElse(null))
+                .toList();
+
+        DecodedNode<List<Byte>> decoded = new DecodedNode<>(
+                childrenMerkles,
+                update.partialKey(),
+                constructStorageValue(update.value(), update.stateVersion()));
+
+        byte[] merkleValue = decoded.calculateMerkleValue(HashUtils::hashWithBlake2b, update.isRoot());
+
+        return new PendingInsertUpdate(merkleValue,
+                childrenMerkleValues,
+                update.partialKey(),
+                update.stateVersion(),
+                update.value(),
+                update.isRoot());
     }
 
     /**
@@ -851,10 +1026,10 @@ public class DiskTrieService {
      */
     private TraversalResult traverseCache(Nibbles key) {
         List<Map.Entry<Nibbles, PendingInsertUpdate>> entriesInKeyPath =
-                getCurrentTrieChanges().getEntriesInKeyPath(PendingInsertUpdate.class, key);
+                trieChanges.getEntriesInKeyPath(PendingInsertUpdate.class, key);
 
         // If cache is empty or no cached entries are in sought key path continue to disk traverse.
-        if (getCurrentTrieChanges().isCacheEmpty() || entriesInKeyPath.isEmpty()) {
+        if (trieChanges.isCacheEmpty() || entriesInKeyPath.isEmpty()) {
             return new TraversalResult.Unfinished(new ArrayList<>());
         }
 
@@ -862,7 +1037,7 @@ public class DiskTrieService {
 
         // If cache contains exact key match we have 2 options. If it's pending a deletion we return a NotFound result,
         // Found otherwise. No need for disk traversal after this.
-        if (getCurrentTrieChanges().isKeyInCache(key)) {
+        if (trieChanges.isKeyInCache(key)) {
             TraversedNode last = traversedNodes.getLast();
             TraversalResult result;
 
@@ -982,15 +1157,15 @@ public class DiskTrieService {
         Map<Nibbles, PendingInsertUpdate> pendingUpdates = new HashMap<>();
 
         Nibbles successorFullKey = successorKey.copy();
-        byte[] successorMerkleValue = successor instanceof PendingInsertUpdate s
-                ? s.newMerkleValue()
+        byte[] successorMerkleValue = successor instanceof PendingInsertUpdate
+                ? PendingInsertUpdate.UNHASHED_CHILD
                 : null;
 
         for (TraversedNode traversedNode : toUpdate.reversed()) {
             Nibble successorChildIndex = successorFullKey.get(traversedNode.getFullKey().size());
             traversedNode.getChildrenMerkleValues().set(successorChildIndex.asInt(), successorMerkleValue);
 
-            PendingInsertUpdate change = pendingUpdates.compute(traversedNode.getFullKey(), (k, v) ->
+            pendingUpdates.put(traversedNode.getFullKey(),
                     toPendingInsertUpdate(traversedNode.getValue(),
                             traversedNode.getPartialKey(),
                             traversedNode.getStateVersion(),
@@ -999,32 +1174,22 @@ public class DiskTrieService {
                     ));
 
             successorFullKey = traversedNode.getFullKey();
-            successorMerkleValue = change.newMerkleValue();
+            successorMerkleValue = PendingInsertUpdate.UNHASHED_CHILD;
         }
 
         return pendingUpdates;
     }
 
+    /**
+     * Creates an unhashed {@link PendingInsertUpdate}. Its merkle value is calculated later on,
+     * see {@link #calculatePendingMerkleValues()}.
+     */
     private static PendingInsertUpdate toPendingInsertUpdate(@Nullable byte[] value,
                                                              Nibbles partialKey,
                                                              StateVersion stateVersion,
                                                              List<byte[]> childrenMerkleValues,
                                                              boolean isRoot) {
-        List<List<Byte>> childrenMerkles = childrenMerkleValues.stream()
-                .map(Optional::ofNullable)
-                .map(o -> o
-                        .map(Bytes::asList)
-                        .orElse(null))
-                .toList();
-
-        DecodedNode<List<Byte>> decoded = new DecodedNode<>(
-                childrenMerkles,
-                partialKey,
-                constructStorageValue(value, stateVersion));
-
-        byte[] merkleValue = decoded.calculateMerkleValue(HashUtils::hashWithBlake2b, isRoot);
-
-        return new PendingInsertUpdate(merkleValue, childrenMerkleValues, partialKey, stateVersion, value);
+        return new PendingInsertUpdate(null, childrenMerkleValues, partialKey, stateVersion, value, isRoot);
     }
 
     private static List<TraversedNode> toTraversedNodes(List<Map.Entry<Nibbles, PendingInsertUpdate>> entries) {
@@ -0,0 +1,23 @@
+package com.limechain.trie;
+
+import com.limechain.storage.trie.TrieStorage;
+import lombok.extern.java.Log;
+
+import java.util.logging.Level;
+
+/**
+ * A view of the state at a given trie root, which the runtime can write to without affecting the stored state.
+ * Writes are kept in the in-memory overlay of the accessor and are discarded with it, as they're never persisted.
+ */
+@Log
+public final class EphemeralTrieAccessor extends DiskTrieAccessor {
+
+    public EphemeralTrieAccessor(TrieStorage trieStorage, byte[] mainTrieRoot) {
+        super(trieStorage, mainTrieRoot);
+    }
+
+    @Override
+    public void persistChanges() {
+        log.log(Level.FINE, "Discarding changes to an ephemeral trie.");
+    }
+}
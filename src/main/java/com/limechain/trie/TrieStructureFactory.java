@@ -1,6 +1,5 @@
 package com.limechain.trie;
 
-import com.google.common.collect.Lists;
 import com.google.common.primitives.Bytes;
 import com.google.protobuf.ByteString;
 import com.limechain.exception.trie.TrieBuildException;
@@ -16,17 +15,27 @@ import com.limechain.trie.structure.database.NodeData;
 import com.limechain.trie.structure.nibble.Nibbles;
 import com.limechain.utils.HashUtils;
 import com.limechain.utils.StringUtils;
+import lombok.RequiredArgsConstructor;
 import lombok.experimental.UtilityClass;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 
 @UtilityClass
 public class TrieStructureFactory {
 
+    /**
+     * Tries, and subtrees of them, with fewer nodes than this are hashed sequentially. Hashing a node takes a few
+     * microseconds, so smaller subtrees aren't worth a task.
+     */
+    static final int PARALLEL_HASHING_THRESHOLD = 4096;
+
     /**
      * Build the trie structure from the provided key-value pairs, then calculates the merkle values and sets them.
      *
@@ -79,15 +88,15 @@ public class TrieStructureFactory {
      * @param hashFunction The hash function used for calculating Merkle values.
      */
     public void calculateMerkleValues(TrieStructure<NodeData> trie, UnaryOperator<byte[]> hashFunction) {
-        List<TrieNodeIndex> nodeIndices = trie.streamOrdered().toList();
+        calculateMerkleValues(trie, hashFunction, PARALLEL_HASHING_THRESHOLD);
+    }
 
-        for (TrieNodeIndex index : Lists.reverse(nodeIndices)) {
-            NodeHandle<NodeData> nodeHandle = trie.nodeHandleAtIndex(index);
-            if (nodeHandle == null) {
-                throw new TrieBuildException("Could not initialize trie");
-            }
+    void calculateMerkleValues(TrieStructure<NodeData> trie, UnaryOperator<byte[]> hashFunction, int threshold) {
+        List<TrieNodeIndex> nodeIndices = trie.streamOrdered().toList();
+        hashNodes(trie, nodeIndices, threshold, nodeHandle -> {
             calculateAndSetMerkleValue(nodeHandle, hashFunction);
-        }
+            return true;
+        });
     }
 
     /**
@@ -100,20 +109,143 @@ public class TrieStructureFactory {
      */
     public List<TrieNodeIndex> recalculateMerkleValues(TrieStructure<NodeData> trie, StateVersion stateVersion,
                                                        UnaryOperator<byte[]> hashFunction) {
+        return recalculateMerkleValues(trie, stateVersion, hashFunction, PARALLEL_HASHING_THRESHOLD);
+    }
+
+    List<TrieNodeIndex> recalculateMerkleValues(TrieStructure<NodeData> trie, StateVersion stateVersion,
+                                                UnaryOperator<byte[]> hashFunction, int threshold) {
         List<TrieNodeIndex> nodeIndices = trie.streamOrdered().toList();
+        boolean[] updated = hashNodes(trie, nodeIndices, threshold,
+                nodeHandle -> recalculateAndSetMerkleValue(nodeHandle, stateVersion, hashFunction));
+
         List<TrieNodeIndex> updatedNodes = new ArrayList<>();
+        for (int position = nodeIndices.size() - 1; position >= 0; position--) {
+            if (updated[position]) {
+                updatedNodes.add(nodeIndices.get(position));
+            }
+        }
+        return updatedNodes;
+    }
+
+    /**
+     * Hashes all nodes of a trie, every node after its children. Tries with fewer nodes than the threshold are hashed
+     * on the calling thread, larger ones by a {@link SubtreeHashing} task which hashes independent subtrees in
+     * parallel.
+     *
+     * @param trie        the trie to hash
+     * @param nodeIndices the indices of all nodes of the trie in lexicographic order
+     * @param threshold   the number of nodes below which a subtree is hashed sequentially
+     * @param hashNode    hashes a node whose children have been hashed, returning whether its merkle value changed
+     * @return whether the merkle value changed for each node, by its position in the node indices
+     */
+    private boolean[] hashNodes(TrieStructure<NodeData> trie,
+                                List<TrieNodeIndex> nodeIndices,
+                                int threshold,
+                                Predicate<NodeHandle<NodeData>> hashNode) {
+        boolean[] updated = new boolean[nodeIndices.size()];
+        if (nodeIndices.size() < threshold) {
+            hashSequentially(trie, nodeIndices, 0, nodeIndices.size(), hashNode, updated);
+        } else {
+            int[] subtreeEnds = subtreeEnds(trie, nodeIndices);
+            ForkJoinPool.commonPool().invoke(
+                    new SubtreeHashing(trie, nodeIndices, subtreeEnds, threshold, hashNode, updated, 0));
+        }
+        return updated;
+    }
+
+    /**
+     * Hashes the nodes at the given range of positions in reverse, so that all descendants come before a node.
+     */
+    private static void hashSequentially(TrieStructure<NodeData> trie,
+                                         List<TrieNodeIndex> nodeIndices,
+                                         int from,
+                                         int to,
+                                         Predicate<NodeHandle<NodeData>> hashNode,
+                                         boolean[] updated) {
+        for (int position = to - 1; position >= from; position--) {
+            updated[position] = hashNode.test(nodeHandleAt(trie, nodeIndices, position));
+        }
+    }
+
+    private static NodeHandle<NodeData> nodeHandleAt(TrieStructure<NodeData> trie,
+                                                     List<TrieNodeIndex> nodeIndices,
+                                                     int position) {
+        NodeHandle<NodeData> nodeHandle = trie.nodeHandleAtIndex(nodeIndices.get(position));
+        if (nodeHandle == null) {
+            throw new TrieBuildException("Could not initialize trie");
+        }
+        return nodeHandle;
+    }
+
+    /**
+     * In lexicographic order the descendants of a node directly follow it, so every subtree is a contiguous range of
+     * positions.
+     *
+     * @return for each position, the position right after the last node of the subtree rooted there
+     */
+    private static int[] subtreeEnds(TrieStructure<NodeData> trie, List<TrieNodeIndex> nodeIndices) {
+        int maxIndex = 0;
+        for (TrieNodeIndex index : nodeIndices) {
+            maxIndex = Math.max(maxIndex, index.getValue());
+        }
+        int[] positions = new int[maxIndex + 1];
+        int[] parentPositions = new int[nodeIndices.size()];
+        for (int position = 0; position < nodeIndices.size(); position++) {
+            positions[nodeIndices.get(position).getValue()] = position;
+            NodeHandle<NodeData> parent = nodeHandleAt(trie, nodeIndices, position).getParent();
+            // Parents precede their children, so their positions are already known
+            parentPositions[position] = parent != null ? positions[parent.getNodeIndex().getValue()] : -1;
+        }
+
+        int[] subtreeEnds = new int[nodeIndices.size()];
+        for (int position = nodeIndices.size() - 1; position >= 0; position--) {
+            subtreeEnds[position] = Math.max(subtreeEnds[position], position + 1);
+            int parentPosition = parentPositions[position];
+            if (parentPosition >= 0) {
+                subtreeEnds[parentPosition] = Math.max(subtreeEnds[parentPosition], subtreeEnds[position]);
+            }
+        }
+        return subtreeEnds;
+    }
+
+    /**
+     * Hashes the subtree rooted at a position. Children with subtrees of at least the threshold size are hashed in
+     * forked tasks, the rest on the current thread, and the root of the subtree once all of them are done. Each task
+     * only writes to the nodes of its own subtree and reads its children's merkle values after joining them.
+     */
+    @RequiredArgsConstructor
+    private static final class SubtreeHashing extends RecursiveAction {
+        private final transient TrieStructure<NodeData> trie;
+        private final transient List<TrieNodeIndex> nodeIndices;
+        private final int[] subtreeEnds;
+        private final int threshold;
+        private final transient Predicate<NodeHandle<NodeData>> hashNode;
+        private final boolean[] updated;
+        private final int position;
+
+        @Override
+        protected void compute() {
+            int end = subtreeEnds[position];
+            if (end - position < threshold) {
+                hashSequentially(trie, nodeIndices, position, end, hashNode, updated);
+                return;
+            }
 
-        for (TrieNodeIndex index : Lists.reverse(nodeIndices)) {
-            NodeHandle<NodeData> nodeHandle = trie.nodeHandleAtIndex(index);
-            if (nodeHandle == null) {
-                throw new TrieBuildException("Could not initialize trie");
+            List<SubtreeHashing> forked = new ArrayList<>();
+            for (int child = position + 1; child < end; child = subtreeEnds[child]) {
+                if (subtreeEnds[child] - child >= threshold) {
+                    forked.add(new SubtreeHashing(trie, nodeIndices, subtreeEnds, threshold, hashNode, updated, child));
+                }
             }
-            boolean updated = recalculateAndSetMerkleValue(nodeHandle, stateVersion, hashFunction);
-            if (updated) {
-                updatedNodes.add(index);
+            invokeAll(forked);
+
+            for (int child = position + 1; child < end; child = subtreeEnds[child]) {
+                if (subtreeEnds[child] - child < threshold) {
+                    hashSequentially(trie, nodeIndices, child, subtreeEnds[child], hashNode, updated);
+                }
             }
+            updated[position] = hashNode.test(nodeHandleAt(trie, nodeIndices, position));
         }
-        return updatedNodes;
     }
 
     /**
@@ -10,16 +10,22 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
-import java.util.stream.Stream;
 
 /**
  * Container used to cache the difference between two versions of a trie. For example this can be used when the runtime
  * edits the storage via host api calls, block execution, etc. The aim of this is to lower the number of expensive
  * operations towards an on disk merkle trie.
+ * <p>
+ * Nested storage transactions are supported through an undo journal. Each open transaction only records the previous
+ * state of the keys it changes, so starting, committing and rolling back a transaction cost time proportional to
+ * the number of changes made within that transaction, instead of the number of all pending changes.
  */
 @Getter
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
@@ -30,6 +36,17 @@ public class TrieChanges {
      */
     private final TreeMap<Nibbles, PendingTrieNodeChange> changes;
 
+    /**
+     * One layer per open transaction, from outermost to innermost. A layer maps every key changed within its
+     * transaction to the change present before the transaction first touched it, or null if there was none.
+     */
+    @Getter(AccessLevel.NONE)
+    private final List<Map<Nibbles, PendingTrieNodeChange>> journal;
+
+    private TrieChanges(TreeMap<Nibbles, PendingTrieNodeChange> changes) {
+        this(changes, new ArrayList<>());
+    }
+
     public static TrieChanges empty() {
         return new TrieChanges(new TreeMap<>());
     }
@@ -42,18 +59,77 @@ public class TrieChanges {
      */
     public static TrieChanges copy(TrieChanges original) {
         TreeMap<Nibbles, PendingTrieNodeChange> copyChanges = new TreeMap<>();
-        original.changes.forEach((key, value) -> {
-            PendingTrieNodeChange trieNodeChange = value instanceof PendingInsertUpdate u
-                ? new PendingInsertUpdate(u)
-                : new PendingRemove();
-            copyChanges.put(key.copy(), trieNodeChange);
+        original.changes.forEach((key, value) -> copyChanges.put(key.copy(), copyChange(value)));
+
+        List<Map<Nibbles, PendingTrieNodeChange>> copyJournal = new ArrayList<>(original.journal.size());
+        for (Map<Nibbles, PendingTrieNodeChange> layer : original.journal) {
+            Map<Nibbles, PendingTrieNodeChange> copyLayer = new HashMap<>();
+            layer.forEach((key, value) -> copyLayer.put(key.copy(), value != null ? copyChange(value) : null));
+            copyJournal.add(copyLayer);
+        }
+
+        return new TrieChanges(copyChanges, copyJournal);
+    }
+
+    private static PendingTrieNodeChange copyChange(PendingTrieNodeChange change) {
+        return change instanceof PendingInsertUpdate u
+            ? new PendingInsertUpdate(u)
+            : new PendingRemove();
+    }
+
+    /**
+     * @return the number of currently open transactions.
+     */
+    public int getTransactionDepth() {
+        return journal.size();
+    }
+
+    /**
+     * Opens a new, innermost transaction.
+     */
+    public void startTransaction() {
+        journal.add(new HashMap<>());
+    }
+
+    /**
+     * Keeps the changes of the innermost transaction. Its journal layer is merged into the enclosing transaction's
+     * one, so that a later rollback of the enclosing transaction also reverts them.
+     */
+    public void commitTransaction() {
+        Map<Nibbles, PendingTrieNodeChange> layer = journal.removeLast();
+        if (journal.isEmpty()) {
+            return;
+        }
+
+        Map<Nibbles, PendingTrieNodeChange> enclosingLayer = journal.getLast();
+        layer.forEach((key, previous) -> {
+            // The enclosing transaction already holds an older previous state for keys it has touched itself
+            if (!enclosingLayer.containsKey(key)) {
+                enclosingLayer.put(key, previous);
+            }
         });
+    }
 
-        return new TrieChanges(copyChanges);
+    /**
+     * Discards the changes of the innermost transaction, restoring the state before it was started.
+     */
+    public void rollbackTransaction() {
+        Map<Nibbles, PendingTrieNodeChange> layer = journal.removeLast();
+        layer.forEach((key, previous) -> {
+            if (previous == null) {
+                changes.remove(key);
+            } else {
+                changes.put(key, previous);
+            }
+        });
     }
 
+    /**
+     * Clears all changes. Open transactions are discarded as well, as there is nothing left to roll back.
+     */
     public void clear() {
         changes.clear();
+        journal.clear();
     }
 
     public boolean isKeyInCache(Nibbles key) {
@@ -65,6 +141,7 @@ public class TrieChanges {
     }
 
     public void updateCache(TreeMap<Nibbles, PendingTrieNodeChange> updates) {
+        updates.keySet().forEach(this::recordPrevious);
         changes.putAll(updates);
     }
 
@@ -72,10 +149,33 @@ public class TrieChanges {
         return Optional.ofNullable(changes.get(key));
     }
 
+    /**
+     * Same as {@link #getFromCache(Nibbles)}, for lookups on hot paths that shouldn't allocate.
+     *
+     * @param key the path of the node
+     * @return the pending change of the node or null if it has none
+     */
+    @Nullable
+    public PendingTrieNodeChange get(Nibbles key) {
+        return changes.get(key);
+    }
+
     public void removeFromCache(Nibbles key) {
+        recordPrevious(key);
         changes.remove(key);
     }
 
+    private void recordPrevious(Nibbles key) {
+        if (journal.isEmpty()) {
+            return;
+        }
+
+        Map<Nibbles, PendingTrieNodeChange> layer = journal.getLast();
+        if (!layer.containsKey(key)) {
+            layer.put(key, changes.get(key));
+        }
+    }
+
     public Optional<PendingInsertUpdate> getRoot() {
         Map.Entry<Nibbles, PendingTrieNodeChange> rootChange = changes.firstEntry();
         return rootChange != null
@@ -83,28 +183,72 @@ public class TrieChanges {
             : Optional.empty();
     }
 
+    /**
+     * Finds the pending changes of the nodes on the path to a key, in O(log n) per node on the path instead of
+     * scanning all smaller keys. If the closest key at or below the probe isn't a prefix of the sought key, none of
+     * the keys between the two is either, so the next probe skips straight to the prefix they have in common.
+     *
+     * @param clazz the type of changes to return, or null for all of them
+     * @param key   the sought key path
+     * @return the changes at prefixes of the key, including the key itself, from the root down
+     */
     public <P extends PendingTrieNodeChange> List<Map.Entry<Nibbles, P>> getEntriesInKeyPath(
         @Nullable Class<P> clazz, Nibbles key) {
-        Stream<Map.Entry<Nibbles, PendingTrieNodeChange>> stream = changes.subMap(
-            Nibbles.EMPTY, true, key, true).entrySet().stream();
-
-        if (clazz != null) {
-            stream = stream
-                .filter(e -> clazz.isInstance(e.getValue()));
+        List<Map.Entry<Nibbles, P>> entries = new ArrayList<>();
+
+        Map.Entry<Nibbles, PendingTrieNodeChange> entry = changes.floorEntry(key);
+        while (entry != null) {
+            Nibbles entryKey = entry.getKey();
+            int commonPrefixLength = key.commonPrefixLength(entryKey);
+            if (commonPrefixLength < entryKey.size()) {
+                entry = changes.floorEntry(key.take(commonPrefixLength));
+                continue;
+            }
+
+            if (clazz == null || clazz.isInstance(entry.getValue())) {
+                entries.add(Map.entry(entryKey, (P) entry.getValue()));
+            }
+            entry = entryKey.isEmpty() ? null : changes.lowerEntry(entryKey);
         }
 
-        return stream
-            .filter(e -> key.startsWith(e.getKey()))
-            .map(e -> Map.entry(e.getKey(), (P) e.getValue()))
-            .toList();
+        Collections.reverse(entries);
+        return entries;
     }
 
-    // TODO optimize so that it doesn't traverse until end of map if missing
+    /**
+     * Finds the smallest key greater than the given one whose pending change holds a storage value.
+     *
+     * @param key the key to start after
+     * @return the found key, or an empty optional if there is none
+     */
+    public Optional<Nibbles> getNextKeyWithValue(Nibbles key) {
+        for (Map.Entry<Nibbles, PendingTrieNodeChange> entry : changes.tailMap(key, false).entrySet()) {
+            if (entry.getValue() instanceof PendingInsertUpdate update && update.value() != null) {
+                return Optional.of(entry.getKey());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Finds the pending node at a child index of a node. Its descendants directly follow the child's key prefix in
+     * key order, so the search ends at the first key past them instead of the end of the map.
+     *
+     * @param parentKey  the full key of the parent node
+     * @param childIndex the index of the child in the parent
+     * @return the closest pending insert or update under the child index, normally the child itself
+     */
     public Optional<PendingInsertUpdate> getChildByIndex(Nibbles parentKey, Nibble childIndex) {
         Nibbles parentKeyWithChildIndex = parentKey.add(childIndex);
-        return changes.tailMap(parentKey, false).entrySet().stream()
-            .filter(e -> e.getKey().startsWith(parentKeyWithChildIndex) && e.getValue() instanceof PendingInsertUpdate)
-            .map(e -> (PendingInsertUpdate) e.getValue())
-            .findFirst();
+        for (Map.Entry<Nibbles, PendingTrieNodeChange> entry
+            : changes.tailMap(parentKeyWithChildIndex, true).entrySet()) {
+            if (!entry.getKey().startsWith(parentKeyWithChildIndex)) {
+                break;
+            }
+            if (entry.getValue() instanceof PendingInsertUpdate update) {
+                return Optional.of(update);
+            }
+        }
+        return Optional.empty();
     }
 }
@@ -9,11 +9,30 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
-public record PendingInsertUpdate(byte[] newMerkleValue,
+/**
+ * A pending insertion or update of a trie node.
+ *
+ * @param newMerkleValue       the merkle value of the node, or null if not yet calculated.
+ *                             Merkle values are calculated lazily, all at once, when the trie root is needed.
+ * @param childrenMerkleValues the merkle values of the node's children, where a child whose merkle value
+ *                             is not yet calculated is marked by {@link #UNHASHED_CHILD}.
+ * @param partialKey           the partial key of the node.
+ * @param stateVersion         the state version of the node.
+ * @param value                the storage value of the node, or null for a branch node.
+ * @param isRoot               whether the node is the root of the trie, which affects its merkle value.
+ */
+public record PendingInsertUpdate(@Nullable byte[] newMerkleValue,
                                   List<byte[]> childrenMerkleValues,
                                   Nibbles partialKey,
                                   StateVersion stateVersion,
-                                  @Nullable byte[] value) implements PendingTrieNodeChange {
+                                  @Nullable byte[] value,
+                                  boolean isRoot) implements PendingTrieNodeChange {
+
+    /**
+     * Marks a child whose merkle value is yet to be calculated. No valid merkle value is empty, which also keeps
+     * the marker recognizable in deep copies.
+     */
+    public static final byte[] UNHASHED_CHILD = new byte[0];
 
     public PendingInsertUpdate(PendingInsertUpdate original) {
         this(
@@ -21,10 +40,26 @@ public record PendingInsertUpdate(byte[] newMerkleValue,
                 deepCopyChildrenMerkleValues(original.childrenMerkleValues),
                 original.partialKey.copy(),
                 original.stateVersion,
-                original.value != null ? original.value.clone() : null
+                original.value != null ? original.value.clone() : null,
+                original.isRoot
         );
     }
 
+    /**
+     * @return true if the merkle value of this node is yet to be calculated.
+     */
+    public boolean isUnhashed() {
+        return newMerkleValue == null;
+    }
+
+    /**
+     * @param childMerkleValue a value from {@link #childrenMerkleValues}
+     * @return true if the given child merkle value is a marker of a child which is yet to be hashed.
+     */
+    public static boolean isUnhashedChild(@Nullable byte[] childMerkleValue) {
+        return childMerkleValue != null && childMerkleValue.length == 0;
+    }
+
     private static List<byte[]> deepCopyChildrenMerkleValues(List<byte[]> original) {
         if (original == null) {
             return List.of();
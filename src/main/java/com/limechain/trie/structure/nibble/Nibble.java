@@ -3,6 +3,7 @@ package com.limechain.trie.structure.nibble;
 import com.limechain.exception.trie.NibbleFromHexDigitException;
 import com.limechain.exception.trie.NibbleFromIntegerException;
 
+import java.io.Serial;
 import java.io.Serializable;
 import java.util.Objects;
 import java.util.stream.IntStream;
@@ -27,6 +28,13 @@ public class Nibble implements Serializable {
 
     private static final int HEX_RADIX = 16;
 
+    /**
+     * Nibbles are immutable, so a single instance per value is shared
+     */
+    private static final Nibble[] VALUES = IntStream.range(0, HEX_RADIX)
+        .mapToObj(Nibble::new)
+        .toArray(Nibble[]::new);
+
     /**
      * The minimal possible Nibble, i.e. '0'
      */
@@ -69,7 +77,7 @@ public class Nibble implements Serializable {
             throw NibbleFromIntegerException.valueTooLarge(value);
         }
 
-        return new Nibble(value);
+        return VALUES[value];
     }
 
     /**
@@ -129,6 +137,11 @@ public class Nibble implements Serializable {
         return Objects.hash(value);
     }
 
+    @Serial
+    private Object readResolve() {
+        return Nibble.fromInt(value);
+    }
+
     // NOTE: Currently exists for debugging purposes only
     @Override
     public String toString() {
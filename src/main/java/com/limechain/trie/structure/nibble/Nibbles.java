@@ -1,39 +1,78 @@
 package com.limechain.trie.structure.nibble;
 
 import com.limechain.utils.StringUtils;
-import org.apache.commons.collections4.IteratorUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.Serial;
 import java.io.Serializable;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.RandomAccess;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
  * Convenience wrapper for any 'sequence of Nibble'-like structure.
  * It's immutable and its public static factory methods eagerly copy passed data (nibbles) to obtain ownership.
+ * <p>
+ * The nibbles are packed two per byte in a byte array, of which an instance is a view defined by an offset and
+ * a size (both in nibbles). Since instances are immutable, {@link #drop(int)} and {@link #take(int)} share the
+ * underlying array instead of copying it, and comparisons work directly on the packed bytes.
  */
 public class Nibbles implements Iterable<Nibble>, RandomAccess, Comparable<Iterable<Nibble>>, Serializable {
+    /**
+     * Kept equal to the one of the former list based representation, as trie nodes are persisted
+     * with java serialization and must remain readable.
+     */
+    @Serial
+    private static final long serialVersionUID = 363351456805982096L;
+
+    /**
+     * The serialized form is a list of nibbles, same as in the former list based representation.
+     */
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("entries", List.class)
+    };
+
     /**
      * A sequence of zero nibbles, i.e. empty
      */
-    public static final Nibbles EMPTY = new Nibbles(List.of());
+    public static final Nibbles EMPTY = new Nibbles(new byte[0], 0, 0);
 
     /**
      * A sequence of all nibbles in order, from 0 to F
      */
     public static final Nibbles ALL = Nibble.all().collect(NibblesCollector.toNibbles());
 
-    private final List<Nibble> entries;
+    /**
+     * Nibble at index {@code i} is held by the byte at {@code (offset + i) / 2}, in its high half if
+     * {@code offset + i} is even and in its low half otherwise.
+     */
+    private final transient byte[] packed;
+    private final transient int offset;
+    private final transient int size;
+
+    // Lazily computed, as in String
+    private transient int hash;
+
+    // Only set while deserializing, see readObject
+    private transient List<Nibble> deserializedEntries;
 
     public static Nibbles of(Nibble nibble) {
-        return Nibbles.of(List.of(nibble));
+        return new Nibbles(new byte[]{(byte) (nibble.asInt() << 4)}, 0, 1);
     }
 
     public static Nibbles of(Nibble[] nibbles) {
@@ -41,7 +80,13 @@ public class Nibbles implements Iterable<Nibble>, RandomAccess, Comparable<Itera
     }
 
     public static Nibbles of(Collection<Nibble> nibbles) {
-        return new Nibbles(new ArrayList<>(nibbles));
+        byte[] packed = new byte[(nibbles.size() + 1) / 2];
+        int index = 0;
+        for (Nibble nibble : nibbles) {
+            setNibble(packed, index++, nibble.asInt());
+        }
+
+        return new Nibbles(packed, 0, index);
     }
 
     public static Nibbles of(Stream<Nibble> nibbles) {
@@ -49,25 +94,49 @@ public class Nibbles implements Iterable<Nibble>, RandomAccess, Comparable<Itera
     }
 
     public static Nibbles of(Iterable<Nibble> nibbles) {
-        return Nibbles.of(nibbles.iterator());
+        return nibbles instanceof Collection<Nibble> collection
+            ? Nibbles.of(collection)
+            : Nibbles.of(nibbles.iterator());
     }
 
     public static Nibbles of(Iterator<Nibble> nibbles) {
-        return new Nibbles(IteratorUtils.toList(nibbles));
+        byte[] packed = new byte[8];
+        int index = 0;
+        while (nibbles.hasNext()) {
+            if (index / 2 == packed.length) {
+                packed = Arrays.copyOf(packed, packed.length * 2);
+            }
+            setNibble(packed, index++, nibbles.next().asInt());
+        }
+
+        return new Nibbles(packed, 0, index);
     }
 
     /**
-     * Creates Nibbles from a given byte array by using the {@link BytesToNibbles} iterator.
+     * Creates Nibbles from a given byte array, each byte being split into its high and low nibble, in that order.
      *
      * @param bytes arrays of bytes to convert
      * @return Nibbles representation
      */
     public static Nibbles fromBytes(byte[] bytes) {
-        return Nibbles.of(new BytesToNibbles(bytes));
+        return new Nibbles(bytes.clone(), 0, bytes.length * 2);
+    }
+
+    /**
+     * Creates Nibbles from a copy of the bytes of a given memory segment,
+     * each byte being split into its high and low nibble, in that order.
+     *
+     * @param bytes segment of bytes to convert
+     * @return Nibbles representation
+     */
+    public static Nibbles fromBytes(MemorySegment bytes) {
+        return new Nibbles(bytes.toArray(ValueLayout.JAVA_BYTE), 0, Math.toIntExact(bytes.byteSize() * 2));
     }
 
-    Nibbles(List<Nibble> entries) {
-        this.entries = entries;
+    private Nibbles(byte[] packed, int offset, int size) {
+        this.packed = packed;
+        this.offset = offset;
+        this.size = size;
     }
 
     /**
@@ -75,31 +144,81 @@ public class Nibbles implements Iterable<Nibble>, RandomAccess, Comparable<Itera
      * The capitalization of the characters doesn't matter.
      */
     public static Nibbles fromHexString(String hex) {
-        return StringUtils.remove0xPrefix(hex)
-            .chars()
-            .mapToObj(c -> Nibble.fromAsciiHexDigit((char) c))
-            .collect(NibblesCollector.toNibbles());
+        String digits = StringUtils.remove0xPrefix(hex);
+        byte[] packed = new byte[(digits.length() + 1) / 2];
+        for (int i = 0; i < digits.length(); i++) {
+            setNibble(packed, i, Nibble.fromAsciiHexDigit(digits.charAt(i)).asInt());
+        }
+
+        return new Nibbles(packed, 0, digits.length());
     }
 
     /**
      * Whether this nibbles starts with the given prefix.
      */
     public boolean startsWith(Nibbles prefix) {
-        final int thisSize = this.size();
-        final int prefixSize = prefix.size();
+        return prefix.size <= this.size && commonPrefixLength(prefix) == prefix.size;
+    }
+
+    /**
+     * Counts the leading nibbles this and the other Nibbles have in common.
+     * Whole bytes are compared at once when both views are aligned the same way.
+     *
+     * @param other the Nibbles to compare with
+     * @return the length of the longest common prefix
+     */
+    public int commonPrefixLength(Nibbles other) {
+        final int maxLength = Math.min(this.size, other.size);
+        int index = 0;
+
+        if (((this.offset ^ other.offset) & 1) == 0) {
+            if ((this.offset & 1) == 1 && maxLength > 0) {
+                if (this.nibbleAt(0) != other.nibbleAt(0)) {
+                    return 0;
+                }
+                index = 1;
+            }
+
+            int thisFrom = (this.offset + index) >> 1;
+            int otherFrom = (other.offset + index) >> 1;
+            int wholeBytes = (maxLength - index) / 2;
+            int mismatch = Arrays.mismatch(
+                this.packed, thisFrom, thisFrom + wholeBytes,
+                other.packed, otherFrom, otherFrom + wholeBytes);
+
+            // The nibbles of a mismatching byte are compared one by one below
+            index += (mismatch == -1 ? wholeBytes : mismatch) * 2;
+        }
 
-        if (prefixSize > thisSize) {
-            return false;
+        while (index < maxLength && this.nibbleAt(index) == other.nibbleAt(index)) {
+            index++;
         }
 
-        return prefix.entries.equals(this.entries.subList(0, prefixSize));
+        return index;
     }
 
     /**
      * @return the lower hexadecimal string representation of this Nibbles
      */
     public String toLowerHexString() {
-        return NibblesUtils.toLowerHexString(this.entries);
+        char[] digits = new char[size];
+        for (int i = 0; i < size; i++) {
+            digits[i] = Character.forDigit(nibbleAt(i), 16);
+        }
+
+        return new String(digits);
+    }
+
+    /**
+     * Packs the nibbles two per byte, in order. If the number of nibbles is odd, a zero nibble is appended.
+     * Inverse of {@link #fromBytes(byte[])} followed by {@link #take(int)} with the original size.
+     *
+     * @return a new byte array holding the packed nibbles
+     */
+    public byte[] toPackedBytes() {
+        byte[] bytes = new byte[(size + 1) / 2];
+        copyTo(bytes, 0);
+        return bytes;
     }
 
     /**
@@ -109,9 +228,10 @@ public class Nibbles implements Iterable<Nibble>, RandomAccess, Comparable<Itera
      * @implNote will create a new modified copy of the nibbles, does not mutate the instance invoked on
      */
     public Nibbles add(Nibble nibble) {
-        List<Nibble> newNibbles = new ArrayList<>(this.entries);
-        newNibbles.add(nibble);
-        return new Nibbles(newNibbles);
+        byte[] newPacked = new byte[(size + 2) / 2];
+        copyTo(newPacked, 0);
+        setNibble(newPacked, size, nibble.asInt());
+        return new Nibbles(newPacked, 0, size + 1);
     }
 
     /**
@@ -121,9 +241,13 @@ public class Nibbles implements Iterable<Nibble>, RandomAccess, Comparable<Itera
      * @implNote will create a new modified copy of the nibbles, does not mutate the instance invoked on
      */
     public Nibbles add(int index, Nibble nibble) {
-        List<Nibble> newNibbles = new ArrayList<>(this.entries);
-        newNibbles.add(index, nibble);
-        return new Nibbles(newNibbles);
+        Objects.checkIndex(index, size + 1);
+
+        byte[] newPacked = new byte[(size + 2) / 2];
+        take(index).copyTo(newPacked, 0);
+        setNibble(newPacked, index, nibble.asInt());
+        drop(index).copyTo(newPacked, index + 1);
+        return new Nibbles(newPacked, 0, size + 1);
     }
 
     /**
@@ -134,9 +258,17 @@ public class Nibbles implements Iterable<Nibble>, RandomAccess, Comparable<Itera
      * @implNote will create a new modified copy of the nibbles, does not mutate the instance invoked on
      */
     public Nibbles addAll(Nibbles other) {
-        List<Nibble> concatenatedList = new ArrayList<>(this.entries);
-        concatenatedList.addAll(other.entries);
-        return new Nibbles(concatenatedList);
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return other;
+        }
+
+        byte[] newPacked = new byte[(size + other.size + 1) / 2];
+        this.copyTo(newPacked, 0);
+        other.copyTo(newPacked, size);
+        return new Nibbles(newPacked, 0, size + other.size);
     }
 
     /**
@@ -148,43 +280,53 @@ public class Nibbles implements Iterable<Nibble>, RandomAccess, Comparable<Itera
      *         ({@code index < 0 || index >= size()})
      */
     public Nibble get(int index) {
-        return entries.get(index);
+        Objects.checkIndex(index, size);
+        return Nibble.fromInt(nibbleAt(index));
     }
 
     // NOTE:
     //  Since Nibbles is immutable, we don't actually need to explicitly copy. Passing by reference suffices.
-    //  This method would've been removed during refactoring to immutability, but we've left it out as a clear marker
-    //  of where ownership changes occur, so that if one day efficiency becomes a problem and we want to refactor again
-    //  in favor of mutability, we won't have to deduce our way back the hard way.
+    //  However, slices share the packed array of the Nibbles they were taken from, so a small slice can keep a much
+    //  larger array alive. Copying at the points where ownership changes (e.g. when a key is stored in a cache)
+    //  trims the array to just the nibbles of the view.
     /**
-     * Since {@link Nibbles} is immutable, returns {@code this}.
-     * Exists only as a marker for copying in order to trace ownership more explicitly.
-     * @return this
+     * Returns a Nibbles which owns a packed array holding exactly its nibbles,
+     * which is {@code this} unless this is a slice of a larger array.
+     * Also serves as a marker for copying in order to trace ownership more explicitly.
+     * @return a compact equivalent of this
      */
     public Nibbles copy() {
-        return this;
+        if (offset == 0 && packed.length == (size + 1) / 2) {
+            return this;
+        }
+
+        byte[] newPacked = new byte[(size + 1) / 2];
+        copyTo(newPacked, 0);
+        return new Nibbles(newPacked, 0, size);
     }
 
     /**
      * Drops a number of nibbles from the beginning
      * @param n the number of nibbles to skip
-     * @return a new Nibbles without the first n leading nibbles
+     * @return a new Nibbles without the first n leading nibbles, sharing the data of this one
      * @throws IndexOutOfBoundsException if
      *         ({@code n < 0 || n > size})
      */
     public Nibbles drop(int n) {
-        return Nibbles.of(this.entries.subList(n, this.entries.size()));
+        Objects.checkFromToIndex(n, size, size);
+        return n == 0 ? this : new Nibbles(packed, offset + n, size - n);
     }
 
     /**
      * Takes only the first n nibbles from the beginning.
      * @param n the number of nibbles to take
-     * @return a new Nibbles limited to only the first n leading nibbles
+     * @return a new Nibbles limited to only the first n leading nibbles, sharing the data of this one
      * @throws IndexOutOfBoundsException if
      *         ({@code n < 0 || n > size})
      */
     public Nibbles take(int n) {
-        return Nibbles.of(this.entries.subList(0, n));
+        Objects.checkFromToIndex(0, n, size);
+        return n == size ? this : new Nibbles(packed, offset, n);
     }
 
     /**
@@ -195,39 +337,72 @@ public class Nibbles implements Iterable<Nibble>, RandomAccess, Comparable<Itera
      * @return the number of elements in this Nibbles
      */
     public int size() {
-        return entries.size();
+        return size;
     }
 
     /**
      * @return true if this Nibbles contains no elements
      */
     public boolean isEmpty() {
-        return entries.isEmpty();
+        return size == 0;
     }
 
     /**
      * @return an unmodifiable view of the underlying list of nibbles
      */
     public List<Nibble> asUnmodifiableList() {
-        return Collections.unmodifiableList(this.entries);
+        return new NibblesListView(this);
     }
 
     /**
      * @return a stream of the contained nibbles
      */
     public Stream<Nibble> stream() {
-        return entries.stream();
+        return IntStream.range(0, size).mapToObj(this::get);
     }
 
     @NotNull
     public Iterator<Nibble> iterator() {
-        return entries.iterator();
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Nibble next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more nibbles to iterate.");
+                }
+                return Nibble.fromInt(nibbleAt(index++));
+            }
+        };
     }
 
     @Override
     public int compareTo(@NotNull Iterable<Nibble> o) {
-        // NOTE: Could be made more efficient by avoiding the string serialization, if it ever becomes an issue.
-        return this.toLowerHexString().compareTo(NibblesUtils.toLowerHexString(o));
+        if (o instanceof Nibbles other) {
+            int commonPrefixLength = commonPrefixLength(other);
+            if (commonPrefixLength == this.size || commonPrefixLength == other.size) {
+                return Integer.compare(this.size, other.size);
+            }
+            return Integer.compare(this.nibbleAt(commonPrefixLength), other.nibbleAt(commonPrefixLength));
+        }
+
+        Iterator<Nibble> otherIterator = o.iterator();
+        for (int i = 0; i < size; i++) {
+            if (!otherIterator.hasNext()) {
+                return 1;
+            }
+            int comparison = Integer.compare(nibbleAt(i), otherIterator.next().asInt());
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+
+        return otherIterator.hasNext() ? -1 : 0;
     }
 
     @Override
@@ -240,11 +415,91 @@ public class Nibbles implements Iterable<Nibble>, RandomAccess, Comparable<Itera
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Nibbles nibbles1 = (Nibbles) o;
-        return this.entries.equals(nibbles1.entries);
+        return this.size == nibbles1.size && commonPrefixLength(nibbles1) == size;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.entries);
+        int h = hash;
+        if (h == 0 && size > 0) {
+            h = 1;
+            for (int i = 0; i < size; i++) {
+                h = 31 * h + nibbleAt(i);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    private int nibbleAt(int index) {
+        int position = offset + index;
+        byte b = packed[position >> 1];
+        return (position & 1) == 0 ? (b >> 4) & 0x0F : b & 0x0F;
+    }
+
+    private static void setNibble(byte[] packed, int position, int value) {
+        int byteIndex = position >> 1;
+        packed[byteIndex] = (position & 1) == 0
+            ? (byte) ((packed[byteIndex] & 0x0F) | (value << 4))
+            : (byte) ((packed[byteIndex] & 0xF0) | value);
+    }
+
+    /**
+     * Writes the nibbles of this view into the destination array, starting at the given nibble position.
+     */
+    private void copyTo(byte[] destination, int position) {
+        int index = 0;
+
+        if (((offset ^ position) & 1) == 0) {
+            // Same alignment, so whole bytes can be copied at once
+            if ((offset & 1) == 1 && size > 0) {
+                setNibble(destination, position, nibbleAt(0));
+                index = 1;
+            }
+
+            int wholeBytes = (size - index) / 2;
+            System.arraycopy(packed, (offset + index) >> 1, destination, (position + index) >> 1, wholeBytes);
+            index += wholeBytes * 2;
+        }
+
+        for (; index < size; index++) {
+            setNibble(destination, position + index, nibbleAt(index));
+        }
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("entries", new ArrayList<>(asUnmodifiableList()));
+        out.writeFields();
+    }
+
+    @Serial
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        deserializedEntries = (List<Nibble>) in.readFields().get("entries", null);
+    }
+
+    @Serial
+    private Object readResolve() {
+        return Nibbles.of(deserializedEntries);
+    }
+
+    private static final class NibblesListView extends AbstractList<Nibble> implements RandomAccess {
+        private final Nibbles nibbles;
+
+        private NibblesListView(Nibbles nibbles) {
+            this.nibbles = nibbles;
+        }
+
+        @Override
+        public Nibble get(int index) {
+            return nibbles.get(index);
+        }
+
+        @Override
+        public int size() {
+            return nibbles.size();
+        }
     }
 }
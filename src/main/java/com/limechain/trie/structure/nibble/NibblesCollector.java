@@ -1,6 +1,6 @@
 package com.limechain.trie.structure.nibble;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.function.BiConsumer;
@@ -16,7 +16,7 @@ public class NibblesCollector implements Collector<Nibble, List<Nibble>, Nibbles
 
     @Override
     public Supplier<List<Nibble>> supplier() {
-        return LinkedList::new;
+        return ArrayList::new;
     }
 
     @Override
@@ -34,7 +34,7 @@ public class NibblesCollector implements Collector<Nibble, List<Nibble>, Nibbles
 
     @Override
     public Function<List<Nibble>, Nibbles> finisher() {
-        return Nibbles::new;
+        return Nibbles::of;
     }
 
     @Override
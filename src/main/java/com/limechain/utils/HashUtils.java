@@ -8,6 +8,7 @@ import org.bouncycastle.jcajce.provider.digest.Keccak;
 import org.bouncycastle.jcajce.provider.digest.SHA256;
 import org.web3j.crypto.Hash;
 
+import java.lang.foreign.MemorySegment;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -17,6 +18,11 @@ public class HashUtils {
     public static final int HASH_128_SIZE_BYTES = 16;
     public static final int HASH_64_SIZE_BYTES = 8;
 
+    // Creating an xxHash function allocates, so the ones for the seeds used by the twox hashes are created once
+    private static final LongHashFunction[] XX_HASH_FUNCTIONS = {
+            LongHashFunction.xx(0), LongHashFunction.xx(1), LongHashFunction.xx(2), LongHashFunction.xx(3)
+    };
+
     /**
      * Conducts a 256-bit Blake2b hash.
      * @param input the data to be hashed.
@@ -92,16 +98,17 @@ public class HashUtils {
      * @return byte array containing the 64-bit hash result.
      */
     public static byte[] hashXx64(int seed, byte[] dataToHash) {
-        final long xxHash = LongHashFunction
-                .xx(seed)
-                .hashBytes(dataToHash);
-
-        final ByteBuffer buffer = ByteBuffer
-                .allocate(HASH_64_SIZE_BYTES)
-                .order(ByteOrder.LITTLE_ENDIAN)
-                .putLong(xxHash);
+        return hashXx(seed, HASH_64_SIZE_BYTES, ByteBuffer.wrap(dataToHash));
+    }
 
-        return buffer.array();
+    /**
+     * Conducts a 64-bit xxHash hash, reading the data in place.
+     * @param seed the seed to use for the hash. Default 0.
+     * @param dataToHash the data to be hashed.
+     * @return byte array containing the 64-bit hash result.
+     */
+    public static byte[] hashXx64(int seed, MemorySegment dataToHash) {
+        return hashXx(seed, HASH_64_SIZE_BYTES, dataToHash.asByteBuffer());
     }
 
     /**
@@ -111,14 +118,17 @@ public class HashUtils {
      * @return byte array containing the 128-bit hash result.
      */
     public static byte[] hashXx128(int seed, byte[] dataToHash) {
-        byte[] hash0 = hashXx64(seed, dataToHash);
-        byte[] hash1 = hashXx64(seed + 1, dataToHash);
-
-        ByteBuffer buffer = ByteBuffer.allocate(HASH_128_SIZE_BYTES);
-        buffer.put(hash0);
-        buffer.put(hash1);
+        return hashXx(seed, HASH_128_SIZE_BYTES, ByteBuffer.wrap(dataToHash));
+    }
 
-        return buffer.array();
+    /**
+     * Conducts a 128-bit xxHash hash, reading the data in place.
+     * @param seed the seed to use for the hash. Default 0.
+     * @param dataToHash the data to be hashed.
+     * @return byte array containing the 128-bit hash result.
+     */
+    public static byte[] hashXx128(int seed, MemorySegment dataToHash) {
+        return hashXx(seed, HASH_128_SIZE_BYTES, dataToHash.asByteBuffer());
     }
 
     /**
@@ -128,17 +138,39 @@ public class HashUtils {
      * @return byte array containing the 256-bit hash result.
      */
     public static byte[] hashXx256(int seed, byte[] dataToHash) {
-        byte[] hash0 = hashXx64(seed, dataToHash);
-        byte[] hash1 = hashXx64(seed + 1, dataToHash);
-        byte[] hash2 = hashXx64(seed + 2, dataToHash);
-        byte[] hash3 = hashXx64(seed + 3, dataToHash);
-
-        ByteBuffer buffer = ByteBuffer.allocate(Hash256.SIZE_BYTES);
-        buffer.put(hash0);
-        buffer.put(hash1);
-        buffer.put(hash2);
-        buffer.put(hash3);
-
-        return buffer.array();
+        return hashXx(seed, Hash256.SIZE_BYTES, ByteBuffer.wrap(dataToHash));
+    }
+
+    /**
+     * Conducts a 256-bit xxHash hash, reading the data in place.
+     * @param seed the seed to use for the hash. Default 0.
+     * @param dataToHash the data to be hashed.
+     * @return byte array containing the 256-bit hash result.
+     */
+    public static byte[] hashXx256(int seed, MemorySegment dataToHash) {
+        return hashXx(seed, Hash256.SIZE_BYTES, dataToHash.asByteBuffer());
+    }
+
+    /**
+     * Gets the 64-bit xxHash function for a seed. The functions for the seeds 0 to 3, covering a 256-bit hash
+     * with seed 0, are shared.
+     * @param seed the seed of the hash function.
+     * @return the hash function.
+     */
+    public static LongHashFunction xxHash64Function(int seed) {
+        return seed >= 0 && seed < XX_HASH_FUNCTIONS.length ? XX_HASH_FUNCTIONS[seed] : LongHashFunction.xx(seed);
+    }
+
+    /**
+     * Concatenates the little endian 64-bit xxHash hashes of the data, using consecutive seeds.
+     */
+    private static byte[] hashXx(int seed, int sizeBytes, ByteBuffer dataToHash) {
+        ByteBuffer hash = ByteBuffer.allocate(sizeBytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < sizeBytes / HASH_64_SIZE_BYTES; i++) {
+            // Hashing a buffer doesn't move its position, so it can be hashed repeatedly
+            hash.putLong(xxHash64Function(seed + i).hashBytes(dataToHash));
+        }
+
+        return hash.array();
     }
 }
@@ -1,6 +1,8 @@
 package com.limechain.cli;
 
+import com.limechain.exception.misc.CliArgsParseException;
 import com.limechain.storage.DBInitializer;
+import com.limechain.storage.trie.PruningMode;
 import org.apache.commons.cli.Options;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -91,6 +93,24 @@ class CliTest {
         assertEquals(DBInitializer.DEFAULT_DIRECTORY, arguments.dbPath());
     }
 
+    @Test
+    void parseArgs_returns_archiveStatePruningByDefault() {
+        CliArguments arguments = cli.parseArgs(new String[]{});
+        assertEquals(PruningMode.ARCHIVE, arguments.statePruning());
+    }
+
+    @Test
+    void parseArgs_returns_statePruningParameter() {
+        CliArguments arguments = cli.parseArgs(new String[]{"--state-pruning", "256"});
+        assertEquals(new PruningMode(256), arguments.statePruning());
+    }
+
+    @Test
+    void parseArgs_throws_whenStatePruningIsNotPositive() {
+        assertThrows(CliArgsParseException.class, () -> cli.parseArgs(new String[]{"--state-pruning", "0"}));
+        assertThrows(CliArgsParseException.class, () -> cli.parseArgs(new String[]{"--state-pruning", "-1"}));
+    }
+
     @Test
     void parseArgs_throws_whenInvalidArguments() {
 
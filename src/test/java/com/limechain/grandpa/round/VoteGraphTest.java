@@ -0,0 +1,147 @@
+package com.limechain.grandpa.round;
+
+import com.limechain.grandpa.vote.Vote;
+import com.limechain.network.protocol.warp.dto.BlockHeader;
+import io.emeraldpay.polkaj.types.Hash256;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VoteGraphTest {
+
+    private static final BigInteger THRESHOLD = BigInteger.valueOf(3);
+    private static final Function<BigInteger, Boolean> SUPERMAJORITY = weight -> weight.compareTo(THRESHOLD) >= 0;
+
+    // base <- b1 <- b2 <- b3 <- b4
+    //                  \- c3
+    private final Map<Hash256, BlockHeader> headers = new HashMap<>();
+    private final Hash256 base = hash(0);
+    private final Hash256 b1 = hash(1);
+    private final Hash256 b2 = hash(2);
+    private final Hash256 b3 = hash(3);
+    private final Hash256 b4 = hash(4);
+    private final Hash256 c3 = hash(13);
+
+    private VoteGraph voteGraph;
+
+    @BeforeEach
+    void setup() {
+        addHeader(b1, base, 1);
+        addHeader(b2, b1, 2);
+        addHeader(b3, b2, 3);
+        addHeader(b4, b3, 4);
+        addHeader(c3, b2, 3);
+        voteGraph = new VoteGraph(base, BigInteger.ZERO, headers::get);
+    }
+
+    @Test
+    void addVote_addsWeightToAncestors() {
+        voteGraph.addVote(hash(100), vote(b4, 4), BigInteger.ONE);
+        voteGraph.addVote(hash(101), vote(c3, 3), BigInteger.TWO);
+
+        assertEquals(BigInteger.ONE, voteGraph.getWeight(b4));
+        assertEquals(BigInteger.ONE, voteGraph.getWeight(b3));
+        assertEquals(BigInteger.TWO, voteGraph.getWeight(c3));
+        assertEquals(BigInteger.valueOf(3), voteGraph.getWeight(b2));
+        assertEquals(BigInteger.valueOf(3), voteGraph.getWeight(base));
+        assertEquals(BigInteger.valueOf(3), voteGraph.getTotalWeight());
+    }
+
+    @Test
+    void findGhost_walksDownFromPreviousResult() {
+        voteGraph.addVote(hash(100), vote(b3, 3), BigInteger.ONE);
+        voteGraph.addVote(hash(101), vote(b4, 4), BigInteger.ONE);
+        voteGraph.addVote(hash(102), vote(c3, 3), BigInteger.ONE);
+
+        Vote ghost = voteGraph.findGhost(null, SUPERMAJORITY);
+        assertEquals(b2, ghost.getBlockHash());
+
+        voteGraph.addVote(hash(103), vote(b4, 4), BigInteger.ONE);
+        voteGraph.addVote(hash(104), vote(b4, 4), BigInteger.ONE);
+
+        assertEquals(b4, voteGraph.findGhost(ghost.getBlockHash(), SUPERMAJORITY).getBlockHash());
+    }
+
+    @Test
+    void findGhost_returnsNullBelowThreshold() {
+        voteGraph.addVote(hash(100), vote(b4, 4), BigInteger.TWO);
+
+        assertNull(voteGraph.findGhost(null, SUPERMAJORITY));
+    }
+
+    @Test
+    void addEquivocator_countsWeightForEveryVotedBlock() {
+        voteGraph.addVote(hash(100), vote(b4, 4), BigInteger.ONE);
+        voteGraph.addVote(hash(101), vote(b4, 4), BigInteger.ONE);
+        voteGraph.addVote(hash(102), vote(c3, 3), BigInteger.ONE);
+        voteGraph.addVote(hash(102), vote(b3, 3), BigInteger.ONE);
+
+        assertEquals(BigInteger.ONE, voteGraph.getEquivocatorWeight());
+        assertEquals(BigInteger.valueOf(3), voteGraph.getTotalWeight());
+        assertEquals(BigInteger.valueOf(3), voteGraph.getWeight(b4));
+        assertEquals(BigInteger.ZERO, voteGraph.getWeight(c3));
+        assertEquals(b4, voteGraph.findGhost(null, SUPERMAJORITY).getBlockHash());
+    }
+
+    @Test
+    void findGhost_walksDownFromBaseOnceThereAreEquivocators() {
+        voteGraph.addVote(hash(100), vote(b3, 3), BigInteger.TWO);
+        voteGraph.addVote(hash(101), vote(b3, 3), BigInteger.ONE);
+        voteGraph.addVote(hash(102), vote(c3, 3), BigInteger.TWO);
+
+        Vote ghost = voteGraph.findGhost(null, SUPERMAJORITY);
+        assertEquals(b3, ghost.getBlockHash());
+
+        // The previous GHOST still satisfies the threshold, but its sibling is heavier now
+        voteGraph.addEquivocator(hash(100), BigInteger.TWO);
+
+        assertEquals(c3, voteGraph.findGhost(ghost.getBlockHash(), SUPERMAJORITY).getBlockHash());
+    }
+
+    @Test
+    void findAncestor_findsHighestAncestorSatisfyingCondition() {
+        voteGraph.addVote(hash(100), vote(b2, 2), BigInteger.TWO);
+        voteGraph.addVote(hash(101), vote(b3, 3), BigInteger.ONE);
+
+        assertEquals(b2, voteGraph.findAncestor(b4, SUPERMAJORITY).getBlockHash());
+        assertEquals(b2, voteGraph.findAncestor(c3, SUPERMAJORITY).getBlockHash());
+        assertNull(voteGraph.findAncestor(b4, weight -> weight.compareTo(BigInteger.TEN) >= 0));
+    }
+
+    @Test
+    void addVote_placesVoteOnceBlockIsKnown() {
+        Hash256 b5 = hash(5);
+        voteGraph.addVote(hash(100), vote(b5, 5), BigInteger.valueOf(3));
+
+        assertEquals(BigInteger.valueOf(3), voteGraph.getTotalWeight());
+        assertNull(voteGraph.findGhost(null, SUPERMAJORITY));
+
+        addHeader(b5, b4, 5);
+
+        assertEquals(b5, voteGraph.findGhost(null, SUPERMAJORITY).getBlockHash());
+    }
+
+    private void addHeader(Hash256 hash, Hash256 parent, long number) {
+        BlockHeader header = new BlockHeader();
+        header.setParentHash(parent);
+        header.setBlockNumber(BigInteger.valueOf(number));
+        headers.put(hash, header);
+    }
+
+    private static Vote vote(Hash256 hash, long number) {
+        return new Vote(hash, BigInteger.valueOf(number));
+    }
+
+    private static Hash256 hash(int seed) {
+        byte[] bytes = new byte[32];
+        bytes[0] = (byte) seed;
+        return new Hash256(bytes);
+    }
+}
@@ -12,6 +12,7 @@ import java.util.Arrays;
 import java.util.Comparator;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -123,4 +124,65 @@ class TransactionStateTest {
         boolean result = sut.shouldAddToQueue(validTransaction);
         assertFalse(result);
     }
+
+    @Test
+    void testShouldAddToQueue_ComparesTagsByContent() {
+        TransactionValidity validity1 = new TransactionValidity(
+                BigInteger.TEN, null, new byte[][]{"tag1".getBytes()}, BigInteger.ZERO, true);
+        sut.pushTransaction(new ValidTransaction(new Extrinsic(new byte[]{1}), validity1));
+
+        TransactionValidity validity2 = new TransactionValidity(
+                BigInteger.ONE, new byte[][]{"tag1".getBytes()}, null, BigInteger.ZERO, true);
+        ValidTransaction validTransaction = new ValidTransaction(new Extrinsic(new byte[]{2}), validity2);
+
+        assertTrue(sut.shouldAddToQueue(validTransaction));
+    }
+
+    @Test
+    void testPushTransaction_PromotesPooledTransactionsWithProvidedTags() {
+        ValidTransaction dependant = new ValidTransaction(new Extrinsic(new byte[]{2}), new TransactionValidity(
+                BigInteger.TEN, new byte[][]{TAG_2}, new byte[][]{}, BigInteger.ZERO, true));
+        ValidTransaction middle = new ValidTransaction(new Extrinsic(new byte[]{1}), new TransactionValidity(
+                BigInteger.ONE, new byte[][]{TAG_1}, new byte[][]{TAG_2}, BigInteger.ZERO, true));
+        sut.addToPool(dependant);
+        sut.addToPool(middle);
+
+        ValidTransaction provider = new ValidTransaction(new Extrinsic(new byte[]{0}), new TransactionValidity(
+                BigInteger.ONE, new byte[][]{}, new byte[][]{TAG_1}, BigInteger.ZERO, true));
+        sut.pushTransaction(provider);
+
+        assertEquals(0, sut.pendingInPool().length);
+        assertTrue(sut.existsInQueue(middle.getExtrinsic()));
+        assertTrue(sut.existsInQueue(dependant.getExtrinsic()));
+        assertEquals(dependant, sut.pollTransaction());
+    }
+
+    @Test
+    void testPollTransaction_ReturnsHighestPriorityFirst() {
+        for (int priority : new int[]{3, 7, 1, 7, 5}) {
+            sut.pushTransaction(new ValidTransaction(new Extrinsic(new byte[]{(byte) sut.pending().length}),
+                    new TransactionValidity(BigInteger.valueOf(priority), null, null, BigInteger.ZERO, true)));
+        }
+
+        assertEquals(new Extrinsic(new byte[]{1}), sut.pollTransaction().getExtrinsic());
+        assertEquals(new Extrinsic(new byte[]{3}), sut.pollTransaction().getExtrinsic());
+        assertEquals(BigInteger.valueOf(5), sut.pollTransaction().getTransactionValidity().getPriority());
+        assertEquals(BigInteger.valueOf(3), sut.pollTransaction().getTransactionValidity().getPriority());
+        assertEquals(BigInteger.ONE, sut.pollTransaction().getTransactionValidity().getPriority());
+        assertNull(sut.pollTransaction());
+    }
+
+    @Test
+    void testRemoveExtrinsic_RemovesProvidedTags() {
+        ValidTransaction provider = new ValidTransaction(new Extrinsic(new byte[]{0}), new TransactionValidity(
+                BigInteger.ONE, null, new byte[][]{TAG_1}, BigInteger.ZERO, true));
+        sut.pushTransaction(provider);
+        sut.removeExtrinsic(provider.getExtrinsic());
+
+        ValidTransaction dependant = new ValidTransaction(new Extrinsic(new byte[]{1}), new TransactionValidity(
+                BigInteger.ONE, new byte[][]{TAG_1}, null, BigInteger.ZERO, true));
+
+        assertFalse(sut.existsInQueue(provider.getExtrinsic()));
+        assertFalse(sut.shouldAddToQueue(dependant));
+    }
 }
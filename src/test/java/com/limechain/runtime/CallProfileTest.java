@@ -0,0 +1,96 @@
+package com.limechain.runtime;
+
+import com.limechain.runtime.hostapi.Endpoint;
+import com.limechain.runtime.hostapi.HostFunction;
+import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
+import com.limechain.runtime.memory.Memory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class CallProfileTest {
+    private static final RuntimePointerSize INPUT = new RuntimePointerSize(0, 32);
+    private static final RuntimePointerSize OUTPUT = new RuntimePointerSize(64, 16);
+
+    private RuntimeProfiler profiler;
+    private CallProfile callProfile;
+    private SharedMemory sharedMemory;
+
+    @BeforeEach
+    void setup() {
+        profiler = new RuntimeProfiler(true);
+        callProfile = new CallProfile(profiler);
+        sharedMemory = new SharedMemory(mock(Memory.class), null);
+    }
+
+    @Test
+    void completeShouldRecordHostFunctionCallsAndBytes() {
+        HostFunction.Implementation implementation = instrument(Endpoint.ext_storage_get_version_1, argv -> {
+            sharedMemory.readData(INPUT);
+            sharedMemory.writeData(new byte[OUTPUT.size()], OUTPUT);
+            return 7;
+        });
+
+        assertEquals(7, implementation.invoke(new long[1]));
+        assertEquals(7, implementation.invoke(new long[1]));
+        callProfile.complete(RuntimeEndpoint.CORE_EXECUTE_BLOCK, 1000, 100, 10);
+
+        RuntimeProfiler.Totals hostFunction = profiler.hostFunctionTotals().get(Endpoint.ext_storage_get_version_1);
+        assertEquals(2, hostFunction.calls());
+        assertEquals(2L * INPUT.size(), hostFunction.bytesRead());
+        assertEquals(2L * OUTPUT.size(), hostFunction.bytesWritten());
+        assertTrue(hostFunction.nanos() >= 0);
+
+        RuntimeProfiler.Totals runtimeCall = profiler.runtimeCallTotals()
+                .get(RuntimeEndpoint.CORE_EXECUTE_BLOCK.getName());
+        assertEquals(new RuntimeProfiler.Totals(1, 1000, 10, 100), runtimeCall);
+    }
+
+    @Test
+    void completeShouldClearTheProfileForTheNextCall() {
+        HostFunction.Implementation implementation = instrument(Endpoint.ext_storage_get_version_1, argv -> 0);
+
+        implementation.invoke(new long[1]);
+        callProfile.complete(RuntimeEndpoint.CORE_VERSION, 1, 0, 0);
+        callProfile.complete(RuntimeEndpoint.CORE_VERSION, 1, 0, 0);
+
+        assertEquals(1, profiler.hostFunctionTotals().get(Endpoint.ext_storage_get_version_1).calls());
+        assertEquals(2, profiler.runtimeCallTotals().get(RuntimeEndpoint.CORE_VERSION.getName()).calls());
+        assertEquals("", callProfile.summary(5));
+    }
+
+    @Test
+    void instrumentedHostFunctionShouldBeRecordedWhenItThrows() {
+        HostFunction.Implementation implementation = instrument(Endpoint.ext_storage_get_version_1, argv -> {
+            throw new IllegalStateException();
+        });
+
+        assertThrows(IllegalStateException.class, () -> implementation.invoke(new long[1]));
+
+        assertTrue(callProfile.summary(5).startsWith("ext_storage_get_version_1=1x/"));
+    }
+
+    @Test
+    void totalsShouldOnlyContainCalledFunctions() {
+        instrument(Endpoint.ext_storage_get_version_1, argv -> 0);
+        callProfile.complete(RuntimeEndpoint.CORE_VERSION, 1, 0, 0);
+
+        Map<Endpoint, RuntimeProfiler.Totals> hostFunctionTotals = profiler.hostFunctionTotals();
+        assertFalse(hostFunctionTotals.containsKey(Endpoint.ext_storage_get_version_1));
+        assertEquals(1, profiler.runtimeCallTotals().size());
+    }
+
+    private HostFunction.Implementation instrument(Endpoint endpoint, HostFunction.Implementation implementation) {
+        List<HostFunction> instrumented = callProfile.instrument(
+                List.of(new HostFunction(endpoint, implementation)), sharedMemory);
+        return instrumented.getFirst().implementation();
+    }
+}
@@ -0,0 +1,178 @@
+package com.limechain.runtime;
+
+import com.limechain.runtime.engine.WasmModule;
+import com.limechain.utils.HashUtils;
+import io.emeraldpay.polkaj.types.Hash256;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class CompiledModuleCacheTest {
+
+    @Test
+    void getOrCompile_compilesOncePerCodeHash() {
+        CompiledModuleCache cache = new CompiledModuleCache();
+        AtomicInteger compilations = new AtomicInteger();
+        BiFunction<Hash256, byte[], CompiledModuleCache.CompiledModule> compiler = (hash, code) -> {
+            compilations.incrementAndGet();
+            return new CompiledModuleCache.CompiledModule(mock(WasmModule.class), null, null);
+        };
+
+        CompiledModuleCache.CompiledModule first = cache.getOrCompile(new byte[]{1, 2, 3}, compiler);
+        CompiledModuleCache.CompiledModule second = cache.getOrCompile(new byte[]{1, 2, 3}, compiler);
+
+        assertSame(first, second);
+        assertEquals(1, compilations.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void getOrCompile_evictsAndClosesLeastRecentlyUsed() {
+        CompiledModuleCache cache = new CompiledModuleCache(2);
+        WasmModule firstModule = mock(WasmModule.class);
+        WasmModule secondModule = mock(WasmModule.class);
+        WasmModule thirdModule = mock(WasmModule.class);
+
+        byte[] firstCode = {1};
+        byte[] secondCode = {2};
+        cache.getOrCompile(firstCode, (hash, code) -> new CompiledModuleCache.CompiledModule(firstModule, null, null))
+                .release();
+        cache.getOrCompile(secondCode, (hash, code) -> new CompiledModuleCache.CompiledModule(secondModule, null, null))
+                .release();
+
+        // Touch the first entry, so that the second one becomes the least recently used
+        assertNotNull(cache.get(new Hash256(HashUtils.hashWithBlake2b(firstCode))));
+
+        cache.getOrCompile(new byte[]{3}, (hash, code) -> new CompiledModuleCache.CompiledModule(thirdModule, null, null))
+                .release();
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(new Hash256(HashUtils.hashWithBlake2b(secondCode))));
+        verify(secondModule).close();
+        verify(firstModule, never()).close();
+        verify(thirdModule, never()).close();
+    }
+
+    @Test
+    void getOrCompile_closesEvictedModuleOnlyOnceItsLeaseIsReleased() {
+        CompiledModuleCache cache = new CompiledModuleCache(1);
+        WasmModule firstModule = mock(WasmModule.class);
+
+        // Leased as if it was being instantiated or serialized
+        CompiledModuleCache.CompiledModule leased = cache.getOrCompile(new byte[]{1},
+                (hash, code) -> new CompiledModuleCache.CompiledModule(firstModule, null, null));
+        cache.getOrCompile(new byte[]{2},
+                (hash, code) -> new CompiledModuleCache.CompiledModule(mock(WasmModule.class), null, null)).release();
+
+        assertEquals(1, cache.size());
+        verify(firstModule, never()).close();
+
+        leased.release();
+
+        verify(firstModule).close();
+        assertFalse(leased.retain());
+    }
+
+    @Test
+    void clear_closesLeasedModulesOnlyOnceReleased() {
+        CompiledModuleCache cache = new CompiledModuleCache();
+        WasmModule leasedModule = mock(WasmModule.class);
+        WasmModule idleModule = mock(WasmModule.class);
+
+        CompiledModuleCache.CompiledModule leased = cache.getOrCompile(new byte[]{1},
+                (hash, code) -> new CompiledModuleCache.CompiledModule(leasedModule, null, null));
+        cache.getOrCompile(new byte[]{2}, (hash, code) -> new CompiledModuleCache.CompiledModule(idleModule, null, null))
+                .release();
+        cache.clear();
+
+        verify(idleModule).close();
+        verify(leasedModule, never()).close();
+
+        leased.release();
+
+        verify(leasedModule).close();
+    }
+
+    @Test
+    void compileInBackground_isPickedUpByGetOrCompile() {
+        CompiledModuleCache cache = new CompiledModuleCache();
+        AtomicInteger compilations = new AtomicInteger();
+        BiFunction<Hash256, byte[], CompiledModuleCache.CompiledModule> compiler = (hash, code) -> {
+            compilations.incrementAndGet();
+            return new CompiledModuleCache.CompiledModule(mock(WasmModule.class), null, null);
+        };
+
+        cache.compileInBackground(new byte[]{1, 2, 3}, compiler, Runnable::run);
+        cache.compileInBackground(new byte[]{1, 2, 3}, compiler, Runnable::run);
+        CompiledModuleCache.CompiledModule compiled = cache.getOrCompile(new byte[]{1, 2, 3}, compiler);
+
+        assertNotNull(compiled);
+        assertEquals(1, compilations.get());
+    }
+
+    @Test
+    void getOrCompile_waitsForOngoingBackgroundCompilation() throws Exception {
+        CompiledModuleCache cache = new CompiledModuleCache();
+        CountDownLatch compilationStarted = new CountDownLatch(1);
+        CountDownLatch releaseCompilation = new CountDownLatch(1);
+        CompiledModuleCache.CompiledModule backgroundCompiled =
+                new CompiledModuleCache.CompiledModule(mock(WasmModule.class), null, null);
+        // One thread compiles in the background, the other one looks the module up meanwhile
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            cache.compileInBackground(new byte[]{1}, (hash, code) -> {
+                compilationStarted.countDown();
+                awaitUninterruptibly(releaseCompilation);
+                return backgroundCompiled;
+            }, executor);
+            assertTrue(compilationStarted.await(5, TimeUnit.SECONDS));
+
+            Future<CompiledModuleCache.CompiledModule> lookup = executor.submit(() ->
+                    cache.getOrCompile(new byte[]{1}, (hash, code) -> {
+                        throw new AssertionError("Compiled twice");
+                    }));
+            releaseCompilation.countDown();
+
+            assertSame(backgroundCompiled, lookup.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getOrCompile_retriesAfterFailedBackgroundCompilation() {
+        CompiledModuleCache cache = new CompiledModuleCache();
+        CompiledModuleCache.CompiledModule compiled =
+                new CompiledModuleCache.CompiledModule(mock(WasmModule.class), null, null);
+
+        cache.compileInBackground(new byte[]{1}, (hash, code) -> {
+            throw new IllegalStateException("Invalid code");
+        }, Runnable::run);
+
+        assertSame(compiled, cache.getOrCompile(new byte[]{1}, (hash, code) -> compiled));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.limechain.runtime;
+
+import com.limechain.runtime.allocator.FreeingBumpHeapAllocator;
+import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
+import com.limechain.runtime.memory.Memory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MemorySnapshotTest {
+    private static final int HEAP_BASE = 64;
+    private static final int MEMORY_SIZE = 64 * 1024;
+
+    @Test
+    void restore_bringsMemoryBackToCapturedState() {
+        Memory memory = memory();
+        byte[] data = new byte[HEAP_BASE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        memory.write(0, data);
+        FreeingBumpHeapAllocator allocator = new FreeingBumpHeapAllocator(HEAP_BASE);
+        MemorySnapshot snapshot = MemorySnapshot.capture(memory, HEAP_BASE);
+
+        // Dirty the data segment and the heap, as a runtime call would
+        memory.write(0, new byte[HEAP_BASE]);
+        RuntimePointerSize allocation = allocator.allocate(100, memory);
+        memory.write(allocation.pointer(), new byte[]{1, 2, 3});
+
+        snapshot.restore(memory, allocator);
+
+        byte[] restored = new byte[HEAP_BASE];
+        memory.read(0, restored);
+        assertArrayEquals(data, restored);
+        byte[] heap = new byte[3];
+        memory.read(allocation.pointer(), heap);
+        assertArrayEquals(new byte[3], heap);
+    }
+
+    @Test
+    void restore_resetsAllocatorToHeapBase() {
+        Memory memory = memory();
+        FreeingBumpHeapAllocator allocator = new FreeingBumpHeapAllocator(HEAP_BASE);
+        MemorySnapshot snapshot = MemorySnapshot.capture(memory, HEAP_BASE);
+
+        RuntimePointerSize first = allocator.allocate(8, memory);
+        allocator.allocate(1024, memory);
+        allocator.deallocate(first.pointer(), memory);
+
+        snapshot.restore(memory, allocator);
+
+        // A bigger allocation doesn't find a free block and bumps from the heap base again
+        assertEquals(first.pointer(), allocator.allocate(16, memory).pointer());
+    }
+
+    @Test
+    void restore_clearsHeapUsedByEarlierCalls() {
+        Memory memory = memory();
+        FreeingBumpHeapAllocator allocator = new FreeingBumpHeapAllocator(HEAP_BASE);
+        MemorySnapshot snapshot = MemorySnapshot.capture(memory, HEAP_BASE);
+
+        RuntimePointerSize allocation = allocator.allocate(1024, memory);
+        memory.write(allocation.pointer() + 512, new byte[]{1, 2, 3});
+        // The next call starts over from the heap base and uses less memory
+        allocator.reset();
+        allocator.allocate(8, memory);
+
+        snapshot.restore(memory, allocator);
+
+        byte[] heap = new byte[3];
+        memory.read(allocation.pointer() + 512, heap);
+        assertArrayEquals(new byte[3], heap);
+    }
+
+    private static Memory memory() {
+        ByteBuffer buffer = ByteBuffer.allocate(MEMORY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        return new Memory() {
+            @Override
+            public int size() {
+                return buffer.limit();
+            }
+
+            @Override
+            public void read(int offset, byte[] destination, int destinationOffset, int length) {
+                buffer.get(offset, destination, destinationOffset, length);
+            }
+
+            @Override
+            public void write(int offset, byte[] source, int sourceOffset, int length) {
+                buffer.put(offset, source, sourceOffset, length);
+            }
+
+            @Override
+            public long readLong(int offset) {
+                return buffer.getLong(offset);
+            }
+
+            @Override
+            public void writeLong(int offset, long value) {
+                buffer.putLong(offset, value);
+            }
+
+            @Override
+            public int grow(int numPages) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.limechain.runtime;
+
+import io.emeraldpay.polkaj.types.Hash256;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrecompiledModuleStoreTest {
+
+    private static final Hash256 FIRST_HASH = Hash256.from(
+            "0x0000000000000000000000000000000000000000000000000000000000000001");
+    private static final Hash256 SECOND_HASH = Hash256.from(
+            "0x0000000000000000000000000000000000000000000000000000000000000002");
+    private static final Hash256 THIRD_HASH = Hash256.from(
+            "0x0000000000000000000000000000000000000000000000000000000000000003");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storeAndLoad_roundTrips() {
+        PrecompiledModuleStore store = new PrecompiledModuleStore(directory);
+        byte[] serializedModule = {1, 2, 3, 4, 5};
+
+        store.store(FIRST_HASH, serializedModule);
+        Optional<byte[]> loaded = store.load(FIRST_HASH);
+
+        assertTrue(loaded.isPresent());
+        assertArrayEquals(serializedModule, loaded.get());
+        assertTrue(store.load(SECOND_HASH).isEmpty());
+    }
+
+    @Test
+    void engineVersion_identifiesWasmerBuildByJarDigest() {
+        assertTrue(PrecompiledModuleStore.isSupported());
+        // Blake2b digest of the jar, in hex
+        assertTrue(PrecompiledModuleStore.ENGINE_VERSION.matches("wasmer-[0-9a-f]{64}-.+"));
+    }
+
+    @Test
+    void load_discardsArtifactOfDifferentEngineVersion() throws IOException {
+        new PrecompiledModuleStore(directory, Long.MAX_VALUE, "engine-a").store(FIRST_HASH, new byte[]{1, 2, 3});
+
+        PrecompiledModuleStore store = new PrecompiledModuleStore(directory, Long.MAX_VALUE, "engine-b");
+
+        assertTrue(store.load(FIRST_HASH).isEmpty());
+        assertEquals(0, countArtifacts());
+    }
+
+    @Test
+    void load_discardsCorruptedArtifact() throws IOException {
+        PrecompiledModuleStore store = new PrecompiledModuleStore(directory);
+        store.store(FIRST_HASH, new byte[]{1, 2, 3});
+
+        Path artifact = singleArtifact();
+        byte[] content = Files.readAllBytes(artifact);
+        content[content.length - 1] ^= 1;
+        Files.write(artifact, content);
+
+        assertTrue(store.load(FIRST_HASH).isEmpty());
+        assertEquals(0, countArtifacts());
+    }
+
+    @Test
+    void store_evictsLeastRecentlyUsedWhenOverSize() throws IOException {
+        byte[] serializedModule = new byte[100];
+        // Room for two artifacts, including their headers
+        PrecompiledModuleStore store = new PrecompiledModuleStore(directory, 400, "engine");
+
+        store.store(FIRST_HASH, serializedModule);
+        store.store(SECOND_HASH, serializedModule);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+            }
+        }
+        // Loading marks the first artifact as recently used
+        assertTrue(store.load(FIRST_HASH).isPresent());
+
+        store.store(THIRD_HASH, serializedModule);
+
+        assertEquals(2, countArtifacts());
+        assertTrue(store.load(FIRST_HASH).isPresent());
+        assertTrue(store.load(SECOND_HASH).isEmpty());
+        assertTrue(store.load(THIRD_HASH).isPresent());
+    }
+
+    private long countArtifacts() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private Path singleArtifact() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.limechain.runtime;
+
+import com.limechain.runtime.version.RuntimeVersion;
+import com.limechain.runtime.version.StateVersion;
+import com.limechain.storage.block.state.BlockState;
+import com.limechain.storage.trie.TrieStorage;
+import com.limechain.trie.EphemeralTrieAccessor;
+import io.emeraldpay.polkaj.types.Hash256;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReadOnlyRuntimeCallerTest {
+    private static final Hash256 BLOCK_HASH = Hash256.from("0x" + "01".repeat(32));
+    private static final Hash256 STATE_ROOT = Hash256.from("0x" + "02".repeat(32));
+
+    @Mock
+    private RuntimeBuilder runtimeBuilder;
+    @Mock
+    private TrieStorage trieStorage;
+    @Mock
+    private BlockState blockState;
+    @Mock
+    private Runtime runtime;
+    @Mock
+    private RuntimeVersion runtimeVersion;
+
+    private ReadOnlyRuntimeCaller caller;
+
+    @BeforeEach
+    void setup() {
+        when(blockState.getBlockStateRoot(BLOCK_HASH)).thenReturn(STATE_ROOT);
+        when(runtimeBuilder.buildRuntimeFromState(any(EphemeralTrieAccessor.class))).thenReturn(runtime);
+        when(runtime.getCachedVersion()).thenReturn(runtimeVersion);
+        when(runtimeVersion.getStateVersion()).thenReturn(StateVersion.V1);
+
+        caller = new ReadOnlyRuntimeCaller(runtimeBuilder, trieStorage, blockState);
+    }
+
+    @AfterEach
+    void tearDown() {
+        caller.stop();
+    }
+
+    @Test
+    void callReturnsResultAndReleasesRuntime() {
+        byte[] metadata = {1, 2, 3};
+        when(runtime.getMetadata()).thenReturn(metadata);
+
+        byte[] result = caller.call(RuntimeEndpoint.METADATA_METADATA, BLOCK_HASH, Runtime::getMetadata);
+
+        assertArrayEquals(metadata, result);
+        verify(runtime).close();
+    }
+
+    @Test
+    void callRethrowsFailureAndReleasesRuntime() {
+        when(runtime.getMetadata()).thenThrow(new IllegalStateException("trap"));
+
+        assertThrows(IllegalStateException.class,
+                () -> caller.call(RuntimeEndpoint.METADATA_METADATA, BLOCK_HASH, Runtime::getMetadata));
+        verify(runtime).close();
+    }
+}
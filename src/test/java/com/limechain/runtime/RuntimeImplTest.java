@@ -0,0 +1,141 @@
+package com.limechain.runtime;
+
+import com.limechain.runtime.allocator.FreeingBumpHeapAllocator;
+import com.limechain.runtime.engine.WasmInstance;
+import com.limechain.runtime.engine.WasmModule;
+import com.limechain.runtime.hostapi.Endpoint;
+import com.limechain.runtime.hostapi.HostFunction;
+import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
+import com.limechain.runtime.memory.Memory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RuntimeImplTest {
+    private static final int HEAP_BASE = 64;
+    private static final int MEMORY_SIZE = 64 * 1024;
+
+    @Test
+    void call_startsEachCallOnTheSameInstanceFromThePostInstantiationMemory() {
+        Memory memory = memory();
+        byte[] dataSegment = new byte[HEAP_BASE];
+        dataSegment[0] = 42;
+        memory.write(0, dataSegment);
+
+        FreeingBumpHeapAllocator allocator = new FreeingBumpHeapAllocator(HEAP_BASE);
+        SharedMemory sharedMemory = new SharedMemory(memory, allocator);
+        CompiledModuleCache.CompiledModule compiledModule =
+                new CompiledModuleCache.CompiledModule(mock(WasmModule.class), null);
+        compiledModule.setMemorySnapshot(MemorySnapshot.capture(memory, HEAP_BASE));
+        Context context = new Context(null, null, null, null, false, sharedMemory, null, null);
+
+        // Each call records the memory it starts with, then changes a data segment and writes to the heap
+        List<byte[]> belowHeapBase = new ArrayList<>();
+        List<Integer> allocations = new ArrayList<>();
+        List<byte[]> allocatedHeap = new ArrayList<>();
+        WasmInstance instance = mock(WasmInstance.class);
+        when(instance.call(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            byte[] data = new byte[HEAP_BASE];
+            memory.read(0, data);
+            belowHeapBase.add(data);
+
+            memory.write(0, new byte[]{7});
+            RuntimePointerSize allocation = sharedMemory.allocate(16);
+            allocations.add(allocation.pointer());
+            byte[] heap = new byte[3];
+            memory.read(allocation.pointer(), heap);
+            allocatedHeap.add(heap);
+            memory.write(allocation.pointer(), new byte[]{1, 2, 3});
+            return null;
+        });
+
+        RuntimeImpl runtime = new RuntimeImpl(compiledModule, context, instance, null);
+        runtime.getMetadata();
+        runtime.getMetadata();
+
+        assertArrayEquals(dataSegment, belowHeapBase.get(0));
+        assertArrayEquals(dataSegment, belowHeapBase.get(1));
+        // The second call gets the same heap memory, cleared of the data of the first one
+        assertEquals(allocations.get(0), allocations.get(1));
+        assertArrayEquals(new byte[3], allocatedHeap.get(1));
+    }
+
+    @Test
+    void call_discardsTheHostFunctionCallsOfAFailedCall() {
+        Memory memory = memory();
+        SharedMemory sharedMemory = new SharedMemory(memory, new FreeingBumpHeapAllocator(HEAP_BASE));
+        CompiledModuleCache.CompiledModule compiledModule =
+                new CompiledModuleCache.CompiledModule(mock(WasmModule.class), null);
+        compiledModule.setMemorySnapshot(MemorySnapshot.capture(memory, HEAP_BASE));
+        RuntimeProfiler profiler = new RuntimeProfiler(true);
+        CallProfile callProfile = new CallProfile(profiler);
+        Context context = new Context(null, null, null, null, false, sharedMemory, null, callProfile);
+
+        HostFunction.Implementation hostFunction = callProfile.instrument(
+                List.of(new HostFunction(Endpoint.ext_storage_get_version_1, argv -> 0)), sharedMemory)
+                .getFirst().implementation();
+        WasmInstance instance = mock(WasmInstance.class);
+        when(instance.call(anyString(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    hostFunction.invoke(new long[1]);
+                    throw new IllegalStateException();
+                })
+                .thenAnswer(invocation -> {
+                    hostFunction.invoke(new long[1]);
+                    return null;
+                });
+
+        RuntimeImpl runtime = new RuntimeImpl(compiledModule, context, instance, null);
+        assertThrows(IllegalStateException.class, runtime::getMetadata);
+        runtime.getMetadata();
+
+        assertEquals(1, profiler.hostFunctionTotals().get(Endpoint.ext_storage_get_version_1).calls());
+        assertEquals(1, profiler.runtimeCallTotals().get(RuntimeEndpoint.METADATA_METADATA.getName()).calls());
+    }
+
+    private static Memory memory() {
+        ByteBuffer buffer = ByteBuffer.allocate(MEMORY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        return new Memory() {
+            @Override
+            public int size() {
+                return buffer.limit();
+            }
+
+            @Override
+            public void read(int offset, byte[] destination, int destinationOffset, int length) {
+                buffer.get(offset, destination, destinationOffset, length);
+            }
+
+            @Override
+            public void write(int offset, byte[] source, int sourceOffset, int length) {
+                buffer.put(offset, source, sourceOffset, length);
+            }
+
+            @Override
+            public long readLong(int offset) {
+                return buffer.getLong(offset);
+            }
+
+            @Override
+            public void writeLong(int offset, long value) {
+                buffer.putLong(offset, value);
+            }
+
+            @Override
+            public int grow(int numPages) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
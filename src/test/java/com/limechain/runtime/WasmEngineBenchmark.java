@@ -0,0 +1,273 @@
+package com.limechain.runtime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import com.limechain.chain.spec.ChainSpec;
+import com.limechain.network.protocol.warp.dto.Block;
+import com.limechain.network.protocol.warp.dto.BlockBody;
+import com.limechain.network.protocol.warp.dto.BlockHeader;
+import com.limechain.network.protocol.warp.dto.HeaderDigest;
+import com.limechain.network.protocol.warp.scale.reader.HeaderDigestReader;
+import com.limechain.runtime.engine.WasmEngine;
+import com.limechain.runtime.engine.WasmEngineType;
+import com.limechain.runtime.hostapi.DefaultHostApi;
+import com.limechain.runtime.version.StateVersion;
+import com.limechain.storage.trie.TrieStorage;
+import com.limechain.sync.fullsync.InMemoryDB;
+import com.limechain.transaction.dto.Extrinsic;
+import com.limechain.transaction.dto.TransactionSource;
+import com.limechain.transaction.dto.TransactionValidationRequest;
+import com.limechain.trie.DiskTrieAccessor;
+import com.limechain.trie.TrieStructureFactory;
+import com.limechain.trie.structure.TrieStructure;
+import com.limechain.trie.structure.database.NodeData;
+import com.limechain.utils.ByteArrayUtils;
+import com.limechain.utils.HashUtils;
+import com.limechain.utils.Sr25519Utils;
+import com.limechain.utils.StringUtils;
+import com.limechain.utils.scale.ScaleUtils;
+import io.emeraldpay.polkaj.scale.ScaleCodecReader;
+import io.emeraldpay.polkaj.scale.ScaleCodecWriter;
+import io.emeraldpay.polkaj.schnorrkel.Schnorrkel;
+import io.emeraldpay.polkaj.schnorrkel.SchnorrkelException;
+import io.emeraldpay.polkaj.types.Hash256;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Compares the {@link WasmEngine} implementations on real runtimes. Excluded from the regular test run,
+ * execute with {@code ./gradlew benchmark}.
+ */
+//@formatter:off
+@Log
+@Tag("benchmark")
+class WasmEngineBenchmark {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    // The //Alice and //Bob development accounts, funded in the westend local testnet genesis
+    private static final byte[] ALICE_MINI_SECRET =
+            StringUtils.hexToBytes("0xe5be9a5092b81bca64be81d212e7f2f9eba183bb7a90954f7b76361f6edb5c0a");
+    private static final byte[] ALICE =
+            StringUtils.hexToBytes("0xd43593c715fdd31c61141abd04a99fd6822c8558854ccde39a5684e7a56da27d");
+    private static final byte[] BOB =
+            StringUtils.hexToBytes("0x8eaf04151687736326c9fea17e25fc5287613693c912909cb226aa4794f26a48");
+    private static final int SPEC_VERSION = 9320;
+    private static final int TRANSACTION_VERSION = 14;
+    private static final int BALANCES_PALLET_INDEX = 4;
+    private static final int TRANSFER_CALL_INDEX = 0;
+    private static final BigInteger TRANSFER_AMOUNT = BigInteger.TEN.pow(12);
+    private static final int SIGNED_EXTRINSIC_V4 = 0x84;
+    private static final int MULTI_ADDRESS_ID = 0;
+    private static final int SR25519_SIGNATURE = 1;
+
+    @Test
+    void coreVersion() throws IOException {
+        for (String chainSpecPath : new String[]{"genesis/ksmcc3.json", "genesis/westend2.json"}) {
+            byte[] code = runtimeCode(ChainSpec.newFromJSON(chainSpecPath).getGenesis().getTop());
+
+            for (WasmEngineType engineType : WasmEngineType.values()) {
+                CompiledModuleCache.CompiledModule compiledModule =
+                        measure(engineType, chainSpecPath + " compile", 1, 0,
+                                () -> RuntimeFactory.compile(engineType.create(), null, code));
+
+                RuntimeImpl runtime = RuntimeFactory.instantiate(
+                        compiledModule, RuntimeFactory.Config.EMPTY, DefaultHostApi::new, null);
+                try {
+                    measure(engineType, chainSpecPath + " Core_version",
+                            MEASURED_ITERATIONS, WARMUP_ITERATIONS, runtime::getVersion);
+                } finally {
+                    runtime.close();
+                    compiledModule.getModule().close();
+                }
+            }
+        }
+    }
+
+    @Test
+    void validateTransaction() throws IOException, SchnorrkelException {
+        Map<ByteString, ByteString> genesisStorage = rawGenesisStorage("genesis/westend-raw.json");
+        byte[] code = runtimeCode(genesisStorage);
+        TrieStructure<NodeData> genesisTrie = TrieStructureFactory.buildFromKVPs(genesisStorage);
+        TrieStorage trieStorage = new TrieStorage(new InMemoryDB());
+        trieStorage.insertTrieStorage(genesisTrie);
+        byte[] genesisStateRoot = genesisTrie.getRootNode().get().getUserData().getMerkleValue();
+        Hash256 genesisHash = genesisHeader(genesisStateRoot).getHash();
+
+        TransactionValidationRequest request = new TransactionValidationRequest();
+        request.setTransaction(signedTransfer(genesisHash));
+        request.setSource(TransactionSource.EXTERNAL);
+        request.setParentBlockHash(genesisHash);
+
+        for (WasmEngineType engineType : WasmEngineType.values()) {
+            CompiledModuleCache.CompiledModule compiledModule = RuntimeFactory.compile(engineType.create(), null, code);
+            try {
+                // Checks the transfer is valid, so that the whole validation is measured rather than an early error
+                measureOnFreshState(engineType, "validate_transaction", compiledModule, trieStorage, genesisStateRoot,
+                        runtime -> assertNull(runtime.validateTransaction(request).getValidityError()));
+            } finally {
+                compiledModule.getModule().close();
+            }
+        }
+    }
+
+    @Test
+    void executeBlock() throws IOException {
+        Map<ByteString, ByteString> genesisStorage = ChainSpec.newFromJSON("genesis/ksmcc3.json").getGenesis().getTop();
+        byte[] code = runtimeCode(genesisStorage);
+        TrieStructure<NodeData> genesisTrie = TrieStructureFactory.buildFromKVPs(genesisStorage);
+        TrieStorage trieStorage = new TrieStorage(new InMemoryDB());
+        trieStorage.insertTrieStorage(genesisTrie);
+        byte[] genesisStateRoot = genesisTrie.getRootNode().get().getUserData().getMerkleValue();
+        Block block = kusamaFirstBlock();
+
+        for (WasmEngineType engineType : WasmEngineType.values()) {
+            CompiledModuleCache.CompiledModule compiledModule = RuntimeFactory.compile(engineType.create(), null, code);
+            try {
+                measureOnFreshState(engineType, "execute_block", compiledModule, trieStorage, genesisStateRoot,
+                        runtime -> runtime.executeBlock(block));
+            } finally {
+                compiledModule.getModule().close();
+            }
+        }
+    }
+
+    private static void measureOnFreshState(WasmEngineType engineType,
+                                            String name,
+                                            CompiledModuleCache.CompiledModule compiledModule,
+                                            TrieStorage trieStorage,
+                                            byte[] stateRoot,
+                                            Consumer<Runtime> call) {
+        long totalNanos = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            // Every call gets the genesis state, as executing a block alters it
+            DiskTrieAccessor trieAccessor = new DiskTrieAccessor(trieStorage, stateRoot);
+            trieAccessor.setCurrentStateVersion(StateVersion.V0);
+            RuntimeImpl runtime = RuntimeFactory.instantiate(compiledModule,
+                    new RuntimeFactory.Config(trieAccessor, null, null, null, false), DefaultHostApi::new, null);
+            try {
+                long start = System.nanoTime();
+                call.accept(runtime);
+                if (i >= WARMUP_ITERATIONS) {
+                    totalNanos += System.nanoTime() - start;
+                }
+            } finally {
+                runtime.close();
+            }
+        }
+        report(engineType, name, totalNanos, MEASURED_ITERATIONS);
+    }
+
+    private static <T> T measure(WasmEngineType engineType, String name, int iterations, int warmup, Supplier<T> call) {
+        T result = null;
+        for (int i = 0; i < warmup; i++) {
+            call.get();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            result = call.get();
+        }
+        report(engineType, name, System.nanoTime() - start, iterations);
+        return result;
+    }
+
+    private static void report(WasmEngineType engineType, String name, long totalNanos, int iterations) {
+        log.log(Level.INFO, String.format("%-8s %-40s %12.3f ms/op",
+                engineType, name, totalNanos / 1_000_000.0 / iterations));
+    }
+
+    private static byte[] runtimeCode(Map<ByteString, ByteString> genesisStorage) {
+        return genesisStorage.get(ByteString.copyFrom(":code".getBytes())).toByteArray();
+    }
+
+    // ChainSpec only reads the storage of chain specs listing it directly under "genesis"
+    private static Map<ByteString, ByteString> rawGenesisStorage(String chainSpecPath) throws IOException {
+        JsonNode top = new ObjectMapper().readTree(new File(chainSpecPath)).path("genesis").path("raw").path("top");
+        Map<ByteString, ByteString> storage = new HashMap<>();
+        top.fields().forEachRemaining(entry -> storage.put(
+                ByteString.fromHex(StringUtils.remove0xPrefix(entry.getKey())),
+                ByteString.fromHex(StringUtils.remove0xPrefix(entry.getValue().asText()))));
+        return storage;
+    }
+
+    private static BlockHeader genesisHeader(byte[] stateRoot) {
+        BlockHeader header = new BlockHeader();
+        header.setParentHash(Hash256.empty());
+        header.setBlockNumber(BigInteger.ZERO);
+        header.setStateRoot(new Hash256(stateRoot));
+        header.setExtrinsicsRoot(new Hash256(HashUtils.hashWithBlake2b(new byte[1])));
+        header.setDigest(new HeaderDigest[0]);
+        return header;
+    }
+
+    /**
+     * Builds an immortal {@code Balances.transfer} from Alice to Bob with nonce 0, signed with the signed extensions
+     * of the westend local testnet runtime (spec version 9320).
+     */
+    private static byte[] signedTransfer(Hash256 genesisHash) throws SchnorrkelException {
+        Schnorrkel.KeyPair alice = Schnorrkel.getInstance().generateKeyPairFromSeed(ALICE_MINI_SECRET);
+        assertArrayEquals(ALICE, alice.getPublicKey());
+
+        byte[] call = ScaleUtils.Encode.encode((writer, value) -> {
+            writer.writeByte(BALANCES_PALLET_INDEX);
+            writer.writeByte(TRANSFER_CALL_INDEX);
+            writer.writeByte(MULTI_ADDRESS_ID);
+            writer.writeUint256(BOB);
+            writer.write(ScaleCodecWriter.COMPACT_BIGINT, value);
+        }, TRANSFER_AMOUNT);
+        // The immortal era, the nonce and the tip
+        byte[] extra = {0, 0, 0};
+        // The spec and transaction versions, the genesis hash and the hash of the block the immortal era starts at
+        byte[] additionalSigned = ScaleUtils.Encode.encode((writer, hash) -> {
+            writer.writeUint32(SPEC_VERSION);
+            writer.writeUint32(TRANSACTION_VERSION);
+            writer.writeUint256(hash.getBytes());
+            writer.writeUint256(hash.getBytes());
+        }, genesisHash);
+        // Payloads longer than 256 bytes are signed by their hash, this one is signed as is
+        byte[] payload = ByteArrayUtils.concatenate(ByteArrayUtils.concatenate(call, extra), additionalSigned);
+        byte[] signature = Sr25519Utils.signMessage(alice.getPublicKey(), alice.getSecretKey(), payload);
+
+        return ScaleUtils.Encode.encode((writer, sender) -> {
+            writer.writeByte(SIGNED_EXTRINSIC_V4);
+            writer.writeByte(MULTI_ADDRESS_ID);
+            writer.writeUint256(sender);
+            writer.writeByte(SR25519_SIGNATURE);
+            writer.writeByteArray(signature);
+            writer.writeByteArray(extra);
+            writer.writeByteArray(call);
+        }, alice.getPublicKey());
+    }
+
+    private static Block kusamaFirstBlock() {
+        byte[] scaleEncodedBody = new byte[] {8, 40, 4, 2, 0, 11, -112, 17, 14, -77, 110, 1, 16, 4, 20, 0, 0};
+        byte[] scaleEncodedDigest = StringUtils.hexToBytes("0x0c0642414245340201000000ef55a50f00000000044241424549040118ca239392960473fe1bc65f94ee27d890a49c1b200c006ff5dcc525330ecc16770100000000000000b46f01874ce7abbb5220e8fd89bede0adad14c73039d91e28e881823433e723f0100000000000000d684d9176d6eb69887540c9a89fa6097adea82fc4b0ff26d1062b488f352e179010000000000000068195a71bdde49117a616424bdc60a1733e96acb1da5aeab5d268cf2a572e94101000000000000001a0575ef4ae24bdfd31f4cb5bd61239ae67c12d4e64ae51ac756044aa6ad8200010000000000000018168f2aad0081a25728961ee00627cfe35e39833c805016632bf7c14da5800901000000000000000000000000000000000000000000000000000000000000000000000000000000054241424501014625284883e564bc1e4063f5ea2b49846cdddaa3761d04f543b698c1c3ee935c40d25b869247c36c6b8a8cbbd7bb2768f560ab7c276df3c62df357a7e3b1ec8d");
+
+        BlockHeader header = new BlockHeader();
+        header.setParentHash(Hash256.from("0xb0a8d493285c2df73290dfb7e61f870f17b41801197a149ca93654499ea3dafe"));
+        header.setBlockNumber(BigInteger.valueOf(1));
+        header.setStateRoot(Hash256.from("0xfabb0c6e92d29e8bb2167f3c6fb0ddeb956a4278a3cf853661af74a076fc9cb7"));
+        header.setExtrinsicsRoot(Hash256.from("0xa35fb7f7616f5c979d48222b3d2fa7cb2331ef73954726714d91ca945cc34fd8"));
+        header.setDigest(ScaleUtils.Decode.decodeList(scaleEncodedDigest, HeaderDigestReader.getInstance()).toArray(HeaderDigest[]::new));
+
+        var exts = ScaleUtils.Decode.decodeList(scaleEncodedBody, ScaleCodecReader::readByteArray);
+        BlockBody body = new BlockBody(exts.stream().map(Extrinsic::new).toList());
+
+        return new Block(header, body);
+    }
+}
@@ -1,11 +1,11 @@
 package com.limechain.runtime;
 
+import com.limechain.runtime.engine.MemoryDescriptor;
 import com.limechain.runtime.version.ApiVersion;
 import com.limechain.runtime.version.ApiVersions;
 import com.limechain.runtime.version.RuntimeVersion;
 import com.limechain.runtime.version.StateVersion;
 import org.junit.jupiter.api.Test;
-import org.wasmer.ImportObject;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -96,10 +96,9 @@ class WasmSectionUtilsTest {
 
     @Test
     void test_parseMemoryFromBinary_memory_export() throws IOException {
-        ImportObject.MemoryImport expected = new ImportObject.MemoryImport(WasmSectionUtils.ENV_MODULE_NAME,
-            24, false);
+        MemoryDescriptor expected = new MemoryDescriptor(24, false);
 
-        ImportObject.MemoryImport result = WasmSectionUtils.parseMemoryFromBinary(
+        MemoryDescriptor result = WasmSectionUtils.parseMemoryFromBinary(
             getTestWasmBytes(WASM_FILE_WITH_EXPORT));
 
         assertEquals(expected, result);
@@ -107,10 +106,9 @@ class WasmSectionUtilsTest {
 
     @Test
     void test_parseMemoryFromBinary_import() throws IOException {
-        ImportObject.MemoryImport expected = new ImportObject.MemoryImport(WasmSectionUtils.ENV_MODULE_NAME,
-            83, false);
+        MemoryDescriptor expected = new MemoryDescriptor(83, false);
 
-        ImportObject.MemoryImport result = WasmSectionUtils.parseMemoryFromBinary(
+        MemoryDescriptor result = WasmSectionUtils.parseMemoryFromBinary(
             getTestWasmBytes(WASM_FILE_WITH_IMPORT));
 
         assertEquals(expected, result);
@@ -118,7 +116,7 @@ class WasmSectionUtilsTest {
 
     @Test
     void test_parseMemoryFromBinary_null() throws IOException {
-        ImportObject.MemoryImport result = WasmSectionUtils.parseMemoryFromBinary(
+        MemoryDescriptor result = WasmSectionUtils.parseMemoryFromBinary(
             getTestWasmBytes(WASM_FILE_WITHOUT_MEMORY));
         assertNull(result);
     }
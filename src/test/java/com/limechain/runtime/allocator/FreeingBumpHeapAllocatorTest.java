@@ -4,68 +4,76 @@ import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
 import com.limechain.runtime.memory.Memory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
-import org.mockito.Spy;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.nio.ByteBuffer;
-import java.util.List;
-import java.util.Optional;
+import java.nio.ByteOrder;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.Mockito.CALLS_REAL_METHODS;
-import static org.mockito.Mockito.mockStatic;
-import static org.mockito.Mockito.verify;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
-@ExtendWith(MockitoExtension.class)
 class FreeingBumpHeapAllocatorTest {
-    private static final int HEAP_BASE = 123;
-    private static final int MEMORY_SIZE = 456;
-    private static final int ORDER_VALUE = 789;
+    private static final int HEAP_BASE = 120;
+    private static final int PAGE_SIZE = 64 * 1024;
     private static final int HEADER_SIZE = 8;
 
-    @Mock
+    private ByteBuffer buffer;
     private Memory memory;
-    private ByteBuffer buffer = Mockito.spy(ByteBuffer.allocate(1000));
-
-    @Mock
-    private List<Order> orders;
-
-    @Mock
-    private Order order;
-
-    @Mock
-    private Header header;
-
-    @Spy
-    private AllocationStats stats;
-
     private FreeingBumpHeapAllocator freeingBumpHeapAllocator;
 
     @BeforeEach
     void setup() {
-        when(memory.buffer()).thenReturn(buffer);
-        when(buffer.limit()).thenReturn(MEMORY_SIZE);
-
-        freeingBumpHeapAllocator =
-                new FreeingBumpHeapAllocator(HEAP_BASE, orders, stats, MEMORY_SIZE, HEAP_BASE);
+        buffer = ByteBuffer.allocate(4 * PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.limit(PAGE_SIZE);
+        memory = new Memory() {
+            @Override
+            public int size() {
+                return buffer.limit();
+            }
+
+            @Override
+            public void read(int offset, byte[] destination, int destinationOffset, int length) {
+                buffer.get(offset, destination, destinationOffset, length);
+            }
+
+            @Override
+            public void write(int offset, byte[] source, int sourceOffset, int length) {
+                buffer.put(offset, source, sourceOffset, length);
+            }
+
+            @Override
+            public long readLong(int offset) {
+                return buffer.getLong(offset);
+            }
+
+            @Override
+            public void writeLong(int offset, long value) {
+                buffer.putLong(offset, value);
+            }
+
+            @Override
+            public int grow(int numPages) {
+                int previousPages = buffer.limit() / PAGE_SIZE;
+                buffer.limit(buffer.limit() + numPages * PAGE_SIZE);
+                return previousPages;
+            }
+        };
+        freeingBumpHeapAllocator = new FreeingBumpHeapAllocator(HEAP_BASE);
     }
 
     @Test
     void allocateWhenMemorySizeIsSmallerThanLastObservedSizeShouldThrowError() {
-        ReflectionTestUtils.setField(freeingBumpHeapAllocator, "lastObservedMemorySize", MEMORY_SIZE + 1);
+        Memory shrinkingMemory = mock(Memory.class);
+        when(shrinkingMemory.size()).thenReturn(PAGE_SIZE, PAGE_SIZE - 1);
+        freeingBumpHeapAllocator.allocate(1, shrinkingMemory);
 
         assertThrows(
                 AllocationError.class,
-                () -> freeingBumpHeapAllocator.allocate(1, memory),
+                () -> freeingBumpHeapAllocator.allocate(1, shrinkingMemory),
                 "Memory shrank");
     }
 
@@ -78,84 +86,76 @@ class FreeingBumpHeapAllocatorTest {
     }
 
     @Test
-    void allocateWhenOrderHasNextPointerShouldWriteOccupiedHeaderWithOrderAtPointer() {
-        int headerPointer = 134;
-        when(orders.get(anyInt())).thenReturn(order);
-        when(order.getValue()).thenReturn(ORDER_VALUE);
-        when(order.popFreeHeaderPointer(any())).thenReturn(Optional.of(headerPointer));
-
-        freeingBumpHeapAllocator.allocate(10, memory);
-
-        verify(buffer).putLong(headerPointer, Header.occupied(ORDER_VALUE).raw());
+    void allocateWhenFreeListIsEmptyShouldBumpAndWriteOccupiedHeader() {
+        RuntimePointerSize first = freeingBumpHeapAllocator.allocate(10, memory);
+        RuntimePointerSize second = freeingBumpHeapAllocator.allocate(10, memory);
+
+        assertEquals(new RuntimePointerSize(HEAP_BASE + HEADER_SIZE, 10), first);
+        // 10 bytes are rounded up to the 16 bytes of order 1
+        assertEquals(new RuntimePointerSize(HEAP_BASE + 2 * HEADER_SIZE + 16, 10), second);
+        assertEquals(Header.occupied(1), memory.readLong(HEAP_BASE));
+        assertEquals(Header.occupied(1), memory.readLong(second.pointer() - HEADER_SIZE));
     }
 
     @Test
-    void allocateWhenOrderHasNoNextPointerShouldWriteOccupiedHeaderWithOrderAtBumper() {
-        int bumper = 777;
-        ReflectionTestUtils.setField(freeingBumpHeapAllocator, "bumper", bumper);
-        when(orders.get(anyInt())).thenReturn(order);
-        when(order.getValue()).thenReturn(ORDER_VALUE);
-        when(order.popFreeHeaderPointer(any())).thenReturn(Optional.empty());
+    void allocateShouldAlignHeapBase() {
+        FreeingBumpHeapAllocator allocator = new FreeingBumpHeapAllocator(HEAP_BASE + 1);
 
-        freeingBumpHeapAllocator.allocate(10, memory);
+        RuntimePointerSize result = allocator.allocate(1, memory);
 
-        verify(buffer).putLong(bumper, Header.occupied(ORDER_VALUE).raw());
+        assertEquals(HEAP_BASE + 8 + HEADER_SIZE, result.pointer());
     }
 
     @Test
-    void allocateWhenOrderHasNextPointerShouldReturnRuntimePointerToBlock() {
-        int headerPointer = 134;
-        int size = 12;
-        int orderSize = 16;
-        RuntimePointerSize expected = new RuntimePointerSize(headerPointer + HEADER_SIZE, size);
-        when(orders.get(anyInt())).thenReturn(order);
-        when(order.getValue()).thenReturn(ORDER_VALUE);
-        when(order.getBlockSize()).thenReturn(orderSize);
-        when(order.popFreeHeaderPointer(any())).thenReturn(Optional.of(headerPointer));
+    void allocateWhenFreeListHasBlockShouldReuseItAndPopIt() {
+        RuntimePointerSize first = freeingBumpHeapAllocator.allocate(12, memory);
+        RuntimePointerSize second = freeingBumpHeapAllocator.allocate(12, memory);
+        freeingBumpHeapAllocator.deallocate(first.pointer(), memory);
+        freeingBumpHeapAllocator.deallocate(second.pointer(), memory);
+
+        // Free lists are LIFO
+        assertEquals(second.pointer(), freeingBumpHeapAllocator.allocate(16, memory).pointer());
+        assertEquals(first.pointer(), freeingBumpHeapAllocator.allocate(9, memory).pointer());
+        assertEquals(Header.occupied(1), memory.readLong(first.pointer() - HEADER_SIZE));
+        assertTrue(freeingBumpHeapAllocator.allocate(16, memory).pointer() > second.pointer());
+    }
 
-        RuntimePointerSize result = freeingBumpHeapAllocator.allocate(size, memory);
+    @Test
+    void allocateShouldNotReuseBlocksOfAnotherOrder() {
+        RuntimePointerSize small = freeingBumpHeapAllocator.allocate(8, memory);
+        freeingBumpHeapAllocator.deallocate(small.pointer(), memory);
 
-        assertEquals(expected, result);
+        assertNotEquals(small.pointer(), freeingBumpHeapAllocator.allocate(16, memory).pointer());
     }
 
     @Test
-    void allocateWhenOrderHasNoNextPointerShouldReturnRuntimePointerToBumpedBlock() {
-        int bumper = 777;
-        int size = 12;
-        int orderSize = 16;
-        RuntimePointerSize expected = new RuntimePointerSize(bumper + HEADER_SIZE, size);
-        ReflectionTestUtils.setField(freeingBumpHeapAllocator, "bumper", bumper);
-        when(orders.get(anyInt())).thenReturn(order);
-        when(order.getValue()).thenReturn(ORDER_VALUE);
-        when(order.getBlockSize()).thenReturn(orderSize);
-        when(order.popFreeHeaderPointer(any())).thenReturn(Optional.empty());
-
-        RuntimePointerSize result = freeingBumpHeapAllocator.allocate(size, memory);
+    void allocateWhenMemoryIsExhaustedShouldGrowIt() {
+        RuntimePointerSize result = freeingBumpHeapAllocator.allocate(PAGE_SIZE, memory);
 
-        assertEquals(expected, result);
+        assertTrue(memory.size() >= result.pointer() + PAGE_SIZE);
     }
 
     @Test
     void allocateShouldUpdateStatsWithOrderBlockSizeAndHeader() {
-        int size = 12;
-        when(orders.get(anyInt())).thenReturn(order);
-        when(order.getValue()).thenReturn(ORDER_VALUE);
-        when(order.getBlockSize()).thenReturn(size);
-        when(order.popFreeHeaderPointer(any())).thenReturn(Optional.of(1));
-
-        freeingBumpHeapAllocator.allocate(size, memory);
-
-        verify(stats).allocated(size + HEADER_SIZE, 0);
-
+        freeingBumpHeapAllocator.allocate(12, memory);
+        freeingBumpHeapAllocator.allocate(100, memory);
+
+        AllocationStats stats = freeingBumpHeapAllocator.getStats();
+        assertEquals(16 + HEADER_SIZE + 128 + HEADER_SIZE, stats.getBytesAllocated());
+        assertEquals(stats.getBytesAllocated(), stats.getBytesAllocatedPeak());
+        assertEquals(stats.getBytesAllocated(), stats.getAddressSpaceUsed());
+        assertEquals(0, stats.fragmentation());
     }
 
     @Test
     void deallocateWhenMemorySizeIsSmallerThanLastObservedSizeShouldThrowError() {
-        ReflectionTestUtils.setField(freeingBumpHeapAllocator, "lastObservedMemorySize", MEMORY_SIZE + 1);
+        Memory shrinkingMemory = mock(Memory.class);
+        when(shrinkingMemory.size()).thenReturn(PAGE_SIZE, PAGE_SIZE - 1);
+        RuntimePointerSize allocation = freeingBumpHeapAllocator.allocate(1, shrinkingMemory);
 
         assertThrows(
                 AllocationError.class,
-                () -> freeingBumpHeapAllocator.deallocate(1, memory),
+                () -> freeingBumpHeapAllocator.deallocate(allocation.pointer(), shrinkingMemory),
                 "Memory shrank");
     }
 
@@ -168,71 +168,80 @@ class FreeingBumpHeapAllocatorTest {
     }
 
     @Test
-    void deallocateWhenOrderHasPointerToFreeHeaderShouldWriteFreeHeaderWithPointerBeforeDeallocatedBlock() {
-        int pointer = HEAP_BASE + 123;
-        int freeHeaderPointer = 542;
+    void deallocateWhenHeaderIsNotOccupiedShouldThrowError() {
+        RuntimePointerSize allocation = freeingBumpHeapAllocator.allocate(1, memory);
+        freeingBumpHeapAllocator.deallocate(allocation.pointer(), memory);
 
-        try(MockedStatic<Header> mockedStatic = mockStatic(Header.class, CALLS_REAL_METHODS)) {
-            mockedStatic.when(() -> Header.fromMemory(pointer - HEADER_SIZE, memory)).thenReturn(header);
-            when(header.isOccupied()).thenReturn(true);
-            when(header.getOrder()).thenReturn(ORDER_VALUE);
-            when(orders.get(ORDER_VALUE)).thenReturn(order);
-            when(order.getFreeHeaderPointer()).thenReturn(freeHeaderPointer);
+        assertThrows(
+                AllocationError.class,
+                () -> freeingBumpHeapAllocator.deallocate(allocation.pointer(), memory),
+                "No occupied header found at address");
+    }
 
-            freeingBumpHeapAllocator.deallocate(pointer, memory);
+    @Test
+    void deallocateWhenFreeListIsEmptyShouldWriteFreeHeaderWithEndOfList() {
+        RuntimePointerSize allocation = freeingBumpHeapAllocator.allocate(1, memory);
 
-            verify(buffer).putLong(pointer - HEADER_SIZE, Header.free(freeHeaderPointer).raw());
-        }
+        freeingBumpHeapAllocator.deallocate(allocation.pointer(), memory);
+
+        long rawHeader = memory.readLong(allocation.pointer() - HEADER_SIZE);
+        assertFalse(Header.isOccupied(rawHeader));
+        assertEquals(Header.END_OF_FREE_LIST, Header.data(rawHeader));
     }
 
     @Test
-    void deallocateWhenOrderHasNoPointerToFreeHeaderShouldWriteFreeHeaderWithMaxIntPointerBeforeDeallocatedBlock() {
-        int pointer = HEAP_BASE + 123;
-
-        try(MockedStatic<Header> mockedStatic = mockStatic(Header.class, CALLS_REAL_METHODS)) {
-            mockedStatic.when(() -> Header.fromMemory(pointer - HEADER_SIZE, memory)).thenReturn(header);
-            when(header.isOccupied()).thenReturn(true);
-            when(header.getOrder()).thenReturn(ORDER_VALUE);
-            when(orders.get(ORDER_VALUE)).thenReturn(order);
-            when(order.getFreeHeaderPointer()).thenReturn(null);
+    void deallocateWhenFreeListHasBlockShouldWriteFreeHeaderPointingToIt() {
+        RuntimePointerSize first = freeingBumpHeapAllocator.allocate(1, memory);
+        RuntimePointerSize second = freeingBumpHeapAllocator.allocate(1, memory);
+        freeingBumpHeapAllocator.deallocate(first.pointer(), memory);
 
-            freeingBumpHeapAllocator.deallocate(pointer, memory);
+        freeingBumpHeapAllocator.deallocate(second.pointer(), memory);
 
-            verify(buffer).putLong(pointer - HEADER_SIZE, Header.free(Integer.MAX_VALUE).raw());
-        }
+        assertEquals(Header.free(first.pointer() - HEADER_SIZE), memory.readLong(second.pointer() - HEADER_SIZE));
     }
 
     @Test
-    void deallocateShouldUpdateOrderFreeHeaderPointerWithDeallocatedHeader() {
-        int pointer = HEAP_BASE + 123;
+    void deallocateShouldUpdateStats() {
+        RuntimePointerSize first = freeingBumpHeapAllocator.allocate(8, memory);
+        freeingBumpHeapAllocator.allocate(8, memory);
 
-        try(MockedStatic<Header> mockedStatic = mockStatic(Header.class, CALLS_REAL_METHODS)) {
-            mockedStatic.when(() -> Header.fromMemory(pointer - HEADER_SIZE, memory)).thenReturn(header);
-            when(header.isOccupied()).thenReturn(true);
-            when(header.getOrder()).thenReturn(ORDER_VALUE);
-            when(orders.get(ORDER_VALUE)).thenReturn(order);
+        freeingBumpHeapAllocator.deallocate(first.pointer(), memory);
 
-            freeingBumpHeapAllocator.deallocate(pointer, memory);
+        AllocationStats stats = freeingBumpHeapAllocator.getStats();
+        assertEquals(8 + HEADER_SIZE, stats.getBytesAllocated());
+        assertEquals(2 * (8 + HEADER_SIZE), stats.getBytesAllocatedPeak());
+    }
+
+    @Test
+    void statsShouldReportFragmentationOfBlocksLeftInFreeLists() {
+        RuntimePointerSize small = freeingBumpHeapAllocator.allocate(24, memory);
+        freeingBumpHeapAllocator.deallocate(small.pointer(), memory);
+        freeingBumpHeapAllocator.allocate(56, memory);
 
-            verify(order).setFreeHeaderPointer(pointer - HEADER_SIZE);
-        }
+        // The 32 byte block is free while the 64 byte one has to bump: only 72 of 112 bytes are ever used at once
+        assertEquals(1 - 72.0 / 112, freeingBumpHeapAllocator.getStats().fragmentation(), 1e-9);
     }
 
     @Test
-    void deallocateShouldUpdateStats() {
-        int pointer = HEAP_BASE + 123;
-        int blockSize = 777;
+    void resetShouldFreeAllAllocationsAndClearStats() {
+        RuntimePointerSize first = freeingBumpHeapAllocator.allocate(8, memory);
+        RuntimePointerSize second = freeingBumpHeapAllocator.allocate(1024, memory);
+        freeingBumpHeapAllocator.deallocate(second.pointer(), memory);
 
-        try(MockedStatic<Header> mockedStatic = mockStatic(Header.class, CALLS_REAL_METHODS)) {
-            mockedStatic.when(() -> Header.fromMemory(pointer - HEADER_SIZE, memory)).thenReturn(header);
-            when(header.isOccupied()).thenReturn(true);
-            when(header.getOrder()).thenReturn(ORDER_VALUE);
-            when(orders.get(ORDER_VALUE)).thenReturn(order);
-            when(order.getBlockSize()).thenReturn(blockSize);
+        freeingBumpHeapAllocator.reset();
 
-            freeingBumpHeapAllocator.deallocate(pointer, memory);
+        assertEquals(0, freeingBumpHeapAllocator.getStats().getBytesAllocatedPeak());
+        // The emptied free list isn't used anymore and the bumper starts from the heap base again
+        assertEquals(first.pointer(), freeingBumpHeapAllocator.allocate(1024, memory).pointer());
+    }
+
+    @Test
+    void takeHighWaterMarkShouldSurviveResets() {
+        freeingBumpHeapAllocator.allocate(1024, memory);
+        freeingBumpHeapAllocator.reset();
+        freeingBumpHeapAllocator.allocate(8, memory);
 
-            verify(stats).deallocated(blockSize);
-        }
+        assertEquals(HEAP_BASE + HEADER_SIZE + 1024, freeingBumpHeapAllocator.takeHighWaterMark());
+        assertEquals(HEAP_BASE + HEADER_SIZE + 8, freeingBumpHeapAllocator.takeHighWaterMark());
     }
-}
\ No newline at end of file
+}
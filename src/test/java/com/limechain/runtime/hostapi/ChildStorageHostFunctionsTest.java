@@ -7,10 +7,10 @@ import com.limechain.storage.DeleteByPrefixResult;
 import com.limechain.trie.BlockTrieAccessor;
 import com.limechain.trie.MemoryChildTrieAccessor;
 import com.limechain.trie.structure.nibble.Nibbles;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -28,7 +28,6 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 @Disabled
 class ChildStorageHostFunctionsTest {
-    @InjectMocks
     private ChildStorageHostFunctions childStorageHostFunctions;
 
     @Mock
@@ -60,6 +59,11 @@ class ChildStorageHostFunctionsTest {
 
     private final byte[] emptyOption = new byte[]{0};
 
+    @BeforeEach
+    void setup() {
+        childStorageHostFunctions = new ChildStorageHostFunctions(sharedMemory, () -> repository);
+    }
+
     @Test
     void extStorageSetVersion1() {
         when(sharedMemory.readData(childStorageKeyPointer)).thenReturn(childStorageKeyBytes);
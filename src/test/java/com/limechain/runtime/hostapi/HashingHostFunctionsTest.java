@@ -3,15 +3,24 @@ package com.limechain.runtime.hostapi;
 import com.limechain.runtime.SharedMemory;
 import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
 import com.limechain.utils.HashUtils;
+import io.emeraldpay.polkaj.types.Hash256;
+import net.openhft.hashing.LongHashFunction;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -94,40 +103,33 @@ class HashingHostFunctionsTest {
 
     @Test
     void twox64V1() {
-        when(sharedMemory.readData(dataPointer)).thenReturn(data);
-        when(sharedMemory.writeData(hashedData)).thenReturn(runtimePointerSize);
-
-        try (var utils = mockStatic(HashUtils.class)) {
-            utils.when(() -> HashUtils.hashXx64(0, data)).thenReturn(hashedData);
-            int result = hashingHostFunctions.twox64V1(dataPointer);
-
-            assertEquals(runtimePointerSize.pointer(), result);
-        }
+        stubXxHashing(HashUtils.HASH_64_SIZE_BYTES);
+        assertXxHashWritten(hashingHostFunctions.twox64V1(dataPointer), HashUtils.hashXx64(0, data));
     }
 
     @Test
     void twox128V1() {
-        when(sharedMemory.readData(dataPointer)).thenReturn(data);
-        when(sharedMemory.writeData(hashedData)).thenReturn(runtimePointerSize);
-
-        try (var utils = mockStatic(HashUtils.class)) {
-            utils.when(() -> HashUtils.hashXx128(0, data)).thenReturn(hashedData);
-            int result = hashingHostFunctions.twox128V1(dataPointer);
-
-            assertEquals(runtimePointerSize.pointer(), result);
-        }
+        stubXxHashing(HashUtils.HASH_128_SIZE_BYTES);
+        assertXxHashWritten(hashingHostFunctions.twox128V1(dataPointer), HashUtils.hashXx128(0, data));
     }
 
     @Test
     void twox256V1() {
-        when(sharedMemory.readData(dataPointer)).thenReturn(data);
-        when(sharedMemory.writeData(hashedData)).thenReturn(runtimePointerSize);
+        stubXxHashing(Hash256.SIZE_BYTES);
+        assertXxHashWritten(hashingHostFunctions.twox256V1(dataPointer), HashUtils.hashXx256(0, data));
+    }
 
-        try (var utils = mockStatic(HashUtils.class)) {
-            utils.when(() -> HashUtils.hashXx256(0, data)).thenReturn(hashedData);
-            int result = hashingHostFunctions.twox256V1(dataPointer);
+    private void stubXxHashing(int sizeBytes) {
+        when(sharedMemory.hashData(eq(dataPointer), any(LongHashFunction.class)))
+                .thenAnswer(invocation -> invocation.<LongHashFunction>getArgument(1).hashBytes(data));
+        when(sharedMemory.allocate(sizeBytes)).thenReturn(runtimePointerSize);
+    }
 
-            assertEquals(runtimePointerSize.pointer(), result);
-        }
+    private void assertXxHashWritten(int result, byte[] expectedHash) {
+        ArgumentCaptor<byte[]> written = ArgumentCaptor.forClass(byte[].class);
+        verify(sharedMemory).writeData(written.capture(), eq(runtimePointerSize));
+
+        assertEquals(runtimePointerSize.pointer(), result);
+        assertArrayEquals(expectedHash, Arrays.copyOf(written.getValue(), expectedHash.length));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,185 @@
+package com.limechain.runtime.hostapi;
+
+import com.limechain.runtime.SharedMemory;
+import com.limechain.runtime.allocator.FreeingBumpHeapAllocator;
+import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
+import com.limechain.runtime.memory.Memory;
+import com.limechain.runtime.version.StateVersion;
+import com.limechain.storage.trie.TrieStorage;
+import com.limechain.sync.fullsync.InMemoryDB;
+import com.limechain.trie.DiskTrieAccessor;
+import com.limechain.trie.TrieStructureFactory;
+import com.limechain.trie.structure.NodeHandle;
+import com.limechain.trie.structure.TrieStructure;
+import com.limechain.trie.structure.database.NodeData;
+import com.limechain.trie.structure.nibble.Nibbles;
+import com.limechain.utils.HashUtils;
+import net.openhft.hashing.LongHashFunction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Asserts the hottest host functions don't allocate once the JIT has compiled them, all the way from the engine
+ * agnostic dispatch through reading the arguments from the memory and computing the result to writing it back.
+ * <p>
+ * The memory is heap backed and the results are deallocated after each call, as the runtime does, so the heap
+ * doesn't grow. The storage value is read from the pending changes of the trie, where the values written while
+ * executing a block are.
+ * <p>
+ * Whether a call allocates depends on the JIT's escape analysis, so the calls are repeated in rounds and the round
+ * allocating the least is checked, by which point the hot path has been compiled.
+ */
+class HostFunctionAllocationTest {
+    private static final int CALLS_PER_ROUND = 100_000;
+    // The first rounds run before the JIT compiles (and escape analyses) the hot path
+    private static final int ROUNDS = 20;
+
+    private static final int HEAP_BASE = 1024;
+    private static final int MEMORY_SIZE = 16 * 65536;
+    private static final byte[] KEY = HashUtils.hashXx256(0, "System Number".getBytes());
+    private static final byte[] VALUE = {1, 2, 3, 4, 5, 6, 7, 8};
+    private static final RuntimePointerSize KEY_POINTER = new RuntimePointerSize(0, KEY.length);
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+
+    private Memory memory;
+    private SharedMemory sharedMemory;
+
+    @BeforeAll
+    static void setupThreadMXBean() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @BeforeEach
+    void setup() {
+        memory = memory();
+        memory.write(KEY_POINTER.pointer(), KEY);
+        sharedMemory = new SharedMemory(memory, new FreeingBumpHeapAllocator(HEAP_BASE));
+    }
+
+    @Test
+    void extStorageGetVersion1DoesNotAllocate() {
+        DiskTrieAccessor trieAccessor = trieAccessor();
+        trieAccessor.upsertNode(Nibbles.fromBytes(KEY), VALUE);
+        HostFunction.Implementation implementation = new StorageHostFunctions(sharedMemory, () -> trieAccessor)
+                .getFunctionImports().get(Endpoint.ext_storage_get_version_1).implementation();
+
+        long result = implementation.invoke(new long[]{KEY_POINTER.pointerSize()});
+        assertArrayEquals(StorageHostFunctions.scaleEncodedOption(VALUE), read(new RuntimePointerSize(result)));
+        sharedMemory.deallocate((int) result);
+
+        assertEquals(0, minAllocatedBytes(implementation, KEY_POINTER.pointerSize(), result));
+    }
+
+    @Test
+    void extHashingTwox128Version1DoesNotAllocate() {
+        HostFunction.Implementation implementation = new HashingHostFunctions(sharedMemory)
+                .getFunctionImports().get(Endpoint.ext_hashing_twox_128_version_1).implementation();
+
+        long result = implementation.invoke(new long[]{KEY_POINTER.pointerSize()});
+        byte[] expectedHash = HashUtils.hashXx128(0, KEY);
+        assertArrayEquals(expectedHash, read(new RuntimePointerSize((int) result, expectedHash.length)));
+        sharedMemory.deallocate((int) result);
+
+        assertEquals(0, minAllocatedBytes(implementation, KEY_POINTER.pointerSize(), result));
+    }
+
+    private long minAllocatedBytes(HostFunction.Implementation implementation, long argument, long expectedResult) {
+        long[] argv = {argument};
+        long min = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threadMXBean.getCurrentThreadAllocatedBytes();
+            long result = invoke(implementation, argv);
+            long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+            // Consuming the results keeps the JIT from eliminating the calls. Each call reuses the freed block.
+            assertEquals(expectedResult * CALLS_PER_ROUND, result);
+            min = Math.min(min, allocated);
+        }
+        return min;
+    }
+
+    private long invoke(HostFunction.Implementation implementation, long[] argv) {
+        long sum = 0;
+        for (int i = 0; i < CALLS_PER_ROUND; i++) {
+            long result = implementation.invoke(argv);
+            sharedMemory.deallocate((int) result);
+            sum += result;
+        }
+        return sum;
+    }
+
+    private byte[] read(RuntimePointerSize pointerSize) {
+        byte[] data = new byte[pointerSize.size()];
+        memory.read(pointerSize.pointer(), data);
+        return data;
+    }
+
+    private static DiskTrieAccessor trieAccessor() {
+        TrieStorage trieStorage = new TrieStorage(new InMemoryDB());
+        TrieStructure<NodeData> trie = new TrieStructure<>();
+        trie.insertNode(Nibbles.fromBytes(KEY), new NodeData(new byte[]{0}), StateVersion.V0);
+        TrieStructureFactory.calculateMerkleValues(trie, HashUtils::hashWithBlake2b);
+        trieStorage.insertTrieStorage(trie);
+
+        byte[] root = trie.getRootNode()
+                .map(NodeHandle::getUserData)
+                .map(NodeData::getMerkleValue)
+                .orElseThrow();
+        DiskTrieAccessor trieAccessor = new DiskTrieAccessor(trieStorage, root);
+        trieAccessor.setCurrentStateVersion(StateVersion.V0);
+        return trieAccessor;
+    }
+
+    private static Memory memory() {
+        ByteBuffer buffer = ByteBuffer.allocate(MEMORY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        return new Memory() {
+            @Override
+            public int size() {
+                return buffer.limit();
+            }
+
+            @Override
+            public void read(int offset, byte[] destination, int destinationOffset, int length) {
+                buffer.get(offset, destination, destinationOffset, length);
+            }
+
+            @Override
+            public long hash(LongHashFunction hashFunction, int offset, int length) {
+                return hashFunction.hashBytes(buffer.array(), offset, length);
+            }
+
+            @Override
+            public void write(int offset, byte[] source, int sourceOffset, int length) {
+                buffer.put(offset, source, sourceOffset, length);
+            }
+
+            @Override
+            public long readLong(int offset) {
+                return buffer.getLong(offset);
+            }
+
+            @Override
+            public void writeLong(int offset, long value) {
+                buffer.putLong(offset, value);
+            }
+
+            @Override
+            public int grow(int numPages) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -32,15 +32,13 @@ class MiscellaneousHostFunctionsTest {
     @Mock
     private SharedMemory sharedMemory;
     @Mock
-    private Number number;
-    @Mock
     private RuntimePointerSize valuePointer;
     @Mock
     private RuntimePointerSize targetPointer;
 
     @Test
     void printNumV1() {
-        miscellaneousHostFunctions.printNumV1(number);
+        miscellaneousHostFunctions.printNumV1(42L);
         verifyNoMoreInteractions(sharedMemory);
     }
 
@@ -83,6 +81,17 @@ class MiscellaneousHostFunctionsTest {
         }
     }
 
+    @Test
+    void runtimeVersionV1WhenBlobIsNotWasmShouldReturnNone() {
+        when(sharedMemory.readData(valuePointer)).thenReturn(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        when(sharedMemory.writeData(new byte[]{0})).thenReturn(targetPointer);
+
+        RuntimePointerSize result = miscellaneousHostFunctions.runtimeVersionV1(valuePointer);
+
+        assertEquals(targetPointer, result);
+        verify(sharedMemory).writeData(new byte[]{0});
+    }
+
     @Test
     void logV1() {
         when(sharedMemory.readData(valuePointer)).thenReturn(value.getBytes());
@@ -6,10 +6,10 @@ import com.limechain.runtime.hostapi.dto.RuntimePointerSize;
 import com.limechain.storage.DeleteByPrefixResult;
 import com.limechain.trie.BlockTrieAccessor;
 import com.limechain.trie.structure.nibble.Nibbles;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -27,7 +27,6 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 @Disabled
 class StorageHostFunctionsTest {
-    @InjectMocks
     private StorageHostFunctions storageHostFunctions;
 
     @Mock
@@ -52,6 +51,11 @@ class StorageHostFunctionsTest {
 
     private final byte[] emptyOption = new byte[] { 0 };
 
+    @BeforeEach
+    void setup() {
+        storageHostFunctions = new StorageHostFunctions(sharedMemory, () -> blockTrieAccessor);
+    }
+
     @Test
     void extStorageSetVersion1() {
         when(sharedMemory.readData(keyPointer)).thenReturn(keyBytes);
@@ -22,7 +22,6 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -181,13 +180,13 @@ class TrieHostFunctionsTest {
                 .when(() -> TrieVerifier.verify(eq(trie), eq(keyBytes), eq(valueBytes)))
                 .thenReturn(true);
 
-            Number proofVerified = trieHostFunctions.ext_trie_blake2_256_verify_proof_version_1(
-                List.of(
+            long proofVerified = trieHostFunctions.ext_trie_blake2_256_verify_proof_version_1(
+                new long[] {
                     rootPointer.pointer(),
                     proofPointer.pointerSize(),
                     keyPointer.pointerSize(),
                     valuePointer.pointerSize()
-                ));
+                });
 
             assertEquals(1, proofVerified);
 
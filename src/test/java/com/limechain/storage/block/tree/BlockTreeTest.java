@@ -266,6 +266,58 @@ class BlockTreeTest {
         assertThrows(BlockNodeNotFoundException.class, () -> blockTree.getBlockRuntime(hash));
     }
 
+    @Test
+    void testBlockTreeIndexesForks() {
+        Pair<BlockTree, List<Hash256>> result = createFlatTree(4);
+        BlockTree bt = result.getValue0();
+        List<Hash256> hashes = result.getValue1();
+
+        // Fork from block 1 with a different state root
+        BlockHeader forkHeader = createHeader(hashes.get(1), 2, getHash("05"));
+        bt.addBlock(forkHeader, Instant.ofEpochSecond(0));
+        BlockHeader forkChildHeader = createHeader(forkHeader.getHash(), 3, getHash("05"));
+        bt.addBlock(forkChildHeader, Instant.ofEpochSecond(0));
+
+        assertEquals(List.of(hashes.get(3), forkChildHeader.getHash()), bt.getAllBlocksAtNumber(hashes.get(2)));
+        assertTrue(bt.isDescendantOf(hashes.get(1), forkChildHeader.getHash()));
+        assertFalse(bt.isDescendantOf(hashes.get(2), forkChildHeader.getHash()));
+        assertEquals(hashes.get(1), bt.lowestCommonAncestor(hashes.get(4), forkChildHeader.getHash()));
+        assertEquals(hashes.get(2), bt.getHashByNumber(2));
+    }
+
+    @Test
+    void testPruneRemovesNodesFromIndex() {
+        Pair<BlockTree, List<Hash256>> result = createFlatTree(4);
+        BlockTree bt = result.getValue0();
+        List<Hash256> hashes = result.getValue1();
+
+        BlockHeader forkHeader = createHeader(hashes.get(1), 2, getHash("05"));
+        bt.addBlock(forkHeader, Instant.ofEpochSecond(0));
+
+        List<Hash256> pruned = bt.prune(hashes.get(2));
+
+        assertEquals(List.of(forkHeader.getHash()), pruned);
+        assertNull(bt.getNode(forkHeader.getHash()));
+        assertNull(bt.getNode(hashes.get(1)));
+        assertEquals(List.of(hashes.get(2), hashes.get(3), hashes.get(4)), bt.getAllBlocks());
+        assertTrue(bt.isDescendantOf(hashes.get(2), hashes.get(4)));
+        assertEquals(hashes.get(3), bt.lowestCommonAncestor(hashes.get(3), hashes.get(4)));
+    }
+
+    @Test
+    void testBlockTreeAncestryOnLongChain() {
+        Pair<BlockTree, List<Hash256>> result = createFlatTree(1000);
+        BlockTree bt = result.getValue0();
+        List<Hash256> hashes = result.getValue1();
+
+        for (int i = 0; i <= 1000; i += 37) {
+            assertTrue(bt.isDescendantOf(hashes.get(i), hashes.get(1000)));
+            assertEquals(hashes.get(i), bt.getHashByNumber(i));
+            assertEquals(hashes.get(i), bt.lowestCommonAncestor(hashes.get(i), hashes.get(1000)));
+        }
+        assertFalse(bt.isDescendantOf(hashes.get(1000), hashes.get(999)));
+    }
+
     /*Helper methods*/
     private static Hash256 getHash(final String hash) {
         byte[] bytes = HashUtils.hashWithBlake2b(HexUtils.fromHexString(hash));
@@ -0,0 +1,81 @@
+package com.limechain.storage.trie;
+
+import com.limechain.sync.fullsync.InMemoryDB;
+import com.limechain.trie.structure.nibble.Nibbles;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlatStateTest {
+
+    private static final byte[] ROOT = {1};
+    private static final byte[] NEXT_ROOT = {2};
+
+    private InMemoryDB db;
+    private FlatState flatState;
+
+    @BeforeEach
+    void setup() {
+        db = new InMemoryDB();
+        flatState = new FlatState(db);
+        flatState.rebuild(ROOT, action -> {
+            action.accept(Nibbles.fromHexString("0a"), new byte[]{1});
+            action.accept(Nibbles.fromHexString("0a01"), new byte[]{2});
+            action.accept(Nibbles.fromHexString("0b"), new byte[]{3});
+            action.accept(Nibbles.fromHexString("1c"), new byte[]{4});
+        });
+    }
+
+    @Test
+    void get_servesOnlyReadsAtItsRoot() {
+        assertArrayEquals(new byte[]{3}, flatState.get(ROOT, Nibbles.fromHexString("0b")).orElseThrow());
+        assertEquals(Optional.empty(), flatState.get(ROOT, Nibbles.fromHexString("0c")));
+        assertNull(flatState.get(NEXT_ROOT, Nibbles.fromHexString("0b")));
+    }
+
+    @Test
+    void keysAfter_returnsFollowingKeysWithPrefix() {
+        assertEquals(List.of(Nibbles.fromHexString("0a01"), Nibbles.fromHexString("0b")),
+                flatState.keysAfter(ROOT, Nibbles.fromHexString("0"), Nibbles.fromHexString("0a"), 10));
+        assertEquals(List.of(Nibbles.fromHexString("0a"), Nibbles.fromHexString("0a01")),
+                flatState.keysAfter(ROOT, Nibbles.fromHexString("0a"), Nibbles.EMPTY, 10));
+        assertEquals(List.of(Nibbles.fromHexString("1c")),
+                flatState.keysAfter(ROOT, Nibbles.EMPTY, Nibbles.fromHexString("0b"), 10));
+        assertEquals(List.of(Nibbles.fromHexString("0a")),
+                flatState.keysAfter(ROOT, Nibbles.EMPTY, Nibbles.EMPTY, 1));
+        assertNull(flatState.keysAfter(NEXT_ROOT, Nibbles.EMPTY, Nibbles.EMPTY, 10));
+    }
+
+    @Test
+    void apply_movesForwardOnlyFromItsRoot() {
+        flatState.apply(NEXT_ROOT, new byte[]{3}, Map.of(Nibbles.fromHexString("0b"), Optional.empty()));
+        assertTrue(flatState.isAt(ROOT));
+
+        flatState.apply(ROOT, NEXT_ROOT, Map.of(
+                Nibbles.fromHexString("0b"), Optional.empty(),
+                Nibbles.fromHexString("1d"), Optional.of(new byte[]{5})));
+
+        assertFalse(flatState.isAt(ROOT));
+        assertEquals(Optional.empty(), flatState.get(NEXT_ROOT, Nibbles.fromHexString("0b")));
+        assertArrayEquals(new byte[]{5}, flatState.get(NEXT_ROOT, Nibbles.fromHexString("1d")).orElseThrow());
+        // The root survives a restart
+        assertTrue(new FlatState(db).isAt(NEXT_ROOT));
+    }
+
+    @Test
+    void rebuild_dropsEntriesOfPreviousState() {
+        flatState.rebuild(NEXT_ROOT, action -> action.accept(Nibbles.fromHexString("1d"), new byte[]{5}));
+
+        assertEquals(List.of(Nibbles.fromHexString("1d")),
+                flatState.keysAfter(NEXT_ROOT, Nibbles.EMPTY, Nibbles.EMPTY, 10));
+    }
+}
@@ -0,0 +1,197 @@
+package com.limechain.storage.trie;
+
+import com.limechain.network.protocol.warp.dto.BlockHeader;
+import com.limechain.runtime.version.StateVersion;
+import com.limechain.sync.fullsync.InMemoryDB;
+import com.limechain.trie.TrieStructureFactory;
+import com.limechain.trie.structure.NodeHandle;
+import com.limechain.trie.structure.TrieStructure;
+import com.limechain.trie.structure.database.NodeData;
+import com.limechain.trie.structure.nibble.Nibbles;
+import com.limechain.utils.HashUtils;
+import com.limechain.utils.async.AsyncExecutor;
+import io.emeraldpay.polkaj.types.Hash256;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class StatePrunerTest {
+
+    private static final Nibbles SHARED_KEY = Nibbles.fromHexString("0a");
+    private static final Nibbles CHANGED_KEY = Nibbles.fromHexString("0b");
+
+    private InMemoryDB db;
+    private TrieStorage trieStorage;
+
+    @BeforeEach
+    void setup() {
+        db = new InMemoryDB();
+        trieStorage = new TrieStorage(db, new PruningMode(1));
+    }
+
+    @Test
+    void releaseState_keepsNodesSharedWithRetainedState() {
+        byte[] oldRoot = insertState(trieStorage, 1);
+        trieStorage.retainState(oldRoot, Map.of());
+        byte[] newRoot = insertState(trieStorage, 2);
+        trieStorage.retainState(newRoot, Map.of());
+
+        int deleted = trieStorage.releaseState(oldRoot, List.of());
+
+        assertEquals(2, deleted);
+        assertNull(trieStorage.getTrieNodeFromMerkleValue(oldRoot));
+        assertArrayEquals(value(0), trieStorage.getStorageValue(newRoot, SHARED_KEY).orElseThrow());
+        assertArrayEquals(value(2), trieStorage.getStorageValue(newRoot, CHANGED_KEY).orElseThrow());
+    }
+
+    @Test
+    void discardState_deletesOnlyUnretainedState() {
+        byte[] finalizedRoot = insertState(trieStorage, 1);
+        trieStorage.retainState(finalizedRoot, Map.of());
+        byte[] forkRoot = insertState(trieStorage, 2);
+
+        assertEquals(0, trieStorage.discardState(finalizedRoot));
+        assertEquals(2, trieStorage.discardState(forkRoot));
+        assertNull(trieStorage.getTrieNodeFromMerkleValue(forkRoot));
+        assertArrayEquals(value(0), trieStorage.getStorageValue(finalizedRoot, SHARED_KEY).orElseThrow());
+        assertArrayEquals(value(1), trieStorage.getStorageValue(finalizedRoot, CHANGED_KEY).orElseThrow());
+    }
+
+    @Test
+    void releaseState_keepsNodesSavedInArchiveMode() {
+        InMemoryDB archivedDb = new InMemoryDB();
+        byte[] archivedRoot = insertState(new TrieStorage(archivedDb), 1);
+        TrieStorage prunedStorage = new TrieStorage(archivedDb, new PruningMode(1));
+
+        prunedStorage.retainState(archivedRoot, Map.of());
+        byte[] newRoot = insertState(prunedStorage, 2);
+        prunedStorage.retainState(newRoot, Map.of());
+
+        assertEquals(0, prunedStorage.releaseState(archivedRoot, List.of()));
+        assertNotNull(prunedStorage.getTrieNodeFromMerkleValue(archivedRoot));
+        assertEquals(2, prunedStorage.releaseState(newRoot, List.of()));
+        assertArrayEquals(value(0), prunedStorage.getStorageValue(archivedRoot, SHARED_KEY).orElseThrow());
+    }
+
+    @Test
+    void constructor_refusesArchiveModeOnceStatesArePruned() {
+        assertThrows(IllegalStateException.class, () -> new TrieStorage(db));
+    }
+
+    @Test
+    void onFinalized_releasesStatesOutsideWindowInBackground() throws InterruptedException {
+        StatePruner statePruner = new StatePruner(db, trieStorage, new PruningMode(1));
+        byte[] oldRoot = insertState(trieStorage, 1);
+        byte[] newRoot = insertState(trieStorage, 2);
+
+        statePruner.onFinalized(header(1, oldRoot));
+        statePruner.onFinalized(header(2, newRoot));
+        awaitPruning(statePruner);
+
+        assertNull(trieStorage.getTrieNodeFromMerkleValue(oldRoot));
+        assertNotNull(trieStorage.getTrieNodeFromMerkleValue(newRoot));
+        assertEquals(0, statePruner.lag());
+    }
+
+    @Test
+    void onFinalized_doesNothingInArchiveMode() throws InterruptedException {
+        InMemoryDB archiveDb = new InMemoryDB();
+        TrieStorage archiveStorage = new TrieStorage(archiveDb);
+        StatePruner statePruner = new StatePruner(archiveDb, archiveStorage, PruningMode.ARCHIVE);
+        byte[] oldRoot = insertState(archiveStorage, 1);
+        byte[] newRoot = insertState(archiveStorage, 2);
+
+        statePruner.onFinalized(header(1, oldRoot));
+        statePruner.onFinalized(header(2, newRoot));
+        awaitPruning(statePruner);
+
+        assertNotNull(archiveStorage.getTrieNodeFromMerkleValue(oldRoot));
+        assertNotNull(archiveStorage.getTrieNodeFromMerkleValue(newRoot));
+    }
+
+    @Test
+    void onFinalized_releasesJournaledStatesAfterRestart() throws InterruptedException {
+        // The releases scheduled before the crash never run
+        StatePruner crashedPruner = new StatePruner(db, trieStorage, new PruningMode(1), mock(AsyncExecutor.class));
+        byte[] firstRoot = insertState(trieStorage, 1);
+        byte[] secondRoot = insertState(trieStorage, 2);
+        crashedPruner.onFinalized(header(1, firstRoot));
+        crashedPruner.onFinalized(header(2, secondRoot));
+
+        StatePruner statePruner = new StatePruner(db, trieStorage, new PruningMode(1));
+        byte[] thirdRoot = insertState(trieStorage, 3);
+        statePruner.onFinalized(header(3, thirdRoot));
+        awaitPruning(statePruner);
+
+        assertNull(trieStorage.getTrieNodeFromMerkleValue(firstRoot));
+        assertNull(trieStorage.getTrieNodeFromMerkleValue(secondRoot));
+
+        // Released states are gone from the journal, so another restart doesn't release them again
+        statePruner = new StatePruner(db, trieStorage, new PruningMode(1));
+        byte[] fourthRoot = insertState(trieStorage, 4);
+        statePruner.onFinalized(header(4, fourthRoot));
+        awaitPruning(statePruner);
+
+        assertNull(trieStorage.getTrieNodeFromMerkleValue(thirdRoot));
+        assertArrayEquals(value(0), trieStorage.getStorageValue(fourthRoot, SHARED_KEY).orElseThrow());
+        assertArrayEquals(value(4), trieStorage.getStorageValue(fourthRoot, CHANGED_KEY).orElseThrow());
+    }
+
+    @Test
+    void onDiscarded_keepsStatesOfKeptBlocks() throws InterruptedException {
+        StatePruner statePruner = new StatePruner(db, trieStorage, new PruningMode(1));
+        byte[] sharedRoot = insertState(trieStorage, 1);
+        byte[] forkRoot = insertState(trieStorage, 2);
+
+        statePruner.onDiscarded(List.of(header(1, sharedRoot), header(1, forkRoot)), List.of(header(1, sharedRoot)));
+        awaitPruning(statePruner);
+
+        assertNotNull(trieStorage.getTrieNodeFromMerkleValue(sharedRoot));
+        assertNull(trieStorage.getTrieNodeFromMerkleValue(forkRoot));
+    }
+
+    private static byte[] insertState(TrieStorage storage, int changedValue) {
+        TrieStructure<NodeData> trie = new TrieStructure<>();
+        trie.insertNode(SHARED_KEY, new NodeData(value(0)), StateVersion.V1);
+        trie.insertNode(CHANGED_KEY, new NodeData(value(changedValue)), StateVersion.V1);
+        TrieStructureFactory.calculateMerkleValues(trie, HashUtils::hashWithBlake2b);
+        storage.insertTrieStorage(trie);
+
+        return trie.getRootNode()
+                .map(NodeHandle::getUserData)
+                .map(NodeData::getMerkleValue)
+                .orElseThrow();
+    }
+
+    // Long enough for the leaves to be hashed rather than inlined into their parent
+    private static byte[] value(int seed) {
+        byte[] value = new byte[40];
+        Arrays.fill(value, (byte) seed);
+        return value;
+    }
+
+    private static BlockHeader header(long number, byte[] stateRoot) {
+        BlockHeader header = new BlockHeader();
+        header.setBlockNumber(BigInteger.valueOf(number));
+        header.setStateRoot(new Hash256(stateRoot));
+        return header;
+    }
+
+    private static void awaitPruning(StatePruner statePruner) throws InterruptedException {
+        for (int i = 0; i < 100 && statePruner.pendingStates() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, statePruner.pendingStates());
+    }
+}
@@ -0,0 +1,60 @@
+package com.limechain.storage.trie;
+
+import com.limechain.trie.structure.nibble.Nibbles;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageValueCacheTest {
+
+    private static final byte[] PARENT_ROOT = {1};
+    private static final byte[] ROOT = {2};
+    private static final Nibbles KEY = Nibbles.fromHexString("abc");
+
+    @Test
+    void get_distinguishesAbsentFromUncachedKeys() {
+        StorageValueCache cache = new StorageValueCache();
+        cache.put(PARENT_ROOT, KEY, Optional.empty());
+
+        assertEquals(Optional.empty(), cache.get(PARENT_ROOT, KEY));
+        assertNull(cache.get(ROOT, KEY));
+    }
+
+    @Test
+    void promote_carriesOverUnchangedAndChangedValues() {
+        StorageValueCache cache = new StorageValueCache();
+        Nibbles changed = Nibbles.fromHexString("abd");
+        Nibbles deleted = Nibbles.fromHexString("abe");
+        Nibbles uncached = Nibbles.fromHexString("abf");
+        cache.put(PARENT_ROOT, KEY, Optional.of(new byte[]{1}));
+        cache.put(PARENT_ROOT, changed, Optional.of(new byte[]{2}));
+        cache.put(PARENT_ROOT, deleted, Optional.of(new byte[]{3}));
+
+        cache.promote(PARENT_ROOT, ROOT, List.of(KEY, changed, deleted, uncached),
+                Map.of(changed, Optional.of(new byte[]{4}), deleted, Optional.empty()));
+
+        assertArrayEquals(new byte[]{1}, cache.get(ROOT, KEY).orElseThrow());
+        assertArrayEquals(new byte[]{4}, cache.get(ROOT, changed).orElseThrow());
+        assertEquals(Optional.empty(), cache.get(ROOT, deleted));
+        assertNull(cache.get(ROOT, uncached));
+        assertArrayEquals(new byte[]{2}, cache.get(PARENT_ROOT, changed).orElseThrow());
+    }
+
+    @Test
+    void put_evictsWhenOverSize() {
+        StorageValueCache cache = new StorageValueCache(10_000);
+        for (int i = 0; i < 100; i++) {
+            cache.put(new byte[]{(byte) i}, KEY, Optional.of(new byte[1000]));
+        }
+
+        assertTrue(cache.size() > 0);
+        assertTrue(cache.size() < 10);
+    }
+}
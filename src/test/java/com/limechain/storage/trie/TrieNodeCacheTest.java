@@ -0,0 +1,65 @@
+package com.limechain.storage.trie;
+
+import com.limechain.trie.structure.nibble.Nibbles;
+import com.limechain.trie.structure.node.TrieNodeData;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrieNodeCacheTest {
+
+    @Test
+    void get_loadsOnlyOnMiss() {
+        TrieNodeCache cache = new TrieNodeCache();
+        TrieNodeData node = node(new byte[]{1});
+        AtomicInteger loads = new AtomicInteger();
+
+        TrieNodeData first = cache.get(new byte[]{1, 2, 3}, merkleValue -> {
+            loads.incrementAndGet();
+            return node;
+        });
+        TrieNodeData second = cache.get(new byte[]{1, 2, 3}, merkleValue -> {
+            loads.incrementAndGet();
+            return node(new byte[]{2});
+        });
+
+        assertSame(node, first);
+        assertSame(node, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_doesNotCacheMissingNodes() {
+        TrieNodeCache cache = new TrieNodeCache();
+
+        assertNull(cache.get(new byte[]{1}, merkleValue -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_evictsWhenOverSize() {
+        TrieNodeCache cache = new TrieNodeCache(10_000);
+        for (int i = 0; i < 100; i++) {
+            cache.get(new byte[]{(byte) i}, merkleValue -> node(new byte[1000]));
+        }
+
+        assertTrue(cache.size() > 0);
+        assertTrue(cache.size() < 10);
+    }
+
+    private static TrieNodeData node(byte[] value) {
+        return new TrieNodeData(
+            false,
+            Nibbles.fromHexString("abc"),
+            Collections.nCopies(16, null),
+            value,
+            null,
+            (byte) 0);
+    }
+}
@@ -0,0 +1,89 @@
+package com.limechain.storage.trie;
+
+import com.limechain.exception.storage.DBException;
+import com.limechain.runtime.version.StateVersion;
+import com.limechain.storage.DBConstants;
+import com.limechain.storage.trie.scale.TrieNodeDataWriter;
+import com.limechain.sync.fullsync.InMemoryDB;
+import com.limechain.trie.TrieStructureFactory;
+import com.limechain.trie.structure.NodeHandle;
+import com.limechain.trie.structure.TrieStructure;
+import com.limechain.trie.structure.database.InsertTrieBuilder;
+import com.limechain.trie.structure.database.NodeData;
+import com.limechain.trie.structure.nibble.Nibbles;
+import com.limechain.trie.structure.node.InsertTrieNode;
+import com.limechain.trie.structure.node.TrieNodeData;
+import com.limechain.utils.HashUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrieNodeFormatMigrationTest {
+
+    private static final Map<Nibbles, byte[]> ENTRIES = Map.of(
+            Nibbles.fromHexString("a1b2"), new byte[]{1},
+            Nibbles.fromHexString("a1b3"), new byte[]{2},
+            Nibbles.fromHexString("a1"), new byte[40],
+            Nibbles.fromHexString("ff00"), new byte[]{3, 4});
+
+    @Test
+    void migrate_convertsLegacyNodes() {
+        InMemoryDB db = new InMemoryDB();
+        byte[] root = saveLegacyTrie(db);
+
+        new TrieNodeFormatMigration(db).migrate();
+
+        TrieStorage trieStorage = new TrieStorage(db);
+        ENTRIES.forEach((key, value) ->
+                assertArrayEquals(value, trieStorage.getByKeyFromMerkle(root, key).orElseThrow().getValue()));
+        assertTrue(db.findKeysByPrefix(TrieNodeFormatMigration.LEGACY_TRIE_NODE_PREFIX, 1).isEmpty());
+        assertEquals(TrieNodeDataWriter.FORMAT_VERSION,
+                db.find(DBConstants.TRIE_NODE_FORMAT_VERSION, (Integer) null));
+    }
+
+    @Test
+    void migrate_keepsLegacyNodesWhenWriteFails() {
+        InMemoryDB db = new InMemoryDB() {
+            @Override
+            public void writeRawBatch(Map<byte[], byte[]> kvMap, Collection<byte[]> keys) {
+                throw new DBException(new IllegalStateException("Write failed"));
+            }
+        };
+        saveLegacyTrie(db);
+        int legacyNodes = db.findKeysByPrefix(TrieNodeFormatMigration.LEGACY_TRIE_NODE_PREFIX, 100).size();
+
+        assertThrows(DBException.class, () -> new TrieNodeFormatMigration(db).migrate());
+
+        assertEquals(legacyNodes, db.findKeysByPrefix(TrieNodeFormatMigration.LEGACY_TRIE_NODE_PREFIX, 100).size());
+        assertNull(db.find(DBConstants.TRIE_NODE_FORMAT_VERSION, (Integer) null));
+    }
+
+    /**
+     * Saves the trie of {@link #ENTRIES} in the format written before the binary one.
+     *
+     * @return the merkle root of the trie
+     */
+    private static byte[] saveLegacyTrie(InMemoryDB db) {
+        TrieStructure<NodeData> trie = new TrieStructure<>();
+        ENTRIES.forEach((key, value) -> trie.insertNode(key, new NodeData(value), StateVersion.V1));
+        TrieStructureFactory.calculateMerkleValues(trie, HashUtils::hashWithBlake2b);
+
+        for (InsertTrieNode node : InsertTrieBuilder.build(trie)) {
+            db.save(TrieNodeFormatMigration.LEGACY_TRIE_NODE_PREFIX + new String(node.merkleValue()),
+                    new TrieNodeData(node.isBranch(), node.partialKeyNibbles(), node.childrenMerkleValues(),
+                            node.storageValue(), null, (byte) node.stateVersion()));
+        }
+
+        return trie.getRootNode()
+                .map(NodeHandle::getUserData)
+                .map(NodeData::getMerkleValue)
+                .orElseThrow();
+    }
+}
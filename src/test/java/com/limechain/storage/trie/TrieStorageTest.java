@@ -1,25 +1,39 @@
 package com.limechain.storage.trie;
 
 
+import com.limechain.runtime.version.StateVersion;
 import com.limechain.storage.KVRepository;
+import com.limechain.storage.trie.scale.TrieNodeDataReader;
+import com.limechain.sync.fullsync.InMemoryDB;
+import com.limechain.trie.TrieStructureFactory;
+import com.limechain.trie.structure.NodeHandle;
+import com.limechain.trie.structure.TrieStructure;
 import com.limechain.trie.structure.database.NodeData;
 import com.limechain.trie.structure.nibble.Nibbles;
 import com.limechain.trie.structure.node.TrieNodeData;
+import com.limechain.utils.HashUtils;
+import com.limechain.utils.scale.ScaleUtils;
 import io.emeraldpay.polkaj.types.Hash256;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,9 +44,13 @@ class TrieStorageTest {
     @Mock
     private KVRepository<String, Object> db;
 
-    @InjectMocks
     private TrieStorage trieStorage;
 
+    @BeforeEach
+    void setup() {
+        trieStorage = new TrieStorage(db);
+    }
+
     @Test
     void testGetByKeyFromBlock() {
         Nibbles key = Nibbles.fromBytes("testKey".getBytes());
@@ -48,7 +66,7 @@ class TrieStorageTest {
                 (byte) 0
             );
 
-        when(db.find(anyString())).thenReturn(Optional.of(trieNodeData));
+        when(db.findRaw(any())).thenReturn(Optional.of(TrieStorage.encode(trieNodeData)));
 
         byte[] blockStateRoot = Hash256.from(ROOT_HASH).getBytes();
         Optional<NodeData> result = trieStorage.getByKeyFromMerkle(blockStateRoot, key);
@@ -56,14 +74,14 @@ class TrieStorageTest {
         assertTrue(result.isPresent());
         assertArrayEquals(expectedValue, result.get().getValue());
 
-        verify(db).find(anyString());
+        verify(db).findRaw(any());
     }
 
     @Test
     void testGetByKeyFromBlockWithNonMatchingKey() {
         String keyStr = "nonMatchingKey";
 
-        when(db.find(anyString())).thenReturn(Optional.empty());
+        when(db.findRaw(any())).thenReturn(Optional.empty());
 
         byte[] blockStateRoot = Hash256.from(ROOT_HASH).getBytes();
         Optional<NodeData> result =
@@ -71,7 +89,7 @@ class TrieStorageTest {
 
         assertTrue(result.isEmpty());
 
-        verify(db).find(anyString());
+        verify(db).findRaw(any());
     }
 
     @Test
@@ -86,7 +104,7 @@ class TrieStorageTest {
             null,
             new byte[0],
             (byte) 0);
-        when(db.find(anyString())).thenReturn(Optional.of(nonMatchingTrieNodeData));
+        when(db.findRaw(any())).thenReturn(Optional.of(TrieStorage.encode(nonMatchingTrieNodeData)));
 
         // Action
         byte[] blockStateRoot = Hash256.from(ROOT_HASH).getBytes();
@@ -108,7 +126,7 @@ class TrieStorageTest {
             new ArrayList<>(), "nextValue".getBytes(), new byte[0], (byte) 0);
 
         // Assuming the database returns the mock TrieNodeData for the next key
-        when(db.find(anyString())).thenReturn(Optional.of(nextKeyNode));
+        when(db.findRaw(any())).thenReturn(Optional.of(TrieStorage.encode(nextKeyNode)));
 
         // Action
         byte[] blockStateRoot = Hash256.from(ROOT_HASH).getBytes();
@@ -117,4 +135,83 @@ class TrieStorageTest {
         // Assert
         assertEquals(actualKey, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void encodedTrieNodeDataRoundTrips() {
+        List<byte[]> children = new ArrayList<>(Collections.nCopies(16, null));
+        children.set(3, new byte[]{1, 2, 3});
+        children.set(15, Hash256.from(ROOT_HASH).getBytes());
+        TrieNodeData trieNodeData = new TrieNodeData(
+            false,
+            Nibbles.fromHexString("abc"),
+            children,
+            "value".getBytes(),
+            null,
+            (byte) 1);
+
+        TrieNodeData decoded = ScaleUtils.Decode.decode(TrieStorage.encode(trieNodeData),
+            TrieNodeDataReader.getInstance());
+
+        assertEquals(trieNodeData.isBranchNode(), decoded.isBranchNode());
+        assertEquals(trieNodeData.getPartialKey(), decoded.getPartialKey());
+        for (int i = 0; i < children.size(); i++) {
+            assertArrayEquals(children.get(i), decoded.getChildrenMerkleValues().get(i));
+        }
+        assertArrayEquals(trieNodeData.getValue(), decoded.getValue());
+        assertNull(decoded.getTrieRootRef());
+        assertEquals(trieNodeData.getEntriesVersion(), decoded.getEntriesVersion());
+    }
+
+    @Test
+    void getTrieNodeFromMerkleValue_readsDatabaseOncePerNode() {
+        TrieNodeData trieNodeData = new TrieNodeData(
+            false,
+            Nibbles.fromHexString("abc"),
+            Collections.nCopies(16, null),
+            "value".getBytes(),
+            null,
+            (byte) 0);
+        when(db.findRaw(any())).thenReturn(Optional.of(TrieStorage.encode(trieNodeData)));
+
+        byte[] merkleValue = Hash256.from(ROOT_HASH).getBytes();
+        TrieNodeData first = trieStorage.getTrieNodeFromMerkleValue(merkleValue);
+        TrieNodeData second = trieStorage.getTrieNodeFromMerkleValue(merkleValue.clone());
+
+        assertSame(first, second);
+        verify(db, times(1)).findRaw(any());
+    }
+
+    @Test
+    void getKeysWithPrefixPaged_returnsSameKeysFromFlatStateAndTrie() {
+        InMemoryDB inMemoryDb = new InMemoryDB();
+        TrieStorage flatTrieStorage = new TrieStorage(inMemoryDb, PruningMode.ARCHIVE, true);
+        TrieStructure<NodeData> trie = new TrieStructure<>();
+        for (String key : List.of("0a", "0a01", "0b", "0b02", "0b0201", "1c", "1d")) {
+            trie.insertNode(Nibbles.fromHexString(key), new NodeData(new byte[40]), StateVersion.V1);
+        }
+        TrieStructureFactory.calculateMerkleValues(trie, HashUtils::hashWithBlake2b);
+        flatTrieStorage.insertTrieStorage(trie);
+        Hash256 stateRoot = new Hash256(trie.getRootNode()
+            .map(NodeHandle::getUserData)
+            .map(NodeData::getMerkleValue)
+            .orElseThrow());
+        // Doesn't keep a flat state, so it traverses the trie
+        TrieStorage plainTrieStorage = new TrieStorage(inMemoryDb);
+
+        assertTrue(flatTrieStorage.isFlatStateAt(stateRoot.getBytes()));
+        assertEquals(Stream.of("0a", "0a01", "0b", "0b02").map(Nibbles::fromHexString).toList(),
+            plainTrieStorage.getKeysWithPrefixPaged(stateRoot, Nibbles.fromHexString("0"), null, 4));
+        for (String prefix : List.of("", "0", "0a", "0b02", "1", "2")) {
+            for (String startKey : List.of("", "0a", "0a00", "0b02", "0b03", "1c", "2")) {
+                for (int limit : List.of(1, 2, 10)) {
+                    Nibbles prefixNibbles = Nibbles.fromHexString(prefix);
+                    Nibbles startKeyNibbles = Nibbles.fromHexString(startKey);
+                    assertEquals(
+                        plainTrieStorage.getKeysWithPrefixPaged(stateRoot, prefixNibbles, startKeyNibbles, limit),
+                        flatTrieStorage.getKeysWithPrefixPaged(stateRoot, prefixNibbles, startKeyNibbles, limit),
+                        "prefix " + prefix + ", start key " + startKey + ", limit " + limit);
+                }
+            }
+        }
+    }
+}
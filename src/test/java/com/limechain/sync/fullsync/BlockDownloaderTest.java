@@ -0,0 +1,234 @@
+package com.limechain.sync.fullsync;
+
+import com.limechain.network.NetworkService;
+import com.limechain.network.PeerRequester;
+import com.limechain.network.protocol.sync.BlockRequestField;
+import com.limechain.network.protocol.warp.dto.Block;
+import com.limechain.network.protocol.warp.dto.BlockBody;
+import com.limechain.network.protocol.warp.dto.BlockHeader;
+import com.limechain.network.protocol.warp.dto.HeaderDigest;
+import io.emeraldpay.polkaj.types.Hash256;
+import io.libp2p.core.PeerId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BlockDownloaderTest {
+
+    private static final PeerId FIRST_PEER = PeerId.fromBase58("12D3KooWBMw3k3sDwcvFGkD1V6DXuo2okRbZQ7KA72hpYMWXrUmc");
+    private static final PeerId SECOND_PEER = PeerId.fromBase58("12D3KooWPGSssFbR4XvuSfvu7Rdq4MUv82HdsygXZ4nRhEw3vJpC");
+    private static final int CHAIN_END = 350;
+    private static final List<BlockHeader> CHAIN = chain((byte) 0);
+    private static final List<BlockHeader> FORK = chain((byte) 1);
+
+    @Mock
+    private PeerRequester requester;
+
+    @Mock
+    private NetworkService networkService;
+
+    private final Set<PeerId> usedPeers = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setup() {
+        when(networkService.getPeersWithBlock(any())).thenReturn(List.of(FIRST_PEER, SECOND_PEER));
+    }
+
+    @Test
+    void nextBatch_returnsBlocksInOrderFromAllPeers() {
+        when(requester.requestBlocksFromPeer(any(), eq(BlockRequestField.ALL), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    usedPeers.add(invocation.getArgument(0));
+                    int start = invocation.getArgument(2);
+                    int amount = invocation.getArgument(3);
+                    // Complete later ranges first to exercise reordering
+                    return CompletableFuture.supplyAsync(() -> {
+                        sleep(start % 300 == 0 ? 50 : 0);
+                        return blocks(start, amount);
+                    });
+                });
+
+        List<Block> downloaded = downloadAll(1);
+
+        assertConsecutive(1, downloaded);
+        assertEquals(Set.of(FIRST_PEER, SECOND_PEER), usedPeers);
+    }
+
+    @Test
+    void nextBatch_requestsFailedRangeFromAnotherPeer() {
+        when(requester.requestBlocksFromPeer(eq(FIRST_PEER), eq(BlockRequestField.ALL), anyInt(), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Peer disconnected")));
+        when(requester.requestBlocksFromPeer(eq(SECOND_PEER), eq(BlockRequestField.ALL), anyInt(), anyInt()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        blocks(invocation.getArgument(2), invocation.getArgument(3))));
+
+        assertConsecutive(1, downloadAll(1));
+    }
+
+    @Test
+    void nextBatch_requestsRestOfPartiallyServedRange() {
+        when(requester.requestBlocksFromPeer(any(), eq(BlockRequestField.ALL), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    int amount = invocation.getArgument(3);
+                    // Serve at most 30 blocks per response
+                    return CompletableFuture.completedFuture(
+                            blocks(invocation.getArgument(2), Math.min(amount, 30)));
+                });
+
+        assertConsecutive(1, downloadAll(1));
+    }
+
+    @Test
+    void nextBatch_requestsRangeWithBrokenLinksFromAnotherPeer() {
+        when(requester.requestBlocksFromPeer(eq(FIRST_PEER), eq(BlockRequestField.ALL), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    List<Block> blocks = blocks(invocation.getArgument(2), invocation.getArgument(3));
+                    // Splice a block of another chain into the middle of the response
+                    int spliced = blocks.size() / 2;
+                    return CompletableFuture.completedFuture(Stream.concat(
+                            Stream.concat(blocks.stream().limit(spliced), Stream.of(fork(blocks.get(spliced)))),
+                            blocks.stream().skip(spliced + 1L)).toList());
+                });
+        when(requester.requestBlocksFromPeer(eq(SECOND_PEER), eq(BlockRequestField.ALL), anyInt(), anyInt()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        blocks(invocation.getArgument(2), invocation.getArgument(3))));
+
+        assertConsecutive(1, downloadAll(1));
+    }
+
+    @Test
+    void nextBatch_requestsRangeOfAnotherForkFromAnotherPeer() {
+        when(requester.requestBlocksFromPeer(eq(FIRST_PEER), eq(BlockRequestField.ALL), anyInt(), anyInt()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        blocks(invocation.getArgument(2), invocation.getArgument(3)).stream()
+                                .map(BlockDownloaderTest::fork)
+                                .toList()));
+        when(requester.requestBlocksFromPeer(eq(SECOND_PEER), eq(BlockRequestField.ALL), anyInt(), anyInt()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        blocks(invocation.getArgument(2), invocation.getArgument(3))));
+
+        assertConsecutive(1, downloadAll(1));
+    }
+
+    @Test
+    void nextBatch_keepsRequestsInFlightWhileBatchIsHeld() {
+        Map<Integer, CompletableFuture<List<Block>>> pending = new ConcurrentHashMap<>();
+        when(requester.requestBlocksFromPeer(any(), eq(BlockRequestField.ALL), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    int start = invocation.getArgument(2);
+                    if (start == 1) {
+                        return CompletableFuture.completedFuture(blocks(start, invocation.getArgument(3)));
+                    }
+                    CompletableFuture<List<Block>> response = new CompletableFuture<>();
+                    pending.put(start, response);
+                    return response;
+                });
+        BlockDownloader downloader = new BlockDownloader(requester, networkService, 1, CHAIN.getFirst().getHash());
+
+        try {
+            List<Block> batch = downloader.nextBatch();
+            int maxInFlight = 2 * BlockDownloader.MAX_REQUESTS_PER_PEER;
+            assertEquals(maxInFlight, inFlight(pending));
+
+            // Responses arriving while the batch is being imported free up peers, which get new requests right away
+            pending.get(1 + BlockDownloader.BLOCKS_PER_REQUEST)
+                    .complete(blocks(1 + BlockDownloader.BLOCKS_PER_REQUEST, BlockDownloader.BLOCKS_PER_REQUEST));
+            pending.get(1 + 2 * BlockDownloader.BLOCKS_PER_REQUEST)
+                    .completeExceptionally(new IllegalStateException("Peer disconnected"));
+
+            assertConsecutive(1, BlockDownloader.BLOCKS_PER_REQUEST, batch);
+            assertEquals(maxInFlight, inFlight(pending));
+        } finally {
+            downloader.close();
+        }
+    }
+
+    private static long inFlight(Map<Integer, CompletableFuture<List<Block>>> pending) {
+        return pending.values().stream().filter(response -> !response.isDone()).count();
+    }
+
+    private List<Block> downloadAll(int startNumber) {
+        BlockDownloader downloader = new BlockDownloader(requester, networkService, startNumber,
+                CHAIN.get(startNumber - 1).getHash());
+        List<Block> downloaded = new ArrayList<>();
+        List<Block> batch = downloader.nextBatch();
+        while (!batch.isEmpty()) {
+            downloaded.addAll(batch);
+            batch = downloader.nextBatch();
+        }
+        downloader.close();
+        return downloaded;
+    }
+
+    private static void assertConsecutive(int startNumber, List<Block> blocks) {
+        assertConsecutive(startNumber, CHAIN_END - startNumber + 1, blocks);
+    }
+
+    private static void assertConsecutive(int startNumber, int count, List<Block> blocks) {
+        assertEquals(count, blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            assertSame(CHAIN.get(startNumber + i), blocks.get(i).getHeader());
+        }
+        assertTrue(blocks.stream().allMatch(block -> block.getBody() != null));
+    }
+
+    private static List<Block> blocks(int start, int amount) {
+        int end = Math.min(start + amount - 1, CHAIN_END);
+        return IntStream.rangeClosed(start, end)
+                .mapToObj(number -> new Block(CHAIN.get(number), new BlockBody(List.of())))
+                .toList();
+    }
+
+    private static Block fork(Block block) {
+        int number = block.getHeader().getBlockNumber().intValueExact();
+        return new Block(FORK.get(number), block.getBody());
+    }
+
+    // Chains linked by parent hashes, which differ in the state root of every block
+    private static List<BlockHeader> chain(byte stateRootSeed) {
+        List<BlockHeader> chain = new ArrayList<>();
+        Hash256 parentHash = new Hash256(new byte[32]);
+        for (int number = 0; number <= CHAIN_END; number++) {
+            byte[] stateRoot = new byte[32];
+            stateRoot[0] = stateRootSeed;
+            BlockHeader header = new BlockHeader();
+            header.setParentHash(parentHash);
+            header.setBlockNumber(BigInteger.valueOf(number));
+            header.setStateRoot(new Hash256(stateRoot));
+            header.setExtrinsicsRoot(new Hash256(new byte[32]));
+            header.setDigest(new HeaderDigest[0]);
+            chain.add(header);
+            parentHash = header.getHash();
+        }
+        return chain;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
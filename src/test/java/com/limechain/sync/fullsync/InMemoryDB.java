@@ -4,6 +4,10 @@ import com.limechain.storage.DeleteByPrefixResult;
 import com.limechain.storage.KVRepository;
 import org.apache.commons.collections4.trie.PatriciaTrie;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -11,8 +15,9 @@ import java.util.Optional;
 /**
  * An in-memory implementation of {@link KVRepository} for testing purposes.
  */
-class InMemoryDB implements KVRepository<String, Object> {
+public class InMemoryDB implements KVRepository<String, Object> {
     private final PatriciaTrie<Object> storage = new PatriciaTrie<>();
+    private final Map<String, byte[]> rawStorage = new HashMap<>();
 
     @Override
     public boolean save(String key, Object value) {
@@ -25,6 +30,44 @@ class InMemoryDB implements KVRepository<String, Object> {
         storage.putAll(stringObjectMap);
     }
 
+    @Override
+    public void saveRawBatch(Map<byte[], byte[]> kvMap) {
+        kvMap.forEach((key, value) -> rawStorage.put(HexFormat.of().formatHex(key), value));
+    }
+
+    @Override
+    public Optional<byte[]> findRaw(byte[] key) {
+        return Optional.ofNullable(rawStorage.get(HexFormat.of().formatHex(key)));
+    }
+
+    @Override
+    public void deleteRawBatch(Collection<byte[]> keys) {
+        keys.forEach(key -> {
+            rawStorage.remove(HexFormat.of().formatHex(key));
+            // String keys share the key space of the raw ones as their UTF-8 bytes
+            storage.remove(new String(key, StandardCharsets.UTF_8));
+        });
+    }
+
+    @Override
+    public void writeRawBatch(Map<byte[], byte[]> kvMap, Collection<byte[]> keys) {
+        saveRawBatch(kvMap);
+        deleteRawBatch(keys);
+    }
+
+    @Override
+    public List<byte[]> findRawKeysByPrefix(byte[] prefix, byte[] from, int limit) {
+        // Lower case hex keeps the unsigned lexicographic order of the raw keys
+        String hexPrefix = HexFormat.of().formatHex(prefix);
+        String hexFrom = HexFormat.of().formatHex(from);
+        return rawStorage.keySet().stream()
+                .filter(key -> key.startsWith(hexPrefix) && key.compareTo(hexFrom) >= 0)
+                .sorted()
+                .limit(limit)
+                .map(HexFormat.of()::parseHex)
+                .toList();
+    }
+
     @Override
     public Optional<Object> find(String key) {
         return Optional.ofNullable(storage.get(key));
@@ -67,6 +110,13 @@ class InMemoryDB implements KVRepository<String, Object> {
         return Optional.empty();
     }
 
+    @Override
+    public long getDiskUsage() {
+        return rawStorage.entrySet().stream()
+                .mapToLong(e -> e.getKey().length / 2 + e.getValue().length)
+                .sum();
+    }
+
     @Override
     public void closeConnection() {
 
@@ -0,0 +1,199 @@
+package com.limechain.trie;
+
+import com.limechain.runtime.version.StateVersion;
+import com.limechain.storage.trie.PruningMode;
+import com.limechain.storage.trie.TrieStorage;
+import com.limechain.sync.fullsync.InMemoryDB;
+import com.limechain.trie.structure.NodeHandle;
+import com.limechain.trie.structure.TrieStructure;
+import com.limechain.trie.structure.database.NodeData;
+import com.limechain.trie.structure.nibble.Nibbles;
+import com.limechain.utils.HashUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskTrieServiceTest {
+
+    private Map<Nibbles, byte[]> entries;
+    private TrieStorage trieStorage;
+    private DiskTrieService diskTrieService;
+
+    @BeforeEach
+    void setup() {
+        entries = new LinkedHashMap<>();
+        entries.put(Nibbles.fromHexString("a1b"), new byte[]{1, 2, 3});
+        entries.put(Nibbles.fromHexString("a813f"), new byte[]{1, 4, 8});
+        entries.put(Nibbles.fromHexString("ab2"), new byte[]{6, 2, 5});
+        entries.put(Nibbles.fromHexString("a81"), new byte[]{6, 2, 5});
+
+        trieStorage = new TrieStorage(new InMemoryDB());
+        TrieStructure<NodeData> trie = buildTrie(entries);
+        trieStorage.insertTrieStorage(trie);
+
+        diskTrieService = new DiskTrieService(trieStorage, merkleRoot(trie));
+    }
+
+    @Test
+    void getMerkleRoot_matchesEagerlyHashedTrie() {
+        // Repeated writes to the same path only mark the nodes on it as unhashed
+        for (byte i = 0; i < 10; i++) {
+            upsert("a1b", new byte[]{i});
+            upsert("a81", new byte[]{i, i});
+        }
+        upsert("a815", new byte[]{7});
+
+        assertArrayEquals(merkleRoot(buildTrie(entries)), diskTrieService.getMerkleRoot());
+    }
+
+    @Test
+    void getMerkleRoot_reflectsWritesAfterPreviousCalculation() {
+        upsert("a1b", new byte[]{4, 2});
+        diskTrieService.getMerkleRoot();
+
+        upsert("ab2", new byte[]{4, 4});
+
+        assertArrayEquals(merkleRoot(buildTrie(entries)), diskTrieService.getMerkleRoot());
+    }
+
+    @Test
+    void rollbackTransaction_restoresStateBeforeTransaction() {
+        upsert("a1b", new byte[]{4, 2});
+        byte[] expectedRoot = diskTrieService.getMerkleRoot();
+
+        diskTrieService.startTransaction();
+        diskTrieService.upsertNode(Nibbles.fromHexString("a1b"), new byte[]{9}, StateVersion.V0);
+        diskTrieService.upsertNode(Nibbles.fromHexString("a815"), new byte[]{9}, StateVersion.V0);
+        diskTrieService.getMerkleRoot();
+        diskTrieService.rollbackTransaction();
+
+        assertArrayEquals(expectedRoot, diskTrieService.getMerkleRoot());
+        assertArrayEquals(new byte[]{4, 2}, diskTrieService.findStorageValue(Nibbles.fromHexString("a1b")).orElseThrow());
+        assertTrue(diskTrieService.findStorageValue(Nibbles.fromHexString("a815")).isEmpty());
+    }
+
+    @Test
+    void commitTransaction_keepsChangesUntilEnclosingTransactionIsRolledBack() {
+        byte[] initialRoot = diskTrieService.getMerkleRoot();
+
+        diskTrieService.startTransaction();
+        upsert("ab2", new byte[]{1});
+        diskTrieService.startTransaction();
+        upsert("a815", new byte[]{2});
+        diskTrieService.commitTransaction();
+
+        assertArrayEquals(merkleRoot(buildTrie(entries)), diskTrieService.getMerkleRoot());
+
+        diskTrieService.rollbackTransaction();
+
+        assertArrayEquals(initialRoot, diskTrieService.getMerkleRoot());
+        assertEquals(0, diskTrieService.getTransactionDepth());
+    }
+
+    @Test
+    void findChangedStorageValue_returnsOnlyValuesDifferentFromPersistedOnes() {
+        // Inserting below "a81" restructures the path to it, without changing its value
+        upsert("a815", new byte[]{7});
+        upsert("a1b", new byte[]{1, 2, 3});
+        upsert("ab2", new byte[]{4, 4});
+        diskTrieService.startTransaction();
+        upsert("a813f", new byte[]{9});
+        diskTrieService.rollbackTransaction();
+
+        assertArrayEquals(new byte[]{7}, diskTrieService.findChangedStorageValue(Nibbles.fromHexString("a815")).orElseThrow());
+        assertArrayEquals(new byte[]{4, 4}, diskTrieService.findChangedStorageValue(Nibbles.fromHexString("ab2")).orElseThrow());
+        assertTrue(diskTrieService.findChangedStorageValue(Nibbles.fromHexString("a81")).isEmpty());
+        assertTrue(diskTrieService.findChangedStorageValue(Nibbles.fromHexString("a1b")).isEmpty());
+        assertTrue(diskTrieService.findChangedStorageValue(Nibbles.fromHexString("a813f")).isEmpty());
+    }
+
+    @Test
+    void persistChanges_promotesValuesReadDuringBlockToNewRoot() {
+        byte[] parentRoot = diskTrieService.getMerkleRoot();
+        for (String key : List.of("a1b", "a81", "a813f", "ab2", "a2")) {
+            diskTrieService.findStorageValue(Nibbles.fromHexString(key));
+        }
+
+        upsert("a1b", new byte[]{9});
+        upsert("a2", new byte[]{5});
+        diskTrieService.deleteMultipleNodesByPrefix(Nibbles.fromHexString("a81"), null);
+        entries.remove(Nibbles.fromHexString("a81"));
+        entries.remove(Nibbles.fromHexString("a813f"));
+        diskTrieService.persistChanges();
+
+        byte[] newRoot = diskTrieService.getMerkleRoot();
+        assertArrayEquals(merkleRoot(buildTrie(entries)), newRoot);
+        assertStorageValues(new DiskTrieService(trieStorage, newRoot), entries);
+        // The parent's state is still readable, e.g. by a fork built on top of it
+        assertStorageValues(new DiskTrieService(trieStorage, parentRoot), Map.of(
+                Nibbles.fromHexString("a1b"), new byte[]{1, 2, 3},
+                Nibbles.fromHexString("a81"), new byte[]{6, 2, 5},
+                Nibbles.fromHexString("a813f"), new byte[]{1, 4, 8}));
+        assertTrue(new DiskTrieService(trieStorage, parentRoot).findStorageValue(Nibbles.fromHexString("a2")).isEmpty());
+    }
+
+    @Test
+    void persistChanges_movesFlatStateAlongWithTrie() {
+        Map<Nibbles, byte[]> flatEntries = new LinkedHashMap<>();
+        flatEntries.put(Nibbles.fromHexString("a1"), new byte[]{1});
+        flatEntries.put(Nibbles.fromHexString("a813"), new byte[]{2});
+        flatEntries.put(Nibbles.fromHexString("ab"), new byte[]{3});
+        TrieStorage flatTrieStorage = new TrieStorage(new InMemoryDB(), PruningMode.ARCHIVE, true);
+        TrieStructure<NodeData> trie = buildTrie(flatEntries);
+        flatTrieStorage.insertTrieStorage(trie);
+        DiskTrieService trieService = new DiskTrieService(flatTrieStorage, merkleRoot(trie));
+
+        trieService.upsertNode(Nibbles.fromHexString("a2"), new byte[]{4}, StateVersion.V0);
+        trieService.deleteStorageNode(Nibbles.fromHexString("a813"));
+        // Pending changes are merged with the keys of the flat state
+        assertEquals(Nibbles.fromHexString("a2"), trieService.getNextKey(Nibbles.fromHexString("a1")).orElseThrow());
+        assertEquals(Nibbles.fromHexString("ab"), trieService.getNextKey(Nibbles.fromHexString("a2")).orElseThrow());
+        trieService.persistChanges();
+
+        byte[] newRoot = trieService.getMerkleRoot();
+        assertTrue(flatTrieStorage.isFlatStateAt(newRoot));
+        DiskTrieService persisted = new DiskTrieService(flatTrieStorage, newRoot);
+        assertEquals(Nibbles.fromHexString("a2"), persisted.getNextKey(Nibbles.fromHexString("a1")).orElseThrow());
+        assertEquals(Nibbles.fromHexString("ab"), persisted.getNextKey(Nibbles.fromHexString("a2")).orElseThrow());
+        assertTrue(persisted.getNextKey(Nibbles.fromHexString("ab")).isEmpty());
+        assertArrayEquals(new byte[]{4}, persisted.findStorageValue(Nibbles.fromHexString("a2")).orElseThrow());
+        assertTrue(persisted.findStorageValue(Nibbles.fromHexString("a813")).isEmpty());
+    }
+
+    private static void assertStorageValues(DiskTrieService trie, Map<Nibbles, byte[]> expected) {
+        expected.forEach((key, value) -> assertArrayEquals(value, trie.findStorageValue(key).orElseThrow()));
+        for (String removed : List.of("a81", "a813f")) {
+            Nibbles key = Nibbles.fromHexString(removed);
+            if (!expected.containsKey(key)) {
+                assertTrue(trie.findStorageValue(key).isEmpty());
+            }
+        }
+    }
+
+    private void upsert(String hexKey, byte[] value) {
+        Nibbles key = Nibbles.fromHexString(hexKey);
+        entries.put(key, value);
+        diskTrieService.upsertNode(key, value, StateVersion.V0);
+    }
+
+    private static TrieStructure<NodeData> buildTrie(Map<Nibbles, byte[]> entries) {
+        TrieStructure<NodeData> trie = new TrieStructure<>();
+        entries.forEach((key, value) -> trie.insertNode(key, new NodeData(value), StateVersion.V0));
+        TrieStructureFactory.calculateMerkleValues(trie, HashUtils::hashWithBlake2b);
+        return trie;
+    }
+
+    private static byte[] merkleRoot(TrieStructure<NodeData> trie) {
+        return trie.getRootNode()
+                .map(NodeHandle::getUserData)
+                .map(NodeData::getMerkleValue)
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,87 @@
+package com.limechain.trie;
+
+import com.limechain.chain.spec.ChainSpec;
+import com.limechain.runtime.version.StateVersion;
+import com.limechain.trie.structure.NodeHandle;
+import com.limechain.trie.structure.TrieNodeIndex;
+import com.limechain.trie.structure.TrieStructure;
+import com.limechain.trie.structure.database.NodeData;
+import com.limechain.trie.structure.nibble.Nibbles;
+import com.limechain.utils.HashUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrieStructureFactoryTest {
+
+    private static final int SEQUENTIAL = Integer.MAX_VALUE;
+
+    @Test
+    void calculateMerkleValues_parallelMatchesSequential() {
+        TrieStructure<NodeData> sequential = randomTrie(2000);
+        TrieStructure<NodeData> parallel = randomTrie(2000);
+
+        TrieStructureFactory.calculateMerkleValues(sequential, HashUtils::hashWithBlake2b, SEQUENTIAL);
+        TrieStructureFactory.calculateMerkleValues(parallel, HashUtils::hashWithBlake2b, 16);
+
+        assertArrayEquals(merkleRoot(sequential), merkleRoot(parallel));
+    }
+
+    @Test
+    void calculateMerkleValues_parallelMatchesGenesisRoot() throws IOException {
+        ChainSpec chainSpec = ChainSpec.newFromJSON("genesis/westend2.json");
+        TrieStructure<NodeData> sequential =
+                TrieStructureFactory.buildTrieStructure(chainSpec.getGenesis().getTop(), StateVersion.V0);
+        TrieStructure<NodeData> parallel =
+                TrieStructureFactory.buildTrieStructure(chainSpec.getGenesis().getTop(), StateVersion.V0);
+
+        TrieStructureFactory.calculateMerkleValues(sequential, HashUtils::hashWithBlake2b, SEQUENTIAL);
+        TrieStructureFactory.calculateMerkleValues(parallel, HashUtils::hashWithBlake2b, 8);
+
+        assertArrayEquals(merkleRoot(sequential), merkleRoot(parallel));
+    }
+
+    @Test
+    void recalculateMerkleValues_parallelReturnsSameUpdatedNodesInSameOrder() {
+        TrieStructure<NodeData> sequential = randomTrie(2000);
+        TrieStructure<NodeData> parallel = randomTrie(2000);
+        TrieStructureFactory.calculateMerkleValues(sequential, HashUtils::hashWithBlake2b, SEQUENTIAL);
+        TrieStructureFactory.calculateMerkleValues(parallel, HashUtils::hashWithBlake2b, SEQUENTIAL);
+        Nibbles changedKey = Nibbles.fromHexString("0123");
+        sequential.insertNode(changedKey, new NodeData(new byte[]{42}), StateVersion.V0);
+        parallel.insertNode(changedKey, new NodeData(new byte[]{42}), StateVersion.V0);
+
+        List<TrieNodeIndex> sequentialUpdates = TrieStructureFactory.recalculateMerkleValues(
+                sequential, StateVersion.V0, HashUtils::hashWithBlake2b, SEQUENTIAL);
+        List<TrieNodeIndex> parallelUpdates = TrieStructureFactory.recalculateMerkleValues(
+                parallel, StateVersion.V0, HashUtils::hashWithBlake2b, 16);
+
+        assertEquals(sequentialUpdates, parallelUpdates);
+        assertArrayEquals(merkleRoot(sequential), merkleRoot(parallel));
+    }
+
+    private static TrieStructure<NodeData> randomTrie(int entries) {
+        Random random = new Random(42);
+        TrieStructure<NodeData> trie = new TrieStructure<>();
+        for (int i = 0; i < entries; i++) {
+            byte[] key = new byte[1 + random.nextInt(4)];
+            byte[] value = new byte[random.nextInt(64)];
+            random.nextBytes(key);
+            random.nextBytes(value);
+            trie.insertNode(Nibbles.fromBytes(key), new NodeData(value), StateVersion.V1);
+        }
+        return trie;
+    }
+
+    private static byte[] merkleRoot(TrieStructure<NodeData> trie) {
+        return trie.getRootNode()
+                .map(NodeHandle::getUserData)
+                .map(NodeData::getMerkleValue)
+                .orElseThrow();
+    }
+}
@@ -1,6 +1,7 @@
 package com.limechain.trie.cache;
 
 import com.limechain.trie.cache.node.PendingInsertUpdate;
+import com.limechain.trie.cache.node.PendingRemove;
 import com.limechain.trie.cache.node.PendingTrieNodeChange;
 import com.limechain.trie.structure.nibble.Nibble;
 import com.limechain.trie.structure.nibble.Nibbles;
@@ -74,6 +75,22 @@ class TrieChangesTest {
         assertEquals(update1, entries.get(0).getValue());
     }
 
+    @Test
+    void testGetEntriesInKeyPath_SkipsKeysOffThePath() {
+        PendingTrieNodeChange root = mock(PendingTrieNodeChange.class);
+        PendingTrieNodeChange ancestor = mock(PendingTrieNodeChange.class);
+        changes.put(Nibbles.EMPTY, root);
+        changes.put(Nibbles.fromHexString("12"), ancestor);
+        changes.put(Nibbles.fromHexString("1233"), mock(PendingTrieNodeChange.class));
+        changes.put(Nibbles.fromHexString("12345"), mock(PendingTrieNodeChange.class));
+        changes.put(Nibbles.fromHexString("1235"), mock(PendingTrieNodeChange.class));
+
+        List<Map.Entry<Nibbles, PendingTrieNodeChange>> entries = trieChanges.getEntriesInKeyPath(
+            null, Nibbles.fromHexString("1234"));
+        assertEquals(List.of(Map.entry(Nibbles.EMPTY, root), Map.entry(Nibbles.fromHexString("12"), ancestor)),
+            entries);
+    }
+
     @Test
     void testGetChildByIndex_NotFound() {
         Nibbles parentKey = Nibbles.fromHexString("123");
@@ -94,4 +111,19 @@ class TrieChangesTest {
         assertTrue(child.isPresent());
         assertEquals(childChange, child.get());
     }
+
+    @Test
+    void testGetChildByIndex_SkipsRemovalsAndStopsAtOtherIndexes() {
+        Nibbles parentKey = Nibbles.fromHexString("123");
+        Nibble childIndex = Nibble.fromAsciiHexDigit('4');
+        changes.put(Nibbles.fromHexString("1234"), new PendingRemove());
+        changes.put(Nibbles.fromHexString("12345"), new PendingRemove());
+        changes.put(Nibbles.fromHexString("1235"), mock(PendingInsertUpdate.class));
+
+        assertEquals(Optional.empty(), trieChanges.getChildByIndex(parentKey, childIndex));
+
+        PendingInsertUpdate mergedChild = mock(PendingInsertUpdate.class);
+        changes.put(Nibbles.fromHexString("123456"), mergedChild);
+        assertEquals(Optional.of(mergedChild), trieChanges.getChildByIndex(parentKey, childIndex));
+    }
 }
\ No newline at end of file
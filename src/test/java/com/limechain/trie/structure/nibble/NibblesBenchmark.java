@@ -0,0 +1,158 @@
+package com.limechain.trie.structure.nibble;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compares the packed {@link Nibbles} with the former list based representation on the operations dominating
+ * trie traversal: prefix slicing and concatenation of keys, and lookups in a {@link TreeMap} keyed by nibbles,
+ * as done by {@link com.limechain.trie.cache.TrieChanges}. Reports throughput and bytes allocated per operation.
+ * Excluded from the regular test run, execute with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class NibblesBenchmark {
+    private static final Logger log = Logger.getLogger(NibblesBenchmark.class.getName());
+
+    private static final int KEYS = 10_000;
+    private static final int KEY_BYTES = 32;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    void traversalLikeWorkload() {
+        Random random = new Random(42);
+        List<byte[]> keys = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            byte[] key = new byte[KEY_BYTES];
+            random.nextBytes(key);
+            keys.add(key);
+        }
+
+        List<Nibbles> packedKeys = keys.stream().map(Nibbles::fromBytes).toList();
+        List<ListNibbles> listKeys = keys.stream().map(ListNibbles::fromBytes).toList();
+
+        measure("packed", () -> packedWorkload(packedKeys));
+        measure("list", () -> listWorkload(listKeys));
+    }
+
+    private static int packedWorkload(List<Nibbles> keys) {
+        TreeMap<Nibbles, Integer> map = new TreeMap<>();
+        for (Nibbles key : keys) {
+            // Split into a partial key and child path, as when walking down from a branch, and join them back
+            Nibbles joined = key.take(5).add(key.get(5)).addAll(key.drop(6));
+            map.put(joined, joined.size());
+        }
+
+        int found = 0;
+        for (Nibbles key : keys) {
+            if (map.containsKey(key) && key.startsWith(key.take(10))) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int listWorkload(List<ListNibbles> keys) {
+        TreeMap<ListNibbles, Integer> map = new TreeMap<>();
+        for (ListNibbles key : keys) {
+            ListNibbles joined = key.take(5).add(key.get(5)).addAll(key.drop(6));
+            map.put(joined, joined.size());
+        }
+
+        int found = 0;
+        for (ListNibbles key : keys) {
+            if (map.containsKey(key) && key.startsWith(key.take(10))) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static void measure(String name, Supplier<Integer> workload) {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            workload.get();
+        }
+
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            workload.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        long operations = (long) MEASURED_ROUNDS * KEYS;
+        log.log(Level.INFO, String.format("%s: %.1f ns/key, %d bytes/key allocated",
+                name, (double) elapsed / operations, allocated / operations));
+    }
+
+    /**
+     * The former list based representation, kept as a baseline.
+     */
+    private record ListNibbles(List<Nibble> entries) implements Comparable<ListNibbles> {
+        static ListNibbles fromBytes(byte[] bytes) {
+            List<Nibble> entries = new ArrayList<>(bytes.length * 2);
+            for (byte b : bytes) {
+                entries.add(Nibble.fromInt((b >> 4) & 0x0F));
+                entries.add(Nibble.fromInt(b & 0x0F));
+            }
+            return new ListNibbles(entries);
+        }
+
+        Nibble get(int index) {
+            return entries.get(index);
+        }
+
+        int size() {
+            return entries.size();
+        }
+
+        ListNibbles add(Nibble nibble) {
+            List<Nibble> newEntries = new ArrayList<>(entries);
+            newEntries.add(nibble);
+            return new ListNibbles(newEntries);
+        }
+
+        ListNibbles addAll(ListNibbles other) {
+            List<Nibble> newEntries = new ArrayList<>(entries);
+            newEntries.addAll(other.entries);
+            return new ListNibbles(newEntries);
+        }
+
+        ListNibbles take(int n) {
+            return new ListNibbles(new ArrayList<>(entries.subList(0, n)));
+        }
+
+        ListNibbles drop(int n) {
+            return new ListNibbles(new ArrayList<>(entries.subList(n, entries.size())));
+        }
+
+        boolean startsWith(ListNibbles prefix) {
+            return prefix.size() <= size() && prefix.entries.equals(entries.subList(0, prefix.size()));
+        }
+
+        @Override
+        public int compareTo(ListNibbles o) {
+            return toLowerHexString().compareTo(o.toLowerHexString());
+        }
+
+        private String toLowerHexString() {
+            StringBuilder builder = new StringBuilder(entries.size());
+            entries.forEach(nibble -> builder.append(nibble.asLowerHexDigit()));
+            return builder.toString();
+        }
+    }
+}
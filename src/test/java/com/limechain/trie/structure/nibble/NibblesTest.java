@@ -0,0 +1,82 @@
+package com.limechain.trie.structure.nibble;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NibblesTest {
+
+    @Test
+    void slicesOfDifferentAlignmentAreEqual() {
+        Nibbles nibbles = Nibbles.fromHexString("1abcabc");
+
+        Nibbles oddAligned = nibbles.drop(1).take(3);
+        Nibbles evenAligned = nibbles.drop(4);
+
+        assertEquals("abc", oddAligned.toString());
+        assertEquals(oddAligned, evenAligned);
+        assertEquals(oddAligned.hashCode(), evenAligned.hashCode());
+        assertEquals(Nibbles.fromHexString("abc"), oddAligned.copy());
+    }
+
+    @Test
+    void commonPrefixLength_comparesAcrossAlignments() {
+        Nibbles nibbles = Nibbles.fromHexString("0123456789abcdef");
+
+        assertEquals(5, nibbles.drop(1).commonPrefixLength(Nibbles.fromHexString("12345f")));
+        assertEquals(4, nibbles.commonPrefixLength(Nibbles.fromHexString("0123")));
+        assertEquals(0, nibbles.commonPrefixLength(Nibbles.EMPTY));
+        assertTrue(nibbles.drop(3).startsWith(nibbles.drop(3).take(6)));
+        assertFalse(nibbles.startsWith(Nibbles.fromHexString("0124")));
+    }
+
+    @Test
+    void compareTo_ordersLexicographicallyWithPrefixesFirst() {
+        TreeSet<Nibbles> sorted = new TreeSet<>(List.of(
+                Nibbles.fromHexString("ab"),
+                Nibbles.fromHexString("a"),
+                Nibbles.fromHexString("0ff"),
+                Nibbles.fromHexString("fab").drop(1),
+                Nibbles.EMPTY));
+
+        assertEquals(List.of("", "0ff", "a", "ab"), sorted.stream().map(Nibbles::toString).toList());
+        assertNotEquals(0, Nibbles.fromHexString("a").compareTo(List.of(Nibble.fromInt(0xa), Nibble.ZERO)));
+    }
+
+    @Test
+    void addAndAddAll_createNewNibbles() {
+        Nibbles nibbles = Nibbles.fromHexString("abc").drop(1);
+
+        assertEquals("bc1", nibbles.add(Nibble.fromInt(1)).toString());
+        assertEquals("b2c", nibbles.add(1, Nibble.fromInt(2)).toString());
+        assertEquals("bcbc", nibbles.addAll(nibbles).toString());
+        assertEquals("bc", nibbles.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> nibbles.drop(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> nibbles.get(2));
+    }
+
+    @Test
+    void serialization_roundTripsSlices() throws IOException, ClassNotFoundException {
+        Nibbles nibbles = Nibbles.fromHexString("abcdef").drop(1).take(3);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(nibbles);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(nibbles, in.readObject());
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.limechain.utils;
 import org.apache.tomcat.util.buf.HexUtils;
 import org.junit.jupiter.api.Test;
 
+import java.lang.foreign.MemorySegment;
+
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 
 class HashUtilsTest {
@@ -73,6 +75,13 @@ class HashUtilsTest {
         assertArrayEquals(HexUtils.fromHexString(XX128), bytes);
     }
 
+    @Test
+    void hashXx128OfMemorySegment() {
+        byte[] bytes = HashUtils.hashXx128(0, MemorySegment.ofArray("System".getBytes()));
+
+        assertArrayEquals(HexUtils.fromHexString(XX128), bytes);
+    }
+
     @Test
     void hashXx256() {
         byte[] bytes = HashUtils.hashXx256(0, "System".getBytes());